@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Helpers that locate the test fixtures used by the benchmarks and derive scaled synthetic inputs from them. The
+ * fixtures folder defaults to src/test/resources and can be overridden through the "photon.fixtures" system property.
+ */
+final class BenchmarkFixtures
+{
+    static final String FIXTURES_PROPERTY = "photon.fixtures";
+
+    private BenchmarkFixtures()
+    {
+        //to prevent instantiation
+    }
+
+    static Path resolve(String relativePath)
+    {
+        Path path = Paths.get(System.getProperty(FIXTURES_PROPERTY, "src/test/resources")).resolve(relativePath);
+        if (!Files.exists(path))
+        {
+            throw new IllegalStateException(String.format("Benchmark fixture %s not found, set the %s system property to the test resources folder", path, FIXTURES_PROPERTY));
+        }
+        return path;
+    }
+
+    static byte[] readAllBytes(String relativePath) throws IOException
+    {
+        return Files.readAllBytes(resolve(relativePath));
+    }
+
+    static byte[] repeat(byte[] bytes, int count)
+    {
+        byte[] repeated = new byte[bytes.length * count];
+        for (int i = 0; i < count; i++)
+        {
+            System.arraycopy(bytes, 0, repeated, i * bytes.length, bytes.length);
+        }
+        return repeated;
+    }
+
+    static byte[] randomBytes(int size)
+    {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
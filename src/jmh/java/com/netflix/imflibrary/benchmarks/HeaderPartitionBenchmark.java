@@ -0,0 +1,85 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.benchmarks;
+
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ByteProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the KLV packet header and header partition parsers over the header partition fixtures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HeaderPartitionBenchmark
+{
+    @Param({"TearsOfSteel_4k_Test_Master_Audio_002.mxf.hdr", "CHIMERA_NETFLIX_2398.mxf.hdr", "NMPC_6000ms_6Ch_ch_id.mxf.hdr"})
+    public String headerPartitionFixture;
+
+    private byte[] headerPartitionBytes;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.headerPartitionBytes = BenchmarkFixtures.readAllBytes(this.headerPartitionFixture);
+    }
+
+    @Benchmark
+    public long klvPacketHeaders() throws IOException
+    {
+        ByteProvider byteProvider = new ByteArrayDataProvider(this.headerPartitionBytes);
+        long numBytesRead = 0;
+        long numPackets = 0;
+        while (this.headerPartitionBytes.length - numBytesRead >= KLVPacket.KEY_FIELD_SIZE + 1)
+        {
+            KLVPacket.Header header = new KLVPacket.Header(byteProvider, numBytesRead);
+            long vSize = Math.min(header.getVSize(), this.headerPartitionBytes.length - numBytesRead - header.getKLSize());
+            byteProvider.skipBytes(vSize);
+            numBytesRead += header.getKLSize() + vSize;
+            numPackets++;
+        }
+        return numPackets;
+    }
+
+    @Benchmark
+    public HeaderPartition headerPartition() throws IOException
+    {
+        return new HeaderPartition(new ByteArrayDataProvider(this.headerPartitionBytes), 0L, this.headerPartitionBytes.length, new IMFErrorLoggerImpl());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.benchmarks;
+
+import com.netflix.imflibrary.app.IMPAnalyzer;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of the analysis of complete IMF deliveries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class IMPAnalyzerBenchmark
+{
+    @Param({"TestIMP/MERIDIAN_Netflix_Photon_161006", "TestIMP/PHDR", "TestIMP/TimedTextImageAndTextProfile"})
+    public String deliveryFixture;
+
+    private Path rootPath;
+
+    @Setup
+    public void setup()
+    {
+        this.rootPath = BenchmarkFixtures.resolve(this.deliveryFixture);
+    }
+
+    @Benchmark
+    public Map<String, List<ErrorLogger.ErrorObject>> analyzeDelivery() throws IOException
+    {
+        return IMPAnalyzer.analyzeDelivery(this.rootPath);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.benchmarks;
+
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.st0377.IndexTableSegment;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ByteProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the index table segment parser. The input is the index table segment fixture repeated "scale" times,
+ * to observe how parsing scales with the duration of a track file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IndexTableSegmentBenchmark
+{
+    @Param({"1", "64", "4096"})
+    public int scale;
+
+    private byte[] indexTableBytes;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.indexTableBytes = BenchmarkFixtures.repeat(BenchmarkFixtures.readAllBytes("Netflix_Ident_23976_3840x2160_177AR.mxf.idx"), this.scale);
+    }
+
+    @Benchmark
+    public void indexTableSegments(Blackhole blackhole) throws IOException
+    {
+        ByteProvider byteProvider = new ByteArrayDataProvider(this.indexTableBytes);
+        long numBytesRead = 0;
+        while (numBytesRead < this.indexTableBytes.length)
+        {
+            KLVPacket.Header header = new KLVPacket.Header(byteProvider, numBytesRead);
+            if (IndexTableSegment.isValidKey(header.getKey()))
+            {
+                blackhole.consume(new IndexTableSegment(byteProvider, header));
+            }
+            else
+            {
+                byteProvider.skipBytes(header.getVSize());
+            }
+            numBytesRead += header.getKLSize() + header.getVSize();
+        }
+    }
+}
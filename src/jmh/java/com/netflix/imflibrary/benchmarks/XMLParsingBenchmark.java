@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.benchmarks;
+
+import com.netflix.imflibrary.st0429_8.PackingList;
+import com.netflix.imflibrary.st2067_2.IMFCompositionPlaylist;
+import com.netflix.imflibrary.utils.ByteArrayByteRangeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the CPL and PKL parsers, including schema validation, over the CPL and PKL fixtures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XMLParsingBenchmark
+{
+    @Param({"TestIMP/MERIDIAN_Netflix_Photon_161006/CPL_0eb3d1b9-b77b-4d3f-bbe5-7c69b15dca85.xml", "TestIMP/NYCbCrLT_3840x2160x23.98x10min/CPL_a453b63a-cf4d-454a-8c34-141f560c0100.xml"})
+    public String compositionPlaylistFixture;
+
+    @Param({"TestIMP/MERIDIAN_Netflix_Photon_161006/PKL_f5e93462-aed2-44ad-a4ba-2adb65823e7c.xml"})
+    public String packingListFixture;
+
+    private byte[] compositionPlaylistBytes;
+    private byte[] packingListBytes;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.compositionPlaylistBytes = BenchmarkFixtures.readAllBytes(this.compositionPlaylistFixture);
+        this.packingListBytes = BenchmarkFixtures.readAllBytes(this.packingListFixture);
+    }
+
+    @Benchmark
+    public IMFCompositionPlaylist compositionPlaylist() throws IOException
+    {
+        return new IMFCompositionPlaylist(new ByteArrayByteRangeProvider(this.compositionPlaylistBytes));
+    }
+
+    @Benchmark
+    public PackingList packingList() throws IOException
+    {
+        return new PackingList(new ByteArrayByteRangeProvider(this.packingListBytes));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A helper that runs independent tasks, such as the scan of a range of edit units, on an optional Executor. An
+ * IOException thrown by a task is rethrown as is by the thread that collects the results, other exceptions are
+ * rethrown wrapped in a CompletionException.
+ */
+public final class ConcurrentTasks
+{
+    /**
+     * A task that may throw an IOException
+     *
+     * @param <T> the type of the input of the task
+     * @param <R> the type of the result of the task
+     */
+    @FunctionalInterface
+    public interface Task<T, R>
+    {
+        /**
+         * Runs the task
+         *
+         * @param input the input of the task
+         * @return the result of the task
+         * @throws IOException - any I/O related error is exposed through an IOException
+         */
+        R apply(T input) throws IOException;
+    }
+
+    private ConcurrentTasks()
+    {
+        //to prevent instantiation
+    }
+
+    /**
+     * A method that applies a task to every input. The tasks run on the executor, unless there is a single input,
+     * which is not worth a hand-off to another thread, or no executor, in which case they run on the calling thread.
+     *
+     * @param executor the Executor that the tasks run on, null to run them on the calling thread
+     * @param inputs the inputs of the tasks
+     * @param task the task
+     * @param <T> the type of the inputs
+     * @param <R> the type of the results
+     * @return the results of the tasks, in the order of their inputs
+     * @throws IOException - any I/O related error thrown by a task is exposed through an IOException
+     */
+    public static <T, R> List<R> invokeAll(@Nullable Executor executor, @Nonnull List<? extends T> inputs,
+                                           @Nonnull Task<? super T, ? extends R> task) throws IOException
+    {
+        List<R> results = new ArrayList<>(inputs.size());
+        if (executor == null || inputs.size() <= 1)
+        {
+            for (T input : inputs)
+            {
+                results.add(task.apply(input));
+            }
+            return results;
+        }
+        List<CompletableFuture<? extends R>> pending = new ArrayList<>(inputs.size());
+        for (T input : inputs)
+        {
+            pending.add(submit(executor, input, task));
+        }
+        for (CompletableFuture<? extends R> future : pending)
+        {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    /**
+     * A method that submits a task to an executor, or runs it on the calling thread when there is no executor
+     *
+     * @param executor the Executor that the task runs on, null to run it on the calling thread
+     * @param input the input of the task
+     * @param task the task
+     * @param <T> the type of the input
+     * @param <R> the type of the result
+     * @return the pending result of the task, to be collected with {@link #join(CompletableFuture)}
+     * @throws IOException - any I/O related error thrown by a task run on the calling thread is exposed through an IOException
+     */
+    public static <T, R> CompletableFuture<R> submit(@Nullable Executor executor, T input, @Nonnull Task<? super T, ? extends R> task) throws IOException
+    {
+        if (executor == null)
+        {
+            return CompletableFuture.completedFuture(task.apply(input));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return task.apply(input);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * A method that waits for the result of a task
+     *
+     * @param future the pending result of the task
+     * @param <R> the type of the result
+     * @return the result of the task
+     * @throws IOException - any I/O related error thrown by the task is exposed through an IOException
+     */
+    public static <R> R join(@Nonnull CompletableFuture<? extends R> future) throws IOException
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+}
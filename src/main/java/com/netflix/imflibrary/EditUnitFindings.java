@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Findings of a scan of the edit units of a track file, keyed by description and kept in the order in which they were
+ * first found, so that a defect shared by many edit units is reported once along with the number of edit units that
+ * exhibit it and the first edit unit at which it occurs
+ */
+final class EditUnitFindings
+{
+    private final Map<String, Finding> findings = new LinkedHashMap<>();
+
+    void add(Enum errorLevel, String description, long editUnit)
+    {
+        Finding finding = this.findings.get(description);
+        if (finding == null)
+        {
+            this.findings.put(description, new Finding(errorLevel, editUnit, 1));
+        }
+        else
+        {
+            finding.count++;
+        }
+    }
+
+    void addAll(EditUnitFindings other)
+    {
+        for (Map.Entry<String, Finding> entry : other.findings.entrySet())
+        {
+            Finding finding = this.findings.get(entry.getKey());
+            if (finding == null)
+            {
+                this.findings.put(entry.getKey(), entry.getValue());
+            }
+            else
+            {
+                finding.count += entry.getValue().count;
+            }
+        }
+    }
+
+    int size()
+    {
+        return this.findings.size();
+    }
+
+    List<ErrorLogger.ErrorObject> toErrors()
+    {
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>();
+        for (Map.Entry<String, Finding> entry : this.findings.entrySet())
+        {
+            Finding finding = entry.getValue();
+            String description = (finding.firstEditUnit < 0) ? entry.getKey()
+                    : String.format("%s (%d edit unit(s), first at edit unit %d)", entry.getKey(), finding.count, finding.firstEditUnit);
+            errors.add(new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, finding.errorLevel, description));
+        }
+        return errors;
+    }
+
+    private static final class Finding
+    {
+        private final Enum errorLevel;
+        private final long firstEditUnit;
+        private long count;
+
+        private Finding(Enum errorLevel, long firstEditUnit, long count)
+        {
+            this.errorLevel = errorLevel;
+            this.firstEditUnit = firstEditUnit;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An ErrorSink that terminates a validation once a number of distinct errors at or above a given ErrorLevel have been
+ * reported. Every distinct error is forwarded to an optional delegate sink.
+ */
+@ThreadSafe
+public final class ErrorBudget implements ErrorSink
+{
+    private final IMFErrorLogger.IMFErrors.ErrorLevels minimumErrorLevel;
+    private final int maximumNumberOfErrors;
+    private final ErrorSink delegate;
+    private final Set<ErrorLogger.ErrorObject> reportedErrorObjects;
+    private final AtomicInteger numberOfCountedErrors;
+
+    /**
+     * Instantiates a new ErrorBudget
+     *
+     * @param minimumErrorLevel errors at or above this level are counted against the budget
+     * @param maximumNumberOfErrors the number of counted errors after which the validation is terminated, must be &gt; 0
+     * @param delegate a sink that every distinct error is forwarded to
+     */
+    public ErrorBudget(@Nonnull IMFErrorLogger.IMFErrors.ErrorLevels minimumErrorLevel, int maximumNumberOfErrors, @Nonnull ErrorSink delegate)
+    {
+        if (maximumNumberOfErrors <= 0)
+        {
+            throw new IllegalArgumentException(String.format("maximumNumberOfErrors = %d is not > 0", maximumNumberOfErrors));
+        }
+        this.minimumErrorLevel = minimumErrorLevel;
+        this.maximumNumberOfErrors = maximumNumberOfErrors;
+        this.delegate = delegate;
+        this.reportedErrorObjects = ConcurrentHashMap.newKeySet();
+        this.numberOfCountedErrors = new AtomicInteger(0);
+    }
+
+    /**
+     * A factory method for a budget that terminates a validation at the first FATAL error
+     *
+     * @return an ErrorBudget
+     */
+    public static ErrorBudget failFast()
+    {
+        return new ErrorBudget(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, 1, ErrorSink.NONE);
+    }
+
+    /**
+     * A factory method for a budget that terminates a validation after a number of errors of any level
+     *
+     * @param maximumNumberOfErrors the number of errors after which the validation is terminated
+     * @return an ErrorBudget
+     */
+    public static ErrorBudget maxErrors(int maximumNumberOfErrors)
+    {
+        return new ErrorBudget(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, maximumNumberOfErrors, ErrorSink.NONE);
+    }
+
+    @Override
+    public void onError(ErrorLogger.ErrorObject errorObject)
+    {
+        if (!this.reportedErrorObjects.add(errorObject))
+        {
+            return;
+        }
+        if (errorObject.getErrorLevel() instanceof IMFErrorLogger.IMFErrors.ErrorLevels
+                && ((IMFErrorLogger.IMFErrors.ErrorLevels) errorObject.getErrorLevel()).compareTo(this.minimumErrorLevel) >= 0)
+        {
+            this.numberOfCountedErrors.incrementAndGet();
+        }
+        this.delegate.onError(errorObject);
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return this.numberOfCountedErrors.get() >= this.maximumNumberOfErrors || this.delegate.isTerminated();
+    }
+
+    /**
+     * Getter for the number of distinct errors that were counted against this budget
+     *
+     * @return the number of counted errors
+     */
+    public int getNumberOfCountedErrors()
+    {
+        return this.numberOfCountedErrors.get();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+
+/**
+ * A listener that errors are pushed to as soon as they are logged, rather than being collected and inspected once a
+ * validation completes. A sink can also request that the remaining checks of a validation be skipped, see
+ * {@link #isTerminated()}.
+ *
+ * Errors are propagated between several IMFErrorLogger objects during a validation, therefore the same error may be
+ * pushed to a sink more than once. Implementations that count errors should de-duplicate them, as {@link ErrorBudget} does.
+ */
+public interface ErrorSink
+{
+    /**
+     * A sink that ignores all errors and never terminates a validation
+     */
+    ErrorSink NONE = errorObject -> {};
+
+    /**
+     * Invoked for every error as it is logged. This method may be invoked concurrently from several threads.
+     *
+     * @param errorObject the error that was logged
+     */
+    void onError(ErrorLogger.ErrorObject errorObject);
+
+    /**
+     * Indicates whether the validation feeding this sink should skip its remaining checks. Validations poll this method
+     * between checks, so a few more errors may be pushed after it first returns true.
+     *
+     * @return true if the remaining checks should be skipped, false otherwise
+     */
+    default boolean isTerminated()
+    {
+        return false;
+    }
+}
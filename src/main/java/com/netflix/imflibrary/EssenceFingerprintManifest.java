@@ -0,0 +1,314 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A manifest of the essence of a track file that records, for every edit unit, the XXH64 hash and the size of the
+ * values of its essence elements. Two manifests of the same track file compare equal edit unit by edit unit, so that
+ * the edit units that changed between two deliveries of a track file can be found without reading either file again.
+ * A manifest is serialized in a compact big-endian binary form: the magic bytes "IMFP", a format version, the BodySID
+ * of the essence container and the number of edit units, followed by an 8 byte hash and a 4 byte size per edit unit.
+ */
+@Immutable
+public final class EssenceFingerprintManifest
+{
+    private static final byte[] MAGIC = {'I', 'M', 'F', 'P'};
+    private static final int VERSION = 1;
+    private static final long MAX_EDIT_UNIT_SIZE = 0xFFFFFFFFL;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = 12;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final long bodySID;
+    private final long[] hashes;
+    private final long[] sizes;
+
+    /**
+     * Constructor for an EssenceFingerprintManifest
+     *
+     * @param bodySID the BodySID of the essence container
+     * @param hashes the XXH64 hash of every edit unit, indexed by edit unit
+     * @param sizes the size in bytes of the hashed values of every edit unit, indexed by edit unit
+     */
+    public EssenceFingerprintManifest(long bodySID, @Nonnull long[] hashes, @Nonnull long[] sizes)
+    {
+        if (hashes.length != sizes.length)
+        {
+            throw new IllegalArgumentException(String.format("%d hashes do not match %d sizes", hashes.length, sizes.length));
+        }
+        for (long size : sizes)
+        {
+            if (size < 0 || size > MAX_EDIT_UNIT_SIZE)
+            {
+                throw new IllegalArgumentException(String.format("Edit unit size %d is out of the range of a manifest", size));
+            }
+        }
+        this.bodySID = bodySID;
+        this.hashes = Arrays.copyOf(hashes, hashes.length);
+        this.sizes = Arrays.copyOf(sizes, sizes.length);
+    }
+
+    /**
+     * A factory method that reads a manifest from a stream
+     *
+     * @param inputStream the stream positioned at the start of a serialized manifest, which is not closed
+     * @return the manifest
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the stream does not hold a manifest of a supported version
+     */
+    public static EssenceFingerprintManifest fromInputStream(@Nonnull InputStream inputStream) throws IOException
+    {
+        return fromInputStream(inputStream, Integer.MAX_VALUE);
+    }
+
+    private static EssenceFingerprintManifest fromInputStream(InputStream inputStream, long maxEditUnitCount) throws IOException
+    {
+        DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        byte[] magic = new byte[MAGIC.length];
+        dataInputStream.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC))
+        {
+            throw new MXFException("The stream does not hold an essence fingerprint manifest");
+        }
+        int version = dataInputStream.readInt();
+        if (version != VERSION)
+        {
+            throw new MXFException(String.format("Essence fingerprint manifest version %d is not supported", version));
+        }
+        long bodySID = dataInputStream.readInt() & 0xFFFFFFFFL;
+        long editUnitCount = dataInputStream.readLong();
+        if (editUnitCount < 0 || editUnitCount > Math.min(maxEditUnitCount, Integer.MAX_VALUE))
+        {
+            throw new MXFException(String.format("Essence fingerprint manifest edit unit count %d is invalid", editUnitCount));
+        }
+        //the arrays grow with the entries actually read, so that a corrupt edit unit count ends with an EOFException
+        //instead of the allocation of arrays for up to 2^31 edit units
+        long[] hashes = new long[(int) Math.min(editUnitCount, INITIAL_CAPACITY)];
+        long[] sizes = new long[hashes.length];
+        for (int i = 0; i < editUnitCount; i++)
+        {
+            if (i == hashes.length)
+            {
+                int capacity = (int) Math.min(editUnitCount, 2L * hashes.length);
+                hashes = Arrays.copyOf(hashes, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            hashes[i] = dataInputStream.readLong();
+            sizes[i] = dataInputStream.readInt() & 0xFFFFFFFFL;
+        }
+        return new EssenceFingerprintManifest(bodySID, hashes, sizes);
+    }
+
+    /**
+     * A factory method that reads a manifest from a file
+     *
+     * @param path the path of the file
+     * @return the manifest
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the file does not hold a manifest of a supported version, or holds fewer edit units
+     * than its edit unit count
+     */
+    public static EssenceFingerprintManifest fromPath(@Nonnull Path path) throws IOException
+    {
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            return fromInputStream(inputStream, (Files.size(path) - HEADER_SIZE) / ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * A method that serializes the manifest to a stream
+     *
+     * @param outputStream the stream to write to, which is flushed but not closed
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void write(@Nonnull OutputStream outputStream) throws IOException
+    {
+        DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        dataOutputStream.write(MAGIC);
+        dataOutputStream.writeInt(VERSION);
+        dataOutputStream.writeInt((int) this.bodySID);
+        dataOutputStream.writeLong(this.hashes.length);
+        for (int i = 0; i < this.hashes.length; i++)
+        {
+            dataOutputStream.writeLong(this.hashes[i]);
+            dataOutputStream.writeInt((int) this.sizes[i]);
+        }
+        dataOutputStream.flush();
+    }
+
+    /**
+     * A method that serializes the manifest to a file
+     *
+     * @param path the path of the file, which is replaced if it exists
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void write(@Nonnull Path path) throws IOException
+    {
+        try (OutputStream outputStream = Files.newOutputStream(path))
+        {
+            write(outputStream);
+        }
+    }
+
+    /**
+     * Getter for the BodySID of the essence container
+     *
+     * @return the BodySID
+     */
+    public long getBodySID()
+    {
+        return this.bodySID;
+    }
+
+    /**
+     * Getter for the number of edit units
+     *
+     * @return the number of edit units
+     */
+    public long getEditUnitCount()
+    {
+        return this.hashes.length;
+    }
+
+    /**
+     * Getter for the hash of an edit unit
+     *
+     * @param editUnit the zero based edit unit
+     * @return the XXH64 hash of the values of the essence elements of the edit unit
+     */
+    public long getHash(long editUnit)
+    {
+        return this.hashes[checkEditUnit(editUnit)];
+    }
+
+    /**
+     * Getter for the size of an edit unit
+     *
+     * @param editUnit the zero based edit unit
+     * @return the size in bytes of the values of the essence elements of the edit unit
+     */
+    public long getSize(long editUnit)
+    {
+        return this.sizes[checkEditUnit(editUnit)];
+    }
+
+    /**
+     * A method that compares this manifest with the manifest of another delivery of the track file. Edit units that are
+     * present in only one of the manifests are reported as changed.
+     *
+     * @param other the manifest to compare with
+     * @return the ranges of consecutive edit units whose hash or size differ, in edit unit order
+     */
+    public List<ChangedRange> diff(@Nonnull EssenceFingerprintManifest other)
+    {
+        List<ChangedRange> changedRanges = new ArrayList<>();
+        int editUnitCount = Math.max(this.hashes.length, other.hashes.length);
+        int firstChangedEditUnit = -1;
+        for (int editUnit = 0; editUnit <= editUnitCount; editUnit++)
+        {
+            boolean changed = editUnit < editUnitCount
+                    && (editUnit >= this.hashes.length || editUnit >= other.hashes.length
+                    || this.hashes[editUnit] != other.hashes[editUnit] || this.sizes[editUnit] != other.sizes[editUnit]);
+            if (changed && firstChangedEditUnit < 0)
+            {
+                firstChangedEditUnit = editUnit;
+            }
+            else if (!changed && firstChangedEditUnit >= 0)
+            {
+                changedRanges.add(new ChangedRange(firstChangedEditUnit, editUnit - firstChangedEditUnit));
+                firstChangedEditUnit = -1;
+            }
+        }
+        return Collections.unmodifiableList(changedRanges);
+    }
+
+    private int checkEditUnit(long editUnit)
+    {
+        if (editUnit < 0 || editUnit >= this.hashes.length)
+        {
+            throw new IllegalArgumentException(String.format("Edit unit %d is out of the range [0, %d)", editUnit, this.hashes.length));
+        }
+        return (int) editUnit;
+    }
+
+    /**
+     * A range of consecutive edit units that differ between two manifests
+     */
+    @Immutable
+    public static final class ChangedRange
+    {
+        private final long firstEditUnit;
+        private final long editUnitCount;
+
+        private ChangedRange(long firstEditUnit, long editUnitCount)
+        {
+            this.firstEditUnit = firstEditUnit;
+            this.editUnitCount = editUnitCount;
+        }
+
+        /**
+         * Getter for the first edit unit of the range
+         *
+         * @return the zero based first edit unit
+         */
+        public long getFirstEditUnit()
+        {
+            return this.firstEditUnit;
+        }
+
+        /**
+         * Getter for the number of edit units in the range
+         *
+         * @return the number of edit units
+         */
+        public long getEditUnitCount()
+        {
+            return this.editUnitCount;
+        }
+
+        /**
+         * A method that returns a string representation of a ChangedRange object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("[%d, %d)", this.firstEditUnit, this.firstEditUnit + this.editUnitCount);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import com.netflix.imflibrary.utils.XXHash64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A generator of {@link EssenceFingerprintManifest}s. The edit units of a track file are located with its IndexTable,
+ * every range of edit units is read with a single range request, and the values of the essence elements of every
+ * edit unit are hashed with XXH64, so that the KLV coding of the elements (length field sizes, KLV fill) does not
+ * affect the hash. An edit unit that does not consist of complete KLV packets, such as an edit unit of a clip-wrapped
+ * essence container, is hashed as a whole, except for the key and length of a clip that it holds. Ranges are hashed concurrently, so that fingerprinting a track file costs a
+ * single parallel read of its essence.
+ */
+@ThreadSafe
+public final class EssenceFingerprinter
+{
+    private static final Logger logger = LoggerFactory.getLogger(EssenceFingerprinter.class);
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+
+    /**
+     * The default number of edit units hashed by a single task
+     */
+    public static final int DEFAULT_EDIT_UNITS_PER_TASK = 64;
+
+    private final Executor executor;
+    private final int editUnitsPerTask;
+
+    /**
+     * Constructor for an EssenceFingerprinter that hashes ranges on the common ForkJoinPool
+     */
+    public EssenceFingerprinter()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_EDIT_UNITS_PER_TASK);
+    }
+
+    /**
+     * Constructor for an EssenceFingerprinter
+     *
+     * @param executor the Executor that ranges of edit units are hashed on, null to hash them on the calling thread
+     * @param editUnitsPerTask the maximum number of edit units hashed by a single task
+     */
+    public EssenceFingerprinter(@Nullable Executor executor, int editUnitsPerTask)
+    {
+        if (editUnitsPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("editUnitsPerTask = %d is not > 0", editUnitsPerTask));
+        }
+        this.executor = executor;
+        this.editUnitsPerTask = editUnitsPerTask;
+    }
+
+    /**
+     * A method that generates the manifest of a track file
+     *
+     * @param trackFile the path of the track file
+     * @return the manifest of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public EssenceFingerprintManifest fingerprint(@Nonnull Path trackFile) throws IOException
+    {
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            return fingerprint(resourceByteRangeProvider);
+        }
+    }
+
+    /**
+     * A method that generates the manifest of a track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @return the manifest of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the track file has no usable IndexTable
+     */
+    public EssenceFingerprintManifest fingerprint(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        if (essenceIndex.getEditUnitCount() > Integer.MAX_VALUE)
+        {
+            throw new MXFException(String.format("The track file holds %d edit units, which exceeds the capacity of a manifest", essenceIndex.getEditUnitCount()));
+        }
+        long[] hashes = new long[(int) essenceIndex.getEditUnitCount()];
+        long[] sizes = new long[hashes.length];
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges(this.editUnitsPerTask);
+
+        //every range fills a disjoint part of the arrays
+        ConcurrentTasks.invokeAll(this.executor, editUnitRanges, editUnitRange -> {
+            hashEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, hashes, sizes);
+            return null;
+        });
+        logger.info("Fingerprinted {} edit units of BodySID {}", hashes.length, essenceIndex.getBodySID());
+        return new EssenceFingerprintManifest(essenceIndex.getBodySID(), hashes, sizes);
+    }
+
+    /**
+     * A method that compares a manifest with a track file, for instance the manifest of an earlier delivery of the
+     * track file with a redelivery
+     *
+     * @param manifest the manifest to compare with
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @return the ranges of consecutive edit units that differ, in edit unit order
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public List<EssenceFingerprintManifest.ChangedRange> diff(@Nonnull EssenceFingerprintManifest manifest,
+                                                              @Nonnull ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        return manifest.diff(fingerprint(resourceByteRangeProvider));
+    }
+
+    private static void hashEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                          EssenceIndex.EditUnitRange editUnitRange, long[] hashes, long[] sizes) throws IOException
+    {
+        long firstEditUnit = editUnitRange.getFirstEditUnit();
+        long lastEditUnit = firstEditUnit + editUnitRange.getEditUnitCount() - 1;
+        long rangeStart = essenceIndex.getFileOffset(firstEditUnit);
+        long rangeEnd = essenceIndex.getFileOffset(lastEditUnit) + essenceIndex.getEditUnitSize(lastEditUnit) - 1;
+        if (rangeEnd - rangeStart + 1 > Integer.MAX_VALUE)
+        {
+            throw new MXFException(String.format("Edit units %s span more than 2 GiB", editUnitRange));
+        }
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(rangeStart, rangeEnd);
+        long clipKLSize = getClipKLSize(resourceByteRangeProvider, essenceIndex, firstEditUnit);
+
+        XXHash64 xxHash64 = new XXHash64();
+        for (long editUnit = firstEditUnit; editUnit <= lastEditUnit; editUnit++)
+        {
+            int position = (int) (essenceIndex.getFileOffset(editUnit) - rangeStart);
+            int limit = position + (int) essenceIndex.getEditUnitSize(editUnit);
+            xxHash64.reset();
+            long size = hashEssenceElementValues(bytes, position, limit, rangeStart, xxHash64);
+            if (size < 0)
+            {
+                //the key and length of a clip depend on its KLV coding, for instance the size of the length field
+                int start = Math.max(position, (int) Math.min(clipKLSize, limit));
+                xxHash64.reset();
+                xxHash64.update(bytes, start, limit - start);
+                size = limit - start;
+            }
+            hashes[(int) editUnit] = xxHash64.getValue();
+            sizes[(int) editUnit] = size;
+        }
+    }
+
+    /**
+     * Returns the size of the key and length of the clip that an edit unit starts with, that is of the KLV packet that
+     * starts the essence segment of the edit unit when the packet extends beyond the edit unit, and 0 otherwise. Since
+     * ranges of edit units never span more than one partition, only the first edit unit of a range can start a clip.
+     */
+    private static long getClipKLSize(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex, long editUnit) throws IOException
+    {
+        long fileOffset = essenceIndex.getFileOffset(editUnit);
+        for (EssenceIndex.EssenceSegment essenceSegment : essenceIndex.getEssenceSegments())
+        {
+            if (essenceSegment.getFileOffset() == fileOffset)
+            {
+                long rangeEnd = Math.min(fileOffset + MAX_KLV_HEADER_SIZE, resourceByteRangeProvider.getResourceSize()) - 1;
+                KLVPacket.Header header = new KLVPacket.Header(
+                        new ByteArrayDataProvider(resourceByteRangeProvider.getByteRangeAsBytes(fileOffset, rangeEnd)), fileOffset);
+                return (header.getKLSize() + header.getVSize() > essenceIndex.getEditUnitSize(editUnit)) ? header.getKLSize() : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hashes the values of the KLV packets of an edit unit, KLV fill excluded
+     *
+     * @return the number of bytes hashed, or -1 if the edit unit does not consist of complete KLV packets
+     */
+    private static long hashEssenceElementValues(byte[] bytes, int position, int limit, long rangeStart, XXHash64 xxHash64)
+    {
+        long size = 0;
+        try
+        {
+            while (position < limit)
+            {
+                if (limit - position < KLVPacket.KEY_FIELD_SIZE + 1 || bytes[position] != 0x06 || bytes[position + 1] != 0x0e
+                        || bytes[position + 2] != 0x2b || bytes[position + 3] != 0x34)
+                {
+                    return -1;
+                }
+                ByteArrayDataProvider byteProvider = new ByteArrayDataProvider(bytes);
+                byteProvider.skipBytes(position);
+                KLVPacket.Header header = new KLVPacket.Header(byteProvider, rangeStart + position);
+                long valueEnd = position + header.getKLSize() + header.getVSize();
+                if (valueEnd > limit)
+                {
+                    return -1;
+                }
+                if (!KLVPacket.isKLVFillItem(header.getKey()))
+                {
+                    xxHash64.update(bytes, position + (int) header.getKLSize(), (int) header.getVSize());
+                    size += header.getVSize();
+                }
+                position = (int) valueEnd;
+            }
+        }
+        catch (MXFException | IOException e)
+        {
+            return -1;
+        }
+        return size;
+    }
+}
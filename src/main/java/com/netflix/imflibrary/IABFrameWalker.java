@@ -0,0 +1,616 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st2067_201.IABEssenceDescriptor;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A walker of the Immersive Audio Bitstream (SMPTE ST 2098-2) frames of an IAB track file (SMPTE ST 2067-201). Every
+ * edit unit located by the IndexTable is expected to hold an IA Bitstream frame, that is an optional Preamble followed
+ * by an IA Frame, as packaged by SMPTE ST 429-18. The IAFrame element and the headers of its sub-elements are parsed,
+ * and the sample rate, bit depth and frame rate of every frame are checked against the IABEssenceDescriptor. The edit
+ * units of every partition are split into ranges that are walked concurrently, and findings are aggregated so that a
+ * defect shared by every frame is reported once.
+ */
+@ThreadSafe
+public final class IABFrameWalker
+{
+    private static final Logger logger = LoggerFactory.getLogger(IABFrameWalker.class);
+
+    /**
+     * The default number of edit units walked by a single task
+     */
+    public static final int DEFAULT_EDIT_UNITS_PER_TASK = 16;
+
+    private static final String IMF_IAB_EXCEPTION_PREFIX = "IMF IAB check: ";
+
+    private static final int PREAMBLE_TAG = 0x01;
+    private static final int IA_FRAME_TAG = 0x02;
+    private static final int TAG_LENGTH_SIZE = 5;
+
+    private static final long IA_FRAME_ELEMENT_ID = 0x08;
+    private static final long BED_DEFINITION_ELEMENT_ID = 0x10;
+    private static final long BED_REMAP_ELEMENT_ID = 0x20;
+    private static final long OBJECT_DEFINITION_ELEMENT_ID = 0x40;
+    private static final long OBJECT_ZONE_DEFINITION_19_ELEMENT_ID = 0x80;
+    private static final long AUTHORING_TOOL_INFO_ELEMENT_ID = 0x100;
+    private static final long USER_DATA_ELEMENT_ID = 0x101;
+    private static final long AUDIO_DATA_DLC_ELEMENT_ID = 0x200;
+    private static final long AUDIO_DATA_PCM_ELEMENT_ID = 0x400;
+
+    private static final int IA_FRAME_VERSION = 1;
+
+    /* SampleRate, BitDepth and FrameRate codes of the IAFrame, SMPTE ST 2098-2 */
+    private static final int[] SAMPLE_RATES = {48000, 96000};
+    private static final int[] BIT_DEPTHS = {16, 24};
+    private static final long[][] FRAME_RATES = {{24, 1}, {25, 1}, {30, 1}, {48, 1}, {50, 1}, {60, 1}, {96, 1}, {100, 1}, {120, 1}, {24000, 1001}};
+
+    private final Executor executor;
+    private final int editUnitsPerTask;
+
+    /**
+     * Constructor for an IABFrameWalker that walks track files on the common ForkJoinPool
+     */
+    public IABFrameWalker()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_EDIT_UNITS_PER_TASK);
+    }
+
+    /**
+     * Constructor for an IABFrameWalker
+     *
+     * @param executor the Executor that ranges of edit units are walked on, null to walk them on the calling thread
+     * @param editUnitsPerTask the maximum number of edit units walked by a single task
+     */
+    public IABFrameWalker(@Nullable Executor executor, int editUnitsPerTask)
+    {
+        if (editUnitsPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("editUnitsPerTask = %d is not > 0", editUnitsPerTask));
+        }
+        this.executor = executor;
+        this.editUnitsPerTask = editUnitsPerTask;
+    }
+
+    /**
+     * A method that walks every IA Bitstream frame of an IAB track file
+     *
+     * @param trackFile the path of the track file
+     * @return the result of the walk
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public WalkResult walk(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        WalkResult walkResult;
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            walkResult = walk(resourceByteRangeProvider, headerPartition);
+        }
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(walkResult.getErrors());
+        return new WalkResult(walkResult.frameCount, walkResult.maxObjectDefinitionCount, errors);
+    }
+
+    /**
+     * A method that walks every IA Bitstream frame of an IAB track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return the result of the walk
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public WalkResult walk(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition) throws IOException
+    {
+        IABEssenceDescriptor iabEssenceDescriptor = null;
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors())
+        {
+            if (essenceDescriptor instanceof IABEssenceDescriptor.IABEssenceDescriptorBO)
+            {
+                iabEssenceDescriptor = new IABEssenceDescriptor((IABEssenceDescriptor.IABEssenceDescriptorBO) essenceDescriptor);
+                break;
+            }
+        }
+
+        EditUnitFindings findings = new EditUnitFindings();
+        if (iabEssenceDescriptor == null)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The track file does not contain an IABEssenceDescriptor", -1);
+            return new WalkResult(0, 0, findings.toErrors());
+        }
+        FrameRules frameRules = new FrameRules(iabEssenceDescriptor, findings);
+
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges(this.editUnitsPerTask);
+
+        int maxObjectDefinitionCount = 0;
+        for (RangeResult rangeResult : ConcurrentTasks.invokeAll(this.executor, editUnitRanges,
+                editUnitRange -> walkEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, frameRules)))
+        {
+            findings.addAll(rangeResult.findings);
+            maxObjectDefinitionCount = Math.max(maxObjectDefinitionCount, rangeResult.maxObjectDefinitionCount);
+        }
+
+        logger.info("Walked {} IA Bitstream frames, {} distinct findings", essenceIndex.getEditUnitCount(), findings.size());
+        return new WalkResult(essenceIndex.getEditUnitCount(), maxObjectDefinitionCount, findings.toErrors());
+    }
+
+    /**
+     * A method that locates the IA Bitstream frames of a clip-wrapped IAB essence element from their Preamble and
+     * IA Frame tags (SMPTE ST 429-18), without reading the frames, for instance to rebuild the IndexTable of a track
+     * file whose IndexTable is missing
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param valueByteOffset the offset in the file of the value of the essence element
+     * @param valueSize the size of the value of the essence element
+     * @return the offsets of the frames relative to the start of the value, in frame order
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the value holds anything but a sequence of frames, each an optional Preamble followed by
+     * an IA Frame
+     */
+    public static long[] getFrameOffsets(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, long valueByteOffset, long valueSize)
+            throws IOException
+    {
+        List<Long> frameOffsets = new ArrayList<>();
+        long position = 0;
+        while (position < valueSize)
+        {
+            long frameOffset = position;
+            byte[] tag = readTag(resourceByteRangeProvider, valueByteOffset, valueSize, position);
+            if ((tag[0] & 0xff) == PREAMBLE_TAG)
+            {
+                position += TAG_LENGTH_SIZE + getUInt32(tag, 1);
+                tag = (position < valueSize) ? readTag(resourceByteRangeProvider, valueByteOffset, valueSize, position) : null;
+            }
+            if (tag == null || (tag[0] & 0xff) != IA_FRAME_TAG)
+            {
+                throw new MXFException(String.format("The IA Bitstream frame at offset %d of the essence element does not contain an IA Frame", frameOffset));
+            }
+            position += TAG_LENGTH_SIZE + getUInt32(tag, 1);
+            if (position > valueSize)
+            {
+                throw new MXFException(String.format("The IA Bitstream frame at offset %d extends beyond the %d bytes of the essence element", frameOffset, valueSize));
+            }
+            frameOffsets.add(frameOffset);
+        }
+        return frameOffsets.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Reads the tag and the length of a Preamble or an IA Frame
+     */
+    private static byte[] readTag(ResourceByteRangeProvider resourceByteRangeProvider, long valueByteOffset, long valueSize, long position) throws IOException
+    {
+        if (valueSize - position < TAG_LENGTH_SIZE)
+        {
+            throw new MXFException(String.format("The tag at offset %d extends beyond the %d bytes of the essence element", position, valueSize));
+        }
+        return resourceByteRangeProvider.getByteRangeAsBytes(valueByteOffset + position, valueByteOffset + position + TAG_LENGTH_SIZE - 1);
+    }
+
+    private static RangeResult walkEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                                 EssenceIndex.EditUnitRange editUnitRange, FrameRules frameRules) throws IOException
+    {
+        RangeResult rangeResult = new RangeResult();
+        long end = editUnitRange.getFirstEditUnit() + editUnitRange.getEditUnitCount();
+        for (long editUnit = editUnitRange.getFirstEditUnit(); editUnit < end; editUnit++)
+        {
+            long position = essenceIndex.getFileOffset(editUnit);
+            long size = essenceIndex.getEditUnitSize(editUnit);
+            if (size > Integer.MAX_VALUE)
+            {
+                rangeResult.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The edit unit is larger than 2 GiB", editUnit);
+                continue;
+            }
+            byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(position, position + size - 1);
+            walkEditUnit(bytes, editUnit, frameRules, rangeResult);
+        }
+        return rangeResult;
+    }
+
+    private static void walkEditUnit(byte[] bytes, long editUnit, FrameRules frameRules, RangeResult rangeResult) throws IOException
+    {
+        EditUnitFindings findings = rangeResult.findings;
+        int position = 0;
+        int limit = bytes.length;
+        if (isKLVKey(bytes, position))
+        {
+            //frame-wrapped edit units, and the first edit unit of clip-wrapped essence, start with the key of the essence element
+            KLVPacket.Header header;
+            try
+            {
+                header = new KLVPacket.Header(new ByteArrayDataProvider(bytes), 0L);
+            }
+            catch (MXFException e)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The edit unit does not start with a valid KLV packet", editUnit);
+                return;
+            }
+            if (!KLVPacket.isEssenceElementKey(header.getKey(), KLVPacket.SOUND_ITEM_TYPE))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The edit unit does not start with a sound essence element", editUnit);
+                return;
+            }
+            position = (int) header.getKLSize();
+            limit = (int) Math.min(limit, header.getKLSize() + header.getVSize());
+        }
+
+        if (position < limit && (bytes[position] & 0xff) == PREAMBLE_TAG)
+        {
+            if (limit - position < TAG_LENGTH_SIZE || getUInt32(bytes, position + 1) > limit - position - TAG_LENGTH_SIZE)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The Preamble extends beyond the edit unit", editUnit);
+                return;
+            }
+            position += TAG_LENGTH_SIZE + (int) getUInt32(bytes, position + 1);
+        }
+        if (limit - position < TAG_LENGTH_SIZE || (bytes[position] & 0xff) != IA_FRAME_TAG)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The edit unit does not contain an IA Frame", editUnit);
+            return;
+        }
+        long frameLength = getUInt32(bytes, position + 1);
+        if (frameLength > limit - position - TAG_LENGTH_SIZE)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The IA Frame extends beyond the edit unit", editUnit);
+            return;
+        }
+        int frameStart = position + TAG_LENGTH_SIZE;
+        int frameEnd = frameStart + (int) frameLength;
+        //the last edit unit of a partition can be followed by KLV fill, anything else is unexpected
+        if (frameEnd < limit && !isKLVKey(bytes, frameEnd))
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + "Unexpected bytes follow the IA Frame", editUnit);
+        }
+
+        try
+        {
+            walkIAFrame(new BitReader(bytes, frameStart, frameEnd), editUnit, frameRules, rangeResult);
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The IAFrame element is truncated", editUnit);
+        }
+    }
+
+    private static void walkIAFrame(BitReader reader, long editUnit, FrameRules frameRules, RangeResult rangeResult)
+    {
+        EditUnitFindings findings = rangeResult.findings;
+        if (reader.readPlex(8) != IA_FRAME_ELEMENT_ID)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + "The IA Frame does not start with an IAFrame element", editUnit);
+            return;
+        }
+        long elementSize = reader.readPlex(8);
+        if (elementSize != reader.remaining())
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                    "The ElementSize %d of the IAFrame element does not match the length %d of the IA Frame", elementSize, reader.remaining()), editUnit);
+            return;
+        }
+
+        int version = (int) reader.readBits(8);
+        int sampleRateCode = (int) reader.readBits(2);
+        int bitDepthCode = (int) reader.readBits(2);
+        int frameRateCode = (int) reader.readBits(4);
+        long maxRendered = reader.readPlex(8);
+        long subElementCount = reader.readPlex(8);
+        frameRules.check(version, sampleRateCode, bitDepthCode, frameRateCode, editUnit, findings);
+
+        int objectDefinitionCount = 0;
+        int bedChannelCount = 0;
+        for (long i = 0; i < subElementCount; i++)
+        {
+            long subElementId = reader.readPlex(8);
+            long subElementSize = reader.readPlex(8);
+            if (subElementSize > reader.remaining())
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "Sub-element %d with ElementID 0x%x extends beyond the IAFrame element", i, subElementId), editUnit);
+                return;
+            }
+            if (subElementId == OBJECT_DEFINITION_ELEMENT_ID)
+            {
+                objectDefinitionCount++;
+            }
+            else if (subElementId == BED_DEFINITION_ELEMENT_ID)
+            {
+                //MetaID Plex(8), ConditionalBed 1 bit and an optional BedUseCase byte precede ChannelCount Plex(4)
+                BitReader bedReader = reader.slice((int) subElementSize);
+                bedReader.readPlex(8);
+                if (bedReader.readBits(1) == 1)
+                {
+                    bedReader.readBits(8);
+                }
+                bedChannelCount += (int) bedReader.readPlex(4);
+            }
+            else if (subElementId != BED_REMAP_ELEMENT_ID
+                    && subElementId != OBJECT_ZONE_DEFINITION_19_ELEMENT_ID
+                    && subElementId != AUTHORING_TOOL_INFO_ELEMENT_ID
+                    && subElementId != USER_DATA_ELEMENT_ID
+                    && subElementId != AUDIO_DATA_DLC_ELEMENT_ID
+                    && subElementId != AUDIO_DATA_PCM_ELEMENT_ID)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The IAFrame element contains a sub-element with the unknown ElementID 0x%x", subElementId), editUnit);
+            }
+            reader.skip((int) subElementSize);
+        }
+        if (reader.remaining() != 0)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                    "%d bytes of the IAFrame element follow its %d sub-elements", reader.remaining(), subElementCount), editUnit);
+        }
+        if (objectDefinitionCount + bedChannelCount > maxRendered)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                    "The IAFrame element defines %d bed channels and objects, more than its MaxRendered %d", objectDefinitionCount + bedChannelCount, maxRendered), editUnit);
+        }
+        frameRules.checkObjectDefinitionCount(objectDefinitionCount, editUnit, findings);
+        rangeResult.maxObjectDefinitionCount = Math.max(rangeResult.maxObjectDefinitionCount, objectDefinitionCount);
+    }
+
+    private static boolean isKLVKey(byte[] bytes, int position)
+    {
+        return bytes.length - position >= KLVPacket.KEY_FIELD_SIZE
+                && bytes[position] == 0x06 && bytes[position + 1] == 0x0e && bytes[position + 2] == 0x2b && bytes[position + 3] == 0x34;
+    }
+
+    private static long getUInt32(byte[] bytes, int position)
+    {
+        return ((bytes[position] & 0xffL) << 24) | ((bytes[position + 1] & 0xffL) << 16) | ((bytes[position + 2] & 0xffL) << 8) | (bytes[position + 3] & 0xffL);
+    }
+
+    /**
+     * The checks applied to every IAFrame element of a track file
+     */
+    @Immutable
+    private static final class FrameRules
+    {
+        private final Integer sampleRate;
+        private final Integer quantizationBits;
+        private final List<Long> editRate;
+        private final Integer maxObjectCount;
+
+        private FrameRules(IABEssenceDescriptor iabEssenceDescriptor, EditUnitFindings findings)
+        {
+            Integer sampleRate = null;
+            Integer quantizationBits = null;
+            try
+            {
+                if (iabEssenceDescriptor.getAudioSamplingRateDenominator() == 1)
+                {
+                    sampleRate = iabEssenceDescriptor.getAudioSamplingRateNumerator();
+                }
+                quantizationBits = iabEssenceDescriptor.getQuantizationBits();
+            }
+            catch (MXFException e)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX
+                        + "The IABEssenceDescriptor is incomplete, IAFrame elements are not compared against it", -1);
+            }
+            this.sampleRate = sampleRate;
+            this.quantizationBits = quantizationBits;
+            List<Long> editRate = iabEssenceDescriptor.getSampleRate();
+            this.editRate = (editRate != null && editRate.size() == 2) ? editRate : null;
+            this.maxObjectCount = iabEssenceDescriptor.getMaxObjectCount();
+        }
+
+        private void check(int version, int sampleRateCode, int bitDepthCode, int frameRateCode, long editUnit, EditUnitFindings findings)
+        {
+            if (version != IA_FRAME_VERSION)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The Version %d of the IAFrame element is not %d", version, IA_FRAME_VERSION), editUnit);
+            }
+            if (sampleRateCode >= SAMPLE_RATES.length)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The SampleRate code %d of the IAFrame element is reserved", sampleRateCode), editUnit);
+            }
+            else if (this.sampleRate != null && SAMPLE_RATES[sampleRateCode] != this.sampleRate)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The SampleRate %d of the IAFrame element does not match the AudioSampleRate %d of the IABEssenceDescriptor",
+                        SAMPLE_RATES[sampleRateCode], this.sampleRate), editUnit);
+            }
+            if (bitDepthCode >= BIT_DEPTHS.length)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The BitDepth code %d of the IAFrame element is reserved", bitDepthCode), editUnit);
+            }
+            else if (this.quantizationBits != null && BIT_DEPTHS[bitDepthCode] != this.quantizationBits)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The BitDepth %d of the IAFrame element does not match the QuantizationBits %d of the IABEssenceDescriptor",
+                        BIT_DEPTHS[bitDepthCode], this.quantizationBits), editUnit);
+            }
+            if (frameRateCode >= FRAME_RATES.length)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The FrameRate code %d of the IAFrame element is reserved", frameRateCode), editUnit);
+            }
+            else if (this.editRate != null
+                    && FRAME_RATES[frameRateCode][0] * this.editRate.get(1) != FRAME_RATES[frameRateCode][1] * this.editRate.get(0))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The FrameRate %d/%d of the IAFrame element does not match the SampleRate %d/%d of the IABEssenceDescriptor",
+                        FRAME_RATES[frameRateCode][0], FRAME_RATES[frameRateCode][1], this.editRate.get(0), this.editRate.get(1)), editUnit);
+            }
+        }
+
+        private void checkObjectDefinitionCount(int objectDefinitionCount, long editUnit, EditUnitFindings findings)
+        {
+            if (this.maxObjectCount != null && objectDefinitionCount > this.maxObjectCount)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_IAB_EXCEPTION_PREFIX + String.format(
+                        "The IAFrame element contains %d ObjectDefinition elements, more than the IABMaxObjectCount %d of the IABEssenceDescriptor",
+                        objectDefinitionCount, this.maxObjectCount), editUnit);
+            }
+        }
+    }
+
+    /**
+     * A most significant bit first reader of the fields of an IA Bitstream element
+     */
+    private static final class BitReader
+    {
+        private final byte[] bytes;
+        private final int end;
+        private long bitPosition;
+
+        private BitReader(byte[] bytes, int start, int end)
+        {
+            this.bytes = bytes;
+            this.end = end;
+            this.bitPosition = 8L * start;
+        }
+
+        private long readBits(int count)
+        {
+            if (this.bitPosition + count > 8L * this.end)
+            {
+                throw new IndexOutOfBoundsException(String.format("%d bits are not available", count));
+            }
+            long value = 0;
+            for (int i = 0; i < count; i++, this.bitPosition++)
+            {
+                value = (value << 1) | ((this.bytes[(int) (this.bitPosition >>> 3)] >>> (7 - (this.bitPosition & 7))) & 1);
+            }
+            return value;
+        }
+
+        /**
+         * Reads a Plex(n) value, whose all-ones value escapes to a field of twice the size
+         */
+        private long readPlex(int bits)
+        {
+            long value = readBits(bits);
+            while (value == (1L << bits) - 1 && bits < 32)
+            {
+                bits *= 2;
+                value = readBits(bits);
+            }
+            return value;
+        }
+
+        private BitReader slice(int length)
+        {
+            int start = (int) ((this.bitPosition + 7) >>> 3);
+            if (start + length > this.end)
+            {
+                throw new IndexOutOfBoundsException(String.format("%d bytes are not available", length));
+            }
+            return new BitReader(this.bytes, start, start + length);
+        }
+
+        /**
+         * Skips bytes from the next byte boundary, as sub-elements start on byte boundaries
+         */
+        private void skip(int length)
+        {
+            this.bitPosition = 8L * (((this.bitPosition + 7) >>> 3) + length);
+        }
+
+        private long remaining()
+        {
+            return this.end - ((this.bitPosition + 7) >>> 3);
+        }
+    }
+
+    /**
+     * The findings and statistics of a range of edit units
+     */
+    private static final class RangeResult
+    {
+        private final EditUnitFindings findings = new EditUnitFindings();
+        private int maxObjectDefinitionCount;
+    }
+
+    /**
+     * The result of the walk of a track file
+     */
+    @Immutable
+    public static final class WalkResult
+    {
+        private final long frameCount;
+        private final int maxObjectDefinitionCount;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private WalkResult(long frameCount, int maxObjectDefinitionCount, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.frameCount = frameCount;
+            this.maxObjectDefinitionCount = maxObjectDefinitionCount;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the number of IA Bitstream frames that were walked
+         *
+         * @return the number of frames
+         */
+        public long getFrameCount()
+        {
+            return this.frameCount;
+        }
+
+        /**
+         * Getter for the largest number of ObjectDefinition elements found in an IAFrame element
+         *
+         * @return the largest number of objects of a frame
+         */
+        public int getMaxObjectDefinitionCount()
+        {
+            return this.maxObjectDefinitionCount;
+        }
+
+        /**
+         * Getter for the findings of the walk
+         *
+         * @return a list of errors, empty when every frame conforms
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
@@ -42,6 +42,10 @@ public interface IMFErrorLogger extends ErrorLogger
 
     public List<ErrorObject> getErrors();
 
+    public int getNumberOfErrors(IMFErrors.ErrorLevels errorLevel);
+
+    public int getNumberOfErrors(IMFErrors.ErrorCodes errorCode);
+
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorLevels errorLevel) throws IllegalArgumentException;
 
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorLevels errorLevel, int startIndex, int endIndex) throws IllegalArgumentException;
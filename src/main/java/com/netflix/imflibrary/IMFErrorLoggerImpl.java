@@ -21,30 +21,65 @@ package com.netflix.imflibrary;
 import com.netflix.imflibrary.utils.ErrorLogger;
 
 import jakarta.annotation.Nonnull;
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
-import java.util.stream.Collectors;
-
-import static java.lang.Boolean.TRUE;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * An non-thread-safe implementation of the IMFErrorLogger interface
+ * A thread-safe, lock-free implementation of the IMFErrorLogger interface. Errors are de-duplicated and kept in the
+ * order in which they were first logged, so that index ranges obtained through {@link #getNumberOfErrors()} remain
+ * stable while other threads keep logging. Per-level and per-code counters, along with a running count of fatal
+ * errors stored next to every entry, make {@link #hasFatalErrors()} and {@link #hasFatalErrors(int, int)} constant
+ * time operations.
  */
-@NotThreadSafe
+@ThreadSafe
 public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really a logging aggregator
 {
-    private final Set<ErrorLogger.ErrorObject> errorObjects;
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_SPINS = 64;
+
+    private final Set<ErrorLogger.ErrorObject> uniqueErrorObjects;
+    private final AtomicReference<Chunk[]> chunks;
+    private final AtomicInteger reservedCount;
+    private final AtomicInteger publishedCount;
+    private final AtomicIntegerArray errorLevelCounts;
+    private final AtomicIntegerArray errorCodeCounts;
+    private final ErrorSink errorSink;
 
     /**
      * Instantiates a new IMF error logger impl object
      */
     public IMFErrorLoggerImpl()
     {
-        this.errorObjects = Collections.synchronizedSet(new HashSet<ErrorLogger.ErrorObject>());
+        this(ErrorSink.NONE);
+    }
+
+    /**
+     * Instantiates a new IMF error logger impl object that pushes every error it logs to an ErrorSink
+     *
+     * @param errorSink the sink that logged errors are pushed to
+     */
+    public IMFErrorLoggerImpl(@Nonnull ErrorSink errorSink)
+    {
+        this.errorSink = errorSink;
+        this.uniqueErrorObjects = ConcurrentHashMap.newKeySet();
+        this.chunks = new AtomicReference<>(new Chunk[]{new Chunk()});
+        this.reservedCount = new AtomicInteger(0);
+        this.publishedCount = new AtomicInteger(0);
+        this.errorLevelCounts = new AtomicIntegerArray(IMFErrors.ErrorLevels.values().length);
+        this.errorCodeCounts = new AtomicIntegerArray(IMFErrors.ErrorCodes.values().length);
     }
 
     /**
@@ -56,17 +91,31 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
      */
     public void addError(@Nonnull IMFErrors.ErrorCodes errorCode, @Nonnull IMFErrors.ErrorLevels errorLevel, @Nonnull String errorDescription)
     {
-        this.errorObjects.add(new ErrorLogger.ErrorObject(errorCode, errorLevel, errorDescription));
+        addError(new ErrorLogger.ErrorObject(errorCode, errorLevel, errorDescription));
     }
 
     /**
-     * A method to add an error object to a persistent list
+     * A method to add an error object to a persistent list. An error object that is equal to one that was logged
+     * earlier is ignored, otherwise it is also pushed to the ErrorSink of this logger.
      *
      * @param errorObject - error object to be added to a persistent list - cannot be null
      */
     public void addError(@Nonnull ErrorObject errorObject)
     {
-        this.errorObjects.add(errorObject);
+        if (!this.uniqueErrorObjects.add(errorObject))
+        {
+            return;
+        }
+        if (errorObject.getErrorLevel() instanceof IMFErrors.ErrorLevels)
+        {
+            this.errorLevelCounts.incrementAndGet(((IMFErrors.ErrorLevels) errorObject.getErrorLevel()).ordinal());
+        }
+        if (errorObject.getErrorCode() instanceof IMFErrors.ErrorCodes)
+        {
+            this.errorCodeCounts.incrementAndGet(((IMFErrors.ErrorCodes) errorObject.getErrorCode()).ordinal());
+        }
+        append(errorObject);
+        this.errorSink.onError(errorObject);
     }
 
     /**
@@ -76,7 +125,10 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
      */
     public void addAllErrors(@Nonnull List<ErrorObject> errorObjects)
     {
-        this.errorObjects.addAll(errorObjects);
+        for (ErrorObject errorObject : errorObjects)
+        {
+            addError(errorObject);
+        }
     }
 
     /**
@@ -85,17 +137,38 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
      */
     public int getNumberOfErrors()
     {
-        return this.errorObjects.size();
+        return this.publishedCount.get();
+    }
+
+    /**
+     * Getter for the number of errors of a specific ErrorLevel
+     * @param errorLevel the error level of interest
+     * @return integer representing the number of errors with the specified ErrorLevel
+     */
+    public int getNumberOfErrors(@Nonnull IMFErrors.ErrorLevels errorLevel)
+    {
+        return this.errorLevelCounts.get(errorLevel.ordinal());
+    }
+
+    /**
+     * Getter for the number of errors of a specific ErrorCode
+     * @param errorCode the error code of interest
+     * @return integer representing the number of errors with the specified ErrorCode
+     */
+    public int getNumberOfErrors(@Nonnull IMFErrors.ErrorCodes errorCode)
+    {
+        return this.errorCodeCounts.get(errorCode.ordinal());
     }
 
     /**
-     * Getter for the list of errors monitored by this ErrorLogger implementation
+     * Getter for the list of errors monitored by this ErrorLogger implementation. The returned list is an
+     * unmodifiable, index-stable view of the errors logged so far and is not affected by errors logged afterwards.
      * @return a list of errors
      */
     public List<ErrorLogger.ErrorObject> getErrors()
     {
-        List<ErrorObject> errors = new ArrayList<>(this.errorObjects);
-        return Collections.unmodifiableList(errors);
+        int numberOfErrors = this.publishedCount.get();
+        return new Snapshot(this.chunks.get(), 0, numberOfErrors);
     }
 
     /**
@@ -105,7 +178,7 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
      */
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorLevels errorLevel) throws IllegalArgumentException
     {
-        return getErrors(errorLevel, 0, this.errorObjects.size());
+        return getErrors(errorLevel, 0, this.publishedCount.get());
     }
 
     /**
@@ -118,8 +191,19 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorLevels errorLevel, int startIndex, int endIndex) throws IllegalArgumentException
     {
         validateRangeRequest(startIndex, endIndex);
-        List<ErrorObject> errors = new ArrayList<>(this.errorObjects);
-        return Collections.unmodifiableList(errors.subList(startIndex, endIndex).stream().filter(e -> e.getErrorLevel().equals(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL)).collect(Collectors.toList()));
+        if (errorLevel == IMFErrors.ErrorLevels.FATAL && !hasFatalErrors(startIndex, endIndex))
+        {
+            return Collections.emptyList();
+        }
+        List<ErrorObject> errors = new ArrayList<>();
+        for (ErrorObject errorObject : new Snapshot(this.chunks.get(), startIndex, endIndex))
+        {
+            if (errorObject.getErrorLevel() == errorLevel)
+            {
+                errors.add(errorObject);
+            }
+        }
+        return Collections.unmodifiableList(errors);
     }
 
     /**
@@ -129,11 +213,11 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
      */
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorCodes errorCode) throws IllegalArgumentException
     {
-        return getErrors(errorCode, 0 , this.errorObjects.size());
+        return getErrors(errorCode, 0 , this.publishedCount.get());
     }
 
     /**
-     * Getter for the list of errors in a specified range of errors filtered by the ErrorLevel monitored by this ErrorLogger implementation
+     * Getter for the list of errors in a specified range of errors filtered by the ErrorCode monitored by this ErrorLogger implementation
      * @param errorCode to be filtered
      * @param startIndex the start index (inclusive) within the list of errors
      * @param endIndex the last index (exclusive) within the list of errors
@@ -142,8 +226,15 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
     public List<ErrorLogger.ErrorObject> getErrors(IMFErrors.ErrorCodes errorCode, int startIndex, int endIndex) throws IllegalArgumentException
     {
         validateRangeRequest(startIndex, endIndex);
-        List<ErrorObject> errors = new ArrayList<>(this.errorObjects);
-        return Collections.unmodifiableList(errors.subList(startIndex, endIndex).stream().filter(e -> e.getErrorCode().equals(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL)).collect(Collectors.toList()));
+        List<ErrorObject> errors = new ArrayList<>();
+        for (ErrorObject errorObject : new Snapshot(this.chunks.get(), startIndex, endIndex))
+        {
+            if (errorObject.getErrorCode() == errorCode)
+            {
+                errors.add(errorObject);
+            }
+        }
+        return Collections.unmodifiableList(errors);
     }
 
     private void validateRangeRequest(int rangeStart, int rangeEnd) throws IllegalArgumentException {
@@ -158,19 +249,150 @@ public final class IMFErrorLoggerImpl implements IMFErrorLogger //This is really
             throw new IllegalArgumentException(String.format("rangeStart = %d is not <= %d rangeEnd", rangeStart, rangeEnd));
         }
 
-        if (rangeEnd > (this.errorObjects.size()))
+        int numberOfErrors = this.publishedCount.get();
+        if (rangeEnd > numberOfErrors)
         {
-            throw new IllegalArgumentException(String.format("rangeEnd = %d is not <= (resourceSize) = %d", rangeEnd, (this.errorObjects.size())));
+            throw new IllegalArgumentException(String.format("rangeEnd = %d is not <= (resourceSize) = %d", rangeEnd, numberOfErrors));
         }
     }
 
     public Boolean hasFatalErrors()
     {
-        return (getErrors(IMFErrors.ErrorLevels.FATAL).size() > 0);
+        int numberOfErrors = this.publishedCount.get();
+        return fatalErrorsBefore(this.chunks.get(), numberOfErrors) > 0;
     }
 
     public Boolean hasFatalErrors(int startIndex, int endIndex) {
-        return (getErrors(IMFErrors.ErrorLevels.FATAL, startIndex, endIndex).size() > 0);
+        validateRangeRequest(startIndex, endIndex);
+        Chunk[] chunkArray = this.chunks.get();
+        return (fatalErrorsBefore(chunkArray, endIndex) - fatalErrorsBefore(chunkArray, startIndex)) > 0;
+    }
+
+    /**
+     * Reserves the next slot in the append-only log and stores the error object in it. Slots are published strictly
+     * in reservation order, which is what keeps indices stable for readers. Every appending thread helps publish any
+     * slot that is ready, so a thread only ever waits for another thread that is between reserving and filling a slot.
+     */
+    private void append(ErrorObject errorObject)
+    {
+        int index = this.reservedCount.getAndIncrement();
+        chunkFor(index).errorObjects.set(index & CHUNK_MASK, errorObject);
+
+        int spins = 0;
+        while (this.publishedCount.get() <= index)
+        {
+            if (!tryPublishNext())
+            {
+                if (++spins < MAX_SPINS)
+                {
+                    Thread.onSpinWait();
+                }
+                else
+                {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    private boolean tryPublishNext()
+    {
+        int index = this.publishedCount.get();
+        if (index >= this.reservedCount.get())
+        {
+            return false;
+        }
+        Chunk chunk = chunkFor(index);
+        ErrorObject errorObject = chunk.errorObjects.get(index & CHUNK_MASK);
+        if (errorObject == null)
+        {
+            return false;
+        }
+        int fatalCount = fatalErrorsBefore(this.chunks.get(), index) + ((errorObject.getErrorLevel() == IMFErrors.ErrorLevels.FATAL) ? 1 : 0);
+        chunk.cumulativeFatalCounts.set(index & CHUNK_MASK, fatalCount);
+        this.publishedCount.compareAndSet(index, index + 1);
+        return true;
+    }
+
+    private Chunk chunkFor(int index)
+    {
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        while (true)
+        {
+            Chunk[] chunkArray = this.chunks.get();
+            if (chunkIndex < chunkArray.length)
+            {
+                return chunkArray[chunkIndex];
+            }
+            Chunk[] grownChunkArray = Arrays.copyOf(chunkArray, Math.max(chunkIndex + 1, chunkArray.length * 2));
+            for (int i = chunkArray.length; i < grownChunkArray.length; i++)
+            {
+                grownChunkArray[i] = new Chunk();
+            }
+            this.chunks.compareAndSet(chunkArray, grownChunkArray);
+        }
+    }
+
+    /**
+     * Number of fatal errors within the first {@code count} published errors
+     */
+    private static int fatalErrorsBefore(Chunk[] chunkArray, int count)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+        int index = count - 1;
+        return chunkArray[index >>> CHUNK_SHIFT].cumulativeFatalCounts.get(index & CHUNK_MASK);
+    }
+
+    private static final class Chunk
+    {
+        private final AtomicReferenceArray<ErrorObject> errorObjects = new AtomicReferenceArray<>(CHUNK_SIZE);
+        private final AtomicIntegerArray cumulativeFatalCounts = new AtomicIntegerArray(CHUNK_SIZE);
+    }
 
+    /**
+     * An unmodifiable view over a published range of the append-only log
+     */
+    private static final class Snapshot extends AbstractList<ErrorObject> implements RandomAccess
+    {
+        private final Chunk[] chunkArray;
+        private final int startIndex;
+        private final int endIndex;
+
+        private Snapshot(Chunk[] chunkArray, int startIndex, int endIndex)
+        {
+            this.chunkArray = chunkArray;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        public ErrorObject get(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException(String.format("index = %d is not within [0, %d)", index, size()));
+            }
+            int absoluteIndex = this.startIndex + index;
+            return this.chunkArray[absoluteIndex >>> CHUNK_SHIFT].errorObjects.get(absoluteIndex & CHUNK_MASK);
+        }
+
+        @Override
+        public int size()
+        {
+            return this.endIndex - this.startIndex;
+        }
+
+        @Override
+        public List<ErrorObject> subList(int fromIndex, int toIndex)
+        {
+            if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())
+            {
+                throw new IndexOutOfBoundsException(String.format("fromIndex = %d, toIndex = %d, size = %d", fromIndex, toIndex, size()));
+            }
+            return new Snapshot(this.chunkArray, this.startIndex + fromIndex, this.startIndex + toIndex);
+        }
     }
 }
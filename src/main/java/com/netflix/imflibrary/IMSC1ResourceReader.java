@@ -0,0 +1,404 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.GenericStreamReader;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.EssenceContainerData;
+import com.netflix.imflibrary.st0377.header.GenericPackage;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st0377.header.SourcePackage;
+import com.netflix.imflibrary.st0377.header.TimeTextResourceSubDescriptor;
+import com.netflix.imflibrary.st0377.header.TimedTextDescriptor;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A reader of the resources of an IMSC1 timed text track file (SMPTE ST 429-5 as constrained by SMPTE ST 2067-2): the
+ * TTML document held by the clip-wrapped essence container, and the ancillary resources (PNG images and OpenType fonts)
+ * held by the Generic Stream Partitions referenced by the TimeTextResourceSubDescriptors of the TimedTextDescriptor.
+ * Partitions are located with the RandomIndexPack, only KLV keys and the leading bytes of every resource are read to
+ * locate and check the resources, and every resource can then be streamed with bounded memory through
+ * {@link TimedTextResource#open()}. The MIME type of every ancillary resource is checked against the MIME types
+ * allowed by st2067-2 and against the signature of its content.
+ */
+@ThreadSafe
+public final class IMSC1ResourceReader
+{
+    /**
+     * The MIME type reported for the TTML document of a timed text track file
+     */
+    public static final String TTML_DOCUMENT_MIME_MEDIA_TYPE = "application/ttml+xml";
+
+    private static final String IMF_IMSC1_EXCEPTION_PREFIX = "IMF IMSC1 check: ";
+    private static final int SIGNATURE_SIZE = 8;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a, 0x1a, 0x0a};
+    private static final byte[][] OPENTYPE_SIGNATURES = {{0x4f, 0x54, 0x54, 0x4f}, {0x00, 0x01, 0x00, 0x00}, {0x74, 0x72, 0x75, 0x65}};
+    private static final byte[] UTF8_BYTE_ORDER_MARK = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+
+    /**
+     * A method that reads the resources of a timed text track file
+     *
+     * @param trackFile the path of the track file
+     * @return the result of the read, whose errors include those reported while reading the HeaderPartition
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ReadResult read(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        ReadResult readResult = read(new FileByteRangeProvider(trackFile), headerPartition);
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(readResult.getErrors());
+        return new ReadResult(readResult.document, readResult.ancillaryResources, errors);
+    }
+
+    /**
+     * A method that reads the resources of a timed text track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return the result of the read
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ReadResult read(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        EssenceContainerData essenceContainerData = null;
+        TimedTextDescriptor timedTextDescriptor = null;
+        for (InterchangeObject interchangeObject : headerPartition.getEssenceContainerDataList())
+        {
+            EssenceContainerData candidate = (EssenceContainerData) interchangeObject;
+            GenericPackage genericPackage = candidate.getLinkedPackage();
+            if (genericPackage instanceof SourcePackage
+                    && ((SourcePackage) genericPackage).getGenericDescriptor() instanceof TimedTextDescriptor)
+            {
+                essenceContainerData = candidate;
+                timedTextDescriptor = (TimedTextDescriptor) ((SourcePackage) genericPackage).getGenericDescriptor();
+                break;
+            }
+        }
+        if (timedTextDescriptor == null)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The track file does not contain a TimedTextDescriptor");
+            return new ReadResult(null, new ArrayList<>(), imfErrorLogger.getErrors());
+        }
+
+        GenericStreamReader genericStreamReader = GenericStreamReader.fromResource(resourceByteRangeProvider);
+        TimedTextResource document = readDocument(genericStreamReader, essenceContainerData.getBodySID(), imfErrorLogger);
+
+        List<TimedTextResource> ancillaryResources = new ArrayList<>();
+        Set<Long> referencedBodySIDs = new HashSet<>();
+        referencedBodySIDs.add(essenceContainerData.getBodySID());
+        for (TimeTextResourceSubDescriptor subDescriptor : timedTextDescriptor.getSubDescriptorList())
+        {
+            Long bodySID = subDescriptor.getEssenceStreamID();
+            if (bodySID == null)
+            {
+                addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        String.format("The TimeTextResourceSubDescriptor of the resource with MIME type %s is missing its EssenceStreamID", subDescriptor.getMimeMediaType()));
+                continue;
+            }
+            referencedBodySIDs.add(bodySID);
+            TimedTextResource ancillaryResource = readAncillaryResource(genericStreamReader, bodySID, subDescriptor.getMimeMediaType(), imfErrorLogger);
+            if (ancillaryResource != null)
+            {
+                ancillaryResources.add(ancillaryResource);
+            }
+        }
+
+        for (long bodySID : genericStreamReader.getBodySIDs())
+        {
+            if (!referencedBodySIDs.contains(bodySID))
+            {
+                addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING,
+                        String.format("The stream with BodySID %d is not referenced by any TimeTextResourceSubDescriptor", bodySID));
+            }
+        }
+        return new ReadResult(document, ancillaryResources, imfErrorLogger.getErrors());
+    }
+
+    private static @Nullable TimedTextResource readDocument(GenericStreamReader genericStreamReader, long bodySID, IMFErrorLogger imfErrorLogger)
+            throws IOException
+    {
+        List<GenericStreamReader.StreamElement> documentElements = new ArrayList<>();
+        try
+        {
+            for (GenericStreamReader.StreamElement streamElement : genericStreamReader.getEssenceElements(bodySID))
+            {
+                if (KLVPacket.isEssenceElementKey(streamElement.getKey(), KLVPacket.DATA_ITEM_TYPE))
+                {
+                    documentElements.add(streamElement);
+                }
+            }
+        }
+        catch (MXFException e)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    String.format("The essence container with BodySID %d cannot be read: %s", bodySID, e.getMessage()));
+            return null;
+        }
+        if (documentElements.isEmpty() || documentElements.get(0).getLength() == 0)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    String.format("The essence container with BodySID %d does not hold a TTML document", bodySID));
+            return null;
+        }
+        if (documentElements.size() > 1)
+        {
+            //Section 5.4.1 st2067-2:2016, the timed text essence container is clip-wrapped
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    String.format("The essence container with BodySID %d holds %d essence elements, only the first one is read as the TTML document",
+                            bodySID, documentElements.size()));
+        }
+
+        TimedTextResource document = new TimedTextResource(genericStreamReader, documentElements.get(0), TTML_DOCUMENT_MIME_MEDIA_TYPE);
+        byte[] signature = document.readSignature();
+        int start = startsWith(signature, UTF8_BYTE_ORDER_MARK) ? UTF8_BYTE_ORDER_MARK.length : 0;
+        while (start < signature.length && Character.isWhitespace(signature[start]))
+        {
+            start++;
+        }
+        if (start >= signature.length || signature[start] != '<')
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    String.format("The TTML document of the essence container with BodySID %d does not start with an XML declaration or element", bodySID));
+        }
+        return document;
+    }
+
+    private static @Nullable TimedTextResource readAncillaryResource(GenericStreamReader genericStreamReader, long bodySID, String mimeMediaType,
+                                                                    IMFErrorLogger imfErrorLogger) throws IOException
+    {
+        //Section 5.4.5 and 5.4.6 st2067-2:2016
+        boolean isImage = IMFConstraints.IMSC1ImageResourceMimeMediaType.equals(mimeMediaType);
+        boolean isFont = IMFConstraints.IMSC1FontResourceMimeMediaType.equals(mimeMediaType);
+        if (!isImage && !isFont)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    String.format("The resource with BodySID %d has MIME type %s, valid MIME types are {%s} {%s}", bodySID, mimeMediaType,
+                            IMFConstraints.IMSC1ImageResourceMimeMediaType, IMFConstraints.IMSC1FontResourceMimeMediaType));
+        }
+
+        List<GenericStreamReader.StreamElement> dataElements = new ArrayList<>();
+        try
+        {
+            for (GenericStreamReader.StreamElement streamElement : genericStreamReader.getDataElements(bodySID))
+            {
+                if (streamElement.isGenericStreamDataElement())
+                {
+                    dataElements.add(streamElement);
+                }
+            }
+        }
+        catch (MXFException e)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    String.format("The resource with BodySID %d and MIME type %s cannot be read: %s", bodySID, mimeMediaType, e.getMessage()));
+            return null;
+        }
+        if (dataElements.isEmpty() || dataElements.get(0).getLength() == 0)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    String.format("The Generic Stream Partitions with BodySID %d do not hold the resource with MIME type %s", bodySID, mimeMediaType));
+            return null;
+        }
+        if (dataElements.size() > 1)
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    String.format("The Generic Stream Partitions with BodySID %d hold %d data elements, only the first one is read as the resource with MIME type %s",
+                            bodySID, dataElements.size(), mimeMediaType));
+        }
+
+        TimedTextResource ancillaryResource = new TimedTextResource(genericStreamReader, dataElements.get(0), mimeMediaType);
+        byte[] signature = ancillaryResource.readSignature();
+        if ((isImage && !startsWith(signature, PNG_SIGNATURE))
+                || (isFont && Arrays.stream(OPENTYPE_SIGNATURES).noneMatch(fontSignature -> startsWith(signature, fontSignature))))
+        {
+            addError(imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    String.format("The content of the resource with BodySID %d does not match its MIME type %s", bodySID, mimeMediaType));
+        }
+        return ancillaryResource;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix)
+    {
+        return bytes.length >= prefix.length && Arrays.equals(Arrays.copyOf(bytes, prefix.length), prefix);
+    }
+
+    private static void addError(IMFErrorLogger imfErrorLogger, IMFErrorLogger.IMFErrors.ErrorLevels errorLevel, String description)
+    {
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, errorLevel, IMF_IMSC1_EXCEPTION_PREFIX + description);
+    }
+
+    /**
+     * A resource of a timed text track file, located in the file but not read
+     */
+    @Immutable
+    public static final class TimedTextResource
+    {
+        private final GenericStreamReader genericStreamReader;
+        private final GenericStreamReader.StreamElement streamElement;
+        private final String mimeMediaType;
+
+        private TimedTextResource(GenericStreamReader genericStreamReader, GenericStreamReader.StreamElement streamElement, String mimeMediaType)
+        {
+            this.genericStreamReader = genericStreamReader;
+            this.streamElement = streamElement;
+            this.mimeMediaType = mimeMediaType;
+        }
+
+        /**
+         * Getter for the BodySID of the stream that holds the resource
+         *
+         * @return the BodySID
+         */
+        public long getBodySID()
+        {
+            return this.streamElement.getBodySID();
+        }
+
+        /**
+         * Getter for the MIME type of the resource, as signaled by its TimeTextResourceSubDescriptor, or
+         * {@link #TTML_DOCUMENT_MIME_MEDIA_TYPE} for the TTML document
+         *
+         * @return the MIME type
+         */
+        public String getMimeMediaType()
+        {
+            return this.mimeMediaType;
+        }
+
+        /**
+         * Getter for the position of the resource in the file
+         *
+         * @return the byte offset of the first byte of the resource relative to the start of the file
+         */
+        public long getFileOffset()
+        {
+            return this.streamElement.getFileOffset();
+        }
+
+        /**
+         * Getter for the size of the resource
+         *
+         * @return the size in bytes
+         */
+        public long getLength()
+        {
+            return this.streamElement.getLength();
+        }
+
+        /**
+         * A method that opens a read-only channel over the resource, which is streamed with byte range requests of
+         * bounded size and without temporary files
+         *
+         * @return a channel whose position 0 is the first byte of the resource, to be closed by the caller
+         */
+        public SeekableByteChannel open()
+        {
+            return this.genericStreamReader.openElement(this.streamElement);
+        }
+
+        private byte[] readSignature() throws IOException
+        {
+            ByteBuffer signature = ByteBuffer.allocate((int) Math.min(SIGNATURE_SIZE, this.streamElement.getLength()));
+            try (SeekableByteChannel channel = open())
+            {
+                channel.read(signature);
+            }
+            return Arrays.copyOf(signature.array(), signature.position());
+        }
+
+        /**
+         * A method that returns a string representation of a TimedTextResource object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("%s, mimeMediaType = %s", this.streamElement.toString(), this.mimeMediaType);
+        }
+    }
+
+    /**
+     * The result of reading the resources of a timed text track file
+     */
+    @Immutable
+    public static final class ReadResult
+    {
+        private final TimedTextResource document;
+        private final List<TimedTextResource> ancillaryResources;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private ReadResult(@Nullable TimedTextResource document, List<TimedTextResource> ancillaryResources, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.document = document;
+            this.ancillaryResources = Collections.unmodifiableList(ancillaryResources);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the TTML document of the track file
+         *
+         * @return the TTML document, null if the track file does not hold one
+         */
+        public @Nullable TimedTextResource getDocument()
+        {
+            return this.document;
+        }
+
+        /**
+         * Getter for the ancillary resources of the track file
+         *
+         * @return the ancillary resources in the order of their TimeTextResourceSubDescriptors
+         */
+        public List<TimedTextResource> getAncillaryResources()
+        {
+            return this.ancillaryResources;
+        }
+
+        /**
+         * Getter for the errors reported while reading the resources
+         *
+         * @return a list of errors
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
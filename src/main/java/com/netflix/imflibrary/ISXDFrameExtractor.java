@@ -0,0 +1,775 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st2067_202.ISXDDataEssenceDescriptor;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An extractor of the XML documents of an ISXD track file (SMPTE ST 2067-202). Every edit unit located by the
+ * IndexTable is expected to hold a frame-wrapped essence element whose value is a UTF-8 XML document. The edit units of
+ * a range are read with a single range request and every document is exposed as a read-only view of the bytes of the
+ * range, so that documents are neither copied nor is more than a range of a long track file held in memory. Documents
+ * can optionally be validated against a schema selected by the namespace of their root element, and written out along
+ * with a manifest that maps every edit unit to its document. Ranges are processed concurrently.
+ */
+@ThreadSafe
+public final class ISXDFrameExtractor
+{
+    private static final Logger logger = LoggerFactory.getLogger(ISXDFrameExtractor.class);
+
+    /**
+     * The default number of edit units processed by a single task
+     */
+    public static final int DEFAULT_EDIT_UNITS_PER_TASK = 64;
+
+    /**
+     * The name of the manifest written to the output directory of an extraction
+     */
+    public static final String MANIFEST_FILE_NAME = "manifest.tsv";
+
+    private static final String IMF_ISXD_EXCEPTION_PREFIX = "IMF ISXD check: ";
+    /* configured once and shared, the readers it creates are independent of each other */
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXMLInputFactory();
+
+    private final Executor executor;
+    private final int editUnitsPerTask;
+    private final Map<String, Schema> schemas;
+
+    /**
+     * Constructor for an ISXDFrameExtractor that does not validate documents and processes ranges on the common
+     * ForkJoinPool
+     */
+    public ISXDFrameExtractor()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_EDIT_UNITS_PER_TASK, null);
+    }
+
+    /**
+     * Constructor for an ISXDFrameExtractor
+     *
+     * @param executor the Executor that ranges of edit units are processed on, null to process them on the calling thread
+     * @param editUnitsPerTask the maximum number of edit units processed by a single task
+     * @param schemas the schemas that documents are validated against keyed by the namespace URI of the root element
+     *                they apply to, null to not validate documents; see {@link #newSchema(Source...)}
+     */
+    public ISXDFrameExtractor(@Nullable Executor executor, int editUnitsPerTask, @Nullable Map<String, Schema> schemas)
+    {
+        if (editUnitsPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("editUnitsPerTask = %d is not > 0", editUnitsPerTask));
+        }
+        this.executor = executor;
+        this.editUnitsPerTask = editUnitsPerTask;
+        this.schemas = (schemas == null) ? null : Collections.unmodifiableMap(new HashMap<>(schemas));
+    }
+
+    /**
+     * A method that extracts the XML documents of an ISXD track file
+     *
+     * @param trackFile the path of the track file
+     * @param outputDirectory the directory that documents and the manifest are written to, null to only check documents
+     * @return the result of the extraction
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ExtractionResult extract(@Nonnull Path trackFile, @Nullable Path outputDirectory) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        ExtractionResult extractionResult;
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            extractionResult = extract(resourceByteRangeProvider, headerPartition, outputDirectory);
+        }
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(extractionResult.getErrors());
+        return new ExtractionResult(extractionResult.manifest, errors);
+    }
+
+    /**
+     * A method that extracts the XML documents of an ISXD track file. Documents are written to files named after their
+     * edit unit, and the manifest lists the edit unit, file name, length, root element namespace and validation status
+     * of every document, separated by tabs, in edit unit order.
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @param outputDirectory the directory that documents and the manifest are written to, null to only check documents
+     * @return the result of the extraction
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ExtractionResult extract(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition,
+                                    @Nullable Path outputDirectory) throws IOException
+    {
+        EditUnitFindings findings = new EditUnitFindings();
+        if (!hasISXDDataEssenceDescriptor(headerPartition))
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_ISXD_EXCEPTION_PREFIX + "The track file does not contain an ISXDDataEssenceDescriptor", -1);
+            return new ExtractionResult(new ArrayList<>(), findings.toErrors());
+        }
+        if (outputDirectory != null)
+        {
+            Files.createDirectories(outputDirectory);
+        }
+
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges(this.editUnitsPerTask);
+
+        List<ManifestEntry> manifest = new ArrayList<>();
+        for (RangeResult rangeResult : ConcurrentTasks.invokeAll(this.executor, editUnitRanges,
+                editUnitRange -> extractEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, outputDirectory)))
+        {
+            findings.addAll(rangeResult.findings);
+            manifest.addAll(rangeResult.manifestEntries);
+        }
+
+        if (outputDirectory != null)
+        {
+            writeManifest(manifest, outputDirectory.resolve(MANIFEST_FILE_NAME));
+        }
+        logger.info("Extracted {} ISXD documents, {} distinct findings", manifest.size(), findings.size());
+        return new ExtractionResult(manifest, findings.toErrors());
+    }
+
+    /**
+     * A method that returns the frames of an ISXD track file in edit unit order. A range of edit units is read as the
+     * iterator reaches it, so that a track file of any duration can be consumed one frame at a time; an I/O error raised
+     * while advancing is exposed through an UncheckedIOException.
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @return an iterator over the frames of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public Iterator<ISXDFrame> iterateFrames(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        return new ISXDFrameIterator(resourceByteRangeProvider, essenceIndex, essenceIndex.getEditUnitRanges(this.editUnitsPerTask).iterator());
+    }
+
+    private static boolean hasISXDDataEssenceDescriptor(HeaderPartition headerPartition)
+    {
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors())
+        {
+            if (essenceDescriptor instanceof ISXDDataEssenceDescriptor.ISXDEssenceDescriptorBO)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RangeResult extractEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                             EssenceIndex.EditUnitRange editUnitRange, @Nullable Path outputDirectory) throws IOException
+    {
+        RangeResult rangeResult = new RangeResult();
+        byte[] key = null;
+        for (ISXDFrame isxdFrame : readEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, rangeResult.findings))
+        {
+            long editUnit = isxdFrame.getEditUnit();
+            if (key == null)
+            {
+                key = isxdFrame.key;
+            }
+            else if (!Arrays.equals(key, isxdFrame.key))
+            {
+                rangeResult.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_ISXD_EXCEPTION_PREFIX
+                        + "The essence element key of the edit unit differs from the key of the previous edit units", editUnit);
+            }
+
+            String namespaceURI = null;
+            String status;
+            try
+            {
+                //a single parse finds the namespace of the root element, which selects the schema that the rest of the parse validates against
+                ExceptionRecordingStreamReader xmlStreamReader = new ExceptionRecordingStreamReader(XML_INPUT_FACTORY.createXMLStreamReader(asInputStream(isxdFrame.getDocument())));
+                try
+                {
+                    namespaceURI = readToRootElement(xmlStreamReader);
+                    status = validate(xmlStreamReader, namespaceURI, editUnit, rangeResult.findings);
+                }
+                finally
+                {
+                    xmlStreamReader.close();
+                }
+            }
+            catch (XMLStreamException e)
+            {
+                rangeResult.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_ISXD_EXCEPTION_PREFIX
+                        + "The edit unit does not hold a well-formed XML document", editUnit);
+                status = "malformed: " + e.getMessage();
+            }
+
+            String fileName = null;
+            if (outputDirectory != null)
+            {
+                fileName = String.format("%08d.xml", editUnit);
+                try (SeekableByteChannel channel = Files.newByteChannel(outputDirectory.resolve(fileName),
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+                {
+                    ByteBuffer document = isxdFrame.getDocument();
+                    while (document.hasRemaining())
+                    {
+                        channel.write(document);
+                    }
+                }
+            }
+            rangeResult.manifestEntries.add(new ManifestEntry(editUnit, fileName, isxdFrame.getLength(), namespaceURI, status));
+        }
+        return rangeResult;
+    }
+
+    /**
+     * A method that compiles schemas into a Schema that documents can be validated against, with a SchemaFactory that
+     * does not access external DTDs or schemas, so every schema that the compiled Schema depends upon has to be one of
+     * the sources
+     *
+     * @param schemaSources the sources of the schemas, in an order such that every schema follows the schemas that it
+     *                      depends upon
+     * @return the compiled Schema
+     * @throws SAXException if the schemas cannot be compiled
+     */
+    public static Schema newSchema(@Nonnull Source... schemaSources) throws SAXException
+    {
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        schemaFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        schemaFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        return schemaFactory.newSchema(schemaSources);
+    }
+
+    /**
+     * Validates the rest of a document, from its root element, against the schema of its namespace. A document that is
+     * not validated is still parsed to its end so that a malformed document is detected.
+     *
+     * @return the validation status of the document for the manifest
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    private String validate(ExceptionRecordingStreamReader xmlStreamReader, @Nullable String namespaceURI, long editUnit, EditUnitFindings findings)
+            throws IOException, XMLStreamException
+    {
+        Schema schema = (this.schemas == null) ? null : this.schemas.get(namespaceURI == null ? "" : namespaceURI);
+        if (schema == null)
+        {
+            if (this.schemas != null)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, IMF_ISXD_EXCEPTION_PREFIX + String.format(
+                        "No schema is available for the namespace %s of the root element of the XML document", namespaceURI), editUnit);
+            }
+            while (xmlStreamReader.hasNext())
+            {
+                xmlStreamReader.next();
+            }
+            return "unvalidated";
+        }
+        //a Schema is thread-safe, a Validator is not
+        Validator validator = schema.newValidator();
+        try
+        {
+            //documents come from the track file, they must not make the validator read other resources
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            validator.validate(new StAXSource(xmlStreamReader));
+            return "valid";
+        }
+        catch (SAXException e)
+        {
+            if (xmlStreamReader.exception != null)
+            {
+                throw xmlStreamReader.exception;
+            }
+            //the message varies with the content of the document, it is kept in the manifest only
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_ISXD_EXCEPTION_PREFIX + String.format(
+                    "The XML document does not conform to the schema for the namespace %s", namespaceURI), editUnit);
+            return "invalid: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Advances a reader to the root element of its document
+     *
+     * @return the namespace URI of the root element
+     * @throws XMLStreamException if the document is not well-formed or has no root element
+     */
+    private static @Nullable String readToRootElement(XMLStreamReader xmlStreamReader) throws XMLStreamException
+    {
+        while (xmlStreamReader.hasNext())
+        {
+            if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT)
+            {
+                return xmlStreamReader.getNamespaceURI();
+            }
+        }
+        throw new XMLStreamException("The document has no root element");
+    }
+
+    private static XMLInputFactory newXMLInputFactory()
+    {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xmlInputFactory;
+    }
+
+    private static InputStream asInputStream(ByteBuffer document)
+    {
+        return new ByteBufferInputStream(document.duplicate());
+    }
+
+    private static List<ISXDFrame> readEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                                     EssenceIndex.EditUnitRange editUnitRange, EditUnitFindings findings) throws IOException
+    {
+        long firstEditUnit = editUnitRange.getFirstEditUnit();
+        long lastEditUnit = firstEditUnit + editUnitRange.getEditUnitCount() - 1;
+        long rangeStart = essenceIndex.getFileOffset(firstEditUnit);
+        long rangeEnd = essenceIndex.getFileOffset(lastEditUnit) + essenceIndex.getEditUnitSize(lastEditUnit) - 1;
+        if (rangeEnd - rangeStart + 1 > Integer.MAX_VALUE)
+        {
+            throw new MXFException(String.format("Edit units %s span more than 2 GiB", editUnitRange));
+        }
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(rangeStart, rangeEnd);
+
+        List<ISXDFrame> isxdFrames = new ArrayList<>();
+        for (long editUnit = firstEditUnit; editUnit <= lastEditUnit; editUnit++)
+        {
+            int position = (int) (essenceIndex.getFileOffset(editUnit) - rangeStart);
+            int limit = position + (int) essenceIndex.getEditUnitSize(editUnit);
+            KLVPacket.Header header = null;
+            try
+            {
+                //a frame-wrapped edit unit holds the essence element, preceded by KLV fill if any
+                while (position < limit)
+                {
+                    ByteArrayDataProvider byteProvider = new ByteArrayDataProvider(bytes);
+                    byteProvider.skipBytes(position);
+                    header = new KLVPacket.Header(byteProvider, rangeStart + position);
+                    if (!KLVPacket.isKLVFillItem(header.getKey()))
+                    {
+                        break;
+                    }
+                    position += (int) (header.getKLSize() + header.getVSize());
+                    header = null;
+                }
+            }
+            catch (MXFException | IOException e)
+            {
+                header = null;
+            }
+            if (header == null || position + header.getKLSize() + header.getVSize() > limit)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_ISXD_EXCEPTION_PREFIX + "The edit unit does not hold a complete essence element", editUnit);
+                continue;
+            }
+            ByteBuffer document = ByteBuffer.wrap(bytes, position + (int) header.getKLSize(), (int) header.getVSize()).slice();
+            isxdFrames.add(new ISXDFrame(editUnit, header.getKey(), document));
+        }
+        return isxdFrames;
+    }
+
+    private static void writeManifest(List<ManifestEntry> manifest, Path manifestPath) throws IOException
+    {
+        try (BufferedWriter writer = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8))
+        {
+            writer.write("EditUnit\tFile\tLength\tNamespaceURI\tStatus");
+            writer.newLine();
+            for (ManifestEntry manifestEntry : manifest)
+            {
+                writer.write(String.format("%d\t%s\t%d\t%s\t%s", manifestEntry.editUnit, nullToEmpty(manifestEntry.fileName), manifestEntry.length,
+                        nullToEmpty(manifestEntry.namespaceURI), manifestEntry.status.replaceAll("\\s+", " ")));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String nullToEmpty(@Nullable String string)
+    {
+        return (string == null) ? "" : string;
+    }
+
+    /**
+     * An iterator that reads a single range of edit units at a time
+     */
+    @NotThreadSafe
+    private static final class ISXDFrameIterator implements Iterator<ISXDFrame>
+    {
+        private final ResourceByteRangeProvider resourceByteRangeProvider;
+        private final EssenceIndex essenceIndex;
+        private final Iterator<EssenceIndex.EditUnitRange> editUnitRanges;
+        private final Deque<ISXDFrame> isxdFrames = new ArrayDeque<>();
+
+        private ISXDFrameIterator(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex, Iterator<EssenceIndex.EditUnitRange> editUnitRanges)
+        {
+            this.resourceByteRangeProvider = resourceByteRangeProvider;
+            this.essenceIndex = essenceIndex;
+            this.editUnitRanges = editUnitRanges;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (this.isxdFrames.isEmpty() && this.editUnitRanges.hasNext())
+            {
+                try
+                {
+                    //findings are not reported by the iterator, extract() reports them
+                    this.isxdFrames.addAll(readEditUnitRange(this.resourceByteRangeProvider, this.essenceIndex, this.editUnitRanges.next(), new EditUnitFindings()));
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return !this.isxdFrames.isEmpty();
+        }
+
+        @Override
+        public ISXDFrame next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return this.isxdFrames.removeFirst();
+        }
+    }
+
+    /**
+     * An XMLStreamReader that records the first XMLStreamException it throws, so that a document that is not well-formed
+     * can be told apart from an invalid one once the Validator has wrapped the exception
+     */
+    @NotThreadSafe
+    private static final class ExceptionRecordingStreamReader extends StreamReaderDelegate
+    {
+        private XMLStreamException exception;
+
+        private ExceptionRecordingStreamReader(XMLStreamReader xmlStreamReader)
+        {
+            super(xmlStreamReader);
+        }
+
+        @Override
+        public int next() throws XMLStreamException
+        {
+            try
+            {
+                return super.next();
+            }
+            catch (XMLStreamException e)
+            {
+                throw record(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() throws XMLStreamException
+        {
+            try
+            {
+                return super.hasNext();
+            }
+            catch (XMLStreamException e)
+            {
+                throw record(e);
+            }
+        }
+
+        private XMLStreamException record(XMLStreamException e)
+        {
+            if (this.exception == null)
+            {
+                this.exception = e;
+            }
+            return e;
+        }
+    }
+
+    /**
+     * An InputStream over the remaining bytes of a ByteBuffer, which reads documents without copying them
+     */
+    @NotThreadSafe
+    private static final class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer byteBuffer;
+
+        private ByteBufferInputStream(ByteBuffer byteBuffer)
+        {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return this.byteBuffer.hasRemaining() ? (this.byteBuffer.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+            if (!this.byteBuffer.hasRemaining())
+            {
+                return -1;
+            }
+            int count = Math.min(length, this.byteBuffer.remaining());
+            this.byteBuffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return this.byteBuffer.remaining();
+        }
+    }
+
+    /**
+     * The findings and manifest entries of a range of edit units
+     */
+    private static final class RangeResult
+    {
+        private final EditUnitFindings findings = new EditUnitFindings();
+        private final List<ManifestEntry> manifestEntries = new ArrayList<>();
+    }
+
+    /**
+     * The XML document held by an edit unit of an ISXD track file
+     */
+    @Immutable
+    public static final class ISXDFrame
+    {
+        private final long editUnit;
+        private final byte[] key;
+        private final ByteBuffer document;
+
+        private ISXDFrame(long editUnit, byte[] key, ByteBuffer document)
+        {
+            this.editUnit = editUnit;
+            this.key = key;
+            this.document = document.asReadOnlyBuffer();
+        }
+
+        /**
+         * Getter for the edit unit of the frame
+         *
+         * @return the zero based edit unit
+         */
+        public long getEditUnit()
+        {
+            return this.editUnit;
+        }
+
+        /**
+         * Getter for the length of the XML document of the frame
+         *
+         * @return the length of the document in bytes
+         */
+        public int getLength()
+        {
+            return this.document.remaining();
+        }
+
+        /**
+         * Getter for the XML document of the frame, as a read-only view of the bytes read from the track file
+         *
+         * @return a new ByteBuffer positioned at the first byte of the UTF-8 document
+         */
+        public ByteBuffer getDocument()
+        {
+            return this.document.duplicate();
+        }
+
+        /**
+         * Getter for the XML document of the frame as a string
+         *
+         * @return the decoded document
+         */
+        public String getDocumentAsString()
+        {
+            return StandardCharsets.UTF_8.decode(this.document.duplicate()).toString();
+        }
+    }
+
+    /**
+     * An entry of the manifest of an extraction
+     */
+    @Immutable
+    public static final class ManifestEntry
+    {
+        private final long editUnit;
+        private final String fileName;
+        private final int length;
+        private final String namespaceURI;
+        private final String status;
+
+        private ManifestEntry(long editUnit, @Nullable String fileName, int length, @Nullable String namespaceURI, String status)
+        {
+            this.editUnit = editUnit;
+            this.fileName = fileName;
+            this.length = length;
+            this.namespaceURI = namespaceURI;
+            this.status = status;
+        }
+
+        /**
+         * Getter for the edit unit of the document
+         *
+         * @return the zero based edit unit
+         */
+        public long getEditUnit()
+        {
+            return this.editUnit;
+        }
+
+        /**
+         * Getter for the name of the file that the document was written to
+         *
+         * @return the file name, relative to the output directory, or null when documents were not written out
+         */
+        public @Nullable String getFileName()
+        {
+            return this.fileName;
+        }
+
+        /**
+         * Getter for the length of the document
+         *
+         * @return the length of the document in bytes
+         */
+        public int getLength()
+        {
+            return this.length;
+        }
+
+        /**
+         * Getter for the namespace URI of the root element of the document
+         *
+         * @return the namespace URI, or null when the document is malformed or its root element has no namespace
+         */
+        public @Nullable String getNamespaceURI()
+        {
+            return this.namespaceURI;
+        }
+
+        /**
+         * Getter for the validation status of the document, one of "valid", "unvalidated", or "invalid" and
+         * "malformed" followed by the reason
+         *
+         * @return the validation status
+         */
+        public String getStatus()
+        {
+            return this.status;
+        }
+    }
+
+    /**
+     * The result of the extraction of a track file
+     */
+    @Immutable
+    public static final class ExtractionResult
+    {
+        private final List<ManifestEntry> manifest;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private ExtractionResult(List<ManifestEntry> manifest, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.manifest = Collections.unmodifiableList(manifest);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the number of frames that were extracted
+         *
+         * @return the number of frames
+         */
+        public long getFrameCount()
+        {
+            return this.manifest.size();
+        }
+
+        /**
+         * Getter for the manifest of the extraction
+         *
+         * @return the manifest entries in edit unit order
+         */
+        public List<ManifestEntry> getManifest()
+        {
+            return this.manifest;
+        }
+
+        /**
+         * Getter for the findings of the extraction
+         *
+         * @return a list of errors, empty when every document conforms
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.GenericPictureEssenceDescriptor;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st0377.header.JPEG2000PictureSubDescriptor;
+import com.netflix.imflibrary.st0377.header.UL;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import com.netflix.imflibrary.utils.Utilities;
+import com.netflix.imflibrary.validation.IMFApp2E2021ConstraintsValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A scanner that verifies the main header of every JPEG 2000 codestream of a frame-wrapped picture track file against
+ * the JPEG2000PictureSubDescriptor of the track file and against the constraints of the profile signaled by the
+ * PictureEssenceCoding UL, without decoding any picture data. The IndexTable of the track file is used to split the
+ * essence container into ranges of edit units that are scanned concurrently, and only the first few kilobytes of every
+ * codestream are read. Findings are aggregated so that a defect shared by every frame is reported once, along with the
+ * number of frames that exhibit it and the first edit unit at which it occurs.
+ */
+@ThreadSafe
+public final class J2KCodestreamScanner
+{
+    private static final Logger logger = LoggerFactory.getLogger(J2KCodestreamScanner.class);
+
+    /**
+     * The default number of edit units scanned by a single task
+     */
+    public static final int DEFAULT_EDIT_UNITS_PER_TASK = 64;
+
+    private static final int MAIN_HEADER_READ_SIZE = 4096;
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+
+    private static final int SOC = 0xFF4F;
+    private static final int CAP = 0xFF50;
+    private static final int SIZ = 0xFF51;
+    private static final int COD = 0xFF52;
+    private static final int TLM = 0xFF55;
+    private static final int QCD = 0xFF5C;
+    private static final int SOT = 0xFF90;
+
+    /* appended by ErrorObject, stripped from the errors of the HT validator before they are aggregated and wrapped again */
+    private static final String PHOTON_VERSION_SUFFIX = Utilities.appendPhotonVersionString("");
+
+    /* PictureEssenceCoding byte 15 of the first sublevel 0 profile of every mainlevel of the IMF profiles */
+    private static final int[] IMF_MAINLEVEL_FIRST_CODE = {0x02, 0x04, 0x06, 0x08, 0x0b, 0x0f, 0x14, 0x1a, 0x21, 0x29, 0x32};
+
+    private final Executor executor;
+    private final int editUnitsPerTask;
+
+    /**
+     * Constructor for a J2KCodestreamScanner that scans track files on the common ForkJoinPool
+     */
+    public J2KCodestreamScanner()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_EDIT_UNITS_PER_TASK);
+    }
+
+    /**
+     * Constructor for a J2KCodestreamScanner
+     *
+     * @param executor the Executor that ranges of edit units are scanned on, null to scan them on the calling thread
+     * @param editUnitsPerTask the maximum number of edit units scanned by a single task
+     */
+    public J2KCodestreamScanner(@Nullable Executor executor, int editUnitsPerTask)
+    {
+        if (editUnitsPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("editUnitsPerTask = %d is not > 0", editUnitsPerTask));
+        }
+        this.executor = executor;
+        this.editUnitsPerTask = editUnitsPerTask;
+    }
+
+    /**
+     * A method that scans every JPEG 2000 codestream of a track file
+     *
+     * @param trackFile the path of the track file
+     * @return the result of the scan
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ScanResult scan(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        ScanResult scanResult;
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            scanResult = scan(resourceByteRangeProvider, headerPartition);
+        }
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(scanResult.getErrors());
+        return new ScanResult(scanResult.getEditUnitCount(), errors);
+    }
+
+    /**
+     * A method that scans every JPEG 2000 codestream of a track file. Byte range requests are made concurrently from
+     * the tasks that scan ranges of edit units, so a provider that serializes them, such as a
+     * {@link com.netflix.imflibrary.utils.FileByteRangeProvider}, limits the scan to one read at a time.
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return the result of the scan
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public ScanResult scan(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition) throws IOException
+    {
+        GenericPictureEssenceDescriptor.GenericPictureEssenceDescriptorBO pictureDescriptor = null;
+        JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO jpeg2000SubDescriptor = null;
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors())
+        {
+            if (!(essenceDescriptor instanceof GenericPictureEssenceDescriptor.GenericPictureEssenceDescriptorBO))
+            {
+                continue;
+            }
+            pictureDescriptor = (GenericPictureEssenceDescriptor.GenericPictureEssenceDescriptorBO) essenceDescriptor;
+            for (InterchangeObject.InterchangeObjectBO subDescriptor : headerPartition.getSubDescriptors(essenceDescriptor))
+            {
+                if (subDescriptor instanceof JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO)
+                {
+                    jpeg2000SubDescriptor = (JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO) subDescriptor;
+                }
+            }
+            break;
+        }
+
+        EditUnitFindings findings = new EditUnitFindings();
+        if (pictureDescriptor == null || jpeg2000SubDescriptor == null)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    "The track file does not contain a picture essence descriptor with a JPEG2000SubDescriptor", -1);
+            return new ScanResult(0, findings.toErrors());
+        }
+
+        J2KHeaderParameters descriptorParameters = J2KHeaderParameters.fromJPEG2000PictureSubDescriptorBO(jpeg2000SubDescriptor);
+        if (descriptorParameters == null)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                    "The JPEG2000SubDescriptor is incomplete, codestreams are not compared against it", -1);
+        }
+        FrameRules frameRules = new FrameRules(descriptorParameters, pictureDescriptor.getPictureEssenceCodingUL());
+
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges(this.editUnitsPerTask);
+
+        for (EditUnitFindings rangeFindings : ConcurrentTasks.invokeAll(this.executor, editUnitRanges,
+                editUnitRange -> scanEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, frameRules)))
+        {
+            findings.addAll(rangeFindings);
+        }
+
+        logger.info("Scanned {} JPEG 2000 codestreams, {} distinct findings", essenceIndex.getEditUnitCount(), findings.size());
+        return new ScanResult(essenceIndex.getEditUnitCount(), findings.toErrors());
+    }
+
+    private static EditUnitFindings scanEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                              EssenceIndex.EditUnitRange editUnitRange, FrameRules frameRules) throws IOException
+    {
+        EditUnitFindings findings = new EditUnitFindings();
+        long end = editUnitRange.getFirstEditUnit() + editUnitRange.getEditUnitCount();
+        for (long editUnit = editUnitRange.getFirstEditUnit(); editUnit < end; editUnit++)
+        {
+            scanEditUnit(resourceByteRangeProvider, essenceIndex, editUnit, frameRules, findings);
+        }
+        return findings;
+    }
+
+    private static void scanEditUnit(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex, long editUnit,
+                                     FrameRules frameRules, EditUnitFindings findings) throws IOException
+    {
+        long position = essenceIndex.getFileOffset(editUnit);
+        long end = position + essenceIndex.getEditUnitSize(editUnit);
+        while (position < end)
+        {
+            byte[] bytes = read(resourceByteRangeProvider, position, Math.min(end, position + MAX_KLV_HEADER_SIZE + MAIN_HEADER_READ_SIZE));
+            KLVPacket.Header header;
+            try
+            {
+                header = new KLVPacket.Header(new ByteArrayDataProvider(bytes), position);
+            }
+            catch (MXFException e)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The edit unit does not start with a valid KLV packet", editUnit);
+                return;
+            }
+            long codestreamOffset = position + header.getKLSize();
+            if (KLVPacket.isEssenceElementKey(header.getKey(), KLVPacket.PICTURE_ITEM_TYPE))
+            {
+                if (codestreamOffset + header.getVSize() > end)
+                {
+                    findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The picture essence element extends beyond the edit unit", editUnit);
+                    return;
+                }
+                scanCodestream(resourceByteRangeProvider, codestreamOffset, header.getVSize(),
+                        Arrays.copyOfRange(bytes, (int) header.getKLSize(), bytes.length), editUnit, frameRules, findings);
+                return;
+            }
+            position = codestreamOffset + header.getVSize();
+        }
+        findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The edit unit does not contain a picture essence element", editUnit);
+    }
+
+    private static void scanCodestream(ResourceByteRangeProvider resourceByteRangeProvider, long codestreamOffset, long codestreamLength,
+                                       byte[] bytes, long editUnit, FrameRules frameRules, EditUnitFindings findings) throws IOException
+    {
+        byte[] buffer = bytes;
+        int limit = (int) Math.min(bytes.length, codestreamLength);
+        MainHeader mainHeader = MainHeader.parse(buffer, limit, codestreamLength);
+        while (mainHeader == null)
+        {
+            //the main header is larger than the bytes read so far, typically because of a large TLM marker segment
+            limit = (int) Math.min(codestreamLength, Math.min((long) Integer.MAX_VALUE - 8, 2L * Math.max(limit, MAIN_HEADER_READ_SIZE)));
+            buffer = read(resourceByteRangeProvider, codestreamOffset, codestreamOffset + limit);
+            mainHeader = MainHeader.parse(buffer, limit, codestreamLength);
+        }
+        if (mainHeader.error != null)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, mainHeader.error, editUnit);
+            return;
+        }
+        frameRules.check(mainHeader, codestreamLength, editUnit, findings);
+    }
+
+    private static byte[] read(ResourceByteRangeProvider resourceByteRangeProvider, long start, long end) throws IOException
+    {
+        return resourceByteRangeProvider.getByteRangeAsBytes(start, Math.min(end, resourceByteRangeProvider.getResourceSize()) - 1);
+    }
+
+    /**
+     * A method that returns the Rsiz value expected in codestreams of the IMF and broadcast JPEG 2000 profiles
+     *
+     * @param pictureEssenceCoding the PictureEssenceCoding UL
+     * @return the expected Rsiz, or -1 when the UL does not identify one of these profiles
+     */
+    static int getExpectedRsiz(@Nonnull UL pictureEssenceCoding)
+    {
+        int code = pictureEssenceCoding.getByte(15);
+        if (JPEG2000.isBroadcastProfile(pictureEssenceCoding))
+        {
+            int level = code - 0x10;
+            return (level <= 5 ? 0x0100 : 0x0300) | level;
+        }
+        if (!JPEG2000.isIMF2KProfile(pictureEssenceCoding) && !JPEG2000.isIMF4KProfile(pictureEssenceCoding)
+                && !JPEG2000.isIMF8KProfile(pictureEssenceCoding))
+        {
+            return -1;
+        }
+        int mainlevel = 0;
+        while (mainlevel + 1 < IMF_MAINLEVEL_FIRST_CODE.length && IMF_MAINLEVEL_FIRST_CODE[mainlevel + 1] <= code)
+        {
+            mainlevel++;
+        }
+        int sublevel = code - IMF_MAINLEVEL_FIRST_CODE[mainlevel];
+        int profile = 0x0400 + ((pictureEssenceCoding.getByte(14) - 0x02) << 8);
+        return profile | (sublevel << 4) | (mainlevel + 1);
+    }
+
+    /**
+     * The checks applied to every codestream of a track file
+     */
+    @Immutable
+    private static final class FrameRules
+    {
+        private final J2KHeaderParameters descriptorParameters;
+        private final int expectedRsiz;
+        private final boolean singleTile;
+        private final boolean isHT;
+
+        private FrameRules(@Nullable J2KHeaderParameters descriptorParameters, @Nullable UL pictureEssenceCoding)
+        {
+            this.descriptorParameters = descriptorParameters;
+            this.expectedRsiz = (pictureEssenceCoding != null) ? getExpectedRsiz(pictureEssenceCoding) : -1;
+            this.isHT = pictureEssenceCoding != null && JPEG2000.isAPP2HT(pictureEssenceCoding);
+            /* the lossy IMF profiles and the broadcast profiles of level 1 to 5 are single tile profiles */
+            this.singleTile = (this.expectedRsiz & 0xff00) == 0x0100
+                    || (this.expectedRsiz >= 0x0400 && this.expectedRsiz < 0x0700);
+        }
+
+        private void check(MainHeader mainHeader, long codestreamLength, long editUnit, EditUnitFindings findings)
+        {
+            J2KHeaderParameters p = mainHeader.parameters;
+            if (this.descriptorParameters != null)
+            {
+                compareToDescriptor(p, editUnit, findings);
+            }
+
+            if (this.expectedRsiz >= 0 && (p.rsiz & 0xffff) != this.expectedRsiz)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        String.format("Codestream Rsiz 0x%04x does not match the Rsiz 0x%04x of the PictureEssenceCoding profile", p.rsiz, this.expectedRsiz), editUnit);
+            }
+            if (this.singleTile && (p.xtsiz + p.xtosiz < p.xsiz || p.ytsiz + p.ytosiz < p.ysiz))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "Codestream has more than one tile, which the PictureEssenceCoding profile does not allow", editUnit);
+            }
+            if (this.isHT)
+            {
+                for (ErrorLogger.ErrorObject errorObject : IMFApp2E2021ConstraintsValidator.validateHTConstraints(p))
+                {
+                    String description = errorObject.getErrorDescription();
+                    if (description.endsWith(PHOTON_VERSION_SUFFIX))
+                    {
+                        description = description.substring(0, description.length() - PHOTON_VERSION_SUFFIX.length());
+                    }
+                    findings.add(errorObject.getErrorLevel(), "Codestream: " + description, editUnit);
+                }
+            }
+            if (mainHeader.tileLengthSum >= 0 && mainHeader.length + mainHeader.tileLengthSum > codestreamLength)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "The tile-part lengths of the TLM marker segments exceed the length of the codestream", editUnit);
+            }
+        }
+
+        private void compareToDescriptor(J2KHeaderParameters p, long editUnit, EditUnitFindings findings)
+        {
+            J2KHeaderParameters d = this.descriptorParameters;
+            compare("Rsiz", (long) (p.rsiz & 0xffff), (long) (d.rsiz & 0xffff), editUnit, findings);
+            compare("Xsiz", p.xsiz, d.xsiz, editUnit, findings);
+            compare("Ysiz", p.ysiz, d.ysiz, editUnit, findings);
+            compare("XOsiz", p.xosiz, d.xosiz, editUnit, findings);
+            compare("YOsiz", p.yosiz, d.yosiz, editUnit, findings);
+            compare("XTsiz", p.xtsiz, d.xtsiz, editUnit, findings);
+            compare("YTsiz", p.ytsiz, d.ytsiz, editUnit, findings);
+            compare("XTOsiz", p.xtosiz, d.xtosiz, editUnit, findings);
+            compare("YTOsiz", p.ytosiz, d.ytosiz, editUnit, findings);
+            if (p.csiz.length != d.csiz.length)
+            {
+                compare("Csiz", (long) p.csiz.length, (long) d.csiz.length, editUnit, findings);
+            }
+            else
+            {
+                for (int i = 0; i < p.csiz.length; i++)
+                {
+                    if (!p.csiz[i].equals(d.csiz[i]))
+                    {
+                        findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                                String.format("Codestream Ssiz/XRsiz/YRsiz %d/%d/%d of component %d do not match the JPEG2000SubDescriptor values %d/%d/%d",
+                                        p.csiz[i].ssiz, p.csiz[i].xrsiz, p.csiz[i].yrsiz, i, d.csiz[i].ssiz, d.csiz[i].xrsiz, d.csiz[i].yrsiz), editUnit);
+                    }
+                }
+            }
+            if (d.cap != null && !d.cap.equals(p.cap))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        String.format("Codestream CAP marker segment (Pcap 0x%08x) does not match the J2KExtendedCapabilities (Pcap 0x%08x) of the JPEG2000SubDescriptor",
+                                p.cap.pcap, d.cap.pcap), editUnit);
+            }
+            if (d.cod != null && p.cod != null && !d.cod.equals(p.cod))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "Codestream COD marker segment does not match the CodingStyleDefault of the JPEG2000SubDescriptor", editUnit);
+            }
+            if (d.qcd != null && p.qcd != null && !d.qcd.equals(p.qcd))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "Codestream QCD marker segment does not match the QuantizationDefault of the JPEG2000SubDescriptor", editUnit);
+            }
+        }
+
+        private static void compare(String field, Long codestreamValue, Long descriptorValue, long editUnit, EditUnitFindings findings)
+        {
+            if (!codestreamValue.equals(descriptorValue))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        String.format("Codestream %s %d does not match the JPEG2000SubDescriptor value %d", field, codestreamValue, descriptorValue), editUnit);
+            }
+        }
+    }
+
+    /**
+     * The marker segments of the main header of a codestream that are relevant to the scan
+     */
+    private static final class MainHeader
+    {
+        private final J2KHeaderParameters parameters;
+        private final long length;
+        private final long tileLengthSum;
+        private final String error;
+
+        private MainHeader(J2KHeaderParameters parameters, long length, long tileLengthSum, String error)
+        {
+            this.parameters = parameters;
+            this.length = length;
+            this.tileLengthSum = tileLengthSum;
+            this.error = error;
+        }
+
+        private static MainHeader error(String error)
+        {
+            return new MainHeader(null, 0, -1, error);
+        }
+
+        /**
+         * Parses the main header of a codestream, from the SOC marker through the first SOT marker
+         *
+         * @param bytes the first bytes of the codestream
+         * @param limit the number of valid bytes
+         * @param codestreamLength the length of the complete codestream
+         * @return the main header, or null when more bytes are needed to reach the first SOT marker
+         */
+        @Nullable
+        private static MainHeader parse(byte[] bytes, int limit, long codestreamLength)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, limit);
+            if (buffer.remaining() < 4)
+            {
+                return (limit < codestreamLength) ? null : error("The codestream is too short to contain a main header");
+            }
+            if ((buffer.getShort() & 0xffff) != SOC || (buffer.getShort(2) & 0xffff) != SIZ)
+            {
+                return error("The codestream does not start with the SOC and SIZ markers");
+            }
+
+            J2KHeaderParameters p = new J2KHeaderParameters();
+            p.cap = new J2KHeaderParameters.CAP();
+            p.cap.ccap = new int[0];
+            long tileLengthSum = -1;
+            while (true)
+            {
+                if (buffer.remaining() < 4)
+                {
+                    return (limit < codestreamLength) ? null : error("The codestream main header is not terminated by an SOT marker");
+                }
+                int marker = buffer.getShort() & 0xffff;
+                if (marker == SOT)
+                {
+                    if (p.xsiz == null)
+                    {
+                        return error("The codestream main header does not contain a SIZ marker segment");
+                    }
+                    return new MainHeader(p, buffer.position() - 2, tileLengthSum, null);
+                }
+                if ((marker & 0xff00) != 0xff00)
+                {
+                    return error(String.format("Invalid marker 0x%04x in the codestream main header", marker));
+                }
+                int segmentLength = buffer.getShort(buffer.position()) & 0xffff;
+                if (segmentLength < 2)
+                {
+                    return error(String.format("Invalid length %d of marker segment 0x%04x", segmentLength, marker));
+                }
+                if (buffer.remaining() < segmentLength)
+                {
+                    return (limit < codestreamLength) ? null : error("The codestream ends within its main header");
+                }
+                ByteBuffer segment = buffer.slice();
+                segment.limit(segmentLength);
+                segment.position(2);
+                buffer.position(buffer.position() + segmentLength);
+
+                try
+                {
+                    switch (marker)
+                    {
+                        case SIZ:
+                            parseSIZ(segment, p);
+                            break;
+                        case CAP:
+                            parseCAP(segment, p);
+                            break;
+                        case COD:
+                            parseCOD(segment, p);
+                            break;
+                        case QCD:
+                            parseQCD(segment, p);
+                            break;
+                        case TLM:
+                            tileLengthSum = Math.max(tileLengthSum, 0) + parseTLM(segment);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    return error(String.format("Invalid marker segment 0x%04x in the codestream main header", marker));
+                }
+            }
+        }
+
+        private static void parseSIZ(ByteBuffer segment, J2KHeaderParameters p)
+        {
+            p.rsiz = segment.getShort() & 0xffff;
+            p.xsiz = segment.getInt() & 0xffffffffL;
+            p.ysiz = segment.getInt() & 0xffffffffL;
+            p.xosiz = segment.getInt() & 0xffffffffL;
+            p.yosiz = segment.getInt() & 0xffffffffL;
+            p.xtsiz = segment.getInt() & 0xffffffffL;
+            p.ytsiz = segment.getInt() & 0xffffffffL;
+            p.xtosiz = segment.getInt() & 0xffffffffL;
+            p.ytosiz = segment.getInt() & 0xffffffffL;
+            int csiz = segment.getShort() & 0xffff;
+            p.csiz = new J2KHeaderParameters.CSiz[csiz];
+            for (int i = 0; i < csiz; i++)
+            {
+                p.csiz[i] = new J2KHeaderParameters.CSiz();
+                p.csiz[i].ssiz = (short) (segment.get() & 0xff);
+                p.csiz[i].xrsiz = (short) (segment.get() & 0xff);
+                p.csiz[i].yrsiz = (short) (segment.get() & 0xff);
+            }
+        }
+
+        private static void parseCAP(ByteBuffer segment, J2KHeaderParameters p)
+        {
+            p.cap.pcap = segment.getInt() & 0xffffffffL;
+            p.cap.ccap = new int[Long.bitCount(p.cap.pcap)];
+            for (int i = 0; i < p.cap.ccap.length; i++)
+            {
+                p.cap.ccap[i] = segment.getShort() & 0xffff;
+            }
+        }
+
+        private static void parseCOD(ByteBuffer segment, J2KHeaderParameters p)
+        {
+            p.cod = new J2KHeaderParameters.COD();
+            p.cod.scod = (short) (segment.get() & 0xff);
+            p.cod.progressionOrder = (short) (segment.get() & 0xff);
+            p.cod.numLayers = segment.getShort() & 0xffff;
+            p.cod.multiComponentTransform = (short) (segment.get() & 0xff);
+            p.cod.numDecompLevels = (short) (segment.get() & 0xff);
+            p.cod.xcb = (short) ((segment.get() & 0xff) + 2);
+            p.cod.ycb = (short) ((segment.get() & 0xff) + 2);
+            p.cod.cbStyle = (short) (segment.get() & 0xff);
+            p.cod.transformation = (short) (segment.get() & 0xff);
+            p.cod.precinctSizes = new short[segment.remaining()];
+            for (int i = 0; i < p.cod.precinctSizes.length; i++)
+            {
+                p.cod.precinctSizes[i] = (short) (segment.get() & 0xff);
+            }
+        }
+
+        private static void parseQCD(ByteBuffer segment, J2KHeaderParameters p)
+        {
+            p.qcd = new J2KHeaderParameters.QCD();
+            p.qcd.sqcd = (short) (segment.get() & 0xff);
+            int spqcdSize = (p.qcd.sqcd & 0b11111) == 0 ? 1 : 2;
+            p.qcd.spqcd = new int[segment.remaining() / spqcdSize];
+            for (int i = 0; i < p.qcd.spqcd.length; i++)
+            {
+                p.qcd.spqcd[i] = (spqcdSize == 1) ? (segment.get() & 0xff) : (segment.getShort() & 0xffff);
+            }
+        }
+
+        private static long parseTLM(ByteBuffer segment)
+        {
+            segment.get(); //Ztlm
+            int stlm = segment.get() & 0xff;
+            int ttlmSize = (stlm >> 4) & 0b11;
+            int ptlmSize = ((stlm >> 6) & 0b1) == 0 ? 2 : 4;
+            if (ttlmSize == 3)
+            {
+                throw new IllegalArgumentException(String.format("Invalid Stlm 0x%02x", stlm));
+            }
+            long tileLengthSum = 0;
+            while (segment.remaining() >= ttlmSize + ptlmSize)
+            {
+                segment.position(segment.position() + ttlmSize);
+                tileLengthSum += (ptlmSize == 2) ? (segment.getShort() & 0xffff) : (segment.getInt() & 0xffffffffL);
+            }
+            return tileLengthSum;
+        }
+    }
+
+    /**
+     * The result of the scan of a track file
+     */
+    @Immutable
+    public static final class ScanResult
+    {
+        private final long editUnitCount;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private ScanResult(long editUnitCount, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.editUnitCount = editUnitCount;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the number of edit units that were scanned
+         *
+         * @return the number of edit units
+         */
+        public long getEditUnitCount()
+        {
+            return this.editUnitCount;
+        }
+
+        /**
+         * Getter for the findings of the scan
+         *
+         * @return a list of errors, empty when every codestream conforms
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
@@ -250,7 +250,7 @@ public class J2KHeaderParameters {
             int spqcdSize = (p.qcd.sqcd & 0b11111) == 0 ? 1 : 2;
             p.qcd.spqcd = new int[(qcdString.length() - 2) / (2 * spqcdSize)];
             for (int i = 0; i < p.qcd.spqcd.length; i++) {
-                p.qcd.spqcd[i] = Integer.parseInt(qcdString.substring(2 + 2 * spqcdSize * i, 4 + 2 * spqcdSize * i), 16);
+                p.qcd.spqcd[i] = Integer.parseInt(qcdString.substring(2 + 2 * spqcdSize * i, 2 + 2 * spqcdSize * (i + 1)), 16);
             }
         }
 
@@ -287,17 +287,19 @@ public class J2KHeaderParameters {
 
         // CAP
         J2KExtendedCapabilities j2KExtendedCapabilities = jpeg2000PictureSubDescriptorBO.getJ2kExtendedCapabilities();
-        List<Short> subDescriptorcCap = j2KExtendedCapabilities.getcCap().getEntries();
-        p.cap = new CAP();
-        p.cap.pcap = j2KExtendedCapabilities.getpCap();
-        p.cap.ccap = new int[subDescriptorcCap.size()];
-        for (int i = 0; i < p.cap.ccap.length; i++) {
-            p.cap.ccap[i] = subDescriptorcCap.get(i);
-        }
+        if (j2KExtendedCapabilities != null) {
+            List<Short> subDescriptorcCap = j2KExtendedCapabilities.getcCap().getEntries();
+            p.cap = new CAP();
+            p.cap.pcap = j2KExtendedCapabilities.getpCap();
+            p.cap.ccap = new int[subDescriptorcCap.size()];
+            for (int i = 0; i < p.cap.ccap.length; i++) {
+                p.cap.ccap[i] = subDescriptorcCap.get(i);
+            }
 
-        int cCapLength = Long.bitCount(p.cap.pcap);
-        if (cCapLength > 0 && p.cap.ccap.length != cCapLength) {
-            return null;
+            int cCapLength = Long.bitCount(p.cap.pcap);
+            if (cCapLength > 0 && p.cap.ccap.length != cCapLength) {
+                return null;
+            }
         }
 
         // COD
@@ -331,7 +333,7 @@ public class J2KHeaderParameters {
             int spqcdSize = (p.qcd.sqcd & 0b11111) == 0 ? 1 : 2;
             p.qcd.spqcd = new int[(qcdString.length() - 2) / (2 * spqcdSize)];
             for (int i = 0; i < p.qcd.spqcd.length; i++) {
-                p.qcd.spqcd[i] = Integer.parseInt(qcdString.substring(2 + 2 * spqcdSize * i, 4 + 2 * spqcdSize * i), 16);
+                p.qcd.spqcd[i] = Integer.parseInt(qcdString.substring(2 + 2 * spqcdSize * i, 2 + 2 * spqcdSize * (i + 1)), 16);
             }
         }
 
@@ -56,6 +56,23 @@ public final class KLVPacket
 
     private static final byte[] GENERIC_STREAM_PARTITION_DATA_ELEMENT_KEY = {0x06, 0x0E, 0x2B, 0x34, 0x01, 0x01, 0x01, 0x0C, 0x0D, 0x01, 0x05, 0x09, 0x01, 0x00, 0x00, 0x00};
 
+    private static final byte[] GENERIC_CONTAINER_ESSENCE_ELEMENT_KEY = {0x06, 0x0E, 0x2B, 0x34, 0x01, 0x02, 0x01, 0x00, 0x0D, 0x01, 0x03, 0x01, 0x00, 0x00, 0x00, 0x00};
+    private static final byte[] GENERIC_CONTAINER_ESSENCE_ELEMENT_KEY_MASK = {1, 1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 0, 0, 0, 0};
+    private static final int ESSENCE_ELEMENT_ITEM_TYPE_INDEX = 12;
+
+    /**
+     * Item type of a Generic Container picture essence element as defined in st379-2:2010
+     */
+    public static final int PICTURE_ITEM_TYPE = 0x15;
+    /**
+     * Item type of a Generic Container sound essence element as defined in st379-2:2010
+     */
+    public static final int SOUND_ITEM_TYPE = 0x16;
+    /**
+     * Item type of a Generic Container data essence element as defined in st379-2:2010
+     */
+    public static final int DATA_ITEM_TYPE = 0x17;
+
     /**
      * Checks if the key corresponding to the KLV packet is a KLV fill item key
      *
@@ -104,6 +121,27 @@ public final class KLVPacket
     }
 
 
+    /**
+     * Checks if the key corresponding to the KLV packet is a Generic Container essence element key of the specified
+     * item type, such as {@link #PICTURE_ITEM_TYPE}
+     *
+     * @param key the key
+     * @param itemType the item type of the essence element
+     * @return the boolean
+     */
+    public static boolean isEssenceElementKey(byte[] key, int itemType)
+    {
+        for (int i=0; i<KLVPacket.KEY_FIELD_SIZE; i++)
+        {
+            if ((KLVPacket.GENERIC_CONTAINER_ESSENCE_ELEMENT_KEY_MASK[i] != 0) && (key[i] != KLVPacket.GENERIC_CONTAINER_ESSENCE_ELEMENT_KEY[i]))
+            {
+                return false;
+            }
+        }
+        return (key[KLVPacket.ESSENCE_ELEMENT_ITEM_TYPE_INDEX] & 0xff) == itemType;
+    }
+
+
     //prevent instantiation
     private KLVPacket()
     {
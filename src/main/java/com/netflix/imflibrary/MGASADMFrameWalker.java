@@ -0,0 +1,785 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st0377.header.UL;
+import com.netflix.imflibrary.st2067_203.MGAAudioMetadataSubDescriptor;
+import com.netflix.imflibrary.st2067_203.MGASoundEssenceDescriptor;
+import com.netflix.imflibrary.st2067_203.MGASoundfieldGroupLabelSubDescriptor;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A walker of the MGA frames of an MGA S-ADM track file (SMPTE ST 2067-203). Every edit unit located by the IndexTable
+ * is expected to hold an MGA frame (SMPTE ST 2127-1), that is a section count followed by an audio section and the
+ * metadata sections of the frame. The sections of every frame are checked against the MGAAudioMetadataSubDescriptors
+ * of the MGASoundEssenceDescriptor, and the S-ADM payload of every S-ADM metadata section is checked to hold an S-ADM
+ * frame that defines the ADM identifiers of the MGASoundfieldGroupLabelSubDescriptors. A single edit unit is held in
+ * memory per task, so that the memory used by a walk does not depend on the duration of the track file. The edit units
+ * of every partition are split into ranges that are walked concurrently, and a sampling interval allows a quick check
+ * of every Nth frame only.
+ */
+@ThreadSafe
+public final class MGASADMFrameWalker
+{
+    private static final Logger logger = LoggerFactory.getLogger(MGASADMFrameWalker.class);
+
+    /**
+     * The default number of edit units walked by a single task
+     */
+    public static final int DEFAULT_EDIT_UNITS_PER_TASK = 16;
+
+    private static final String IMF_MGASADM_EXCEPTION_PREFIX = "IMF MGA S-ADM check: ";
+
+    private static final int SECTION_COUNT_SIZE = 1;
+    private static final int SECTION_HEADER_SIZE = 6;
+    private static final int AUDIO_SECTION_INDEX = 0;
+
+    /* an S-ADM payload is a tag and a BER encoded length, followed by a format byte, a compression byte and the S-ADM frame */
+    private static final int SADM_PAYLOAD_TAG = 0x12;
+    private static final int SADM_FORMAT_XML = 0x00;
+    private static final int SADM_COMPRESSION_NONE = 0x00;
+    private static final int SADM_COMPRESSION_GZIP = 0x01;
+    /* the decompressed size of an S-ADM frame is capped so that a small payload cannot inflate without bound */
+    static final int MAX_DECOMPRESSED_SADM_FRAME_SIZE = 16 * 1024 * 1024;
+    private static final Set<String> ADM_ID_ATTRIBUTES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("audioProgrammeID", "audioContentID", "audioObjectID")));
+    /* configured once and shared, the readers it creates are independent of each other */
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXMLInputFactory();
+
+    private final Executor executor;
+    private final int editUnitsPerTask;
+    private final int samplingInterval;
+
+    /**
+     * Constructor for an MGASADMFrameWalker that walks every frame of track files on the common ForkJoinPool
+     */
+    public MGASADMFrameWalker()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_EDIT_UNITS_PER_TASK, 1);
+    }
+
+    /**
+     * Constructor for an MGASADMFrameWalker
+     *
+     * @param executor the Executor that ranges of edit units are walked on, null to walk them on the calling thread
+     * @param editUnitsPerTask the maximum number of edit units walked by a single task
+     * @param samplingInterval the interval between walked edit units, 1 to walk every edit unit, N to walk edit units 0, N, 2N...
+     */
+    public MGASADMFrameWalker(@Nullable Executor executor, int editUnitsPerTask, int samplingInterval)
+    {
+        if (editUnitsPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("editUnitsPerTask = %d is not > 0", editUnitsPerTask));
+        }
+        if (samplingInterval <= 0)
+        {
+            throw new IllegalArgumentException(String.format("samplingInterval = %d is not > 0", samplingInterval));
+        }
+        this.executor = executor;
+        this.editUnitsPerTask = editUnitsPerTask;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * A method that walks the MGA frames of an MGA S-ADM track file
+     *
+     * @param trackFile the path of the track file
+     * @return the result of the walk
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public WalkResult walk(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        WalkResult walkResult;
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            walkResult = walk(resourceByteRangeProvider, headerPartition);
+        }
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(walkResult.getErrors());
+        return new WalkResult(walkResult.frameCount, walkResult.walkedFrameCount, errors);
+    }
+
+    /**
+     * A method that walks the MGA frames of an MGA S-ADM track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return the result of the walk
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public WalkResult walk(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition) throws IOException
+    {
+        EditUnitFindings findings = new EditUnitFindings();
+        FrameRules frameRules = FrameRules.fromHeaderPartition(headerPartition);
+        if (frameRules == null)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The track file does not contain an MGASoundEssenceDescriptor", -1);
+            return new WalkResult(0, 0, findings.toErrors());
+        }
+
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges((long) this.editUnitsPerTask * this.samplingInterval);
+
+        long walkedFrameCount = 0;
+        for (RangeResult rangeResult : ConcurrentTasks.invokeAll(this.executor, editUnitRanges,
+                editUnitRange -> walkEditUnitRange(resourceByteRangeProvider, essenceIndex, editUnitRange, frameRules)))
+        {
+            findings.addAll(rangeResult.findings);
+            walkedFrameCount += rangeResult.walkedFrameCount;
+        }
+
+        logger.info("Walked {} of {} MGA frames, {} distinct findings", walkedFrameCount, essenceIndex.getEditUnitCount(), findings.size());
+        return new WalkResult(essenceIndex.getEditUnitCount(), walkedFrameCount, findings.toErrors());
+    }
+
+    /**
+     * A method that returns the S-ADM frames of an MGA S-ADM track file in edit unit order. Edit units are read as the
+     * iterator advances, so that the S-ADM frames of a long track file can be consumed one at a time. Only the edit
+     * units selected by the sampling interval of this walker are read, and S-ADM payloads that do not hold an S-ADM frame
+     * are skipped; an I/O error raised while advancing is exposed through an UncheckedIOException.
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return an iterator over the S-ADM frames of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException if the track file does not contain an MGASoundEssenceDescriptor
+     */
+    public Iterator<SADMFrame> iterateSADMFrames(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition)
+            throws IOException
+    {
+        FrameRules frameRules = FrameRules.fromHeaderPartition(headerPartition);
+        if (frameRules == null)
+        {
+            throw new MXFException(IMF_MGASADM_EXCEPTION_PREFIX + "The track file does not contain an MGASoundEssenceDescriptor");
+        }
+        return new SADMFrameIterator(resourceByteRangeProvider, EssenceIndex.fromResource(resourceByteRangeProvider), frameRules, this.samplingInterval);
+    }
+
+    private RangeResult walkEditUnitRange(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex,
+                                          EssenceIndex.EditUnitRange editUnitRange, FrameRules frameRules) throws IOException
+    {
+        RangeResult rangeResult = new RangeResult();
+        long end = editUnitRange.getFirstEditUnit() + editUnitRange.getEditUnitCount();
+        for (long editUnit = firstSampledEditUnit(editUnitRange.getFirstEditUnit(), this.samplingInterval); editUnit < end; editUnit += this.samplingInterval)
+        {
+            byte[] bytes = readEditUnit(resourceByteRangeProvider, essenceIndex, editUnit, rangeResult.findings);
+            if (bytes != null)
+            {
+                walkFrame(bytes, editUnit, frameRules, rangeResult.findings, null);
+            }
+            rangeResult.walkedFrameCount++;
+        }
+        return rangeResult;
+    }
+
+    private static long firstSampledEditUnit(long editUnit, int samplingInterval)
+    {
+        return ((editUnit + samplingInterval - 1) / samplingInterval) * samplingInterval;
+    }
+
+    private static @Nullable byte[] readEditUnit(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex, long editUnit,
+                                                 EditUnitFindings findings) throws IOException
+    {
+        long position = essenceIndex.getFileOffset(editUnit);
+        long size = essenceIndex.getEditUnitSize(editUnit);
+        if (size > Integer.MAX_VALUE)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The edit unit is larger than 2 GiB", editUnit);
+            return null;
+        }
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(position, position + size - 1);
+        if (isKLVKey(bytes, 0))
+        {
+            //the first edit unit of clip-wrapped essence can start with the key and length of the essence element
+            KLVPacket.Header header;
+            try
+            {
+                header = new KLVPacket.Header(new ByteArrayDataProvider(bytes), 0L);
+            }
+            catch (MXFException e)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The edit unit does not start with a valid KLV packet", editUnit);
+                return null;
+            }
+            int start = (int) header.getKLSize();
+            int end = (int) Math.min(bytes.length, header.getKLSize() + header.getVSize());
+            byte[] value = new byte[end - start];
+            System.arraycopy(bytes, start, value, 0, value.length);
+            return value;
+        }
+        return bytes;
+    }
+
+    /**
+     * Parses the sections of an MGA frame and checks them against the rules of the track file
+     *
+     * @param sadmFrames collects the S-ADM frames of the MGA frame, null when they are not needed
+     */
+    private static void walkFrame(byte[] bytes, long editUnit, FrameRules frameRules, EditUnitFindings findings, @Nullable List<SADMFrame> sadmFrames)
+    {
+        if (bytes.length < SECTION_COUNT_SIZE)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The edit unit is empty", editUnit);
+            return;
+        }
+        int sectionCount = bytes[0] & 0xff;
+        int position = SECTION_COUNT_SIZE;
+        boolean audioSectionFound = false;
+        Set<Integer> metadataIndices = new HashSet<>();
+        boolean sadmFrameFound = false;
+        Set<String> admIDs = new HashSet<>();
+        for (int i = 0; i < sectionCount; i++)
+        {
+            if (bytes.length - position < SECTION_HEADER_SIZE)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "The header of section %d extends beyond the MGA frame", i), editUnit);
+                return;
+            }
+            int index = bytes[position] & 0xff;
+            int identifier = bytes[position + 1] & 0xff;
+            long length = getUInt32(bytes, position + 2);
+            position += SECTION_HEADER_SIZE;
+            if (length > bytes.length - position)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "Section %d with index %d extends beyond the MGA frame", i, index), editUnit);
+                return;
+            }
+
+            if (index == AUDIO_SECTION_INDEX)
+            {
+                if (audioSectionFound)
+                {
+                    findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The MGA frame contains more than one audio section", editUnit);
+                }
+                audioSectionFound = true;
+                frameRules.checkAudioSection(length, editUnit, findings);
+            }
+            else if (!metadataIndices.add(index))
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "The MGA frame contains more than one metadata section with index %d", index), editUnit);
+            }
+            else if (frameRules.checkMetadataSection(index, identifier, editUnit, findings))
+            {
+                String xml = null;
+                try
+                {
+                    xml = getSADMXML(bytes, position, (int) length);
+                }
+                catch (MXFException e)
+                {
+                    findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                            "The S-ADM payload of metadata section %d %s", index, e.getMessage()), editUnit);
+                }
+                if (xml != null)
+                {
+                    sadmFrameFound = true;
+                    try
+                    {
+                        addADMIDs(xml, admIDs);
+                    }
+                    catch (XMLStreamException e)
+                    {
+                        //the message varies with the content of the frame, so it is not part of the finding
+                        findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                                "The S-ADM frame of metadata section %d is not well-formed XML", index), editUnit);
+                    }
+                    if (sadmFrames != null)
+                    {
+                        sadmFrames.add(new SADMFrame(editUnit, index, xml));
+                    }
+                }
+            }
+            position += (int) length;
+        }
+        if (position != bytes.length)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                    "%d bytes of the edit unit follow the %d sections of the MGA frame", bytes.length - position, sectionCount), editUnit);
+        }
+        if (!audioSectionFound)
+        {
+            findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + "The MGA frame does not contain an audio section", editUnit);
+        }
+        frameRules.checkFrame(metadataIndices, sadmFrameFound, admIDs, editUnit, findings);
+    }
+
+    /**
+     * Returns the S-ADM frame of an S-ADM payload. The header of the payload is made of the payload tag, the BER encoded
+     * length of the rest of the payload, and the format and compression of the S-ADM frame that follows it.
+     *
+     * @throws MXFException with the end of a sentence that describes the defect, if the payload does not hold a
+     * supported S-ADM frame
+     */
+    private static String getSADMXML(byte[] bytes, int offset, int length)
+    {
+        int end = offset + length;
+        if (length < 2 || (bytes[offset] & 0xff) != SADM_PAYLOAD_TAG)
+        {
+            throw new MXFException(String.format("does not start with the S-ADM payload tag 0x%02x", SADM_PAYLOAD_TAG));
+        }
+        int position = offset + 1;
+        int lengthField = bytes[position++] & 0xff;
+        long valueLength = lengthField;
+        if (lengthField > 0x7f)
+        {
+            int lengthFieldSize = lengthField & 0x7f;
+            if (lengthFieldSize == 0 || lengthFieldSize > 8 || end - position < lengthFieldSize)
+            {
+                throw new MXFException("has an invalid BER encoded length");
+            }
+            valueLength = 0;
+            for (int i = 0; i < lengthFieldSize; i++)
+            {
+                valueLength = (valueLength << 8) | (bytes[position++] & 0xff);
+            }
+        }
+        if (valueLength != end - position)
+        {
+            throw new MXFException("has a length that differs from the size of the metadata section");
+        }
+        if (valueLength < 2)
+        {
+            throw new MXFException("does not have format and compression fields");
+        }
+        int format = bytes[position++] & 0xff;
+        int compression = bytes[position++] & 0xff;
+        if (format != SADM_FORMAT_XML)
+        {
+            throw new MXFException(String.format("signals the unsupported format %d", format));
+        }
+        if (compression == SADM_COMPRESSION_NONE)
+        {
+            return new String(bytes, position, end - position, StandardCharsets.UTF_8);
+        }
+        if (compression == SADM_COMPRESSION_GZIP)
+        {
+            try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes, position, end - position)))
+            {
+                byte[] xml = gzipInputStream.readNBytes(MAX_DECOMPRESSED_SADM_FRAME_SIZE + 1);
+                if (xml.length > MAX_DECOMPRESSED_SADM_FRAME_SIZE)
+                {
+                    throw new MXFException(String.format("holds a gzip compressed S-ADM frame that exceeds %d bytes", MAX_DECOMPRESSED_SADM_FRAME_SIZE));
+                }
+                return new String(xml, StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                throw new MXFException("holds a gzip compressed S-ADM frame that cannot be decompressed", e);
+            }
+        }
+        throw new MXFException(String.format("signals the unsupported compression %d", compression));
+    }
+
+    /**
+     * Adds the ADM identifiers defined by the audioProgrammeID, audioContentID and audioObjectID attributes of an S-ADM
+     * frame to a set, as the name of the attribute and its value separated by a space. The identifiers that precede a
+     * defect of a malformed frame are added before the XMLStreamException is thrown.
+     */
+    private static void addADMIDs(String xml, Set<String> admIDs) throws XMLStreamException
+    {
+        XMLStreamReader xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+        try
+        {
+            while (xmlStreamReader.hasNext())
+            {
+                if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT)
+                {
+                    for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++)
+                    {
+                        String name = xmlStreamReader.getAttributeLocalName(i);
+                        if (ADM_ID_ATTRIBUTES.contains(name))
+                        {
+                            admIDs.add(String.format("%s %s", name, xmlStreamReader.getAttributeValue(i)));
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            xmlStreamReader.close();
+        }
+    }
+
+    private static XMLInputFactory newXMLInputFactory()
+    {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xmlInputFactory;
+    }
+
+    private static boolean isKLVKey(byte[] bytes, int position)
+    {
+        return bytes.length - position >= KLVPacket.KEY_FIELD_SIZE
+                && bytes[position] == 0x06 && bytes[position + 1] == 0x0e && bytes[position + 2] == 0x2b && bytes[position + 3] == 0x34;
+    }
+
+    private static long getUInt32(byte[] bytes, int position)
+    {
+        return ((bytes[position] & 0xffL) << 24) | ((bytes[position + 1] & 0xffL) << 16) | ((bytes[position + 2] & 0xffL) << 8) | (bytes[position + 3] & 0xffL);
+    }
+
+    /**
+     * The checks applied to every MGA frame of a track file
+     */
+    @Immutable
+    private static final class FrameRules
+    {
+        private final Integer blockAlign;
+        private final Map<Integer, MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO> metadataSubDescriptors;
+        private final Set<Integer> sadmIndices;
+        private final Set<String> admIDs;
+
+        private FrameRules(Integer blockAlign, Map<Integer, MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO> metadataSubDescriptors,
+                           Set<Integer> sadmIndices, Set<String> admIDs)
+        {
+            this.blockAlign = blockAlign;
+            this.metadataSubDescriptors = Collections.unmodifiableMap(metadataSubDescriptors);
+            this.sadmIndices = Collections.unmodifiableSet(sadmIndices);
+            this.admIDs = Collections.unmodifiableSet(admIDs);
+        }
+
+        private static @Nullable FrameRules fromHeaderPartition(HeaderPartition headerPartition)
+        {
+            for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors())
+            {
+                if (!(essenceDescriptor instanceof MGASoundEssenceDescriptor.MGASoundEssenceDescriptorBO))
+                {
+                    continue;
+                }
+                Integer blockAlign = null;
+                try
+                {
+                    MGASoundEssenceDescriptor mgaSoundEssenceDescriptor = new MGASoundEssenceDescriptor((MGASoundEssenceDescriptor.MGASoundEssenceDescriptorBO) essenceDescriptor);
+                    blockAlign = mgaSoundEssenceDescriptor.getChannelCount() * ((mgaSoundEssenceDescriptor.getQuantizationBits() + 7) / 8);
+                }
+                catch (MXFException e)
+                {
+                    logger.warn("The MGASoundEssenceDescriptor is incomplete, audio sections are not checked", e);
+                }
+
+                Map<Integer, MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO> metadataSubDescriptors = new LinkedHashMap<>();
+                Set<Integer> sadmIndices = new HashSet<>();
+                Set<String> admIDs = new LinkedHashSet<>();
+                for (InterchangeObject.InterchangeObjectBO subDescriptor : headerPartition.getSubDescriptors(essenceDescriptor))
+                {
+                    if (subDescriptor instanceof MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO)
+                    {
+                        MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO metadataSubDescriptor = (MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO) subDescriptor;
+                        if (metadataSubDescriptor.getMGAAudioMetadataIndex() == null
+                                || metadataSubDescriptors.containsKey(metadataSubDescriptor.getMGAAudioMetadataIndex().intValue()))
+                        {
+                            //reported by MGASADMTrackFileConstraints
+                            continue;
+                        }
+                        int index = metadataSubDescriptor.getMGAAudioMetadataIndex();
+                        metadataSubDescriptors.put(index, metadataSubDescriptor);
+                        if (metadataSubDescriptor.getMGAAudioMetadataPayloadULArrray() != null
+                                && UL.containsIgnoreVersion(metadataSubDescriptor.getMGAAudioMetadataPayloadULArrray().getEntries(), MGAAudioMetadataSubDescriptor.SADM_METADATA_PAYLOAD_UL))
+                        {
+                            sadmIndices.add(index);
+                        }
+                    }
+                    else if (subDescriptor instanceof MGASoundfieldGroupLabelSubDescriptor.MGASoundfieldGroupLabelSubDescriptorBO)
+                    {
+                        MGASoundfieldGroupLabelSubDescriptor.MGASoundfieldGroupLabelSubDescriptorBO soundfieldGroupLabelSubDescriptor = (MGASoundfieldGroupLabelSubDescriptor.MGASoundfieldGroupLabelSubDescriptorBO) subDescriptor;
+                        addADMID(admIDs, "audioProgrammeID", soundfieldGroupLabelSubDescriptor.getADMAudioProgrammeId());
+                        addADMID(admIDs, "audioContentID", soundfieldGroupLabelSubDescriptor.getADMAudioContentId());
+                        addADMID(admIDs, "audioObjectID", soundfieldGroupLabelSubDescriptor.getADMAudioObjectId());
+                    }
+                }
+                return new FrameRules(blockAlign, metadataSubDescriptors, sadmIndices, admIDs);
+            }
+            return null;
+        }
+
+        private static void addADMID(Set<String> admIDs, String name, @Nullable String id)
+        {
+            if (id != null && !id.isEmpty())
+            {
+                admIDs.add(String.format("%s %s", name, id));
+            }
+        }
+
+        private void checkAudioSection(long length, long editUnit, EditUnitFindings findings)
+        {
+            if (this.blockAlign != null && this.blockAlign > 0 && length % this.blockAlign != 0)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "The length %d of the audio section is not a multiple of the %d bytes of a sample of every channel", length, this.blockAlign), editUnit);
+            }
+        }
+
+        /**
+         * Checks a metadata section against the MGAAudioMetadataSubDescriptor with the same index
+         *
+         * @return true if the section holds an S-ADM payload
+         */
+        private boolean checkMetadataSection(int index, int identifier, long editUnit, EditUnitFindings findings)
+        {
+            MGAAudioMetadataSubDescriptor.MGAAudioMetadataSubDescriptorBO metadataSubDescriptor = this.metadataSubDescriptors.get(index);
+            if (metadataSubDescriptor == null)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "The MGA frame contains a metadata section with index %d that no MGAAudioMetadataSubDescriptor describes", index), editUnit);
+                return false;
+            }
+            if (metadataSubDescriptor.getMGAAudioMetadataIdentifier() != null && metadataSubDescriptor.getMGAAudioMetadataIdentifier() != identifier)
+            {
+                findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                        "The identifier %d of metadata section %d does not match the MGAAudioMetadataIdentifier %d of its MGAAudioMetadataSubDescriptor",
+                        identifier, index, metadataSubDescriptor.getMGAAudioMetadataIdentifier()), editUnit);
+            }
+            return this.sadmIndices.contains(index);
+        }
+
+        private void checkFrame(Set<Integer> metadataIndices, boolean sadmFrameFound, Set<String> frameADMIDs, long editUnit, EditUnitFindings findings)
+        {
+            for (Integer index : this.metadataSubDescriptors.keySet())
+            {
+                if (!metadataIndices.contains(index))
+                {
+                    findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                            "The MGA frame does not contain the metadata section with index %d described by an MGAAudioMetadataSubDescriptor", index), editUnit);
+                }
+            }
+            if (!sadmFrameFound)
+            {
+                return;
+            }
+            for (String admID : this.admIDs)
+            {
+                if (!frameADMIDs.contains(admID))
+                {
+                    findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, IMF_MGASADM_EXCEPTION_PREFIX + String.format(
+                            "No S-ADM frame of the MGA frame defines the %s of an MGASoundfieldGroupLabelSubDescriptor", admID), editUnit);
+                }
+            }
+        }
+    }
+
+    /**
+     * An iterator that reads a single edit unit at a time
+     */
+    @NotThreadSafe
+    private static final class SADMFrameIterator implements Iterator<SADMFrame>
+    {
+        private final ResourceByteRangeProvider resourceByteRangeProvider;
+        private final EssenceIndex essenceIndex;
+        private final FrameRules frameRules;
+        private final int samplingInterval;
+        private final Deque<SADMFrame> sadmFrames = new ArrayDeque<>();
+        private long nextEditUnit = 0;
+
+        private SADMFrameIterator(ResourceByteRangeProvider resourceByteRangeProvider, EssenceIndex essenceIndex, FrameRules frameRules, int samplingInterval)
+        {
+            this.resourceByteRangeProvider = resourceByteRangeProvider;
+            this.essenceIndex = essenceIndex;
+            this.frameRules = frameRules;
+            this.samplingInterval = samplingInterval;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (this.sadmFrames.isEmpty() && this.nextEditUnit < this.essenceIndex.getEditUnitCount())
+            {
+                List<SADMFrame> editUnitSADMFrames = new ArrayList<>();
+                try
+                {
+                    //findings are not reported by the iterator, walk() reports them
+                    EditUnitFindings findings = new EditUnitFindings();
+                    byte[] bytes = readEditUnit(this.resourceByteRangeProvider, this.essenceIndex, this.nextEditUnit, findings);
+                    if (bytes != null)
+                    {
+                        walkFrame(bytes, this.nextEditUnit, this.frameRules, findings, editUnitSADMFrames);
+                    }
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                this.sadmFrames.addAll(editUnitSADMFrames);
+                this.nextEditUnit += this.samplingInterval;
+            }
+            return !this.sadmFrames.isEmpty();
+        }
+
+        @Override
+        public SADMFrame next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return this.sadmFrames.removeFirst();
+        }
+    }
+
+    /**
+     * The findings and statistics of a range of edit units
+     */
+    private static final class RangeResult
+    {
+        private final EditUnitFindings findings = new EditUnitFindings();
+        private long walkedFrameCount;
+    }
+
+    /**
+     * The S-ADM frame carried by an S-ADM metadata section of an MGA frame
+     */
+    @Immutable
+    public static final class SADMFrame
+    {
+        private final long editUnit;
+        private final int metadataIndex;
+        private final String xml;
+
+        private SADMFrame(long editUnit, int metadataIndex, String xml)
+        {
+            this.editUnit = editUnit;
+            this.metadataIndex = metadataIndex;
+            this.xml = xml;
+        }
+
+        /**
+         * Getter for the edit unit of the MGA frame that carries the S-ADM frame
+         *
+         * @return the edit unit
+         */
+        public long getEditUnit()
+        {
+            return this.editUnit;
+        }
+
+        /**
+         * Getter for the index of the metadata section that carries the S-ADM frame
+         *
+         * @return the MGAAudioMetadataIndex of the section
+         */
+        public int getMetadataIndex()
+        {
+            return this.metadataIndex;
+        }
+
+        /**
+         * Getter for the XML document of the S-ADM frame
+         *
+         * @return the S-ADM frame as a string
+         */
+        public String getXML()
+        {
+            return this.xml;
+        }
+    }
+
+    /**
+     * The result of the walk of a track file
+     */
+    @Immutable
+    public static final class WalkResult
+    {
+        private final long frameCount;
+        private final long walkedFrameCount;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private WalkResult(long frameCount, long walkedFrameCount, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.frameCount = frameCount;
+            this.walkedFrameCount = walkedFrameCount;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the number of MGA frames of the track file
+         *
+         * @return the number of frames
+         */
+        public long getFrameCount()
+        {
+            return this.frameCount;
+        }
+
+        /**
+         * Getter for the number of MGA frames that were walked, which is less than the number of frames when sampling
+         *
+         * @return the number of walked frames
+         */
+        public long getWalkedFrameCount()
+        {
+            return this.walkedFrameCount;
+        }
+
+        /**
+         * Getter for the findings of the walk
+         *
+         * @return a list of errors, empty when every walked frame conforms
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
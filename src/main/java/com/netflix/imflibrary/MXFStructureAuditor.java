@@ -0,0 +1,749 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.IndexTableSegment;
+import com.netflix.imflibrary.st0377.PartitionPack;
+import com.netflix.imflibrary.st0377.RandomIndexPack;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An auditor of the KLV structure of a complete MXF file as defined in st377-1:2011. Unlike the parsers of the header
+ * partition, the index table and the RandomIndexPack, which only read the parts of a file they need, the auditor walks
+ * every KLV packet of the file in a single sequential pass made of large range requests, and checks
+ * <ul>
+ *     <li>that the file is a gapless sequence of complete KLV packets,</li>
+ *     <li>the ThisPartition, PreviousPartition and FooterPartition offsets of every partition pack,</li>
+ *     <li>that HeaderByteCount and IndexByteCount end on KLV boundaries and that index regions only hold index table
+ *     segments and KLV fill,</li>
+ *     <li>that essence is only held by partitions with a BodySID, and that the BodyOffset of every partition matches the
+ *     bytes of the stream held by the preceding partitions,</li>
+ *     <li>the number of essence elements of every indexed essence container against the duration of its index table,</li>
+ *     <li>the alignment of content packages to the KLV alignment grid and the keys of KLV fill items,</li>
+ *     <li>the entries of the RandomIndexPack against the partitions of the file.</li>
+ * </ul>
+ * Values are only read when they are parsed (partition packs, index table segments and the RandomIndexPack), so a
+ * value that extends beyond the current read is skipped without being read. Findings are reported through an
+ * {@link IMFErrorLogger}; findings that recur are reported once with their number of occurrences.
+ */
+@ThreadSafe
+public final class MXFStructureAuditor
+{
+    private static final Logger logger = LoggerFactory.getLogger(MXFStructureAuditor.class);
+
+    /**
+     * The default size of the range requests of the sequential pass
+     */
+    public static final int DEFAULT_READ_SIZE = 8 * 1024 * 1024;
+
+    private static final String MXF_STRUCTURE_EXCEPTION_PREFIX = "MXF structure check: ";
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+    private static final byte[] KEY_PREFIX = {0x06, 0x0e, 0x2b, 0x34};
+    private static final int KLV_FILL_ITEM_VERSION_INDEX = 7;
+    private static final int MAX_PARSED_VALUE_SIZE = 64 * 1024 * 1024;
+
+    private final int readSize;
+
+    /**
+     * Constructor for an MXFStructureAuditor that reads the file with requests of {@link #DEFAULT_READ_SIZE} bytes
+     */
+    public MXFStructureAuditor()
+    {
+        this(DEFAULT_READ_SIZE);
+    }
+
+    /**
+     * Constructor for an MXFStructureAuditor
+     *
+     * @param readSize the size of the range requests of the sequential pass
+     */
+    public MXFStructureAuditor(int readSize)
+    {
+        if (readSize < MAX_KLV_HEADER_SIZE)
+        {
+            throw new IllegalArgumentException(String.format("readSize = %d is not >= %d", readSize, MAX_KLV_HEADER_SIZE));
+        }
+        this.readSize = readSize;
+    }
+
+    /**
+     * A method that audits the structure of an MXF file
+     *
+     * @param mxfFile the path of the MXF file
+     * @param imfErrorLogger the logger that findings are reported to
+     * @return a summary of the structure of the file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public AuditResult audit(@Nonnull Path mxfFile, @Nonnull IMFErrorLogger imfErrorLogger) throws IOException
+    {
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(mxfFile))
+        {
+            return audit(resourceByteRangeProvider, imfErrorLogger);
+        }
+    }
+
+    /**
+     * A method that audits the structure of an MXF file
+     *
+     * @param resourceByteRangeProvider corresponding to the MXF file
+     * @param imfErrorLogger the logger that findings are reported to
+     * @return a summary of the structure of the file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public AuditResult audit(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull IMFErrorLogger imfErrorLogger) throws IOException
+    {
+        Audit audit = new Audit(new SequentialReader(resourceByteRangeProvider, this.readSize));
+        audit.run();
+        imfErrorLogger.addAllErrors(audit.findings.toErrors());
+        logger.info("Audited {} KLV packets in {} partitions with {} bytes read, {} distinct findings",
+                audit.klvPacketCount, audit.partitions.size(), audit.reader.bytesRead, audit.findings.size());
+        return new AuditResult(audit.partitions.size(), audit.klvPacketCount, audit.essenceElementCounts, audit.reader.bytesRead);
+    }
+
+    /**
+     * The state of the sequential pass over a file
+     */
+    @NotThreadSafe
+    private static final class Audit
+    {
+        private final SequentialReader reader;
+        private final Findings findings = new Findings();
+        private final Map<Long, PartitionPack> partitions = new LinkedHashMap<>();
+        private final Map<Long, Long> streamLengths = new HashMap<>();
+        private final Map<Long, Map<String, Long>> essenceElementKeyCounts = new TreeMap<>();
+        private final Map<Long, Map<String, Long>> essenceElementKeyPacketBytes = new HashMap<>();
+        private final Map<Long, Long> essenceElementCounts = new TreeMap<>();
+        private final Map<Long, Map<Long, IndexTableSegment>> indexTableSegments = new TreeMap<>();
+        private final List<Long> referencedFooterPartitions = new ArrayList<>();
+        private RandomIndexPack randomIndexPack = null;
+        private long klvPacketCount = 0;
+
+        private PartitionPack partitionPack = null;
+        private long partitionByteOffset = -1;
+        private long headerEnd = 0;
+        private long indexEnd = 0;
+        private long streamStart = -1;
+        private byte[] contentPackageKey = null;
+
+        private Audit(SequentialReader reader)
+        {
+            this.reader = reader;
+        }
+
+        private void run() throws IOException
+        {
+            long resourceSize = this.reader.resourceSize;
+            long position = 0;
+            while (position < resourceSize)
+            {
+                KLVPacket.Header header = readHeader(position);
+                if (header == null)
+                {
+                    break;
+                }
+                long valueOffset = position + header.getKLSize();
+                long end = valueOffset + header.getVSize();
+                if (end > resourceSize)
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, String.format(
+                            "The KLV packet is truncated, its value extends %d bytes beyond the end of the file", end - resourceSize), position);
+                    break;
+                }
+                this.klvPacketCount++;
+                byte[] key = header.getKey();
+
+                if (position == 0 && !PartitionPack.isValidKey(key))
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The file does not start with a partition pack", position);
+                    break;
+                }
+                if (PartitionPack.isValidKey(key))
+                {
+                    openPartition(position, header);
+                }
+                else if (RandomIndexPack.isValidKey(key))
+                {
+                    readRandomIndexPack(position, header);
+                }
+                else if (position < this.headerEnd)
+                {
+                    checkRegionBoundary(end, this.headerEnd, "HeaderByteCount");
+                }
+                else if (position < this.indexEnd)
+                {
+                    checkRegionBoundary(end, this.indexEnd, "IndexByteCount");
+                    if (IndexTableSegment.isValidKey(key))
+                    {
+                        readIndexTableSegment(position, header);
+                    }
+                    else if (!KLVPacket.isKLVFillItem(key))
+                    {
+                        this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                                "A KLV packet that is neither an index table segment nor KLV fill is counted in IndexByteCount", position);
+                    }
+                }
+                else
+                {
+                    auditEssenceRegionPacket(position, header);
+                }
+
+                if (KLVPacket.isKLVFillItem(key) && key[KLV_FILL_ITEM_VERSION_INDEX] != 0x02)
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, String.format(
+                            "The KLV fill item key has version 0x%02x instead of 0x02", key[KLV_FILL_ITEM_VERSION_INDEX]), position);
+                }
+                position = end;
+            }
+            closePartition(Math.min(position, resourceSize));
+            auditFile();
+        }
+
+        private KLVPacket.Header readHeader(long position) throws IOException
+        {
+            long resourceSize = this.reader.resourceSize;
+            int headerSize = (int) Math.min(MAX_KLV_HEADER_SIZE, resourceSize - position);
+            if (headerSize < KLVPacket.KEY_FIELD_SIZE + 1)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, String.format(
+                        "The file ends with %d bytes that do not form a KLV packet", resourceSize - position), position);
+                return null;
+            }
+            int offset = this.reader.ensure(position, headerSize);
+            for (int i = 0; i < KEY_PREFIX.length; i++)
+            {
+                if (this.reader.window[offset + i] != KEY_PREFIX[i])
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The bytes following the previous KLV packet are not a KLV packet", position);
+                    return null;
+                }
+            }
+            try
+            {
+                return new KLVPacket.Header(this.reader.provider(offset), position);
+            }
+            catch (MXFException e)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "The KLV packet has an invalid length field: " + e.getMessage(), position);
+                return null;
+            }
+        }
+
+        private void openPartition(long position, KLVPacket.Header header) throws IOException
+        {
+            closePartition(position);
+            PartitionPack partitionPack;
+            try
+            {
+                int offset = this.reader.ensure(position, checkedSize(header));
+                partitionPack = new PartitionPack(this.reader.provider(offset), position, false);
+            }
+            catch (MXFException e)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The partition pack cannot be parsed: " + e.getMessage(), position);
+                return;
+            }
+
+            if (partitionPack.getPartitionByteOffset() != position)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "ThisPartition = %d of the partition pack differs from its offset", partitionPack.getPartitionByteOffset()), position);
+            }
+            long previousPartitionByteOffset = (this.partitionByteOffset < 0) ? 0 : this.partitionByteOffset;
+            if (partitionPack.getPreviousPartitionByteOffset() != previousPartitionByteOffset)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "PreviousPartition = %d of the partition pack differs from the offset %d of the previous partition",
+                        partitionPack.getPreviousPartitionByteOffset(), previousPartitionByteOffset), position);
+            }
+            if (this.partitions.isEmpty() && !partitionPack.isHeaderPartition())
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The first partition is not a header partition", position);
+            }
+            if (partitionPack.getFooterPartitionByteOffset() != 0)
+            {
+                this.referencedFooterPartitions.add(partitionPack.getFooterPartitionByteOffset());
+            }
+
+            long bodySID = partitionPack.getBodySID();
+            if (bodySID != 0 && !partitionPack.isGenericStreamPartition())
+            {
+                long streamLength = this.streamLengths.getOrDefault(bodySID, 0L);
+                if (partitionPack.getEssenceStreamSegmentStartStreamPosition() != streamLength)
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                            "BodyOffset = %d of the partition differs from the %d bytes of BodySID %d held by the preceding partitions",
+                            partitionPack.getEssenceStreamSegmentStartStreamPosition(), streamLength, bodySID), position);
+                }
+            }
+
+            this.partitions.put(position, partitionPack);
+            this.partitionPack = partitionPack;
+            this.partitionByteOffset = position;
+            this.headerEnd = position + header.getKLSize() + header.getVSize() + partitionPack.getHeaderByteCount();
+            this.indexEnd = this.headerEnd + partitionPack.getIndexByteCount();
+            this.streamStart = -1;
+            this.contentPackageKey = null;
+        }
+
+        private void closePartition(long partitionEnd)
+        {
+            if (this.partitionPack == null)
+            {
+                return;
+            }
+            if (this.indexEnd > partitionEnd)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "HeaderByteCount and IndexByteCount of the partition extend %d bytes beyond the partition", this.indexEnd - partitionEnd),
+                        this.partitionByteOffset);
+            }
+            long bodySID = this.partitionPack.getBodySID();
+            if (bodySID != 0 && !this.partitionPack.isGenericStreamPartition() && this.streamStart >= 0)
+            {
+                //the stream starts at the first essence element of the partition and includes any trailing KLV fill
+                this.streamLengths.merge(bodySID, partitionEnd - this.streamStart, Long::sum);
+            }
+            this.partitionPack = null;
+        }
+
+        private void checkRegionBoundary(long end, long regionEnd, String byteCountName)
+        {
+            if (end > regionEnd)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "%s of the partition does not end on a KLV packet boundary", byteCountName), this.partitionByteOffset);
+            }
+        }
+
+        private void auditEssenceRegionPacket(long position, KLVPacket.Header header)
+        {
+            byte[] key = header.getKey();
+            if (KLVPacket.isKLVFillItem(key))
+            {
+                return;
+            }
+            if (IndexTableSegment.isValidKey(key))
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "An index table segment is not counted in the IndexByteCount of its partition", position);
+                return;
+            }
+            if (this.partitionPack == null || this.partitionPack.getBodySID() == 0)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                        "A KLV packet follows the header metadata and index table segments of a partition without a BodySID", position);
+                return;
+            }
+            //the elements of a content package are contiguous, so only the content package, which starts with the element
+            //that the partition starts with, is aligned to the KAG
+            if (this.contentPackageKey == null)
+            {
+                this.contentPackageKey = key;
+            }
+            long kagSize = this.partitionPack.getKAGSize();
+            if (kagSize > 1 && Arrays.equals(key, this.contentPackageKey) && (position - this.partitionByteOffset) % kagSize != 0)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, String.format(
+                        "The KLV packet is not aligned to the KAG of %d bytes of its partition", kagSize), position);
+            }
+            if (this.streamStart < 0)
+            {
+                this.streamStart = position;
+            }
+            if (!this.partitionPack.isGenericStreamPartition())
+            {
+                long bodySID = this.partitionPack.getBodySID();
+                String essenceElementKey = toHexString(key);
+                this.essenceElementKeyCounts.computeIfAbsent(bodySID, k -> new TreeMap<>()).merge(essenceElementKey, 1L, Long::sum);
+                this.essenceElementKeyPacketBytes.computeIfAbsent(bodySID, k -> new HashMap<>()).merge(essenceElementKey, header.getKLSize() + header.getVSize(), Long::sum);
+                this.essenceElementCounts.merge(bodySID, 1L, Long::sum);
+            }
+        }
+
+        private void readIndexTableSegment(long position, KLVPacket.Header header) throws IOException
+        {
+            IndexTableSegment indexTableSegment;
+            try
+            {
+                int offset = this.reader.ensure(position, checkedSize(header));
+                ByteArrayDataProvider byteProvider = this.reader.provider(offset);
+                indexTableSegment = new IndexTableSegment(byteProvider, new KLVPacket.Header(byteProvider, position));
+            }
+            catch (MXFException e)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The index table segment cannot be parsed: " + e.getMessage(), position);
+                return;
+            }
+            if (this.partitionPack != null && indexTableSegment.getIndexSID() != this.partitionPack.getIndexSID())
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "IndexSID = %d of the index table segment differs from IndexSID = %d of its partition",
+                        indexTableSegment.getIndexSID(), this.partitionPack.getIndexSID()), position);
+            }
+            //index table segments may be repeated, e.g. in the footer partition
+            this.indexTableSegments.computeIfAbsent(indexTableSegment.getBodySID(), k -> new TreeMap<>())
+                    .put(indexTableSegment.getIndexStartPosition(), indexTableSegment);
+        }
+
+        private void readRandomIndexPack(long position, KLVPacket.Header header) throws IOException
+        {
+            long packSize = header.getKLSize() + header.getVSize();
+            if (position + packSize != this.reader.resourceSize)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The RandomIndexPack is not the last KLV packet of the file", position);
+            }
+            closePartition(position);
+            try
+            {
+                int offset = this.reader.ensure(position, checkedSize(header));
+                this.randomIndexPack = new RandomIndexPack(this.reader.provider(offset), position, packSize);
+            }
+            catch (MXFException e)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The RandomIndexPack cannot be parsed: " + e.getMessage(), position);
+            }
+            this.headerEnd = 0;
+            this.indexEnd = 0;
+        }
+
+        private void auditFile()
+        {
+            Long footerPartitionByteOffset = null;
+            for (Map.Entry<Long, PartitionPack> entry : this.partitions.entrySet())
+            {
+                if (entry.getValue().isFooterPartition())
+                {
+                    footerPartitionByteOffset = entry.getKey();
+                }
+            }
+            if (footerPartitionByteOffset == null)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The file does not contain a footer partition", -1);
+            }
+            else
+            {
+                for (long referencedFooterPartition : this.referencedFooterPartitions)
+                {
+                    if (referencedFooterPartition != footerPartitionByteOffset)
+                    {
+                        this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                                "FooterPartition = %d of a partition pack differs from the offset %d of the footer partition",
+                                referencedFooterPartition, footerPartitionByteOffset), -1);
+                    }
+                }
+            }
+
+            if (this.randomIndexPack == null)
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The file does not end with a RandomIndexPack", -1);
+            }
+            else
+            {
+                int randomIndexPackEntryCount = 0;
+                for (long bodySID : this.randomIndexPack.getBodySIDs())
+                {
+                    for (long partitionByteOffset : this.randomIndexPack.getPartitionByteOffsets(bodySID))
+                    {
+                        randomIndexPackEntryCount++;
+                        PartitionPack partitionPack = this.partitions.get(partitionByteOffset);
+                        if (partitionPack == null)
+                        {
+                            this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                                    "The RandomIndexPack references a partition at offset %d that does not exist", partitionByteOffset), -1);
+                        }
+                        else if (partitionPack.getBodySID() != bodySID)
+                        {
+                            this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                                    "The RandomIndexPack references the partition at offset %d with BodySID %d instead of %d",
+                                    partitionByteOffset, bodySID, partitionPack.getBodySID()), -1);
+                        }
+                    }
+                }
+                for (long partitionByteOffset : this.partitions.keySet())
+                {
+                    if (!this.randomIndexPack.getAllPartitionByteOffsets().contains(partitionByteOffset))
+                    {
+                        this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                                "The partition is not referenced by the RandomIndexPack", partitionByteOffset);
+                    }
+                }
+                if (randomIndexPackEntryCount != this.randomIndexPack.getAllPartitionByteOffsets().size())
+                {
+                    this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "The RandomIndexPack references a partition more than once", -1);
+                }
+            }
+
+            for (Map.Entry<Long, Map<Long, IndexTableSegment>> entry : this.indexTableSegments.entrySet())
+            {
+                auditEssenceElementCounts(entry.getKey(), entry.getValue().values());
+            }
+        }
+
+        private void auditEssenceElementCounts(long bodySID, Iterable<IndexTableSegment> segments)
+        {
+            long indexDuration = 0;
+            long editUnitByteCount = 0;
+            for (IndexTableSegment indexTableSegment : segments)
+            {
+                indexDuration = Math.max(indexDuration, indexTableSegment.getIndexStartPosition() + indexTableSegment.getIndexDuration());
+                editUnitByteCount = Math.max(editUnitByteCount, indexTableSegment.getEditUnitByteCount());
+            }
+            Map<String, Long> keyCounts = this.essenceElementKeyCounts.getOrDefault(bodySID, Collections.emptyMap());
+            if (keyCounts.isEmpty())
+            {
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "The IndexTable of BodySID %d indexes %d edit units, but the file holds no essence element of BodySID %d",
+                        bodySID, indexDuration, bodySID), -1);
+                return;
+            }
+            Map<String, Long> keyPacketBytes = this.essenceElementKeyPacketBytes.get(bodySID);
+            for (Map.Entry<String, Long> keyCount : keyCounts.entrySet())
+            {
+                long count = keyCount.getValue();
+                long packetBytes = keyPacketBytes.get(keyCount.getKey());
+                if (count == indexDuration)
+                {
+                    continue;
+                }
+                if (count == 1 && (indexDuration > 0 || editUnitByteCount > 0))
+                {
+                    //a clip-wrapped essence container holds all edit units in a single essence element, and a constant
+                    //bytes per element IndexTable with an IndexDuration of 0 indexes the complete essence container; the
+                    //edit units of such an IndexTable start at the key of the essence element, as in EssenceIndex
+                    if (editUnitByteCount > 0 && indexDuration > 0 && packetBytes < indexDuration * editUnitByteCount)
+                    {
+                        this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                                "The essence element of BodySID %d holds %d bytes with its key and length, fewer than the %d edit units of %d bytes of its IndexTable",
+                                bodySID, packetBytes, indexDuration, editUnitByteCount), -1);
+                    }
+                    else if (editUnitByteCount > 0 && indexDuration == 0 && packetBytes % editUnitByteCount != 0)
+                    {
+                        this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                                "The essence element of BodySID %d holds %d bytes with its key and length, which is not a whole number of edit units of %d bytes",
+                                bodySID, packetBytes, editUnitByteCount), -1);
+                    }
+                    continue;
+                }
+                this.findings.add(IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, String.format(
+                        "BodySID %d holds %d essence elements with key %s, but its IndexTable indexes %d edit units",
+                        bodySID, count, keyCount.getKey(), indexDuration), -1);
+            }
+        }
+
+        private static int checkedSize(KLVPacket.Header header)
+        {
+            long size = header.getKLSize() + header.getVSize();
+            if (size > MAX_PARSED_VALUE_SIZE)
+            {
+                throw new MXFException(String.format("The KLV packet of %d bytes is too large to be parsed", size));
+            }
+            return (int) size;
+        }
+
+        private static String toHexString(byte[] key)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < key.length; i++)
+            {
+                sb.append(String.format("%02x", key[i]));
+                if (i % 4 == 3 && i < key.length - 1)
+                {
+                    sb.append('.');
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A window over a file that is advanced with large range requests
+     */
+    @NotThreadSafe
+    private static final class SequentialReader
+    {
+        private final ResourceByteRangeProvider resourceByteRangeProvider;
+        private final long resourceSize;
+        private final int readSize;
+        private byte[] window = new byte[0];
+        private long windowStart = 0;
+        private long bytesRead = 0;
+
+        private SequentialReader(ResourceByteRangeProvider resourceByteRangeProvider, int readSize)
+        {
+            this.resourceByteRangeProvider = resourceByteRangeProvider;
+            this.resourceSize = resourceByteRangeProvider.getResourceSize();
+            this.readSize = readSize;
+        }
+
+        /**
+         * Makes sure that the window holds a range of the file
+         *
+         * @return the offset of the first byte of the range in the window
+         */
+        private int ensure(long position, int length) throws IOException
+        {
+            if (position < this.windowStart || position + length > this.windowStart + this.window.length)
+            {
+                long rangeEnd = Math.min(position + Math.max(length, this.readSize), this.resourceSize) - 1;
+                this.window = this.resourceByteRangeProvider.getByteRangeAsBytes(position, rangeEnd);
+                this.windowStart = position;
+                this.bytesRead += this.window.length;
+            }
+            return (int) (position - this.windowStart);
+        }
+
+        private ByteArrayDataProvider provider(int offset) throws IOException
+        {
+            ByteArrayDataProvider byteProvider = new ByteArrayDataProvider(this.window);
+            byteProvider.skipBytes(offset);
+            return byteProvider;
+        }
+    }
+
+    /**
+     * Findings deduplicated by level and description, with their number of occurrences and the offset of the first one
+     */
+    @NotThreadSafe
+    private static final class Findings
+    {
+        private final Map<String, long[]> occurrences = new LinkedHashMap<>();
+        private final Map<String, IMFErrorLogger.IMFErrors.ErrorLevels> errorLevels = new HashMap<>();
+
+        private void add(IMFErrorLogger.IMFErrors.ErrorLevels errorLevel, String description, long byteOffset)
+        {
+            String findingKey = errorLevel.name() + description;
+            long[] occurrence = this.occurrences.get(findingKey);
+            if (occurrence == null)
+            {
+                this.occurrences.put(findingKey, new long[]{1, byteOffset});
+                this.errorLevels.put(findingKey, errorLevel);
+            }
+            else
+            {
+                occurrence[0]++;
+            }
+        }
+
+        private int size()
+        {
+            return this.occurrences.size();
+        }
+
+        private List<ErrorLogger.ErrorObject> toErrors()
+        {
+            List<ErrorLogger.ErrorObject> errors = new ArrayList<>();
+            for (Map.Entry<String, long[]> entry : this.occurrences.entrySet())
+            {
+                IMFErrorLogger.IMFErrors.ErrorLevels errorLevel = this.errorLevels.get(entry.getKey());
+                String description = entry.getKey().substring(errorLevel.name().length());
+                long count = entry.getValue()[0];
+                long byteOffset = entry.getValue()[1];
+                if (byteOffset >= 0)
+                {
+                    description += (count == 1) ? String.format(" (at offset %d)", byteOffset)
+                            : String.format(" (%d occurrences, first at offset %d)", count, byteOffset);
+                }
+                errors.add(new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, errorLevel,
+                        MXF_STRUCTURE_EXCEPTION_PREFIX + description));
+            }
+            return errors;
+        }
+    }
+
+    /**
+     * A summary of the structure of an audited file
+     */
+    @Immutable
+    public static final class AuditResult
+    {
+        private final int partitionCount;
+        private final long klvPacketCount;
+        private final Map<Long, Long> essenceElementCounts;
+        private final long bytesRead;
+
+        private AuditResult(int partitionCount, long klvPacketCount, Map<Long, Long> essenceElementCounts, long bytesRead)
+        {
+            this.partitionCount = partitionCount;
+            this.klvPacketCount = klvPacketCount;
+            this.essenceElementCounts = Collections.unmodifiableMap(new TreeMap<>(essenceElementCounts));
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * Getter for the number of partitions of the file
+         *
+         * @return the number of partitions
+         */
+        public int getPartitionCount()
+        {
+            return this.partitionCount;
+        }
+
+        /**
+         * Getter for the number of complete KLV packets of the file
+         *
+         * @return the number of KLV packets, including partition packs, header metadata, index table segments and fill
+         */
+        public long getKLVPacketCount()
+        {
+            return this.klvPacketCount;
+        }
+
+        /**
+         * Getter for the number of essence elements of every essence container of the file
+         *
+         * @return the number of essence elements keyed by BodySID
+         */
+        public Map<Long, Long> getEssenceElementCounts()
+        {
+            return this.essenceElementCounts;
+        }
+
+        /**
+         * Getter for the number of bytes read by the audit
+         *
+         * @return the number of bytes read, which is smaller than the size of the file when essence was skipped
+         */
+        public long getBytesRead()
+        {
+            return this.bytesRead;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An analyzer that reads the PCM samples of a clip-wrapped or frame-wrapped audio track file in a single pass and
+ * computes, for every channel, the peak level, the RMS level, the DC offset, the number of clipped samples and the runs
+ * of silence. The samples are read through a {@link PCMEssenceReader}, so clip-wrapped essence is streamed without
+ * relying on the IndexTable granularity, and are split into ranges that are analyzed concurrently and merged in order.
+ */
+@ThreadSafe
+public final class PCMAudioAnalyzer
+{
+    private static final Logger logger = LoggerFactory.getLogger(PCMAudioAnalyzer.class);
+
+    /**
+     * The default number of sample bytes analyzed by a single task
+     */
+    public static final int DEFAULT_BYTES_PER_TASK = 4 * 1024 * 1024;
+
+    /**
+     * The default minimum duration in seconds of a reported run of silence
+     */
+    public static final double DEFAULT_MINIMUM_SILENCE_SECONDS = 1.0;
+
+    private final Executor executor;
+    private final int bytesPerTask;
+    private final double silenceThresholdDBFS;
+    private final double minimumSilenceSeconds;
+
+    /**
+     * Constructor for a PCMAudioAnalyzer that analyzes track files on the common ForkJoinPool, and that reports runs of
+     * digital silence of at least {@link #DEFAULT_MINIMUM_SILENCE_SECONDS}
+     */
+    public PCMAudioAnalyzer()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_BYTES_PER_TASK, Double.NEGATIVE_INFINITY, DEFAULT_MINIMUM_SILENCE_SECONDS);
+    }
+
+    /**
+     * Constructor for a PCMAudioAnalyzer
+     *
+     * @param executor the Executor that ranges of samples are analyzed on, null to analyze them on the calling thread
+     * @param bytesPerTask the approximate number of sample bytes analyzed by a single task
+     * @param silenceThresholdDBFS the level in dBFS at or below which a sample is silent, negative infinity for
+     *                             digital silence
+     * @param minimumSilenceSeconds the minimum duration of a reported run of silence
+     */
+    public PCMAudioAnalyzer(@Nullable Executor executor, int bytesPerTask, double silenceThresholdDBFS, double minimumSilenceSeconds)
+    {
+        if (bytesPerTask <= 0)
+        {
+            throw new IllegalArgumentException(String.format("bytesPerTask = %d is not > 0", bytesPerTask));
+        }
+        if (silenceThresholdDBFS > 0 || Double.isNaN(silenceThresholdDBFS))
+        {
+            throw new IllegalArgumentException(String.format("silenceThresholdDBFS = %f is not <= 0", silenceThresholdDBFS));
+        }
+        if (!(minimumSilenceSeconds >= 0))
+        {
+            throw new IllegalArgumentException(String.format("minimumSilenceSeconds = %f is not >= 0", minimumSilenceSeconds));
+        }
+        this.executor = executor;
+        this.bytesPerTask = bytesPerTask;
+        this.silenceThresholdDBFS = silenceThresholdDBFS;
+        this.minimumSilenceSeconds = minimumSilenceSeconds;
+    }
+
+    /**
+     * A method that analyzes the PCM samples of an audio track file
+     *
+     * @param trackFile the path of the track file
+     * @return the result of the analysis
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public AnalysisResult analyze(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        AnalysisResult analysisResult;
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(trackFile))
+        {
+            analysisResult = analyze(resourceByteRangeProvider, headerPartition);
+        }
+        List<ErrorLogger.ErrorObject> errors = new ArrayList<>(imfErrorLogger.getErrors());
+        errors.addAll(analysisResult.getErrors());
+        return new AnalysisResult(analysisResult.format, analysisResult.sampleCount, analysisResult.channelStatistics, errors);
+    }
+
+    /**
+     * A method that analyzes the PCM samples of an audio track file. Byte range requests are made concurrently from
+     * the tasks that analyze ranges of samples, so the provider should serve them in parallel
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return the result of the analysis
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public AnalysisResult analyze(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition) throws IOException
+    {
+        PCMEssenceReader pcmEssenceReader;
+        try
+        {
+            pcmEssenceReader = PCMEssenceReader.fromResource(resourceByteRangeProvider, headerPartition);
+        }
+        catch (MXFException e)
+        {
+            IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                    String.format("The track file does not contain supported PCM essence: %s", e.getMessage()));
+            return new AnalysisResult(null, 0, Collections.emptyList(), imfErrorLogger.getErrors());
+        }
+
+        PCMEssenceReader.SampleFormat format = pcmEssenceReader.getFormat();
+        long silenceThreshold = (long) Math.floor(format.getFullScale() * Math.pow(10.0, this.silenceThresholdDBFS / 20.0));
+        long minimumSilenceSamples = (long) Math.ceil(this.minimumSilenceSeconds * format.getSampleRateNumerator() / format.getSampleRateDenominator());
+        int samplesPerTask = Math.max(1, this.bytesPerTask / format.getBlockAlign());
+
+        List<Long> rangeFirstSamples = new ArrayList<>();
+        for (long firstSample = 0; firstSample < pcmEssenceReader.getSampleCount(); firstSample += samplesPerTask)
+        {
+            rangeFirstSamples.add(firstSample);
+        }
+        List<ChannelAccumulator[]> accumulatorsPerRange = ConcurrentTasks.invokeAll(this.executor, rangeFirstSamples,
+                firstSample -> analyzeSampleRange(pcmEssenceReader, firstSample, (int) Math.min(samplesPerTask, pcmEssenceReader.getSampleCount() - firstSample),
+                        silenceThreshold, minimumSilenceSamples));
+
+        ChannelAccumulator[] accumulators = ChannelAccumulator.newAccumulators(format.getChannelCount(), 0);
+        for (ChannelAccumulator[] rangeAccumulators : accumulatorsPerRange)
+        {
+            for (int channel = 0; channel < format.getChannelCount(); channel++)
+            {
+                accumulators[channel].merge(rangeAccumulators[channel]);
+            }
+        }
+
+        long sampleCount = accumulators.length > 0 ? accumulators[0].sampleCount : 0;
+        List<ChannelStatistics> channelStatistics = new ArrayList<>();
+        for (ChannelAccumulator accumulator : accumulators)
+        {
+            channelStatistics.add(accumulator.toChannelStatistics(format, minimumSilenceSamples));
+        }
+        logger.info("Analyzed {} samples of {} channels", sampleCount, format.getChannelCount());
+        return new AnalysisResult(format, sampleCount, channelStatistics, pcmEssenceReader.getErrors());
+    }
+
+    private static ChannelAccumulator[] analyzeSampleRange(PCMEssenceReader pcmEssenceReader, long firstSample, int sampleCount,
+                                                           long silenceThreshold, long minimumSilenceSamples) throws IOException
+    {
+        byte[] bytes = pcmEssenceReader.readSamples(firstSample, sampleCount);
+
+        PCMEssenceReader.SampleFormat format = pcmEssenceReader.getFormat();
+        int[] samples = new int[sampleCount];
+        ChannelAccumulator[] accumulators = ChannelAccumulator.newAccumulators(format.getChannelCount(), firstSample);
+        for (int channel = 0; channel < format.getChannelCount(); channel++)
+        {
+            format.deinterleave(bytes, channel, samples);
+            accumulators[channel].accumulate(samples, format, silenceThreshold, minimumSilenceSamples);
+        }
+        return accumulators;
+    }
+
+    /**
+     * The running statistics of a channel over a range of samples. Runs of silence that touch either end of the range
+     * are kept regardless of their length, so that runs spanning several ranges are merged before they are filtered.
+     */
+    private static final class ChannelAccumulator
+    {
+        private final long firstSample;
+        private long sampleCount;
+        private long maximum = Long.MIN_VALUE;
+        private long minimum = Long.MAX_VALUE;
+        private double sum;
+        private double sumOfSquares;
+        private long clippedSampleCount;
+        private final List<SilenceRun> silenceRuns = new ArrayList<>();
+
+        private ChannelAccumulator(long firstSample)
+        {
+            this.firstSample = firstSample;
+        }
+
+        private static ChannelAccumulator[] newAccumulators(int channelCount, long firstSample)
+        {
+            ChannelAccumulator[] accumulators = new ChannelAccumulator[channelCount];
+            for (int channel = 0; channel < channelCount; channel++)
+            {
+                accumulators[channel] = new ChannelAccumulator(firstSample);
+            }
+            return accumulators;
+        }
+
+        private void accumulate(int[] samples, PCMEssenceReader.SampleFormat format, long silenceThreshold, long minimumSilenceSamples)
+        {
+            long positiveClip = format.getPositiveClip();
+            long negativeClip = -format.getFullScale();
+            long max = this.maximum;
+            long min = this.minimum;
+            long sum = 0;
+            double sumOfSquares = 0;
+            long clipped = 0;
+            //a branch free loop over a primitive array, which the JIT compiler can vectorize
+            for (int i = 0; i < samples.length; i++)
+            {
+                int sample = samples[i];
+                max = Math.max(max, sample);
+                min = Math.min(min, sample);
+                sum += sample;
+                sumOfSquares += (double) sample * sample;
+                clipped += (sample >= positiveClip || sample <= negativeClip) ? 1 : 0;
+            }
+            this.maximum = max;
+            this.minimum = min;
+            this.sum += sum;
+            this.sumOfSquares += sumOfSquares;
+            this.clippedSampleCount += clipped;
+
+            int runStart = -1;
+            for (int i = 0; i < samples.length; i++)
+            {
+                boolean silent = Math.abs((long) samples[i]) <= silenceThreshold;
+                if (silent && runStart < 0)
+                {
+                    runStart = i;
+                }
+                else if (!silent && runStart >= 0)
+                {
+                    if (runStart == 0 || i - runStart >= minimumSilenceSamples)
+                    {
+                        this.silenceRuns.add(new SilenceRun(this.firstSample + runStart, i - runStart));
+                    }
+                    runStart = -1;
+                }
+            }
+            if (runStart >= 0)
+            {
+                this.silenceRuns.add(new SilenceRun(this.firstSample + runStart, samples.length - runStart));
+            }
+            this.sampleCount += samples.length;
+        }
+
+        private void merge(ChannelAccumulator other)
+        {
+            this.maximum = Math.max(this.maximum, other.maximum);
+            this.minimum = Math.min(this.minimum, other.minimum);
+            this.sum += other.sum;
+            this.sumOfSquares += other.sumOfSquares;
+            this.clippedSampleCount += other.clippedSampleCount;
+            this.sampleCount += other.sampleCount;
+            for (SilenceRun silenceRun : other.silenceRuns)
+            {
+                int last = this.silenceRuns.size() - 1;
+                if (last >= 0 && this.silenceRuns.get(last).getEndSample() == silenceRun.startSample)
+                {
+                    SilenceRun previous = this.silenceRuns.get(last);
+                    this.silenceRuns.set(last, new SilenceRun(previous.startSample, previous.sampleCount + silenceRun.sampleCount));
+                }
+                else
+                {
+                    this.silenceRuns.add(silenceRun);
+                }
+            }
+        }
+
+        private ChannelStatistics toChannelStatistics(PCMEssenceReader.SampleFormat format, long minimumSilenceSamples)
+        {
+            List<SilenceRun> runs = new ArrayList<>();
+            for (SilenceRun silenceRun : this.silenceRuns)
+            {
+                if (silenceRun.sampleCount >= minimumSilenceSamples)
+                {
+                    runs.add(silenceRun);
+                }
+            }
+            double fullScale = format.getFullScale();
+            if (this.sampleCount == 0)
+            {
+                return new ChannelStatistics(0, 0, 0, 0, 0, runs);
+            }
+            double peak = Math.max(Math.abs((double) this.maximum), Math.abs((double) this.minimum)) / fullScale;
+            double rms = Math.sqrt(this.sumOfSquares / this.sampleCount) / fullScale;
+            double dcOffset = this.sum / this.sampleCount / fullScale;
+            return new ChannelStatistics(this.sampleCount, peak, rms, dcOffset, this.clippedSampleCount, runs);
+        }
+    }
+
+    /**
+     * A run of consecutive silent samples of a channel
+     */
+    @Immutable
+    public static final class SilenceRun
+    {
+        private final long startSample;
+        private final long sampleCount;
+
+        private SilenceRun(long startSample, long sampleCount)
+        {
+            this.startSample = startSample;
+            this.sampleCount = sampleCount;
+        }
+
+        /**
+         * Getter for the first silent sample
+         *
+         * @return the zero based index of the first sample of the run
+         */
+        public long getStartSample()
+        {
+            return this.startSample;
+        }
+
+        /**
+         * Getter for the length of the run
+         *
+         * @return the number of samples of the run
+         */
+        public long getSampleCount()
+        {
+            return this.sampleCount;
+        }
+
+        private long getEndSample()
+        {
+            return this.startSample + this.sampleCount;
+        }
+
+        /**
+         * A method that returns a string representation of a SilenceRun object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("[%d, %d)", this.startSample, getEndSample());
+        }
+    }
+
+    /**
+     * The statistics of a channel. Levels are relative to the full scale of the sample container, from 0.0 to 1.0 for
+     * the peak and RMS levels and from -1.0 to 1.0 for the DC offset.
+     */
+    @Immutable
+    public static final class ChannelStatistics
+    {
+        private final long sampleCount;
+        private final double peak;
+        private final double rms;
+        private final double dcOffset;
+        private final long clippedSampleCount;
+        private final List<SilenceRun> silenceRuns;
+
+        private ChannelStatistics(long sampleCount, double peak, double rms, double dcOffset, long clippedSampleCount, List<SilenceRun> silenceRuns)
+        {
+            this.sampleCount = sampleCount;
+            this.peak = peak;
+            this.rms = rms;
+            this.dcOffset = dcOffset;
+            this.clippedSampleCount = clippedSampleCount;
+            this.silenceRuns = Collections.unmodifiableList(silenceRuns);
+        }
+
+        /**
+         * Getter for the number of samples of the channel
+         *
+         * @return the number of samples
+         */
+        public long getSampleCount()
+        {
+            return this.sampleCount;
+        }
+
+        /**
+         * Getter for the peak sample magnitude
+         *
+         * @return the peak level relative to full scale
+         */
+        public double getPeak()
+        {
+            return this.peak;
+        }
+
+        /**
+         * Getter for the peak level in dBFS
+         *
+         * @return the peak level in dBFS, negative infinity for a silent channel
+         */
+        public double getPeakDBFS()
+        {
+            return 20.0 * Math.log10(this.peak);
+        }
+
+        /**
+         * Getter for the RMS level
+         *
+         * @return the RMS level relative to full scale
+         */
+        public double getRMS()
+        {
+            return this.rms;
+        }
+
+        /**
+         * Getter for the RMS level in dBFS
+         *
+         * @return the RMS level in dBFS, negative infinity for a silent channel
+         */
+        public double getRMSDBFS()
+        {
+            return 20.0 * Math.log10(this.rms);
+        }
+
+        /**
+         * Getter for the mean sample value
+         *
+         * @return the DC offset relative to full scale
+         */
+        public double getDCOffset()
+        {
+            return this.dcOffset;
+        }
+
+        /**
+         * Getter for the number of samples at either end of the sample range
+         *
+         * @return the number of clipped samples
+         */
+        public long getClippedSampleCount()
+        {
+            return this.clippedSampleCount;
+        }
+
+        /**
+         * Getter for the runs of silence that are at least as long as the minimum duration of the analyzer
+         *
+         * @return a list of silence runs in sample order
+         */
+        public List<SilenceRun> getSilenceRuns()
+        {
+            return this.silenceRuns;
+        }
+
+        /**
+         * A method that returns a string representation of a ChannelStatistics object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("peak = %.2f dBFS, RMS = %.2f dBFS, DC offset = %.6f, clipped samples = %d, silence runs = %s",
+                    getPeakDBFS(), getRMSDBFS(), this.dcOffset, this.clippedSampleCount, this.silenceRuns);
+        }
+    }
+
+    /**
+     * The result of the analysis of an audio track file
+     */
+    @Immutable
+    public static final class AnalysisResult
+    {
+        private final PCMEssenceReader.SampleFormat format;
+        private final long sampleCount;
+        private final List<ChannelStatistics> channelStatistics;
+        private final List<ErrorLogger.ErrorObject> errors;
+
+        private AnalysisResult(@Nullable PCMEssenceReader.SampleFormat format, long sampleCount, List<ChannelStatistics> channelStatistics, List<ErrorLogger.ErrorObject> errors)
+        {
+            this.format = format;
+            this.sampleCount = sampleCount;
+            this.channelStatistics = Collections.unmodifiableList(channelStatistics);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the sample format of the track file
+         *
+         * @return the sample format, null when the track file does not contain supported PCM essence
+         */
+        public @Nullable PCMEssenceReader.SampleFormat getFormat()
+        {
+            return this.format;
+        }
+
+        /**
+         * Getter for the number of samples per channel
+         *
+         * @return the number of samples
+         */
+        public long getSampleCount()
+        {
+            return this.sampleCount;
+        }
+
+        /**
+         * Getter for the statistics of the channels
+         *
+         * @return a list of channel statistics in channel order
+         */
+        public List<ChannelStatistics> getChannelStatistics()
+        {
+            return this.channelStatistics;
+        }
+
+        /**
+         * Getter for the errors found while analyzing the track file
+         *
+         * @return a list of errors
+         */
+        public List<ErrorLogger.ErrorObject> getErrors()
+        {
+            return this.errors;
+        }
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.AudioChannelLabelSubDescriptor;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st0377.header.WaveAudioEssenceDescriptor;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A reader of the PCM samples of a clip-wrapped or frame-wrapped audio track file. The sound essence elements are
+ * located once, by scanning the KLV packets of the partitions of the indexed essence container, after which any range
+ * of samples can be read as interleaved little-endian PCM regardless of how it is split across essence elements.
+ */
+@ThreadSafe
+public final class PCMEssenceReader
+{
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+
+    private final ResourceByteRangeProvider resourceByteRangeProvider;
+    private final HeaderPartition headerPartition;
+    private final WaveAudioEssenceDescriptor.WaveAudioEssenceDescriptorBO waveAudioEssenceDescriptorBO;
+    private final SampleFormat format;
+    private final long[] elementFirstSamples;
+    private final long[] elementFileOffsets;
+    private final long sampleCount;
+    private final List<ErrorLogger.ErrorObject> errors;
+
+    private PCMEssenceReader(ResourceByteRangeProvider resourceByteRangeProvider, HeaderPartition headerPartition,
+                             WaveAudioEssenceDescriptor.WaveAudioEssenceDescriptorBO waveAudioEssenceDescriptorBO, SampleFormat format,
+                             long[] elementFirstSamples, long[] elementFileOffsets, long sampleCount, List<ErrorLogger.ErrorObject> errors)
+    {
+        this.resourceByteRangeProvider = resourceByteRangeProvider;
+        this.headerPartition = headerPartition;
+        this.waveAudioEssenceDescriptorBO = waveAudioEssenceDescriptorBO;
+        this.format = format;
+        this.elementFirstSamples = elementFirstSamples;
+        this.elementFileOffsets = elementFileOffsets;
+        this.sampleCount = sampleCount;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * A factory method that locates the PCM samples of an audio track file
+     *
+     * @param trackFile the path of the track file
+     * @return a reader of the samples of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the track file does not contain PCM essence described by a WaveAudioEssenceDescriptor
+     */
+    public static PCMEssenceReader fromPath(@Nonnull Path trackFile) throws IOException
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        return fromResource(new FileByteRangeProvider(trackFile), headerPartition, imfErrorLogger);
+    }
+
+    /**
+     * A factory method that locates the PCM samples of an audio track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param headerPartition the HeaderPartition of the track file
+     * @return a reader of the samples of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the track file does not contain PCM essence described by a WaveAudioEssenceDescriptor
+     */
+    public static PCMEssenceReader fromResource(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull HeaderPartition headerPartition)
+            throws IOException
+    {
+        return fromResource(resourceByteRangeProvider, headerPartition, new IMFErrorLoggerImpl());
+    }
+
+    private static PCMEssenceReader fromResource(ResourceByteRangeProvider resourceByteRangeProvider, HeaderPartition headerPartition,
+                                                 IMFErrorLogger imfErrorLogger) throws IOException
+    {
+        WaveAudioEssenceDescriptor.WaveAudioEssenceDescriptorBO waveAudioEssenceDescriptorBO = null;
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors())
+        {
+            if (essenceDescriptor instanceof WaveAudioEssenceDescriptor.WaveAudioEssenceDescriptorBO)
+            {
+                waveAudioEssenceDescriptorBO = (WaveAudioEssenceDescriptor.WaveAudioEssenceDescriptorBO) essenceDescriptor;
+                break;
+            }
+        }
+        if (waveAudioEssenceDescriptorBO == null)
+        {
+            throw new MXFException("The track file does not contain a WaveAudioEssenceDescriptor");
+        }
+        WaveAudioEssenceDescriptor waveAudioEssenceDescriptor = new WaveAudioEssenceDescriptor(waveAudioEssenceDescriptorBO);
+        SampleFormat format = new SampleFormat(waveAudioEssenceDescriptor.getChannelCount(), waveAudioEssenceDescriptor.getBlockAlign(),
+                waveAudioEssenceDescriptor.getQuantizationBits(), waveAudioEssenceDescriptor.getAudioSamplingRateNumerator(),
+                waveAudioEssenceDescriptor.getAudioSamplingRateDenominator());
+
+        List<Long> firstSamples = new ArrayList<>();
+        List<Long> fileOffsets = new ArrayList<>();
+        long sampleCount = 0;
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        for (EssenceIndex.EssenceSegment essenceSegment : essenceIndex.getEssenceSegments())
+        {
+            long position = essenceSegment.getFileOffset();
+            long end = position + essenceSegment.getLength();
+            while (position < end)
+            {
+                long rangeEnd = Math.min(end, position + MAX_KLV_HEADER_SIZE);
+                byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(position, rangeEnd - 1);
+                KLVPacket.Header header = new KLVPacket.Header(new ByteArrayDataProvider(bytes), position);
+                long valueOffset = position + header.getKLSize();
+                if (KLVPacket.isEssenceElementKey(header.getKey(), KLVPacket.SOUND_ITEM_TYPE) && header.getVSize() > 0)
+                {
+                    if (header.getVSize() % format.blockAlign != 0)
+                    {
+                        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                                String.format("Sound essence element at offset %d has a length %d that is not a multiple of the block align %d, trailing bytes are ignored",
+                                        position, header.getVSize(), format.blockAlign));
+                    }
+                    long elementSampleCount = header.getVSize() / format.blockAlign;
+                    if (elementSampleCount > 0)
+                    {
+                        firstSamples.add(sampleCount);
+                        fileOffsets.add(valueOffset);
+                        sampleCount += elementSampleCount;
+                    }
+                }
+                position = valueOffset + header.getVSize();
+            }
+        }
+
+        long[] elementFirstSamples = new long[firstSamples.size()];
+        long[] elementFileOffsets = new long[fileOffsets.size()];
+        for (int i = 0; i < elementFirstSamples.length; i++)
+        {
+            elementFirstSamples[i] = firstSamples.get(i);
+            elementFileOffsets[i] = fileOffsets.get(i);
+        }
+        return new PCMEssenceReader(resourceByteRangeProvider, headerPartition, waveAudioEssenceDescriptorBO, format,
+                elementFirstSamples, elementFileOffsets, sampleCount, imfErrorLogger.getErrors());
+    }
+
+    /**
+     * Getter for the sample format of the track file
+     *
+     * @return the sample format
+     */
+    public SampleFormat getFormat()
+    {
+        return this.format;
+    }
+
+    /**
+     * Getter for the number of samples per channel
+     *
+     * @return the number of samples
+     */
+    public long getSampleCount()
+    {
+        return this.sampleCount;
+    }
+
+    /**
+     * Getter for the HeaderPartition of the track file
+     *
+     * @return the HeaderPartition
+     */
+    public HeaderPartition getHeaderPartition()
+    {
+        return this.headerPartition;
+    }
+
+    /**
+     * Getter for the errors found while locating the samples
+     *
+     * @return a list of errors
+     */
+    public List<ErrorLogger.ErrorObject> getErrors()
+    {
+        return this.errors;
+    }
+
+    /**
+     * Getter for the AudioChannelLabelSubDescriptors of the track file in channel order. The channel of a label is
+     * given by its MCAChannelID when present, and by its position among the labels otherwise.
+     *
+     * @return an array with one entry per channel, null for channels without a label
+     */
+    public AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO[] getAudioChannelLabels()
+    {
+        AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO[] labels =
+                new AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO[this.format.channelCount];
+        int ordinal = 0;
+        for (InterchangeObject.InterchangeObjectBO subDescriptor : this.headerPartition.getSubDescriptors(this.waveAudioEssenceDescriptorBO))
+        {
+            if (!(subDescriptor instanceof AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO))
+            {
+                continue;
+            }
+            AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO label = (AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO) subDescriptor;
+            long channel = (label.getMCAChannelID() != null) ? label.getMCAChannelID() - 1 : ordinal;
+            if (channel >= 0 && channel < labels.length)
+            {
+                labels[(int) channel] = label;
+            }
+            ordinal++;
+        }
+        return labels;
+    }
+
+    /**
+     * A method that reads a range of samples of all channels
+     *
+     * @param firstSample the zero based first sample
+     * @param count the number of samples to read
+     * @return the samples as interleaved little-endian PCM, {@link SampleFormat#getBlockAlign()} bytes per sample
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public byte[] readSamples(long firstSample, int count) throws IOException
+    {
+        if (firstSample < 0 || count < 0 || firstSample + count > this.sampleCount)
+        {
+            throw new IllegalArgumentException(String.format("Samples [%d, %d) are outside the range [0, %d) of the track file",
+                    firstSample, firstSample + count, this.sampleCount));
+        }
+        byte[] samples = new byte[count * this.format.blockAlign];
+        int element = Arrays.binarySearch(this.elementFirstSamples, firstSample);
+        if (element < 0)
+        {
+            element = -element - 2;
+        }
+        long sample = firstSample;
+        int position = 0;
+        while (position < samples.length)
+        {
+            long elementEnd = (element + 1 < this.elementFirstSamples.length) ? this.elementFirstSamples[element + 1] : this.sampleCount;
+            int pieceSampleCount = (int) Math.min(elementEnd - sample, firstSample + count - sample);
+            long fileOffset = this.elementFileOffsets[element] + (sample - this.elementFirstSamples[element]) * this.format.blockAlign;
+            byte[] piece = this.resourceByteRangeProvider.getByteRangeAsBytes(fileOffset, fileOffset + (long) pieceSampleCount * this.format.blockAlign - 1);
+            if (piece.length == samples.length)
+            {
+                return piece;
+            }
+            System.arraycopy(piece, 0, samples, position, piece.length);
+            position += piece.length;
+            sample += pieceSampleCount;
+            element++;
+        }
+        return samples;
+    }
+
+    /**
+     * The layout of the PCM samples described by a WaveAudioEssenceDescriptor
+     */
+    @Immutable
+    public static final class SampleFormat
+    {
+        private final int channelCount;
+        private final int blockAlign;
+        private final int quantizationBits;
+        private final int bytesPerSample;
+        private final int sampleRateNumerator;
+        private final int sampleRateDenominator;
+        private final long fullScale;
+        private final long positiveClip;
+
+        private SampleFormat(int channelCount, int blockAlign, int quantizationBits, int sampleRateNumerator, int sampleRateDenominator)
+        {
+            if (channelCount <= 0 || blockAlign <= 0 || blockAlign % channelCount != 0)
+            {
+                throw new MXFException(String.format("ChannelCount %d is inconsistent with BlockAlign %d", channelCount, blockAlign));
+            }
+            this.bytesPerSample = blockAlign / channelCount;
+            if (this.bytesPerSample < 1 || this.bytesPerSample > 4 || quantizationBits > 8 * this.bytesPerSample)
+            {
+                throw new MXFException(String.format("%d bytes per sample and QuantizationBits %d are not supported", this.bytesPerSample, quantizationBits));
+            }
+            if (sampleRateNumerator <= 0 || sampleRateDenominator <= 0)
+            {
+                throw new MXFException(String.format("AudioSamplingRate %d/%d is invalid", sampleRateNumerator, sampleRateDenominator));
+            }
+            this.channelCount = channelCount;
+            this.blockAlign = blockAlign;
+            this.quantizationBits = quantizationBits;
+            this.sampleRateNumerator = sampleRateNumerator;
+            this.sampleRateDenominator = sampleRateDenominator;
+            //samples narrower than their container are left justified, levels are relative to the container
+            this.fullScale = 1L << (8 * this.bytesPerSample - 1);
+            int padding = (quantizationBits > 0) ? 8 * this.bytesPerSample - quantizationBits : 0;
+            this.positiveClip = ((this.fullScale - 1) >> padding) << padding;
+        }
+
+        /**
+         * Copies the samples of a channel out of interleaved little-endian PCM, sign extended to 32 bits. 8-bit samples
+         * are offset binary, as in WAV files.
+         *
+         * @param bytes interleaved samples of all channels
+         * @param channel the zero based channel
+         * @param samples the destination of the samples of the channel, one per sample of the interleaved samples
+         */
+        public void deinterleave(byte[] bytes, int channel, int[] samples)
+        {
+            int offset = channel * this.bytesPerSample;
+            switch (this.bytesPerSample)
+            {
+                case 1:
+                    for (int i = 0; i < samples.length; i++, offset += this.blockAlign)
+                    {
+                        samples[i] = (bytes[offset] & 0xff) - 0x80;
+                    }
+                    break;
+                case 2:
+                    for (int i = 0; i < samples.length; i++, offset += this.blockAlign)
+                    {
+                        samples[i] = (bytes[offset] & 0xff) | (bytes[offset + 1] << 8);
+                    }
+                    break;
+                case 3:
+                    for (int i = 0; i < samples.length; i++, offset += this.blockAlign)
+                    {
+                        samples[i] = (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8) | (bytes[offset + 2] << 16);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < samples.length; i++, offset += this.blockAlign)
+                    {
+                        samples[i] = (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8) | ((bytes[offset + 2] & 0xff) << 16) | (bytes[offset + 3] << 24);
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * Getter for the number of channels
+         *
+         * @return the number of channels
+         */
+        public int getChannelCount()
+        {
+            return this.channelCount;
+        }
+
+        /**
+         * Getter for the number of bytes of a sample of all channels
+         *
+         * @return the block align
+         */
+        public int getBlockAlign()
+        {
+            return this.blockAlign;
+        }
+
+        /**
+         * Getter for the number of bytes of a sample of a single channel
+         *
+         * @return the number of bytes per sample
+         */
+        public int getBytesPerSample()
+        {
+            return this.bytesPerSample;
+        }
+
+        /**
+         * Getter for the number of significant bits of a sample
+         *
+         * @return the quantization bits
+         */
+        public int getQuantizationBits()
+        {
+            return this.quantizationBits;
+        }
+
+        /**
+         * Getter for the numerator of the sampling rate
+         *
+         * @return the numerator of the audio sampling rate
+         */
+        public int getSampleRateNumerator()
+        {
+            return this.sampleRateNumerator;
+        }
+
+        /**
+         * Getter for the denominator of the sampling rate
+         *
+         * @return the denominator of the audio sampling rate
+         */
+        public int getSampleRateDenominator()
+        {
+            return this.sampleRateDenominator;
+        }
+
+        /**
+         * Getter for the magnitude of the most negative sample value, the reference of full scale levels
+         *
+         * @return the full scale sample magnitude
+         */
+        public long getFullScale()
+        {
+            return this.fullScale;
+        }
+
+        /**
+         * Getter for the largest positive sample value that the quantization bits can represent
+         *
+         * @return the largest positive sample value
+         */
+        public long getPositiveClip()
+        {
+            return this.positiveClip;
+        }
+    }
+}
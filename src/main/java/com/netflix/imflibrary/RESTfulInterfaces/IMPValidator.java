@@ -278,8 +278,34 @@ public class IMPValidator {
      * IMFCompositionPlaylist.
      */
     public static List<ErrorLogger.ErrorObject> validateComposition(IMFCompositionPlaylist imfCompositionPlaylist, List<PayloadRecord> headerPartitionPayloads) {
+        return validateComposition(imfCompositionPlaylist, headerPartitionPayloads, ErrorSink.NONE);
+    }
 
-        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+    /**
+     * A stateless method that will validate an IMF Composition, based on an IMF CPL and a number of MXF header partition payloads,
+     * pushing errors to an ErrorSink as they occur. Remaining validators are skipped once the ErrorSink is terminated.
+     * @param imfCompositionPlaylist - an IMFCompositionPlaylist object
+     * @param headerPartitionPayloads - a list of PayloadRecord objects of type EssencePartition
+     * @param errorSink - the ErrorSink that errors are pushed to and that may terminate the validation early
+     * @return a list of error messages encountered while validating the composition.
+     */
+    public static List<ErrorLogger.ErrorObject> validateComposition(IMFCompositionPlaylist imfCompositionPlaylist, List<PayloadRecord> headerPartitionPayloads, ErrorSink errorSink) {
+        return validateComposition(imfCompositionPlaylist, headerPartitionPayloads, errorSink, ValidationMetrics.NONE);
+    }
+
+    /**
+     * A stateless method that will validate an IMF Composition, based on an IMF CPL and a number of MXF header partition payloads,
+     * pushing errors to an ErrorSink as they occur and timing each validator, keyed by its constraints specification,
+     * in a ValidationMetrics object.
+     * @param imfCompositionPlaylist - an IMFCompositionPlaylist object
+     * @param headerPartitionPayloads - a list of PayloadRecord objects of type EssencePartition
+     * @param errorSink - the ErrorSink that errors are pushed to and that may terminate the validation early
+     * @param validationMetrics - the ValidationMetrics object that validator timings are recorded in
+     * @return a list of error messages encountered while validating the composition.
+     */
+    public static List<ErrorLogger.ErrorObject> validateComposition(IMFCompositionPlaylist imfCompositionPlaylist, List<PayloadRecord> headerPartitionPayloads, ErrorSink errorSink, ValidationMetrics validationMetrics) {
+
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl(errorSink);
 
         /*
             run validations based on application identification, cpl and sequence namespaces:
@@ -298,10 +324,15 @@ public class IMPValidator {
         namespaces.add(imfCompositionPlaylist.getCplSchema());
 
         for (String namespace : namespaces) {
+            if (errorSink.isTerminated()) {
+                break;
+            }
             ConstraintsValidator validator = ConstraintsValidatorFactory.getValidator(namespace);
             if (validator != null) {
-                List<ErrorLogger.ErrorObject> cplErrors = validator.validateCompositionConstraints(imfCompositionPlaylist, headerPartitionPayloads);
-                imfErrorLogger.addAllErrors(cplErrors);
+                try (ValidationMetrics.Timer timer = validationMetrics.start("Composition constraints: " + validator.getConstraintsSpecification())) {
+                    List<ErrorLogger.ErrorObject> cplErrors = validator.validateCompositionConstraints(imfCompositionPlaylist, headerPartitionPayloads);
+                    imfErrorLogger.addAllErrors(cplErrors);
+                }
             } else {
                 imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR,
                         IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "Namespace not supported: " + namespace);
@@ -324,8 +355,34 @@ public class IMPValidator {
      * IMFCompositionPlaylist.
      */
     public static List<ErrorLogger.ErrorObject> validateEssencePartitions(List<PayloadRecord> essencePartitionPayloadRecords, String sequenceNamespace) throws IOException {
+        return validateEssencePartitions(essencePartitionPayloadRecords, sequenceNamespace, ErrorSink.NONE);
+    }
 
-        IMFErrorLogger trackFileErrorLogger = new IMFErrorLoggerImpl();
+    /**
+     * A stateless method that will validate MXF essence partitions, pushing errors to an ErrorSink as they occur.
+     * Remaining checks are skipped once the ErrorSink is terminated.
+     * @param essencePartitionPayloadRecords - a list of PayloadRecord objects of type EssencePartition
+     * @param sequenceNamespace - the sequence namespace used by the virtual track that references the associated MXF Track File(s)
+     * @param errorSink - the ErrorSink that errors are pushed to and that may terminate the validation early
+     * @return a list of error messages encountered while validating the essence partitions.
+     */
+    public static List<ErrorLogger.ErrorObject> validateEssencePartitions(List<PayloadRecord> essencePartitionPayloadRecords, String sequenceNamespace, ErrorSink errorSink) throws IOException {
+        return validateEssencePartitions(essencePartitionPayloadRecords, sequenceNamespace, errorSink, ValidationMetrics.NONE);
+    }
+
+    /**
+     * A stateless method that will validate MXF essence partitions, pushing errors to an ErrorSink as they occur and
+     * timing header metadata parsing, index table parsing and the sequence validator in a ValidationMetrics object.
+     * @param essencePartitionPayloadRecords - a list of PayloadRecord objects of type EssencePartition
+     * @param sequenceNamespace - the sequence namespace used by the virtual track that references the associated MXF Track File(s)
+     * @param errorSink - the ErrorSink that errors are pushed to and that may terminate the validation early
+     * @param validationMetrics - the ValidationMetrics object that phase timings are recorded in
+     * @return a list of error messages encountered while validating the essence partitions.
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static List<ErrorLogger.ErrorObject> validateEssencePartitions(List<PayloadRecord> essencePartitionPayloadRecords, String sequenceNamespace, ErrorSink errorSink, ValidationMetrics validationMetrics) throws IOException {
+
+        IMFErrorLogger trackFileErrorLogger = new IMFErrorLoggerImpl(errorSink);
 
         PayloadRecord headerPartitionPayloadRecord = null;
         List<PayloadRecord> indexSegmentPayloadRecords = new ArrayList<>();
@@ -333,6 +390,10 @@ public class IMPValidator {
         try {
             for (PayloadRecord payloadRecord : essencePartitionPayloadRecords) {
 
+                if (errorSink.isTerminated()) {
+                    return trackFileErrorLogger.getErrors();
+                }
+
                 // ensure payload time is EssencePartition
                 if (payloadRecord.getPayloadAssetType() != PayloadRecord.PayloadAssetType.EssencePartition) {
                     trackFileErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMP_VALIDATOR_PAYLOAD_ERROR,
@@ -355,12 +416,14 @@ public class IMPValidator {
                 if (partitionPack.hasHeaderMetadata()) {
                     // todo: ensure partition is signaled as closed and complete in Partition Pack and use Footer Partition otherwise
                     headerPartitionPayloadRecord = payloadRecord;
-                    HeaderPartition headerPartition = new HeaderPartition(new ByteArrayDataProvider(headerPartitionPayloadRecord.getPayload()),
-                            0L,
-                            (long)headerPartitionPayloadRecord.getPayload().length,
-                            trackFileErrorLogger);
+                    try (ValidationMetrics.Timer timer = validationMetrics.start("Header metadata validation")) {
+                        HeaderPartition headerPartition = new HeaderPartition(new ByteArrayDataProvider(headerPartitionPayloadRecord.getPayload()),
+                                0L,
+                                (long) headerPartitionPayloadRecord.getPayload().length,
+                                trackFileErrorLogger);
 
-                    trackFileErrorLogger.addAllErrors(IMFConstraints.checkMXFHeaderMetadata(headerPartition));
+                        trackFileErrorLogger.addAllErrors(IMFConstraints.checkMXFHeaderMetadata(headerPartition));
+                    }
                 }
 
                 // validate index table segments
@@ -368,20 +431,22 @@ public class IMPValidator {
 
                     indexSegmentPayloadRecords.add(payloadRecord);
 
-                    ByteProvider imfEssenceComponentByteProvider = new ByteArrayDataProvider(payloadRecord.getPayload());
-
-                    long numBytesToRead = payloadRecord.getPayload().length;
-                    long numBytesRead = 0;
-                    while (numBytesRead < numBytesToRead) {
-                        KLVPacket.Header header = new KLVPacket.Header(imfEssenceComponentByteProvider, 0);
-                        numBytesRead += header.getKLSize();
-
-                        if (IndexTableSegment.isValidKey(header.getKey())) {
-                            new IndexTableSegment(imfEssenceComponentByteProvider, header);
-                        } else {
-                            imfEssenceComponentByteProvider.skipBytes(header.getVSize());
+                    try (ValidationMetrics.Timer timer = validationMetrics.start("Index table validation")) {
+                        ByteProvider imfEssenceComponentByteProvider = new ByteArrayDataProvider(payloadRecord.getPayload());
+
+                        long numBytesToRead = payloadRecord.getPayload().length;
+                        long numBytesRead = 0;
+                        while (numBytesRead < numBytesToRead) {
+                            KLVPacket.Header header = new KLVPacket.Header(imfEssenceComponentByteProvider, 0);
+                            numBytesRead += header.getKLSize();
+
+                            if (IndexTableSegment.isValidKey(header.getKey())) {
+                                new IndexTableSegment(imfEssenceComponentByteProvider, header);
+                            } else {
+                                imfEssenceComponentByteProvider.skipBytes(header.getVSize());
+                            }
+                            numBytesRead += header.getVSize();
                         }
-                        numBytesRead += header.getVSize();
                     }
                 }
             }
@@ -390,7 +455,7 @@ public class IMPValidator {
             trackFileErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, e.getMessage());
         }
 
-        if (trackFileErrorLogger.hasFatalErrors())
+        if (trackFileErrorLogger.hasFatalErrors() || errorSink.isTerminated())
             return trackFileErrorLogger.getErrors();
 
         /*
@@ -401,8 +466,10 @@ public class IMPValidator {
 
             ConstraintsValidator validator = ConstraintsValidatorFactory.getValidator(sequenceNamespace);
             if (validator != null) {
-                List<ErrorLogger.ErrorObject> cplErrors = validator.validateEssencePartitionConstraints(headerPartitionPayloadRecord, indexSegmentPayloadRecords);
-                trackFileErrorLogger.addAllErrors(cplErrors);
+                try (ValidationMetrics.Timer timer = validationMetrics.start("Essence partition constraints: " + validator.getConstraintsSpecification())) {
+                    List<ErrorLogger.ErrorObject> cplErrors = validator.validateEssencePartitionConstraints(headerPartitionPayloadRecord, indexSegmentPayloadRecords);
+                    trackFileErrorLogger.addAllErrors(cplErrors);
+                }
             } else {
                 trackFileErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR,
                         IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "Namespace not supported: " + sequenceNamespace);
@@ -1,5 +1,7 @@
 package com.netflix.imflibrary.app;
 
+import com.netflix.imflibrary.ErrorBudget;
+import com.netflix.imflibrary.ErrorSink;
 import com.netflix.imflibrary.IMFErrorLogger;
 import com.netflix.imflibrary.IMFErrorLoggerImpl;
 import com.netflix.imflibrary.RESTfulInterfaces.IMPValidator;
@@ -16,7 +18,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -51,9 +55,55 @@ public class IMPAnalyzer {
 
 
     public static Map<String, List<ErrorLogger.ErrorObject>> analyzeDelivery(Path rootPath) throws IOException {
+        return analyzeDelivery(rootPath, ErrorSink.NONE);
+    }
+
+    /**
+     * Analyzes an IMF delivery, pushing errors to an ErrorSink as they occur. Once the ErrorSink is terminated, the
+     * remaining assets and checks are skipped and a WARNING stating so is reported for the root folder.
+     * @param rootPath the root folder of the IMF delivery
+     * @param errorSink the ErrorSink that errors are pushed to and that may terminate the analysis early
+     * @return a map of file names to the errors encountered for that file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static Map<String, List<ErrorLogger.ErrorObject>> analyzeDelivery(Path rootPath, ErrorSink errorSink) throws IOException {
+        return analyzeDelivery(rootPath, errorSink, ByteRangeMetrics.NONE);
+    }
+
+    /**
+     * Analyzes an IMF delivery, pushing errors to an ErrorSink as they occur and reporting every byte range request made
+     * to the MXF track files and XML documents of the delivery to a ByteRangeMetrics object.
+     * @param rootPath the root folder of the IMF delivery
+     * @param errorSink the ErrorSink that errors are pushed to and that may terminate the analysis early
+     * @param byteRangeMetrics the metrics object that byte range requests are reported to
+     * @return a map of file names to the errors encountered for that file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static Map<String, List<ErrorLogger.ErrorObject>> analyzeDelivery(Path rootPath, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics) throws IOException {
+        return analyzeDelivery(rootPath, errorSink, byteRangeMetrics, ValidationMetrics.NONE);
+    }
+
+    /**
+     * Analyzes an IMF delivery, pushing errors to an ErrorSink as they occur, reporting byte range requests to a
+     * ByteRangeMetrics object and recording the time spent and memory allocated in each phase of the analysis, and in
+     * each validator, in a ValidationMetrics object.
+     * @param rootPath the root folder of the IMF delivery
+     * @param errorSink the ErrorSink that errors are pushed to and that may terminate the analysis early
+     * @param byteRangeMetrics the metrics object that byte range requests are reported to
+     * @param validationMetrics the ValidationMetrics object that phase timings are recorded in
+     * @return a map of file names to the errors encountered for that file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static Map<String, List<ErrorLogger.ErrorObject>> analyzeDelivery(Path rootPath, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics, ValidationMetrics validationMetrics) throws IOException {
+        try (ValidationMetrics.Timer timer = validationMetrics.start("Delivery analysis")) {
+            return analyzeDeliveryPhases(rootPath, errorSink, byteRangeMetrics, validationMetrics);
+        }
+    }
+
+    private static Map<String, List<ErrorLogger.ErrorObject>> analyzeDeliveryPhases(Path rootPath, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics, ValidationMetrics validationMetrics) throws IOException {
 
         Map<String, List<ErrorLogger.ErrorObject>> errorMap = new HashMap<>();
-        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl(errorSink);
 
         if (!Files.isDirectory(rootPath)) {
             imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_MASTER_PACKAGE_ERROR,
@@ -66,7 +116,7 @@ public class IMPAnalyzer {
         try {
             BasicMapProfileV2MappedFileSet mapProfileV2MappedFileSet = new BasicMapProfileV2MappedFileSet(rootPath);
             imfErrorLogger.addAllErrors(mapProfileV2MappedFileSet.getErrors());
-            IMFErrorLogger assetMapErrorLogger = new IMFErrorLoggerImpl();
+            IMFErrorLogger assetMapErrorLogger = new IMFErrorLoggerImpl(errorSink);
 
             try {
                 Path assetMapPath = Paths.get(mapProfileV2MappedFileSet.getAbsoluteAssetMapURI());
@@ -80,7 +130,10 @@ public class IMPAnalyzer {
                     return errorMap;
                 }
 
-                AssetMap assetMap = new AssetMap(assetMapPath);
+                AssetMap assetMap;
+                try (ValidationMetrics.Timer timer = validationMetrics.start("AssetMap parsing")) {
+                    assetMap = new AssetMap(assetMapPath);
+                }
                 assetMapErrorLogger.addAllErrors(assetMap.getErrors());
 
                 if (assetMap.getPackingListAssets().isEmpty()) {
@@ -92,7 +145,10 @@ public class IMPAnalyzer {
                 }
 
                 for (AssetMap.Asset packingListAsset : assetMap.getPackingListAssets()) {
-                    IMFErrorLogger packingListErrorLogger = new IMFErrorLoggerImpl();
+                    if (errorSink.isTerminated()) {
+                        break;
+                    }
+                    IMFErrorLogger packingListErrorLogger = new IMFErrorLoggerImpl(errorSink);
                     try {
 
                         Path pkl = rootPath.resolve(packingListAsset.getPath().toString());
@@ -103,7 +159,10 @@ public class IMPAnalyzer {
                             continue;
                         }
 
-                        PackingList packingList = new PackingList(pkl);
+                        PackingList packingList;
+                        try (ValidationMetrics.Timer timer = validationMetrics.start("PackingList parsing")) {
+                            packingList = new PackingList(pkl);
+                        }
                         if (!packingList.getUUID().equals(packingListAsset.getUUID())) {
                             assetMapErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_AM_ERROR,
                                     IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
@@ -117,6 +176,10 @@ public class IMPAnalyzer {
 
                         for (PackingList.Asset asset : packingList.getAssets()) {
 
+                            if (errorSink.isTerminated()) {
+                                break;
+                            }
+
                             // used for below check to issue warning if no assets of type XML are present at all; counting
                             // files before actually resolving path to avoid misleading WARNING due to missing uuid/file
                             if (asset.getType().equals(PackingList.Asset.TEXT_XML_TYPE)) {
@@ -138,15 +201,15 @@ public class IMPAnalyzer {
                                 continue;
                             }
 
-                            ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(assetPath);
-                            IMFErrorLogger assetErrorLogger = new IMFErrorLoggerImpl();
+                            ResourceByteRangeProvider resourceByteRangeProvider = getResourceByteRangeProvider(assetPath, assetMap.getPath(asset.getUUID()).toString(), byteRangeMetrics);
+                            IMFErrorLogger assetErrorLogger = new IMFErrorLoggerImpl(errorSink);
                             String filename = Utilities.getFilenameFromPath(assetPath);
 
                             if (asset.getType().equals(PackingList.Asset.APPLICATION_MXF_TYPE)) {
                                 //
                                 // MXF Track File
                                 //
-                                try {
+                                try (ValidationMetrics.Timer timer = validationMetrics.start("MXF partition extraction")) {
                                     PayloadRecord headerPartitionPayloadRecord = MXFUtils.getHeaderPartitionPayloadRecord(resourceByteRangeProvider, assetErrorLogger);
                                     if (headerPartitionPayloadRecord == null) {
                                         assetErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMP_VALIDATOR_PAYLOAD_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
@@ -193,7 +256,10 @@ public class IMPAnalyzer {
                                     // Composition Playlist
                                     try {
                                         // instantiate IMFCompositionPlaylist
-                                        IMFCompositionPlaylist imfCompositionPlaylist = new IMFCompositionPlaylist(resourceByteRangeProvider);
+                                        IMFCompositionPlaylist imfCompositionPlaylist;
+                                        try (ValidationMetrics.Timer timer = validationMetrics.start("CPL parsing")) {
+                                            imfCompositionPlaylist = new IMFCompositionPlaylist(resourceByteRangeProvider);
+                                        }
                                         assetErrorLogger.addAllErrors(imfCompositionPlaylist.getErrors());
                                         if (assetErrorLogger.hasFatalErrors()) {
                                             continue;
@@ -225,6 +291,9 @@ public class IMPAnalyzer {
 
                         // identify sequence namespace for each individual track file entry and validate essence partitions
                         for (UUID key : trackFileMap.keySet()) {
+                            if (errorSink.isTerminated()) {
+                                break;
+                            }
                             TrackFilePartitionsRecord trackFileEntry = trackFileMap.get(key);
                             String sequenceNamespace = null;
 
@@ -242,7 +311,7 @@ public class IMPAnalyzer {
                             essencePartitions.addAll(trackFileEntry.indexPartitions);
 
                             // avoid overwriting
-                            aggregateErrors.addAll(IMPValidator.validateEssencePartitions(essencePartitions, sequenceNamespace));
+                            aggregateErrors.addAll(IMPValidator.validateEssencePartitions(essencePartitions, sequenceNamespace, errorSink, validationMetrics));
                             if (errorMap.get(trackFileEntry.filename) != null)
                                 aggregateErrors.addAll(errorMap.get(trackFileEntry.filename));
                             errorMap.put(trackFileEntry.filename, aggregateErrors);
@@ -250,7 +319,10 @@ public class IMPAnalyzer {
 
                         // validate virtual track compliance for each IMFCompositionPlaylist with the header partition payloads collected from MXF Track Files
                         for (String filename : imfCompositionPlaylistMap.keySet()) {
-                            IMFErrorLogger compositionErrorLogger = new IMFErrorLoggerImpl();
+                            if (errorSink.isTerminated()) {
+                                break;
+                            }
+                            IMFErrorLogger compositionErrorLogger = new IMFErrorLoggerImpl(errorSink);
 
                             IMFCompositionPlaylist imfCompositionPlaylist = imfCompositionPlaylistMap.get(filename);
 
@@ -262,7 +334,7 @@ public class IMPAnalyzer {
                                 });
 
                                 // validate IMFCompositionPlaylist
-                                compositionErrorLogger.addAllErrors(IMPValidator.validateComposition(imfCompositionPlaylist, payloadRecords));
+                                compositionErrorLogger.addAllErrors(IMPValidator.validateComposition(imfCompositionPlaylist, payloadRecords, errorSink, validationMetrics));
                             } catch (IMFException e) {
                                 compositionErrorLogger.addAllErrors(e.getErrors());
                             } finally {
@@ -275,7 +347,11 @@ public class IMPAnalyzer {
                         }
 
                         // lastly, validate OPLs
-                        analyzeOutputProfileLists( rootPath, assetMap, packingList, imfCompositionPlaylistMap.values().stream().collect(Collectors.toUnmodifiableList()), packingListErrorLogger, errorMap);
+                        if (!errorSink.isTerminated()) {
+                            try (ValidationMetrics.Timer timer = validationMetrics.start("OPL analysis")) {
+                                analyzeOutputProfileLists( rootPath, assetMap, packingList, imfCompositionPlaylistMap.values().stream().collect(Collectors.toUnmodifiableList()), packingListErrorLogger, errorMap, errorSink, byteRangeMetrics);
+                            }
+                        }
 
                     } catch (IMFException e) {
                         packingListErrorLogger.addAllErrors(e.getErrors());
@@ -295,6 +371,15 @@ public class IMPAnalyzer {
             errorMap.put(rootPath.toString(), imfErrorLogger.getErrors());
         }
 
+        if (errorSink.isTerminated()) {
+            IMFErrorLogger terminationErrorLogger = new IMFErrorLoggerImpl();
+            terminationErrorLogger.addAllErrors(imfErrorLogger.getErrors());
+            terminationErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_MASTER_PACKAGE_ERROR,
+                    IMFErrorLogger.IMFErrors.ErrorLevels.WARNING,
+                    "Analysis was terminated early by the error sink, remaining checks were skipped.");
+            errorMap.put(rootPath.toString(), terminationErrorLogger.getErrors());
+        }
+
         return errorMap;
     }
 
@@ -303,11 +388,16 @@ public class IMPAnalyzer {
                                                                     PackingList packingList,
                                                                     List<IMFCompositionPlaylist> IMFCompositionPlaylistList,
                                                                     IMFErrorLogger packingListErrorLogger,
-                                                                    Map<String, List<ErrorLogger.ErrorObject>> errorMap) throws IOException {
+                                                                    Map<String, List<ErrorLogger.ErrorObject>> errorMap,
+                                                                    ErrorSink errorSink,
+                                                                    ByteRangeMetrics byteRangeMetrics) throws IOException {
 
         List<OutputProfileList> outputProfileListTypeList = new ArrayList<>();
 
         for (PackingList.Asset asset : packingList.getAssets()) {
+            if (errorSink.isTerminated()) {
+                break;
+            }
             if (asset.getType().equals(PackingList.Asset.TEXT_XML_TYPE)) {
                 URI path = assetMap.getPath(asset.getUUID());
                 if (path == null) {
@@ -329,9 +419,9 @@ public class IMPAnalyzer {
                     continue;
                 }
 
-                ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(assetPath);
+                ResourceByteRangeProvider resourceByteRangeProvider = getResourceByteRangeProvider(assetPath, assetMap.getPath(asset.getUUID()).toString(), byteRangeMetrics);
                 if (OutputProfileList.isOutputProfileList(resourceByteRangeProvider)) {
-                    IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+                    IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl(errorSink);
                     try {
                         OutputProfileList outputProfileListType = OutputProfileList.getOutputProfileListType(resourceByteRangeProvider, imfErrorLogger);
                         if (outputProfileListType == null) {
@@ -374,7 +464,29 @@ public class IMPAnalyzer {
 
 
     public static List<ErrorLogger.ErrorObject> analyzeFile(Path input, String namespace) throws IOException {
-        IMFErrorLogger errorLogger = new IMFErrorLoggerImpl();
+        return analyzeFile(input, namespace, ErrorSink.NONE);
+    }
+
+
+    public static List<ErrorLogger.ErrorObject> analyzeFile(Path input, String namespace, ErrorSink errorSink) throws IOException {
+        return analyzeFile(input, namespace, errorSink, ByteRangeMetrics.NONE);
+    }
+
+
+    public static List<ErrorLogger.ErrorObject> analyzeFile(Path input, String namespace, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics) throws IOException {
+        return analyzeFile(input, namespace, errorSink, byteRangeMetrics, ValidationMetrics.NONE);
+    }
+
+
+    public static List<ErrorLogger.ErrorObject> analyzeFile(Path input, String namespace, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics, ValidationMetrics validationMetrics) throws IOException {
+        try (ValidationMetrics.Timer timer = validationMetrics.start("File analysis")) {
+            return analyzeFilePhases(input, namespace, errorSink, byteRangeMetrics, validationMetrics);
+        }
+    }
+
+
+    private static List<ErrorLogger.ErrorObject> analyzeFilePhases(Path input, String namespace, ErrorSink errorSink, ByteRangeMetrics byteRangeMetrics, ValidationMetrics validationMetrics) throws IOException {
+        IMFErrorLogger errorLogger = new IMFErrorLoggerImpl(errorSink);
 
         if (!Files.isRegularFile(input)) {
             errorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMP_VALIDATOR_PAYLOAD_ERROR,
@@ -383,7 +495,7 @@ public class IMPAnalyzer {
             return errorLogger.getErrors();
         }
 
-        ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(input);
+        ResourceByteRangeProvider resourceByteRangeProvider = getResourceByteRangeProvider(input, Utilities.getFilenameFromPath(input), byteRangeMetrics);
 
         String fileName = Utilities.getFilenameFromPath(input);
         if(fileName.lastIndexOf('.') > 0) {
@@ -392,17 +504,20 @@ public class IMPAnalyzer {
 
                 // input file is an MXF file
 
-                // retrieve header partition payload
+                // retrieve header partition payload and index table partitions
                 // todo: evaluate partitions to ensure reading the complete/final header metadata
-                PayloadRecord headerPartitionPayload = MXFUtils.getHeaderPartitionPayloadRecord(resourceByteRangeProvider, errorLogger);
+                PayloadRecord headerPartitionPayload;
+                List<PayloadRecord> indexSegmentPayloadRecords;
+                try (ValidationMetrics.Timer timer = validationMetrics.start("MXF partition extraction")) {
+                    headerPartitionPayload = MXFUtils.getHeaderPartitionPayloadRecord(resourceByteRangeProvider, errorLogger);
+                    indexSegmentPayloadRecords = (headerPartitionPayload == null) ? null : MXFUtils.getIndexTablePartitionPayloadRecords(resourceByteRangeProvider, errorLogger);
+                }
                 if (headerPartitionPayload == null) {
                     errorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMP_VALIDATOR_PAYLOAD_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
                             String.format("Failed to retrieve header partition"));
                     return errorLogger.getErrors();
                 }
 
-                // retrieve index table partitions
-                List<PayloadRecord> indexSegmentPayloadRecords = MXFUtils.getIndexTablePartitionPayloadRecords(resourceByteRangeProvider, errorLogger);
                 if (indexSegmentPayloadRecords.isEmpty()) {
                     errorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMP_VALIDATOR_PAYLOAD_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
                             String.format("Failed to retrieve index partitions"));
@@ -417,7 +532,7 @@ public class IMPAnalyzer {
                 // todo: could guestimate namespace based on essence type, if none is provided
 
                 // validate essence partitions
-                errorLogger.addAllErrors(IMPValidator.validateEssencePartitions(essencePartitions, namespace));
+                errorLogger.addAllErrors(IMPValidator.validateEssencePartitions(essencePartitions, namespace, errorSink, validationMetrics));
 
                 return errorLogger.getErrors();
             }
@@ -453,14 +568,33 @@ public class IMPAnalyzer {
     }
 
 
+    /**
+     * The resource of the requests reported to the ByteRangeMetrics is the path of the file relative to the root of the
+     * delivery, so that a trace of a delivery can be replayed against a copy of the delivery
+     */
+    private static ResourceByteRangeProvider getResourceByteRangeProvider(Path path, String resource, ByteRangeMetrics byteRangeMetrics) throws IOException {
+        ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(path);
+        if (byteRangeMetrics == ByteRangeMetrics.NONE) {
+            return resourceByteRangeProvider;
+        }
+        return new InstrumentedByteRangeProvider(resourceByteRangeProvider, byteRangeMetrics, resource);
+    }
+
+
     private static String usage() {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("Usage:%n"));
-        sb.append(String.format("%s <package_directory>%n", IMPAnalyzer.class.getName()));
-        sb.append(String.format("%s <cpl_file>%n", IMPAnalyzer.class.getName()));
-        sb.append(String.format("%s <asset_map_file>%n", IMPAnalyzer.class.getName()));
-        sb.append(String.format("%s <pkl_file>%n", IMPAnalyzer.class.getName()));
-        sb.append(String.format("%s <mxf_file>%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("%s [options] <package_directory>%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("%s [options] <cpl_file>%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("%s [options] <asset_map_file>%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("%s [options] <pkl_file>%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("%s [options] <mxf_file> [<sequence_namespace>]%n", IMPAnalyzer.class.getName()));
+        sb.append(String.format("Options:%n"));
+        sb.append(String.format("  --fail-fast        stop at the first FATAL error%n"));
+        sb.append(String.format("  --max-errors=<n>   stop after <n> errors or warnings%n"));
+        sb.append(String.format("  --io-stats         log a summary of the byte range requests made%n"));
+        sb.append(String.format("  --io-trace=<file>  write a replayable trace of the byte range requests made to <file>%n"));
+        sb.append(String.format("  --metrics          log the time spent and memory allocated in each analysis phase and validator%n"));
         return sb.toString();
     }
 
@@ -495,21 +629,74 @@ public class IMPAnalyzer {
 
     public static void main(String args[]) throws IOException
     {
-        if (args.length < 1 || args.length > 2)
+        ErrorSink errorSink = ErrorSink.NONE;
+        boolean ioStats = false;
+        boolean phaseMetrics = false;
+        String ioTraceFileName = null;
+        List<String> arguments = new ArrayList<>();
+        try
+        {
+            for (String arg : args)
+            {
+                if (arg.equals("--fail-fast"))
+                {
+                    errorSink = ErrorBudget.failFast();
+                }
+                else if (arg.startsWith("--max-errors="))
+                {
+                    errorSink = ErrorBudget.maxErrors(Integer.parseInt(arg.substring("--max-errors=".length())));
+                }
+                else if (arg.equals("--io-stats"))
+                {
+                    ioStats = true;
+                }
+                else if (arg.startsWith("--io-trace="))
+                {
+                    ioTraceFileName = arg.substring("--io-trace=".length());
+                }
+                else if (arg.equals("--metrics"))
+                {
+                    phaseMetrics = true;
+                }
+                else if (arg.startsWith("--"))
+                {
+                    throw new IllegalArgumentException(String.format("Unknown option %s", arg));
+                }
+                else
+                {
+                    arguments.add(arg);
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.error(e.getMessage());
+            arguments.clear();
+        }
+
+        if (arguments.size() < 1 || arguments.size() > 2)
         {
             logger.error(usage());
             System.exit(-1);
         }
 
-        String inputFileName = args[0];
+        String inputFileName = arguments.get(0);
         Path input = Utilities.getPathFromString(inputFileName);
 
+        ByteRangeStatistics byteRangeStatistics = null;
+        ByteRangeMetrics byteRangeMetrics = ByteRangeMetrics.NONE;
+        if (ioStats || ioTraceFileName != null) {
+            byteRangeStatistics = new ByteRangeStatistics(ioTraceFileName != null);
+            byteRangeMetrics = byteRangeStatistics;
+        }
+        ValidationMetrics validationMetrics = phaseMetrics ? new ValidationMetrics() : ValidationMetrics.NONE;
+
         if (Files.isDirectory(input)) {
             logger.info("==========================================================================" );
             logger.info(String.format("Analyzing IMF delivery: %s", inputFileName));
             logger.info("==========================================================================");
 
-            Map<String, List<ErrorLogger.ErrorObject>> errorMap = analyzeDelivery(input);
+            Map<String, List<ErrorLogger.ErrorObject>> errorMap = analyzeDelivery(input, errorSink, byteRangeMetrics, validationMetrics);
             for(Map.Entry<String, List<ErrorLogger.ErrorObject>> entry: errorMap.entrySet()) {
                 logErrors(entry.getKey(), entry.getValue());
             }
@@ -518,15 +705,30 @@ public class IMPAnalyzer {
         {
             Path filename = input.getFileName();
             String namespace = null;
-            if (args.length == 2)
-                namespace = args[1];
+            if (arguments.size() == 2)
+                namespace = arguments.get(1);
             if (filename != null) {
                 logger.info("==========================================================================\n" );
                 logger.info(String.format("Analyzing file: %s", filename.toString()));
                 logger.info("==========================================================================\n");
-                List<ErrorLogger.ErrorObject>errors = analyzeFile(input, namespace);
+                List<ErrorLogger.ErrorObject>errors = analyzeFile(input, namespace, errorSink, byteRangeMetrics, validationMetrics);
                 logErrors(filename.toString(), errors);
             }
         }
+
+        for (String line : validationMetrics.getSummary()) {
+            logger.info(String.format("Phase %s", line));
+        }
+
+        if (byteRangeStatistics != null) {
+            logger.info(String.format("I/O: %s", byteRangeStatistics.getSummary()));
+            if (ioTraceFileName != null) {
+                Path ioTracePath = Utilities.getPathFromString(ioTraceFileName);
+                try (Writer writer = Files.newBufferedWriter(ioTracePath, StandardCharsets.UTF_8)) {
+                    byteRangeStatistics.writeTrace(writer);
+                }
+                logger.info(String.format("I/O trace written to %s", ioTracePath));
+            }
+        }
     }
 }
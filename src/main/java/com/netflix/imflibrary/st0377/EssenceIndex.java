@@ -0,0 +1,538 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st0377;
+
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ByteProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A map from the edit units of the essence container of a track file to the byte ranges of the file that contain
+ * them, built from the RandomIndexPack, the PartitionPacks and the IndexTable segments of the file as defined in
+ * st377-1:2011, without reading any essence. The essence stream positions of the IndexTable are translated into file
+ * offsets using the BodyOffset of every partition that contains essence, so that an edit unit can be read with a
+ * single range request regardless of how the essence container is split across partitions.
+ */
+@Immutable
+public final class EssenceIndex
+{
+    private static final int RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE = 4;
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+
+    private final long bodySID;
+    private final long indexSID;
+    private final CompoundDataTypes.Rational indexEditRate;
+    private final long editUnitByteCount;
+    private final long editUnitCount;
+    private final long[] streamOffsets;
+    private final List<EssenceSegment> essenceSegments;
+
+    private EssenceIndex(long bodySID, long indexSID, @Nullable CompoundDataTypes.Rational indexEditRate, long editUnitByteCount,
+                         long editUnitCount, @Nullable long[] streamOffsets, List<EssenceSegment> essenceSegments)
+    {
+        this.bodySID = bodySID;
+        this.indexSID = indexSID;
+        this.indexEditRate = indexEditRate;
+        this.editUnitByteCount = editUnitByteCount;
+        this.editUnitCount = editUnitCount;
+        this.streamOffsets = streamOffsets;
+        this.essenceSegments = Collections.unmodifiableList(essenceSegments);
+    }
+
+    /**
+     * A factory method that builds the EssenceIndex of the first indexed essence container of a track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @return the EssenceIndex of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the file has no RandomIndexPack, no IndexTable or an IndexTable with missing edit units
+     */
+    public static EssenceIndex fromResource(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        long resourceSize = resourceByteRangeProvider.getResourceSize();
+        RandomIndexPack randomIndexPack = readRandomIndexPack(resourceByteRangeProvider);
+        List<Long> partitionByteOffsets = new ArrayList<>(randomIndexPack.getAllPartitionByteOffsets());
+        Collections.sort(partitionByteOffsets);
+        long randomIndexPackOffset = resourceSize - randomIndexPack.getLength();
+
+        List<IndexTableSegment> indexTableSegments = new ArrayList<>();
+        List<EssenceSegment> essenceSegments = new ArrayList<>();
+        for (int i = 0; i < partitionByteOffsets.size(); i++)
+        {
+            long partitionByteOffset = partitionByteOffsets.get(i);
+            long partitionEnd = (i + 1 < partitionByteOffsets.size()) ? partitionByteOffsets.get(i + 1) : randomIndexPackOffset;
+            PartitionPack partitionPack = readPartitionPack(resourceByteRangeProvider, partitionByteOffset);
+
+            long position = partitionByteOffset + partitionPack.getKLVPacketSize() + partitionPack.getHeaderByteCount();
+            if (partitionPack.hasIndexTableSegments())
+            {
+                indexTableSegments.addAll(readIndexTableSegments(resourceByteRangeProvider, position, partitionPack.getIndexByteCount()));
+            }
+            position += partitionPack.getIndexByteCount();
+
+            if (partitionPack.hasEssenceContainer())
+            {
+                position = skipFill(resourceByteRangeProvider, position, partitionEnd);
+                if (position < partitionEnd)
+                {
+                    essenceSegments.add(new EssenceSegment(partitionPack.getBodySID(), partitionPack.getEssenceStreamSegmentStartStreamPosition(),
+                            position, partitionEnd - position));
+                }
+            }
+        }
+
+        if (indexTableSegments.isEmpty())
+        {
+            throw new MXFException("The track file does not contain an IndexTable");
+        }
+        return fromIndexTableSegments(indexTableSegments, essenceSegments);
+    }
+
+    private static EssenceIndex fromIndexTableSegments(List<IndexTableSegment> indexTableSegments, List<EssenceSegment> allEssenceSegments)
+    {
+        IndexTableSegment firstSegment = indexTableSegments.get(0);
+        long bodySID = firstSegment.getBodySID();
+        long indexSID = firstSegment.getIndexSID();
+        long editUnitByteCount = firstSegment.getEditUnitByteCount();
+
+        List<EssenceSegment> essenceSegments = new ArrayList<>();
+        for (EssenceSegment essenceSegment : allEssenceSegments)
+        {
+            if (essenceSegment.bodySID == bodySID)
+            {
+                essenceSegments.add(essenceSegment);
+            }
+        }
+        if (essenceSegments.isEmpty())
+        {
+            throw new MXFException(String.format("The track file does not contain essence for the indexed BodySID %d", bodySID));
+        }
+        Collections.sort(essenceSegments, (a, b) -> Long.compare(a.streamOffset, b.streamOffset));
+
+        long editUnitCount = 0;
+        for (IndexTableSegment indexTableSegment : indexTableSegments)
+        {
+            if (indexTableSegment.getIndexSID() == indexSID)
+            {
+                editUnitCount = Math.max(editUnitCount, indexTableSegment.getIndexStartPosition() + indexTableSegment.getIndexDuration());
+            }
+        }
+
+        long[] streamOffsets = null;
+        if (editUnitByteCount == 0)
+        {
+            if (editUnitCount > Integer.MAX_VALUE)
+            {
+                throw new MXFException(String.format("IndexTable duration %d is outside the supported range 0-0x%x", editUnitCount, Integer.MAX_VALUE));
+            }
+            streamOffsets = new long[(int) editUnitCount];
+            Arrays.fill(streamOffsets, -1L);
+            for (IndexTableSegment indexTableSegment : indexTableSegments)
+            {
+                List<IndexTableSegment.IndexEntryArray.IndexEntry> indexEntries = indexTableSegment.getIndexEntries();
+                if (indexTableSegment.getIndexSID() != indexSID || indexEntries == null)
+                {
+                    continue;
+                }
+                int startPosition = (int) indexTableSegment.getIndexStartPosition();
+                for (int i = 0; i < indexEntries.size() && startPosition + i < streamOffsets.length; i++)
+                {
+                    streamOffsets[startPosition + i] = indexEntries.get(i).getStreamOffset();
+                }
+            }
+            for (int i = 0; i < streamOffsets.length; i++)
+            {
+                if (streamOffsets[i] < 0)
+                {
+                    throw new MXFException(String.format("The IndexTable with IndexSID %d has no entry for edit unit %d", indexSID, i));
+                }
+            }
+        }
+        else if (editUnitCount == 0)
+        {
+            //A constant bytes per element index with an IndexDuration of 0 indexes the complete essence container
+            EssenceSegment lastSegment = essenceSegments.get(essenceSegments.size() - 1);
+            editUnitCount = (lastSegment.streamOffset + lastSegment.length) / editUnitByteCount;
+        }
+
+        return new EssenceIndex(bodySID, indexSID, firstSegment.getIndexEditRate(), editUnitByteCount, editUnitCount, streamOffsets, essenceSegments);
+    }
+
+    /**
+     * Getter for the BodySID of the indexed essence container
+     *
+     * @return the BodySID
+     */
+    public long getBodySID()
+    {
+        return this.bodySID;
+    }
+
+    /**
+     * Getter for the IndexSID of the IndexTable
+     *
+     * @return the IndexSID
+     */
+    public long getIndexSID()
+    {
+        return this.indexSID;
+    }
+
+    /**
+     * Getter for the edit rate of the IndexTable
+     *
+     * @return the index edit rate or null when not present
+     */
+    public @Nullable CompoundDataTypes.Rational getIndexEditRate()
+    {
+        return this.indexEditRate;
+    }
+
+    /**
+     * Getter for the edit unit byte count of a constant bytes per element IndexTable
+     *
+     * @return the edit unit byte count, 0 when the IndexTable has variable bytes per element
+     */
+    public long getEditUnitByteCount()
+    {
+        return this.editUnitByteCount;
+    }
+
+    /**
+     * Getter for the partitions of the indexed essence container, each one starting with the first essence KLV packet
+     * of a partition
+     *
+     * @return a list of essence segments in essence stream order
+     */
+    public List<EssenceSegment> getEssenceSegments()
+    {
+        return this.essenceSegments;
+    }
+
+    /**
+     * Getter for the number of edit units in the IndexTable
+     *
+     * @return the number of edit units
+     */
+    public long getEditUnitCount()
+    {
+        return this.editUnitCount;
+    }
+
+    /**
+     * Getter for the position of an edit unit in the essence stream
+     *
+     * @param editUnit the zero based edit unit
+     * @return the byte offset of the edit unit relative to the start of the essence stream
+     */
+    public long getStreamOffset(long editUnit)
+    {
+        checkEditUnit(editUnit);
+        return (this.streamOffsets != null) ? this.streamOffsets[(int) editUnit] : editUnit * this.editUnitByteCount;
+    }
+
+    /**
+     * Getter for the position of an edit unit in the file
+     *
+     * @param editUnit the zero based edit unit
+     * @return the byte offset of the first byte of the edit unit relative to the start of the file
+     */
+    public long getFileOffset(long editUnit)
+    {
+        long streamOffset = getStreamOffset(editUnit);
+        EssenceSegment essenceSegment = getEssenceSegment(streamOffset);
+        return essenceSegment.fileOffset + (streamOffset - essenceSegment.streamOffset);
+    }
+
+    /**
+     * Getter for the number of bytes of an edit unit, that is the distance to the next edit unit or to the end of the
+     * partition that contains the edit unit, whichever comes first. The size of the last edit unit of a partition may
+     * include trailing KLV fill.
+     *
+     * @param editUnit the zero based edit unit
+     * @return the size of the edit unit in bytes
+     */
+    public long getEditUnitSize(long editUnit)
+    {
+        long streamOffset = getStreamOffset(editUnit);
+        EssenceSegment essenceSegment = getEssenceSegment(streamOffset);
+        long end = essenceSegment.streamOffset + essenceSegment.length;
+        if (editUnit + 1 < this.editUnitCount)
+        {
+            end = Math.min(end, getStreamOffset(editUnit + 1));
+        }
+        return end - streamOffset;
+    }
+
+    /**
+     * A method that splits the edit units of the IndexTable into contiguous ranges that never span more than one
+     * partition and never hold more than the specified number of edit units, for instance to distribute the work of
+     * reading the essence across threads
+     *
+     * @param maxEditUnitsPerRange the maximum number of edit units in a range
+     * @return a list of edit unit ranges in edit unit order
+     */
+    public List<EditUnitRange> getEditUnitRanges(long maxEditUnitsPerRange)
+    {
+        if (maxEditUnitsPerRange <= 0)
+        {
+            throw new IllegalArgumentException(String.format("maxEditUnitsPerRange = %d is not > 0", maxEditUnitsPerRange));
+        }
+        List<EditUnitRange> editUnitRanges = new ArrayList<>();
+        long first = 0;
+        while (first < this.editUnitCount)
+        {
+            EssenceSegment essenceSegment = getEssenceSegment(getStreamOffset(first));
+            long last = first;
+            while (last + 1 < this.editUnitCount
+                    && last + 1 - first < maxEditUnitsPerRange
+                    && getStreamOffset(last + 1) < essenceSegment.streamOffset + essenceSegment.length)
+            {
+                last++;
+            }
+            editUnitRanges.add(new EditUnitRange(first, last - first + 1));
+            first = last + 1;
+        }
+        return Collections.unmodifiableList(editUnitRanges);
+    }
+
+    private void checkEditUnit(long editUnit)
+    {
+        if (editUnit < 0 || editUnit >= this.editUnitCount)
+        {
+            throw new IllegalArgumentException(String.format("Edit unit %d is outside the range 0-%d of the IndexTable", editUnit, this.editUnitCount - 1));
+        }
+    }
+
+    private EssenceSegment getEssenceSegment(long streamOffset)
+    {
+        int low = 0;
+        int high = this.essenceSegments.size() - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            EssenceSegment essenceSegment = this.essenceSegments.get(mid);
+            if (streamOffset < essenceSegment.streamOffset)
+            {
+                high = mid - 1;
+            }
+            else if (streamOffset >= essenceSegment.streamOffset + essenceSegment.length)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                return essenceSegment;
+            }
+        }
+        throw new MXFException(String.format("Essence stream offset %d of BodySID %d is not contained in any partition", streamOffset, this.bodySID));
+    }
+
+    static RandomIndexPack readRandomIndexPack(ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        long resourceSize = resourceByteRangeProvider.getResourceSize();
+        if (resourceSize < RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE)
+        {
+            throw new MXFException(String.format("Resource size %d is too small to contain a RandomIndexPack", resourceSize));
+        }
+        byte[] lengthBytes = resourceByteRangeProvider.getByteRangeAsBytes(resourceSize - RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE, resourceSize - 1);
+        long randomIndexPackSize = ByteBuffer.wrap(lengthBytes).order(KLVPacket.BYTE_ORDER).getInt() & 0xffffffffL;
+        if (randomIndexPackSize > resourceSize || randomIndexPackSize < KLVPacket.KEY_FIELD_SIZE)
+        {
+            throw new MXFException(String.format("RandomIndexPack size %d is inconsistent with the resource size %d", randomIndexPackSize, resourceSize));
+        }
+        byte[] randomIndexPackBytes = resourceByteRangeProvider.getByteRangeAsBytes(resourceSize - randomIndexPackSize, resourceSize - 1);
+        return new RandomIndexPack(new ByteArrayDataProvider(randomIndexPackBytes), resourceSize - randomIndexPackSize, randomIndexPackSize);
+    }
+
+    static PartitionPack readPartitionPack(ResourceByteRangeProvider resourceByteRangeProvider, long partitionByteOffset) throws IOException
+    {
+        KLVPacket.Header header = readHeader(resourceByteRangeProvider, partitionByteOffset);
+        byte[] partitionPackBytes = resourceByteRangeProvider.getByteRangeAsBytes(partitionByteOffset,
+                partitionByteOffset + header.getKLSize() + header.getVSize() - 1);
+        return new PartitionPack(new ByteArrayDataProvider(partitionPackBytes), partitionByteOffset, false);
+    }
+
+    private static List<IndexTableSegment> readIndexTableSegments(ResourceByteRangeProvider resourceByteRangeProvider, long byteOffset, long indexByteCount)
+            throws IOException
+    {
+        List<IndexTableSegment> indexTableSegments = new ArrayList<>();
+        if (indexByteCount == 0)
+        {
+            return indexTableSegments;
+        }
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(byteOffset, byteOffset + indexByteCount - 1);
+        ByteProvider byteProvider = new ByteArrayDataProvider(bytes);
+        long numBytesRead = 0;
+        while (numBytesRead < indexByteCount)
+        {
+            KLVPacket.Header header = new KLVPacket.Header(byteProvider, byteOffset + numBytesRead);
+            if (IndexTableSegment.isValidKey(header.getKey()))
+            {
+                indexTableSegments.add(new IndexTableSegment(byteProvider, header));
+            }
+            else
+            {
+                byteProvider.skipBytes(header.getVSize());
+            }
+            numBytesRead += header.getKLSize() + header.getVSize();
+        }
+        return indexTableSegments;
+    }
+
+    static long skipFill(ResourceByteRangeProvider resourceByteRangeProvider, long byteOffset, long end) throws IOException
+    {
+        long position = byteOffset;
+        while (position < end)
+        {
+            KLVPacket.Header header = readHeader(resourceByteRangeProvider, position);
+            if (!KLVPacket.isKLVFillItem(header.getKey()))
+            {
+                break;
+            }
+            position += header.getKLSize() + header.getVSize();
+        }
+        return position;
+    }
+
+    static KLVPacket.Header readHeader(ResourceByteRangeProvider resourceByteRangeProvider, long byteOffset) throws IOException
+    {
+        long rangeEnd = Math.min(byteOffset + MAX_KLV_HEADER_SIZE, resourceByteRangeProvider.getResourceSize()) - 1;
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(byteOffset, rangeEnd);
+        return new KLVPacket.Header(new ByteArrayDataProvider(bytes), byteOffset);
+    }
+
+    /**
+     * A contiguous range of edit units of an EssenceIndex
+     */
+    @Immutable
+    public static final class EditUnitRange
+    {
+        private final long firstEditUnit;
+        private final long editUnitCount;
+
+        private EditUnitRange(long firstEditUnit, long editUnitCount)
+        {
+            this.firstEditUnit = firstEditUnit;
+            this.editUnitCount = editUnitCount;
+        }
+
+        /**
+         * Getter for the first edit unit of the range
+         *
+         * @return the zero based first edit unit
+         */
+        public long getFirstEditUnit()
+        {
+            return this.firstEditUnit;
+        }
+
+        /**
+         * Getter for the number of edit units in the range
+         *
+         * @return the number of edit units
+         */
+        public long getEditUnitCount()
+        {
+            return this.editUnitCount;
+        }
+
+        /**
+         * A method that returns a string representation of an EditUnitRange object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("[%d, %d)", this.firstEditUnit, this.firstEditUnit + this.editUnitCount);
+        }
+    }
+
+    /**
+     * The part of an essence container that is held by a single partition
+     */
+    @Immutable
+    public static final class EssenceSegment
+    {
+        private final long bodySID;
+        private final long streamOffset;
+        private final long fileOffset;
+        private final long length;
+
+        private EssenceSegment(long bodySID, long streamOffset, long fileOffset, long length)
+        {
+            this.bodySID = bodySID;
+            this.streamOffset = streamOffset;
+            this.fileOffset = fileOffset;
+            this.length = length;
+        }
+
+        /**
+         * Getter for the BodySID of the essence container
+         *
+         * @return the BodySID
+         */
+        public long getBodySID()
+        {
+            return this.bodySID;
+        }
+
+        /**
+         * Getter for the position of the segment in the essence stream, that is the BodyOffset of its partition
+         *
+         * @return the byte offset of the segment relative to the start of the essence stream
+         */
+        public long getStreamOffset()
+        {
+            return this.streamOffset;
+        }
+
+        /**
+         * Getter for the position of the segment in the file
+         *
+         * @return the byte offset of the first essence byte of the segment relative to the start of the file
+         */
+        public long getFileOffset()
+        {
+            return this.fileOffset;
+        }
+
+        /**
+         * Getter for the size of the segment, which extends to the next partition and may include trailing KLV fill
+         *
+         * @return the size of the segment in bytes
+         */
+        public long getLength()
+        {
+            return this.length;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st0377;
+
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.utils.ResourceByteRangeChannel;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A reader for the streams of a track file that are identified by a BodySID, in particular the generic streams carried
+ * in Generic Stream Partitions as defined in st410:2008 (e.g. the ancillary resources of timed text track files as
+ * defined in st429-5:2009). The partitions of a stream are located with the RandomIndexPack of the file, so that only
+ * the partition packs and the KLV keys of the requested stream are read; the values of the KLV packets are never read
+ * by this class, they can be streamed with {@link #openElement(StreamElement)}.
+ */
+@Immutable
+public final class GenericStreamReader
+{
+    private final ResourceByteRangeProvider resourceByteRangeProvider;
+    private final RandomIndexPack randomIndexPack;
+    private final List<Long> partitionByteOffsets;
+    private final long randomIndexPackOffset;
+
+    private GenericStreamReader(ResourceByteRangeProvider resourceByteRangeProvider, RandomIndexPack randomIndexPack)
+    {
+        this.resourceByteRangeProvider = resourceByteRangeProvider;
+        this.randomIndexPack = randomIndexPack;
+        List<Long> partitionByteOffsets = new ArrayList<>(randomIndexPack.getAllPartitionByteOffsets());
+        Collections.sort(partitionByteOffsets);
+        this.partitionByteOffsets = Collections.unmodifiableList(partitionByteOffsets);
+        this.randomIndexPackOffset = resourceByteRangeProvider.getResourceSize() - randomIndexPack.getLength();
+    }
+
+    /**
+     * A factory method that reads the RandomIndexPack of a track file
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @return a GenericStreamReader for the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the file has no valid RandomIndexPack
+     */
+    public static GenericStreamReader fromResource(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider) throws IOException
+    {
+        return new GenericStreamReader(resourceByteRangeProvider, EssenceIndex.readRandomIndexPack(resourceByteRangeProvider));
+    }
+
+    /**
+     * Getter for the BodySIDs of the streams of the track file
+     *
+     * @return the non-zero BodySIDs referenced by the RandomIndexPack, in the order of their first partition
+     */
+    public Set<Long> getBodySIDs()
+    {
+        Set<Long> bodySIDs = new LinkedHashSet<>(this.randomIndexPack.getBodySIDs());
+        bodySIDs.remove(0L);
+        return Collections.unmodifiableSet(bodySIDs);
+    }
+
+    /**
+     * A method that returns the data elements of a generic stream, that is the KLV packets held by the Generic Stream
+     * Partitions of the stream, KLV fill excluded
+     *
+     * @param bodySID the BodySID of the generic stream
+     * @return the data elements in file order
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the RandomIndexPack references no partition for the BodySID, or a partition of the
+     * BodySID is not a Generic Stream Partition
+     */
+    public List<StreamElement> getDataElements(long bodySID) throws IOException
+    {
+        return readElements(bodySID, true);
+    }
+
+    /**
+     * A method that returns the essence elements of an essence container, that is the KLV packets held by the essence
+     * container partitions of the stream, KLV fill excluded. The keys of every essence element are read with a
+     * separate byte range request, which suits clip-wrapped essence containers; the edit units of frame-wrapped
+     * essence containers are better located with an {@link EssenceIndex}.
+     *
+     * @param bodySID the BodySID of the essence container
+     * @return the essence elements in file order
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the RandomIndexPack references no partition for the BodySID, or a partition of the
+     * BodySID is a Generic Stream Partition
+     */
+    public List<StreamElement> getEssenceElements(long bodySID) throws IOException
+    {
+        return readElements(bodySID, false);
+    }
+
+    /**
+     * A method that opens a read-only channel over the value of a stream element, which is streamed with byte range
+     * requests of bounded size
+     *
+     * @param streamElement a stream element of this track file
+     * @return a channel whose position 0 is the first byte of the value of the element
+     * @throws MXFException - if the element is empty
+     */
+    public SeekableByteChannel openElement(@Nonnull StreamElement streamElement)
+    {
+        if (streamElement.getLength() == 0)
+        {
+            throw new MXFException(String.format("The stream element at offset %d of BodySID %d is empty", streamElement.getFileOffset(),
+                    streamElement.getBodySID()));
+        }
+        return new ResourceByteRangeChannel(this.resourceByteRangeProvider, streamElement.getFileOffset(),
+                streamElement.getFileOffset() + streamElement.getLength() - 1);
+    }
+
+    private List<StreamElement> readElements(long bodySID, boolean genericStream) throws IOException
+    {
+        List<Long> streamPartitionByteOffsets = this.randomIndexPack.getPartitionByteOffsets(bodySID);
+        if (bodySID == 0 || streamPartitionByteOffsets.isEmpty())
+        {
+            throw new MXFException(String.format("The RandomIndexPack does not reference any partition with BodySID %d", bodySID));
+        }
+
+        List<StreamElement> streamElements = new ArrayList<>();
+        for (long partitionByteOffset : streamPartitionByteOffsets)
+        {
+            PartitionPack partitionPack = EssenceIndex.readPartitionPack(this.resourceByteRangeProvider, partitionByteOffset);
+            if (partitionPack.isGenericStreamPartition() != genericStream)
+            {
+                throw new MXFException(String.format("The partition at offset %d with BodySID %d is %s a Generic Stream Partition",
+                        partitionByteOffset, bodySID, genericStream ? "not" : "unexpectedly"));
+            }
+
+            long partitionEnd = nextPartitionByteOffset(partitionByteOffset);
+            long position = partitionByteOffset + partitionPack.getKLVPacketSize() + partitionPack.getHeaderByteCount() + partitionPack.getIndexByteCount();
+            while (position < partitionEnd)
+            {
+                KLVPacket.Header header = EssenceIndex.readHeader(this.resourceByteRangeProvider, position);
+                long valueOffset = position + header.getKLSize();
+                if (valueOffset + header.getVSize() > partitionEnd)
+                {
+                    throw new MXFException(String.format("The KLV packet at offset %d of BodySID %d extends beyond its partition, which ends at offset %d",
+                            position, bodySID, partitionEnd));
+                }
+                if (!KLVPacket.isKLVFillItem(header.getKey()))
+                {
+                    streamElements.add(new StreamElement(bodySID, header.getKey(), valueOffset, header.getVSize()));
+                }
+                position = valueOffset + header.getVSize();
+            }
+        }
+        return Collections.unmodifiableList(streamElements);
+    }
+
+    private long nextPartitionByteOffset(long partitionByteOffset)
+    {
+        int index = Collections.binarySearch(this.partitionByteOffsets, partitionByteOffset);
+        return (index + 1 < this.partitionByteOffsets.size()) ? this.partitionByteOffsets.get(index + 1) : this.randomIndexPackOffset;
+    }
+
+    /**
+     * A KLV packet of a stream, located by the position and the size of its value in the file
+     */
+    @Immutable
+    public static final class StreamElement
+    {
+        private final long bodySID;
+        private final byte[] key;
+        private final long fileOffset;
+        private final long length;
+
+        private StreamElement(long bodySID, byte[] key, long fileOffset, long length)
+        {
+            this.bodySID = bodySID;
+            this.key = Arrays.copyOf(key, key.length);
+            this.fileOffset = fileOffset;
+            this.length = length;
+        }
+
+        /**
+         * Getter for the BodySID of the stream that holds the element
+         *
+         * @return the BodySID
+         */
+        public long getBodySID()
+        {
+            return this.bodySID;
+        }
+
+        /**
+         * Getter for the key of the element
+         *
+         * @return a copy of the 16 byte key
+         */
+        public byte[] getKey()
+        {
+            return Arrays.copyOf(this.key, this.key.length);
+        }
+
+        /**
+         * Checks if the key of the element is the Generic Stream Partition data element key of st410:2008
+         *
+         * @return the boolean
+         */
+        public boolean isGenericStreamDataElement()
+        {
+            return KLVPacket.isGenericStreamPartitionDataElementKey(this.key);
+        }
+
+        /**
+         * Getter for the position of the value of the element in the file
+         *
+         * @return the byte offset of the first value byte relative to the start of the file
+         */
+        public long getFileOffset()
+        {
+            return this.fileOffset;
+        }
+
+        /**
+         * Getter for the size of the value of the element
+         *
+         * @return the size in bytes
+         */
+        public long getLength()
+        {
+            return this.length;
+        }
+
+        /**
+         * A method that returns a string representation of a StreamElement object
+         *
+         * @return string representing the object
+         */
+        public String toString()
+        {
+            return String.format("BodySID = %d, fileOffset = %d, length = %d", this.bodySID, this.fileOffset, this.length);
+        }
+    }
+}
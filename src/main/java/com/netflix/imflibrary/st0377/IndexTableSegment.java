@@ -203,6 +203,56 @@ public final class IndexTableSegment
         return indexEditRate;
     }
 
+    /**
+     * Getter for the position of the first edit unit indexed by this segment
+     *
+     * @return the index start position, 0 when not present
+     */
+    public long getIndexStartPosition()
+    {
+        return (this.index_start_position == null) ? 0L : this.index_start_position;
+    }
+
+    /**
+     * Getter for the number of edit units indexed by this segment
+     *
+     * @return the index duration, 0 when not present
+     */
+    public long getIndexDuration()
+    {
+        return (this.index_duration == null) ? 0L : this.index_duration;
+    }
+
+    /**
+     * Getter for the edit unit byte count of a constant bytes per element index
+     *
+     * @return the edit unit byte count, 0 when the index has variable bytes per element
+     */
+    public long getEditUnitByteCount()
+    {
+        return (this.edit_unit_byte_count == null) ? 0L : this.edit_unit_byte_count;
+    }
+
+    /**
+     * Getter for the IndexSID of this segment
+     *
+     * @return the IndexSID, 0 when not present
+     */
+    public long getIndexSID()
+    {
+        return (this.index_SID == null) ? 0L : this.index_SID;
+    }
+
+    /**
+     * Getter for the BodySID of the essence container indexed by this segment
+     *
+     * @return the BodySID, 0 when not present
+     */
+    public long getBodySID()
+    {
+        return (this.body_SID == null) ? 0L : this.body_SID;
+    }
+
     /**
      * Checks if the key passed in corresponds to a IndexTable segment
      *
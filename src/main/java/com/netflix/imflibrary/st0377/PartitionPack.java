@@ -384,6 +384,51 @@ public final class  PartitionPack
         return this.isBodyPartition() && (this.header.getKey()[14] == PartitionPack.GENERIC_STREAM_PARTITION_PACK_KEY_PARTITION_STATUS);
     }
 
+    /**
+     * Checks if the key passed in corresponds to a header, body or footer PartitionPack
+     *
+     * @param key the key
+     * @return the boolean
+     */
+    public static boolean isValidKey(byte[] key)
+    {
+        for (int i=0; i< KLVPacket.KEY_FIELD_SIZE; i++)
+        {
+            if( (PartitionPack.KEY_MASK[i] != 0) && (PartitionPack.KEY[i] != key[i]) )
+            {
+                return false;
+            }
+        }
+        for (PartitionPackType partitionPackType : PartitionPackType.values())
+        {
+            if (partitionPackType.getPartitionPackTypeKey() == key[13])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the size of the KLV alignment grid of this partition
+     *
+     * @return the KAG size in bytes
+     */
+    public long getKAGSize()
+    {
+        return this.KAG_size;
+    }
+
+    /**
+     * Getter for this partition's footer_partition byte offset.
+     *
+     * @return the footer_partition byte offset, 0 if the footer partition was unknown when the partition was written
+     */
+    public long getFooterPartitionByteOffset()
+    {
+        return this.footer_partition;
+    }
+
     /**
      * Getter for the header byte count that represents the count of bytes used for HeaderMetadata and Primer pack.
      *
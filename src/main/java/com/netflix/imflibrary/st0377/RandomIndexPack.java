@@ -111,6 +111,17 @@ public final class RandomIndexPack
 
     }
 
+    /**
+     * Checks if the key passed in corresponds to a RandomIndexPack
+     *
+     * @param key the key
+     * @return the boolean
+     */
+    public static boolean isValidKey(byte[] key)
+    {
+        return Arrays.equals(key, RandomIndexPack.KEY);
+    }
+
     /**
      * Gets all the partition byte offsets in the MXF file
      *
@@ -121,6 +132,30 @@ public final class RandomIndexPack
         return Collections.unmodifiableList(allPartitionByteOffsets);
     }
 
+    /**
+     * Gets the byte offsets of the partitions in the MXF file that carry the stream identified by a BodySID
+     *
+     * @param bodySID the BodySID of the stream
+     * @return the partition byte offsets in the order in which they appear in the RandomIndexPack, empty if no
+     * partition carries the stream
+     */
+    public List<Long> getPartitionByteOffsets(long bodySID)
+    {
+        List<Long> partitions = this.partitionMap.get(bodySID);
+        return (partitions == null) ? Collections.<Long>emptyList() : Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * Getter for the BodySIDs of the streams referenced by the RandomIndexPack
+     *
+     * @return the BodySIDs in the order in which they first appear in the RandomIndexPack, including 0 for partitions
+     * that carry no stream
+     */
+    public Set<Long> getBodySIDs()
+    {
+        return Collections.unmodifiableSet(this.partitionMap.keySet());
+    }
+
     /**
      * Getter for the length of the RandomIndex Pack
      *
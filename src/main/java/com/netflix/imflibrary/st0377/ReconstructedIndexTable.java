@@ -0,0 +1,564 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st0377;
+
+import com.netflix.imflibrary.IABFrameWalker;
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An IndexTable rebuilt from the essence element KLV packets of an essence container, for track files whose IndexTable
+ * segments are missing or incomplete. The partitions of the essence container are located with the RandomIndexPack and
+ * their KLV packets are walked without reading any essence. In a frame-wrapped essence container every essence element
+ * whose key matches the key of the first essence element starts an edit unit; when all edit units are the same size the
+ * IndexTable is built in the compact constant bytes per element form, and otherwise in the variable bytes per element
+ * form. A clip-wrapped essence container holds a single essence element, so its edit units are indexed with a constant
+ * size when the size of an edit unit is known, as is the case for PCM audio, and otherwise located within the essence
+ * element, which is only possible for Immersive Audio Bitstream essence, whose frames are walked with
+ * {@link IABFrameWalker#getFrameOffsets(ResourceByteRangeProvider, long, long)}.
+ *
+ * The IndexTable is encoded as IndexTable segments as defined in st377-1:2011, which can be written to a sidecar file,
+ * read back with {@link #fromInputStream(InputStream)}, or written to the footer partition of the track file. Every
+ * edit unit is flagged as a random access point, which holds for the intra-coded essence of IMF track files.
+ */
+@Immutable
+public final class ReconstructedIndexTable
+{
+    private static final byte[] INDEX_TABLE_SEGMENT_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x02, 0x53, 0x01, 0x01, 0x0d, 0x01, 0x02, 0x01, 0x01, 0x10, 0x01, 0x00};
+    private static final int LENGTH_FIELD_SIZE = 4;
+    private static final int LOCAL_SET_ITEM_HEADER_SIZE = 4;
+    private static final int MAX_LOCAL_SET_ITEM_SIZE = 0xffff;
+    private static final int ARRAY_HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 11;
+    private static final int DELTA_ENTRY_SIZE = 6;
+    //the IndexEntryArray of a segment is a local set item with a 2 byte length
+    private static final int MAX_INDEX_ENTRIES_PER_SEGMENT = (MAX_LOCAL_SET_ITEM_SIZE - ARRAY_HEADER_SIZE) / INDEX_ENTRY_SIZE;
+    private static final byte RANDOM_ACCESS_FLAG = (byte) 0x80;
+    //smpte st 2067-201, the element type of the track number of an IAB essence element
+    private static final int IAB_ELEMENT_TYPE = 0x0d;
+    private static final int ELEMENT_TYPE_OFFSET = 14;
+
+    private final long bodySID;
+    private final long indexSID;
+    private final long editUnitByteCount;
+    private final long editUnitCount;
+    private final long[] streamOffsets;
+    private final byte[] indexTableSegmentBytes;
+    private final List<IndexTableSegment> indexTableSegments;
+
+    private ReconstructedIndexTable(long bodySID, long indexSID, long editUnitByteCount, long editUnitCount, long[] streamOffsets,
+                                    byte[] indexTableSegmentBytes) throws IOException
+    {
+        this.bodySID = bodySID;
+        this.indexSID = indexSID;
+        this.editUnitByteCount = editUnitByteCount;
+        this.editUnitCount = editUnitCount;
+        this.streamOffsets = streamOffsets;
+        this.indexTableSegmentBytes = indexTableSegmentBytes;
+        this.indexTableSegments = Collections.unmodifiableList(parseIndexTableSegments(indexTableSegmentBytes));
+    }
+
+    /**
+     * A factory method that rebuilds the IndexTable of an essence container from its essence element KLV packets
+     *
+     * @param resourceByteRangeProvider corresponding to the track file
+     * @param bodySID the BodySID of the essence container
+     * @param indexSID the IndexSID of the rebuilt IndexTable
+     * @param editRateNumerator the numerator of the IndexEditRate
+     * @param editRateDenominator the denominator of the IndexEditRate
+     * @param clipWrapped whether the essence container is clip-wrapped, as signaled by its essence container label
+     * @param clipWrappedEditUnitByteCount the size of an edit unit of a clip-wrapped essence container, for instance the
+     *                                     block align of PCM audio, 0 if the edit units vary in size; ignored for
+     *                                     frame-wrapped essence
+     * @return the rebuilt IndexTable
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the file has no RandomIndexPack, no essence for the BodySID, a KLV packet that extends
+     * beyond its partition, or clip-wrapped essence that cannot be split into edit units
+     */
+    public static ReconstructedIndexTable fromEssence(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, long bodySID, long indexSID,
+                                                      long editRateNumerator, long editRateDenominator, boolean clipWrapped,
+                                                      long clipWrappedEditUnitByteCount)
+            throws IOException
+    {
+        if (bodySID == 0 || indexSID == 0 || indexSID == bodySID)
+        {
+            throw new IllegalArgumentException(String.format("BodySID %d and IndexSID %d are not distinct non-zero stream IDs", bodySID, indexSID));
+        }
+        RandomIndexPack randomIndexPack = EssenceIndex.readRandomIndexPack(resourceByteRangeProvider);
+        List<Long> partitionByteOffsets = new ArrayList<>(randomIndexPack.getAllPartitionByteOffsets());
+        Collections.sort(partitionByteOffsets);
+        long randomIndexPackOffset = resourceByteRangeProvider.getResourceSize() - randomIndexPack.getLength();
+
+        List<PartitionPack> partitionPacks = new ArrayList<>();
+        for (long partitionByteOffset : randomIndexPack.getPartitionByteOffsets(bodySID))
+        {
+            PartitionPack partitionPack = EssenceIndex.readPartitionPack(resourceByteRangeProvider, partitionByteOffset);
+            if (!partitionPack.isGenericStreamPartition())
+            {
+                partitionPacks.add(partitionPack);
+            }
+        }
+        if (partitionPacks.isEmpty())
+        {
+            throw new MXFException(String.format("The RandomIndexPack does not reference any essence partition with BodySID %d", bodySID));
+        }
+        Collections.sort(partitionPacks, (a, b) -> Long.compare(a.getEssenceStreamSegmentStartStreamPosition(), b.getEssenceStreamSegmentStartStreamPosition()));
+
+        LongList editUnitStreamOffsets = new LongList();
+        byte[] editUnitKey = null;
+        long essenceElementCount = 0;
+        long lastEssenceElementEnd = 0;
+        long lastEssenceElementKLSize = 0;
+        long lastEssenceElementVSize = 0;
+        long lastEssenceElementValueOffset = 0;
+        for (PartitionPack partitionPack : partitionPacks)
+        {
+            long partitionByteOffset = partitionPack.getPartitionByteOffset();
+            int index = partitionByteOffsets.indexOf(partitionByteOffset);
+            long partitionEnd = (index + 1 < partitionByteOffsets.size()) ? partitionByteOffsets.get(index + 1) : randomIndexPackOffset;
+            long position = partitionByteOffset + partitionPack.getKLVPacketSize() + partitionPack.getHeaderByteCount() + partitionPack.getIndexByteCount();
+            position = EssenceIndex.skipFill(resourceByteRangeProvider, position, partitionEnd);
+            //stream positions are counted from the first essence element of the partition, as in EssenceIndex
+            long streamPosition = partitionPack.getEssenceStreamSegmentStartStreamPosition() - position;
+            while (position < partitionEnd)
+            {
+                KLVPacket.Header header = EssenceIndex.readHeader(resourceByteRangeProvider, position);
+                long end = position + header.getKLSize() + header.getVSize();
+                if (end > partitionEnd)
+                {
+                    throw new MXFException(String.format("The KLV packet at offset %d of BodySID %d extends beyond its partition, which ends at offset %d",
+                            position, bodySID, partitionEnd));
+                }
+                if (!KLVPacket.isKLVFillItem(header.getKey()))
+                {
+                    if (editUnitKey == null)
+                    {
+                        editUnitKey = header.getKey();
+                    }
+                    if (Arrays.equals(header.getKey(), editUnitKey))
+                    {
+                        editUnitStreamOffsets.add(streamPosition + position);
+                    }
+                    essenceElementCount++;
+                    lastEssenceElementEnd = streamPosition + end;
+                    lastEssenceElementKLSize = header.getKLSize();
+                    lastEssenceElementVSize = header.getVSize();
+                    lastEssenceElementValueOffset = position + header.getKLSize();
+                }
+                position = end;
+            }
+        }
+        if (essenceElementCount == 0)
+        {
+            throw new MXFException(String.format("The track file does not contain essence elements for BodySID %d", bodySID));
+        }
+
+        if (clipWrapped)
+        {
+            if (essenceElementCount != 1)
+            {
+                throw new MXFException(String.format("The clip-wrapped essence container with BodySID %d holds %d essence elements instead of a single one",
+                        bodySID, essenceElementCount));
+            }
+            if (clipWrappedEditUnitByteCount <= 0)
+            {
+                if ((editUnitKey[ELEMENT_TYPE_OFFSET] & 0xff) != IAB_ELEMENT_TYPE || !KLVPacket.isEssenceElementKey(editUnitKey, KLVPacket.SOUND_ITEM_TYPE))
+                {
+                    throw new MXFException(String.format("The essence container with BodySID %d is clip-wrapped, its edit units cannot be recovered from its KLV packets without a constant edit unit byte count",
+                            bodySID));
+                }
+                //the edit units of the essence stream start at the frames of the essence element, which follow its key and length
+                long valueStreamOffset = lastEssenceElementEnd - lastEssenceElementVSize;
+                long[] streamOffsets = IABFrameWalker.getFrameOffsets(resourceByteRangeProvider, lastEssenceElementValueOffset, lastEssenceElementVSize);
+                if (streamOffsets.length == 0)
+                {
+                    throw new MXFException(String.format("The clip-wrapped essence element of BodySID %d does not hold any IA Bitstream frame", bodySID));
+                }
+                for (int i = 0; i < streamOffsets.length; i++)
+                {
+                    streamOffsets[i] += valueStreamOffset;
+                }
+                return new ReconstructedIndexTable(bodySID, indexSID, 0, streamOffsets.length, streamOffsets,
+                        encodeVariableBytesPerElement(bodySID, indexSID, editRateNumerator, editRateDenominator, streamOffsets));
+            }
+            //the edit units of a constant edit unit byte count start at the key of the essence element, as in EssenceIndex,
+            //so its key and length are counted in whole edit units
+            long essenceElementSize = lastEssenceElementKLSize + lastEssenceElementVSize;
+            if (essenceElementSize % clipWrappedEditUnitByteCount != 0)
+            {
+                throw new MXFException(String.format("The clip-wrapped essence element of BodySID %d holds %d bytes with its key and length, which is not a whole number of edit units of %d bytes",
+                        bodySID, essenceElementSize, clipWrappedEditUnitByteCount));
+            }
+            long editUnitCount = essenceElementSize / clipWrappedEditUnitByteCount;
+            return new ReconstructedIndexTable(bodySID, indexSID, clipWrappedEditUnitByteCount, editUnitCount, null,
+                    encodeConstantBytesPerElement(bodySID, indexSID, editRateNumerator, editRateDenominator, clipWrappedEditUnitByteCount, editUnitCount));
+        }
+
+        long[] streamOffsets = editUnitStreamOffsets.toArray();
+        long editUnitByteCount = getConstantEditUnitByteCount(streamOffsets, lastEssenceElementEnd);
+        if (editUnitByteCount > 0)
+        {
+            return new ReconstructedIndexTable(bodySID, indexSID, editUnitByteCount, streamOffsets.length, null,
+                    encodeConstantBytesPerElement(bodySID, indexSID, editRateNumerator, editRateDenominator, editUnitByteCount, streamOffsets.length));
+        }
+        return new ReconstructedIndexTable(bodySID, indexSID, 0, streamOffsets.length, streamOffsets,
+                encodeVariableBytesPerElement(bodySID, indexSID, editRateNumerator, editRateDenominator, streamOffsets));
+    }
+
+    /**
+     * A factory method that reads an IndexTable from a stream of IndexTable segments, such as a sidecar file written
+     * with {@link #write(OutputStream)}
+     *
+     * @param inputStream the stream of IndexTable segments, which is read to its end but not closed
+     * @return the IndexTable
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException - if the stream does not hold IndexTable segments of a single IndexTable with contiguous edit
+     * units
+     */
+    public static ReconstructedIndexTable fromInputStream(@Nonnull InputStream inputStream) throws IOException
+    {
+        byte[] bytes = inputStream.readAllBytes();
+        List<IndexTableSegment> indexTableSegments = parseIndexTableSegments(bytes);
+        if (indexTableSegments.isEmpty())
+        {
+            throw new MXFException("The stream does not contain an IndexTable segment");
+        }
+
+        IndexTableSegment firstSegment = indexTableSegments.get(0);
+        LongList streamOffsets = new LongList();
+        long editUnitCount = 0;
+        for (IndexTableSegment indexTableSegment : indexTableSegments)
+        {
+            if (indexTableSegment.getIndexSID() != firstSegment.getIndexSID() || indexTableSegment.getBodySID() != firstSegment.getBodySID()
+                    || indexTableSegment.getEditUnitByteCount() != firstSegment.getEditUnitByteCount())
+            {
+                throw new MXFException("The IndexTable segments of the stream do not belong to a single IndexTable");
+            }
+            if (indexTableSegment.getIndexStartPosition() != editUnitCount)
+            {
+                throw new MXFException(String.format("The IndexTable segment starting at edit unit %d does not follow edit unit %d",
+                        indexTableSegment.getIndexStartPosition(), editUnitCount - 1));
+            }
+            editUnitCount += indexTableSegment.getIndexDuration();
+            if (firstSegment.getEditUnitByteCount() == 0)
+            {
+                List<IndexTableSegment.IndexEntryArray.IndexEntry> indexEntries = indexTableSegment.getIndexEntries();
+                if (indexEntries == null || indexEntries.size() != indexTableSegment.getIndexDuration())
+                {
+                    throw new MXFException(String.format("The IndexTable segment starting at edit unit %d does not have an entry for every edit unit",
+                            indexTableSegment.getIndexStartPosition()));
+                }
+                for (IndexTableSegment.IndexEntryArray.IndexEntry indexEntry : indexEntries)
+                {
+                    streamOffsets.add(indexEntry.getStreamOffset());
+                }
+            }
+        }
+        return new ReconstructedIndexTable(firstSegment.getBodySID(), firstSegment.getIndexSID(), firstSegment.getEditUnitByteCount(), editUnitCount,
+                (firstSegment.getEditUnitByteCount() == 0) ? streamOffsets.toArray() : null, bytes);
+    }
+
+    /**
+     * A factory method that reads an IndexTable from a sidecar file
+     *
+     * @param path the path of the sidecar file
+     * @return the IndexTable
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static ReconstructedIndexTable fromPath(@Nonnull Path path) throws IOException
+    {
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            return fromInputStream(inputStream);
+        }
+    }
+
+    /**
+     * A method that writes the IndexTable segments to a stream
+     *
+     * @param outputStream the stream to write to, which is flushed but not closed
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void write(@Nonnull OutputStream outputStream) throws IOException
+    {
+        outputStream.write(this.indexTableSegmentBytes);
+        outputStream.flush();
+    }
+
+    /**
+     * A method that writes the IndexTable segments to a sidecar file
+     *
+     * @param path the path of the sidecar file, which is replaced if it exists
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void write(@Nonnull Path path) throws IOException
+    {
+        try (OutputStream outputStream = Files.newOutputStream(path))
+        {
+            write(outputStream);
+        }
+    }
+
+    /**
+     * Getter for the BodySID of the indexed essence container
+     *
+     * @return the BodySID
+     */
+    public long getBodySID()
+    {
+        return this.bodySID;
+    }
+
+    /**
+     * Getter for the IndexSID of the IndexTable
+     *
+     * @return the IndexSID
+     */
+    public long getIndexSID()
+    {
+        return this.indexSID;
+    }
+
+    /**
+     * Getter for the edit rate of the IndexTable
+     *
+     * @return the index edit rate
+     */
+    public CompoundDataTypes.Rational getIndexEditRate()
+    {
+        return this.indexTableSegments.get(0).getIndexEditRate();
+    }
+
+    /**
+     * Getter for the edit unit byte count of a constant bytes per element IndexTable
+     *
+     * @return the edit unit byte count, 0 when the IndexTable has variable bytes per element
+     */
+    public long getEditUnitByteCount()
+    {
+        return this.editUnitByteCount;
+    }
+
+    /**
+     * Getter for the number of edit units in the IndexTable
+     *
+     * @return the number of edit units
+     */
+    public long getEditUnitCount()
+    {
+        return this.editUnitCount;
+    }
+
+    /**
+     * Getter for the position of an edit unit in the essence stream
+     *
+     * @param editUnit the zero based edit unit
+     * @return the byte offset of the edit unit relative to the start of the essence stream
+     */
+    public long getStreamOffset(long editUnit)
+    {
+        if (editUnit < 0 || editUnit >= this.editUnitCount)
+        {
+            throw new IllegalArgumentException(String.format("Edit unit %d is outside the range 0-%d of the IndexTable", editUnit, this.editUnitCount - 1));
+        }
+        return (this.streamOffsets != null) ? this.streamOffsets[(int) editUnit] : editUnit * this.editUnitByteCount;
+    }
+
+    /**
+     * Getter for the IndexTable segments, for instance to check the IndexTable of a track file with missing IndexTable
+     * segments
+     *
+     * @return the IndexTable segments in edit unit order
+     */
+    public List<IndexTableSegment> getIndexTableSegments()
+    {
+        return this.indexTableSegments;
+    }
+
+    /**
+     * Getter for the encoded IndexTable segments
+     *
+     * @return a copy of the KLV packets of the IndexTable segments, whose length is the IndexByteCount of a partition
+     * that holds them
+     */
+    public byte[] getIndexTableSegmentBytes()
+    {
+        return Arrays.copyOf(this.indexTableSegmentBytes, this.indexTableSegmentBytes.length);
+    }
+
+    /**
+     * A method that returns a string representation of a ReconstructedIndexTable object
+     *
+     * @return string representing the object
+     */
+    public String toString()
+    {
+        return String.format("ReconstructedIndexTable(BodySID = %d, IndexSID = %d, EditUnitByteCount = %d, edit units = %d, segments = %d)",
+                this.bodySID, this.indexSID, this.editUnitByteCount, this.editUnitCount, this.indexTableSegments.size());
+    }
+
+    /**
+     * Finds the size of the edit units of a frame-wrapped essence container that are all the same size
+     *
+     * @return the edit unit byte count, 0 if the edit units differ in size or are not contiguous
+     */
+    private static long getConstantEditUnitByteCount(long[] streamOffsets, long streamEnd)
+    {
+        long editUnitByteCount = (streamOffsets.length > 1) ? streamOffsets[1] - streamOffsets[0] : streamEnd - streamOffsets[0];
+        if (editUnitByteCount <= 0 || streamEnd - streamOffsets[streamOffsets.length - 1] != editUnitByteCount)
+        {
+            return 0;
+        }
+        for (int i = 0; i < streamOffsets.length; i++)
+        {
+            if (streamOffsets[i] != i * editUnitByteCount)
+            {
+                return 0;
+            }
+        }
+        return editUnitByteCount;
+    }
+
+    private static byte[] encodeConstantBytesPerElement(long bodySID, long indexSID, long editRateNumerator, long editRateDenominator,
+                                                        long editUnitByteCount, long editUnitCount)
+    {
+        ByteBuffer value = ByteBuffer.allocate(7 * LOCAL_SET_ITEM_HEADER_SIZE + 16 + 8 + 8 + 8 + 4 + 4 + 4).order(KLVPacket.BYTE_ORDER);
+        putSegmentProperties(value, bodySID, indexSID, editRateNumerator, editRateDenominator, 0, editUnitCount, editUnitByteCount);
+        return encodeIndexTableSegment(value.array());
+    }
+
+    private static byte[] encodeVariableBytesPerElement(long bodySID, long indexSID, long editRateNumerator, long editRateDenominator,
+                                                        long[] streamOffsets)
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int start = 0; start < streamOffsets.length; start += MAX_INDEX_ENTRIES_PER_SEGMENT)
+        {
+            int duration = Math.min(MAX_INDEX_ENTRIES_PER_SEGMENT, streamOffsets.length - start);
+            int indexEntryArraySize = ARRAY_HEADER_SIZE + duration * INDEX_ENTRY_SIZE;
+            ByteBuffer value = ByteBuffer.allocate(11 * LOCAL_SET_ITEM_HEADER_SIZE + 16 + 8 + 8 + 8 + 4 + 4 + 4 + 1 + 1
+                    + ARRAY_HEADER_SIZE + DELTA_ENTRY_SIZE + indexEntryArraySize).order(KLVPacket.BYTE_ORDER);
+            putSegmentProperties(value, bodySID, indexSID, editRateNumerator, editRateDenominator, start, duration, 0);
+            value.putShort((short) 0x3f08).putShort((short) 1).put((byte) 0);
+            value.putShort((short) 0x3f0e).putShort((short) 1).put((byte) 0);
+            //a single delta entry for the whole edit unit, with no slices and no PosTable
+            value.putShort((short) 0x3f09).putShort((short) (ARRAY_HEADER_SIZE + DELTA_ENTRY_SIZE));
+            value.putInt(1).putInt(DELTA_ENTRY_SIZE).put((byte) 0).put((byte) 0).putInt(0);
+            value.putShort((short) 0x3f0a).putShort((short) indexEntryArraySize);
+            value.putInt(duration).putInt(INDEX_ENTRY_SIZE);
+            for (int i = start; i < start + duration; i++)
+            {
+                value.put((byte) 0).put((byte) 0).put(RANDOM_ACCESS_FLAG).putLong(streamOffsets[i]);
+            }
+            byte[] segment = encodeIndexTableSegment(value.array());
+            outputStream.write(segment, 0, segment.length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void putSegmentProperties(ByteBuffer value, long bodySID, long indexSID, long editRateNumerator, long editRateDenominator,
+                                             long startPosition, long duration, long editUnitByteCount)
+    {
+        UUID instanceUID = UUID.randomUUID();
+        value.putShort((short) 0x3c0a).putShort((short) 16).putLong(instanceUID.getMostSignificantBits()).putLong(instanceUID.getLeastSignificantBits());
+        value.putShort((short) 0x3f0b).putShort((short) 8).putInt((int) editRateNumerator).putInt((int) editRateDenominator);
+        value.putShort((short) 0x3f0c).putShort((short) 8).putLong(startPosition);
+        value.putShort((short) 0x3f0d).putShort((short) 8).putLong(duration);
+        value.putShort((short) 0x3f05).putShort((short) 4).putInt((int) editUnitByteCount);
+        value.putShort((short) 0x3f06).putShort((short) 4).putInt((int) indexSID);
+        value.putShort((short) 0x3f07).putShort((short) 4).putInt((int) bodySID);
+    }
+
+    private static byte[] encodeIndexTableSegment(byte[] value)
+    {
+        ByteBuffer segment = ByteBuffer.allocate(KLVPacket.KEY_FIELD_SIZE + LENGTH_FIELD_SIZE + value.length).order(KLVPacket.BYTE_ORDER);
+        segment.put(INDEX_TABLE_SEGMENT_KEY);
+        segment.put((byte) (0x80 | (LENGTH_FIELD_SIZE - 1))).put((byte) (value.length >>> 16)).put((byte) (value.length >>> 8)).put((byte) value.length);
+        segment.put(value);
+        return segment.array();
+    }
+
+    private static List<IndexTableSegment> parseIndexTableSegments(byte[] bytes) throws IOException
+    {
+        List<IndexTableSegment> indexTableSegments = new ArrayList<>();
+        ByteArrayDataProvider byteProvider = new ByteArrayDataProvider(bytes);
+        long numBytesRead = 0;
+        while (numBytesRead < bytes.length)
+        {
+            KLVPacket.Header header = new KLVPacket.Header(byteProvider, numBytesRead);
+            if (numBytesRead + header.getKLSize() + header.getVSize() > bytes.length)
+            {
+                throw new MXFException(String.format("The KLV packet at offset %d extends beyond the %d bytes of the IndexTable segments", numBytesRead, bytes.length));
+            }
+            if (IndexTableSegment.isValidKey(header.getKey()))
+            {
+                indexTableSegments.add(new IndexTableSegment(byteProvider, header));
+            }
+            else if (KLVPacket.isKLVFillItem(header.getKey()))
+            {
+                byteProvider.skipBytes(header.getVSize());
+            }
+            else
+            {
+                throw new MXFException(String.format("The KLV packet at offset %d is neither an IndexTable segment nor KLV fill", numBytesRead));
+            }
+            numBytesRead += header.getKLSize() + header.getVSize();
+        }
+        return indexTableSegments;
+    }
+
+    /**
+     * A growable array of longs, so that large essence containers are scanned without boxing every stream offset
+     */
+    private static final class LongList
+    {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        private void add(long value)
+        {
+            if (this.size == this.values.length)
+            {
+                this.values = Arrays.copyOf(this.values, this.values.length * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        private long[] toArray()
+        {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
@@ -130,6 +130,14 @@ public abstract class GenericPictureEssenceDescriptor extends FileDescriptor {
             super(header);
         }
 
+        /**
+         * Accessor for the PictureEssenceCoding UL
+         * @return a UL representing the PictureEssenceCoding
+         */
+        public UL getPictureEssenceCodingUL(){
+            return this.picture_essence_coding;
+        }
+
         /**
          * Accessor for the ColorPrimaries UL
          * @return a UL representing the ColorPrimaries
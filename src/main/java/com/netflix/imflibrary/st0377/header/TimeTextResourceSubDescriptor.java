@@ -52,6 +52,14 @@ public final class TimeTextResourceSubDescriptor extends SubDescriptor {
         return this.subDescriptorBO.mime_media_type;
     }
 
+    /**
+     * Getter for the EssenceStreamID
+     * @return the BodySID of the Generic Stream Partitions that carry the resource, null if absent
+     */
+    public Long getEssenceStreamID() {
+        return this.subDescriptorBO.body_sid;
+    }
+
     /**
      * A method that returns a string representation of a TimeTextResourceSubdescriptor object
      *
@@ -191,9 +191,11 @@ public final class AssetMap
                 for (org.smpte_ra.schemas._429_9._2007.am.AssetType assetType : assetMapType.getAssetList().getAsset()) {
                     boolean isPackingList = (assetType.isPackingList() != null) ? assetType.isPackingList() : false;
                     String path = assetType.getChunkList().getChunk().get(0).getPath();
+                    org.smpte_ra.schemas._429_9._2007.am.UserText annotationText = assetType.getAnnotationText();
                     try
                     {
-                        Asset asset = new Asset(assetType.getId(), isPackingList, path);
+                        Asset asset = (annotationText == null) ? new Asset(assetType.getId(), isPackingList, path)
+                                : new Asset(assetType.getId(), isPackingList, path, annotationText.getValue(), annotationText.getLanguage());
                         this.imfErrorLogger.addAllErrors(asset.getErrors());
                         this.assetList.add(asset);
                         this.uuidToPath.put(asset.getUUID(), asset.getPath());
@@ -448,6 +450,8 @@ public final class AssetMap
         private final UUID uuid;
         private final boolean isPackingList;
         private final URI path;
+        private final String annotationText;
+        private final String annotationTextLanguage;
         private final IMFErrorLogger imfErrorLogger;
 
         /**
@@ -459,9 +463,26 @@ public final class AssetMap
          * @throws URISyntaxException - exposes any issues with the URI associated with the wrapped object
          */
         public Asset(String uuid, boolean isPackingList, String path) throws URISyntaxException
+        {
+            this(uuid, isPackingList, path, null, null);
+        }
+
+        /**
+         * Constructor for the wrapping {@link com.netflix.imflibrary.st0429_9.AssetMap.Asset Asset} object from the wrapped model version of XML type 'AssetType'. Construction
+         * fails in case the URI associated with wrapped object is invalid
+         * @param uuid - the ID corresponding to an Asset in the AssetMap
+         * @param isPackingList - a boolean flag to indicate if this Asset is a PackingList
+         * @param path - URI associated with this asset
+         * @param annotationText - the AnnotationText of this asset, null if it is absent
+         * @param annotationTextLanguage - the language of the AnnotationText of this asset, null if it is absent
+         * @throws URISyntaxException - exposes any issues with the URI associated with the wrapped object
+         */
+        public Asset(String uuid, boolean isPackingList, String path, @Nullable String annotationText, @Nullable String annotationTextLanguage) throws URISyntaxException
         {
             this.uuid = UUIDHelper.fromUUIDAsURNStringToUUID(uuid);
             this.isPackingList = isPackingList;
+            this.annotationText = annotationText;
+            this.annotationTextLanguage = annotationTextLanguage;
 
             this.imfErrorLogger = new IMFErrorLoggerImpl();
 
@@ -546,6 +567,24 @@ public final class AssetMap
             return this.path;
         }
 
+        /**
+         * Getter for the AnnotationText of the {@link com.netflix.imflibrary.st0429_9.AssetMap.Asset Asset} object
+         * @return the AnnotationText of the asset, null if it is absent
+         */
+        public @Nullable String getAnnotationText()
+        {
+            return this.annotationText;
+        }
+
+        /**
+         * Getter for the language of the AnnotationText of the {@link com.netflix.imflibrary.st0429_9.AssetMap.Asset Asset} object
+         * @return the language of the AnnotationText of the asset, null if it is absent
+         */
+        public @Nullable String getAnnotationTextLanguage()
+        {
+            return this.annotationTextLanguage;
+        }
+
         /**
          * Getter for the errors in Composition
          *
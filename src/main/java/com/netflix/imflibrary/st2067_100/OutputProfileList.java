@@ -423,6 +423,15 @@ public final class OutputProfileList {
         }
     }
 
+    /**
+     * A method that resolves a handle that may refer to an alias of this OutputProfileList
+     * @param handle a handle, possibly of the form alias/name
+     * @return the handle that the alias stands for, or the handle itself when it is not an alias
+     */
+    public String resolveHandle(String handle) {
+        return getHandle(handle);
+    }
+
     private String getHandle(String handle) {
         if(handle.startsWith("alias/")) {
             handle = handle.replace("alias/", "");
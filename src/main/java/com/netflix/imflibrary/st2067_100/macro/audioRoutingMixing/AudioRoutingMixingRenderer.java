@@ -0,0 +1,716 @@
+/*
+ *
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st2067_100.macro.audioRoutingMixing;
+
+import com.netflix.imflibrary.ConcurrentTasks;
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.MXFUID;
+import com.netflix.imflibrary.PCMEssenceReader;
+import com.netflix.imflibrary.exceptions.IMFException;
+import com.netflix.imflibrary.st0377.header.AudioChannelLabelSubDescriptor;
+import com.netflix.imflibrary.st2067_100.OutputProfileList;
+import com.netflix.imflibrary.st2067_100.handle.Handle;
+import com.netflix.imflibrary.st2067_100.handle.MCADictionaryIdHandle;
+import com.netflix.imflibrary.st2067_100.handle.MCALinkIdHandle;
+import com.netflix.imflibrary.st2067_100.handle.MCATagSymbolHandle;
+import com.netflix.imflibrary.st2067_100.macro.Macro;
+import com.netflix.imflibrary.st2067_2.Composition;
+import com.netflix.imflibrary.st2067_2.IMFCompositionPlaylist;
+import com.netflix.imflibrary.st2067_2.IMFEssenceComponentVirtualTrack;
+import com.netflix.imflibrary.st2067_2.IMFTrackFileResourceType;
+import com.netflix.imflibrary.utils.UUIDHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * A renderer of an audio routing and mixing macro of an OutputProfileList (st2067-100). The PCM samples of the audio
+ * virtual tracks that the macro refers to are streamed in blocks through a double-buffered pipeline: the samples of the
+ * next block are read on an Executor while the current block is mixed. Every output channel is the sum of its inputs
+ * scaled by their gains, and is quantized to interleaved little-endian PCM, optionally preceded by a WAV header.
+ */
+@ThreadSafe
+public final class AudioRoutingMixingRenderer {
+    private static final Logger logger = LoggerFactory.getLogger(AudioRoutingMixingRenderer.class);
+
+    /**
+     * The default number of samples per channel of a block
+     */
+    public static final int DEFAULT_SAMPLES_PER_BLOCK = 8192;
+
+    private static final int WAV_HEADER_SIZE = 44;
+    private static final int WAV_EXTENSIBLE_HEADER_SIZE = 68;
+    private static final short WAVE_FORMAT_PCM = 1;
+    private static final short WAVE_FORMAT_EXTENSIBLE = (short) 0xFFFE;
+    // KSDATAFORMAT_SUBTYPE_PCM, 00000001-0000-0010-8000-00aa00389b71, in the byte order of a GUID
+    private static final byte[] KSDATAFORMAT_SUBTYPE_PCM = {0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x10, 0x00,
+            (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71};
+    // the speaker positions of the WAVEFORMATEXTENSIBLE channel mask
+    private static final int SPEAKER_FRONT_LEFT = 0x1;
+    private static final int SPEAKER_FRONT_RIGHT = 0x2;
+    private static final int SPEAKER_FRONT_CENTER = 0x4;
+    private static final int SPEAKER_LOW_FREQUENCY = 0x8;
+    private static final int SPEAKER_SIDE_LEFT = 0x200;
+    private static final int SPEAKER_SIDE_RIGHT = 0x400;
+
+    /**
+     * The layout of the rendered samples
+     */
+    public enum OutputFormat {
+        /**
+         * Interleaved little-endian PCM samples
+         */
+        PCM,
+        /**
+         * Interleaved little-endian PCM samples preceded by a RIFF/WAVE header, whose format is WAVE_FORMAT_EXTENSIBLE
+         * when there are more than 2 channels or more than 16 bits per sample. The channel mask of the header assigns
+         * the mono, stereo and 5.1 (L, R, C, LFE, Ls, Rs) layouts to their speaker positions, and no speaker positions
+         * to other channel counts.
+         */
+        WAV
+    }
+
+    /**
+     * A resolver of the handle of an input of a macro to a channel of an audio source
+     */
+    @FunctionalInterface
+    public interface ChannelInputResolver {
+        /**
+         * A method that resolves the handle of an input of a macro
+         * @param handle the handle of the input, as it appears in the OutputProfileList
+         * @return the channel that the handle refers to
+         * @throws IOException - any I/O related error is exposed through an IOException
+         * @throws IMFException - if the handle does not refer to a channel of an audio source
+         */
+        ChannelInput resolve(String handle) throws IOException;
+    }
+
+    private final Executor executor;
+    private final int samplesPerBlock;
+
+    /**
+     * Constructor for an AudioRoutingMixingRenderer that reads blocks of {@link #DEFAULT_SAMPLES_PER_BLOCK} samples on
+     * the common ForkJoinPool
+     */
+    public AudioRoutingMixingRenderer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SAMPLES_PER_BLOCK);
+    }
+
+    /**
+     * Constructor for an AudioRoutingMixingRenderer
+     * @param executor the Executor that the next block is read on, null to read every block on the calling thread
+     * @param samplesPerBlock the number of samples per channel of a block
+     */
+    public AudioRoutingMixingRenderer(@Nullable Executor executor, int samplesPerBlock) {
+        if (samplesPerBlock <= 0) {
+            throw new IllegalArgumentException(String.format("samplesPerBlock = %d is not > 0", samplesPerBlock));
+        }
+        this.executor = executor;
+        this.samplesPerBlock = samplesPerBlock;
+    }
+
+    /**
+     * A method that renders an audio routing and mixing macro of an OutputProfileList applied on a Composition. The
+     * inputs of the macro must refer to channels of audio virtual tracks of the Composition by MCALabelDictionaryID,
+     * MCALinkID or MCATagSymbol.
+     * @param outputProfileList the OutputProfileList
+     * @param macroName the name of the audio routing and mixing macro
+     * @param imfCompositionPlaylist the Composition that the OutputProfileList applies to
+     * @param trackFilePaths the paths of the track files of the Composition by track file ID
+     * @param bitsPerSample the number of bits of a rendered sample, 16, 24 or 32
+     * @param outputFormat the layout of the rendered samples
+     * @param outputStream the destination of the rendered samples
+     * @return the result of the rendering
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws IMFException - if the macro cannot be rendered
+     */
+    public RenderResult render(@Nonnull OutputProfileList outputProfileList, @Nonnull String macroName, @Nonnull IMFCompositionPlaylist imfCompositionPlaylist,
+                               @Nonnull Map<UUID, Path> trackFilePaths, int bitsPerSample, @Nonnull OutputFormat outputFormat,
+                               @Nonnull OutputStream outputStream) throws IOException {
+        Macro macro = outputProfileList.getMacroMap().get(macroName);
+        if (!(macro instanceof AudioRoutingMixingMacro)) {
+            throw new IMFException(String.format("OutputProfileList %s does not have an audio routing and mixing macro named %s",
+                    outputProfileList.getId(), macroName));
+        }
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Map<String, Handle> handleMap = outputProfileList.getHandleMapWithApplicationComposition(imfCompositionPlaylist, imfErrorLogger);
+        Map<UUID, AudioSource> virtualTrackSources = new HashMap<>();
+        Map<UUID, PCMEssenceReader> readers = new HashMap<>();
+
+        ChannelInputResolver channelInputResolver = handle -> {
+            Handle handleType = handleMap.get(outputProfileList.resolveHandle(handle));
+            Composition.VirtualTrack virtualTrack;
+            Predicate<AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO> labelMatcher;
+            if (handleType instanceof MCADictionaryIdHandle) {
+                MCADictionaryIdHandle mcaDictionaryIdHandle = (MCADictionaryIdHandle) handleType;
+                virtualTrack = mcaDictionaryIdHandle.getVirtualTrack();
+                labelMatcher = label -> mcaDictionaryIdHandle.getMcaLabelDictionaryId().equals(label.getMCALabelDictionnaryId());
+            } else if (handleType instanceof MCALinkIdHandle) {
+                MCALinkIdHandle mcaLinkIdHandle = (MCALinkIdHandle) handleType;
+                MXFUID mcaLinkId = new MXFUID(ByteBuffer.allocate(16)
+                        .putLong(mcaLinkIdHandle.getMcaLinkId().getMostSignificantBits())
+                        .putLong(mcaLinkIdHandle.getMcaLinkId().getLeastSignificantBits()).array());
+                virtualTrack = mcaLinkIdHandle.getVirtualTrack();
+                labelMatcher = label -> mcaLinkId.equals(new AudioChannelLabelSubDescriptor(label).getMCALinkId());
+            } else if (handleType instanceof MCATagSymbolHandle) {
+                MCATagSymbolHandle mcaTagSymbolHandle = (MCATagSymbolHandle) handleType;
+                virtualTrack = mcaTagSymbolHandle.getVirtualTrack();
+                labelMatcher = label -> mcaTagSymbolHandle.getMcaTagSymbol().equals(label.getMCATagSymbol());
+            } else {
+                throw new IMFException(String.format("Input handle %s of macro %s does not refer to a channel of an audio virtual track", handle, macroName));
+            }
+
+            AudioSource audioSource = virtualTrackSources.get(virtualTrack.getTrackID());
+            if (audioSource == null) {
+                audioSource = AudioSource.fromVirtualTrack((IMFEssenceComponentVirtualTrack) virtualTrack, trackFilePaths, readers);
+                virtualTrackSources.put(virtualTrack.getTrackID(), audioSource);
+            }
+            AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO[] labels = audioSource.getAudioChannelLabels();
+            int channel = -1;
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] != null && labelMatcher.test(labels[i])) {
+                    if (channel >= 0) {
+                        throw new IMFException(String.format("Input handle %s of macro %s matches channels %d and %d of virtual track %s",
+                                handle, macroName, channel + 1, i + 1, virtualTrack.getTrackID()));
+                    }
+                    channel = i;
+                }
+            }
+            if (channel < 0) {
+                throw new IMFException(String.format("Input handle %s of macro %s does not match a channel of virtual track %s",
+                        handle, macroName, virtualTrack.getTrackID()));
+            }
+            return new ChannelInput(audioSource, channel);
+        };
+
+        return render((AudioRoutingMixingMacro) macro, channelInputResolver, bitsPerSample, outputFormat, outputStream);
+    }
+
+    /**
+     * A method that renders an audio routing and mixing macro
+     * @param audioRoutingMixingMacro the macro
+     * @param channelInputResolver the resolver of the handles of the inputs of the macro
+     * @param bitsPerSample the number of bits of a rendered sample, 16, 24 or 32
+     * @param outputFormat the layout of the rendered samples
+     * @param outputStream the destination of the rendered samples
+     * @return the result of the rendering
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws IMFException - if the macro cannot be rendered
+     */
+    public RenderResult render(@Nonnull AudioRoutingMixingMacro audioRoutingMixingMacro, @Nonnull ChannelInputResolver channelInputResolver,
+                               int bitsPerSample, @Nonnull OutputFormat outputFormat, @Nonnull OutputStream outputStream) throws IOException {
+        if (bitsPerSample != 16 && bitsPerSample != 24 && bitsPerSample != 32) {
+            throw new IllegalArgumentException(String.format("bitsPerSample = %d is not one of 16, 24 or 32", bitsPerSample));
+        }
+        MixMatrix mixMatrix = new MixMatrix(audioRoutingMixingMacro, channelInputResolver);
+        int outputChannelCount = mixMatrix.outputGains.length;
+        int outputBytesPerSample = bitsPerSample / 8;
+        long sampleCount = mixMatrix.getSampleCount();
+
+        if (outputFormat == OutputFormat.WAV) {
+            outputStream.write(getWavHeader(outputChannelCount, mixMatrix.getSampleRate(), bitsPerSample, sampleCount));
+        }
+
+        double[][] decodedChannels = new double[mixMatrix.channelInputs.size()][this.samplesPerBlock];
+        double[][] mixedChannels = new double[outputChannelCount][this.samplesPerBlock];
+        int[] samples = new int[this.samplesPerBlock];
+        byte[] outputBlock = new byte[this.samplesPerBlock * outputChannelCount * outputBytesPerSample];
+        double outputFullScale = (double) (1L << (bitsPerSample - 1));
+        long clippedSampleCount = 0;
+
+        CompletableFuture<byte[][]> nextBlock = readBlock(mixMatrix.sources, 0, (int) Math.min(this.samplesPerBlock, sampleCount));
+        for (long firstSample = 0; firstSample < sampleCount; ) {
+            int blockSampleCount = (int) Math.min(this.samplesPerBlock, sampleCount - firstSample);
+            byte[][] block = ConcurrentTasks.join(nextBlock);
+            long nextFirstSample = firstSample + blockSampleCount;
+            // the next block is read while this one is mixed
+            nextBlock = (nextFirstSample < sampleCount)
+                    ? readBlock(mixMatrix.sources, nextFirstSample, (int) Math.min(this.samplesPerBlock, sampleCount - nextFirstSample))
+                    : null;
+
+            if (samples.length != blockSampleCount) {
+                // only the last block is shorter
+                samples = new int[blockSampleCount];
+            }
+            for (int i = 0; i < decodedChannels.length; i++) {
+                ChannelInput channelInput = mixMatrix.channelInputs.get(i);
+                PCMEssenceReader.SampleFormat format = channelInput.getAudioSource().getFormat();
+                format.deinterleave(block[mixMatrix.channelInputSources.get(i)], channelInput.getChannel(), samples);
+                scale(samples, 1.0 / format.getFullScale(), decodedChannels[i], blockSampleCount);
+            }
+            for (int outputChannel = 0; outputChannel < outputChannelCount; outputChannel++) {
+                double[] mixedChannel = mixedChannels[outputChannel];
+                Arrays.fill(mixedChannel, 0, blockSampleCount, 0.0);
+                int[] inputs = mixMatrix.outputInputs[outputChannel];
+                double[] gains = mixMatrix.outputGains[outputChannel];
+                for (int input = 0; input < inputs.length; input++) {
+                    multiplyAccumulate(decodedChannels[inputs[input]], gains[input], mixedChannel, blockSampleCount);
+                }
+                clippedSampleCount += quantize(mixedChannel, blockSampleCount, outputFullScale, outputBlock,
+                        outputChannel * outputBytesPerSample, outputChannelCount * outputBytesPerSample, outputBytesPerSample);
+            }
+            outputStream.write(outputBlock, 0, blockSampleCount * outputChannelCount * outputBytesPerSample);
+            firstSample = nextFirstSample;
+        }
+
+        logger.info("Rendered {} samples of {} channels of macro {}", sampleCount, outputChannelCount, audioRoutingMixingMacro.getName());
+        return new RenderResult(mixMatrix.outputHandles, sampleCount, mixMatrix.getSampleRate(), bitsPerSample, clippedSampleCount);
+    }
+
+    private CompletableFuture<byte[][]> readBlock(List<AudioSource> sources, long firstSample, int sampleCount) throws IOException {
+        return ConcurrentTasks.submit(this.executor, sources, blockSources -> readSources(blockSources, firstSample, sampleCount));
+    }
+
+    private static byte[][] readSources(List<AudioSource> sources, long firstSample, int sampleCount) throws IOException {
+        byte[][] block = new byte[sources.size()][];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = sources.get(i).readSamples(firstSample, sampleCount);
+        }
+        return block;
+    }
+
+    /*
+     * The loops of scale and multiplyAccumulate are kept free of branches and of dependencies between iterations, so
+     * that the JIT compiler can unroll them and use the SIMD instructions of the platform.
+     */
+
+    private static void scale(int[] samples, double factor, double[] destination, int count) {
+        for (int i = 0; i < count; i++) {
+            destination[i] = samples[i] * factor;
+        }
+    }
+
+    private static void multiplyAccumulate(double[] source, double gain, double[] destination, int count) {
+        for (int i = 0; i < count; i++) {
+            destination[i] += gain * source[i];
+        }
+    }
+
+    /**
+     * Quantizes a mixed channel into its interleaved position in a block, and returns the number of clipped samples.
+     * Unlike the loops above, this loop branches to clip and count samples beyond full scale, and scatters the bytes of
+     * every sample with a stride, so it is not expected to be vectorized.
+     */
+    private static long quantize(double[] mixedChannel, int count, double fullScale, byte[] destination, int offset, int stride, int bytesPerSample) {
+        long clippedSampleCount = 0;
+        double maximum = fullScale - 1;
+        for (int i = 0; i < count; i++, offset += stride) {
+            double value = Math.rint(mixedChannel[i] * fullScale);
+            if (value > maximum) {
+                value = maximum;
+                clippedSampleCount++;
+            } else if (value < -fullScale) {
+                value = -fullScale;
+                clippedSampleCount++;
+            }
+            int sample = (int) value;
+            for (int b = 0; b < bytesPerSample; b++) {
+                destination[offset + b] = (byte) (sample >> (8 * b));
+            }
+        }
+        return clippedSampleCount;
+    }
+
+    private static byte[] getWavHeader(int channelCount, int sampleRate, int bitsPerSample, long sampleCount) {
+        boolean extensible = channelCount > 2 || bitsPerSample > 16;
+        int headerSize = extensible ? WAV_EXTENSIBLE_HEADER_SIZE : WAV_HEADER_SIZE;
+        int blockAlign = channelCount * bitsPerSample / 8;
+        long dataSize = sampleCount * blockAlign;
+        if (dataSize > 0xFFFFFFFFL - (headerSize - 8)) {
+            throw new IMFException(String.format("%d samples of %d bytes exceed the size of a WAV file", sampleCount, blockAlign));
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[]{'R', 'I', 'F', 'F'});
+        header.putInt((int) (dataSize + headerSize - 8));
+        header.put(new byte[]{'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+        header.putInt(extensible ? 40 : 16);
+        header.putShort(extensible ? WAVE_FORMAT_EXTENSIBLE : WAVE_FORMAT_PCM);
+        header.putShort((short) channelCount);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+        if (extensible) {
+            header.putShort((short) 22);
+            header.putShort((short) bitsPerSample);
+            header.putInt(getChannelMask(channelCount));
+            header.put(KSDATAFORMAT_SUBTYPE_PCM);
+        }
+        header.put(new byte[]{'d', 'a', 't', 'a'});
+        header.putInt((int) dataSize);
+        return header.array();
+    }
+
+    private static int getChannelMask(int channelCount) {
+        switch (channelCount) {
+            case 1:
+                return SPEAKER_FRONT_CENTER;
+            case 2:
+                return SPEAKER_FRONT_LEFT | SPEAKER_FRONT_RIGHT;
+            case 6:
+                return SPEAKER_FRONT_LEFT | SPEAKER_FRONT_RIGHT | SPEAKER_FRONT_CENTER | SPEAKER_LOW_FREQUENCY
+                        | SPEAKER_SIDE_LEFT | SPEAKER_SIDE_RIGHT;
+            default:
+                // the speaker positions of the channels are unknown
+                return 0;
+        }
+    }
+
+    /**
+     * The inputs and gains of every output channel of a macro, with the distinct sources and channels that they refer to
+     */
+    private static final class MixMatrix {
+        private final List<String> outputHandles = new ArrayList<>();
+        private final List<AudioSource> sources = new ArrayList<>();
+        private final List<ChannelInput> channelInputs = new ArrayList<>();
+        private final List<Integer> channelInputSources = new ArrayList<>();
+        private final int[][] outputInputs;
+        private final double[][] outputGains;
+
+        private MixMatrix(AudioRoutingMixingMacro audioRoutingMixingMacro, ChannelInputResolver channelInputResolver) throws IOException {
+            List<OutputAudioChannel> outputAudioChannels = audioRoutingMixingMacro.getOutputAudioChannelList();
+            this.outputInputs = new int[outputAudioChannels.size()][];
+            this.outputGains = new double[outputAudioChannels.size()][];
+            Map<AudioSource, Map<Integer, Integer>> channelInputIndexes = new IdentityHashMap<>();
+            for (int outputChannel = 0; outputChannel < outputAudioChannels.size(); outputChannel++) {
+                OutputAudioChannel outputAudioChannel = outputAudioChannels.get(outputChannel);
+                this.outputHandles.add(outputAudioChannel.getHandle());
+                List<InputEntity> inputEntities = outputAudioChannel.getInputEntityList();
+                this.outputInputs[outputChannel] = new int[inputEntities.size()];
+                this.outputGains[outputChannel] = new double[inputEntities.size()];
+                for (int input = 0; input < inputEntities.size(); input++) {
+                    InputEntity inputEntity = inputEntities.get(input);
+                    ChannelInput channelInput = channelInputResolver.resolve(inputEntity.getHandle());
+                    Map<Integer, Integer> indexes = channelInputIndexes.computeIfAbsent(channelInput.getAudioSource(), k -> new HashMap<>());
+                    Integer index = indexes.get(channelInput.getChannel());
+                    if (index == null) {
+                        index = this.channelInputs.size();
+                        indexes.put(channelInput.getChannel(), index);
+                        this.channelInputs.add(channelInput);
+                        if (!this.sources.contains(channelInput.getAudioSource())) {
+                            this.sources.add(channelInput.getAudioSource());
+                        }
+                        this.channelInputSources.add(this.sources.indexOf(channelInput.getAudioSource()));
+                    }
+                    this.outputInputs[outputChannel][input] = index;
+                    this.outputGains[outputChannel][input] = getLinearGain(inputEntity.getGain());
+                }
+            }
+
+            for (AudioSource source : this.sources) {
+                PCMEssenceReader.SampleFormat format = source.getFormat();
+                PCMEssenceReader.SampleFormat firstFormat = this.sources.get(0).getFormat();
+                if ((long) format.getSampleRateNumerator() * firstFormat.getSampleRateDenominator()
+                        != (long) firstFormat.getSampleRateNumerator() * format.getSampleRateDenominator()) {
+                    throw new IMFException(String.format("Inputs of macro %s have different sampling rates %d/%d and %d/%d", audioRoutingMixingMacro.getName(),
+                            firstFormat.getSampleRateNumerator(), firstFormat.getSampleRateDenominator(),
+                            format.getSampleRateNumerator(), format.getSampleRateDenominator()));
+                }
+            }
+        }
+
+        /**
+         * The rendered duration is that of the shortest source, as the sources of a Composition have the same duration
+         */
+        private long getSampleCount() {
+            long sampleCount = this.sources.isEmpty() ? 0 : Long.MAX_VALUE;
+            for (AudioSource source : this.sources) {
+                sampleCount = Math.min(sampleCount, source.getSampleCount());
+            }
+            return sampleCount;
+        }
+
+        private int getSampleRate() {
+            if (this.sources.isEmpty()) {
+                return 0;
+            }
+            PCMEssenceReader.SampleFormat format = this.sources.get(0).getFormat();
+            if (format.getSampleRateNumerator() % format.getSampleRateDenominator() != 0) {
+                throw new IMFException(String.format("Sampling rate %d/%d is not an integer", format.getSampleRateNumerator(), format.getSampleRateDenominator()));
+            }
+            return format.getSampleRateNumerator() / format.getSampleRateDenominator();
+        }
+
+        private static double getLinearGain(@Nullable BigDecimal gain) {
+            return (gain == null) ? 1.0 : Math.pow(10.0, gain.doubleValue() / 20.0);
+        }
+    }
+
+    /**
+     * A channel of an audio source that is an input of a macro
+     */
+    @Immutable
+    public static final class ChannelInput {
+        private final AudioSource audioSource;
+        private final int channel;
+
+        /**
+         * Constructor for a ChannelInput
+         * @param audioSource the audio source
+         * @param channel the zero based channel of the audio source
+         */
+        public ChannelInput(@Nonnull AudioSource audioSource, int channel) {
+            if (channel < 0 || channel >= audioSource.getFormat().getChannelCount()) {
+                throw new IllegalArgumentException(String.format("channel = %d is not a channel of a source of %d channels",
+                        channel, audioSource.getFormat().getChannelCount()));
+            }
+            this.audioSource = audioSource;
+            this.channel = channel;
+        }
+
+        public AudioSource getAudioSource() {
+            return audioSource;
+        }
+
+        public int getChannel() {
+            return channel;
+        }
+    }
+
+    /**
+     * A timeline of PCM samples made of ranges of samples of audio track files with the same layout, such as the
+     * resources of an audio virtual track
+     */
+    @Immutable
+    public static final class AudioSource {
+        private final PCMEssenceReader[] readers;
+        private final long[] segmentFirstSamples;
+        private final long[] readerFirstSamples;
+        private final long sampleCount;
+
+        private AudioSource(List<PCMEssenceReader> readers, List<Long> readerFirstSamples, List<Long> segmentSampleCounts) {
+            this.readers = readers.toArray(new PCMEssenceReader[0]);
+            this.segmentFirstSamples = new long[readers.size()];
+            this.readerFirstSamples = new long[readers.size()];
+            long sampleCount = 0;
+            for (int i = 0; i < this.readers.length; i++) {
+                PCMEssenceReader.SampleFormat format = this.readers[i].getFormat();
+                PCMEssenceReader.SampleFormat firstFormat = this.readers[0].getFormat();
+                if (format.getChannelCount() != firstFormat.getChannelCount() || format.getBlockAlign() != firstFormat.getBlockAlign()
+                        || format.getSampleRateNumerator() != firstFormat.getSampleRateNumerator()
+                        || format.getSampleRateDenominator() != firstFormat.getSampleRateDenominator()) {
+                    throw new IMFException("Resources of an audio source have different channel counts, block aligns or sampling rates");
+                }
+                this.segmentFirstSamples[i] = sampleCount;
+                this.readerFirstSamples[i] = readerFirstSamples.get(i);
+                sampleCount += segmentSampleCounts.get(i);
+            }
+            this.sampleCount = sampleCount;
+        }
+
+        /**
+         * A factory method for an audio source made of all the samples of a track file
+         * @param pcmEssenceReader the reader of the track file
+         * @return the audio source
+         */
+        public static AudioSource fromTrackFile(@Nonnull PCMEssenceReader pcmEssenceReader) {
+            return new AudioSource(Collections.singletonList(pcmEssenceReader), Collections.singletonList(0L),
+                    Collections.singletonList(pcmEssenceReader.getSampleCount()));
+        }
+
+        /**
+         * A factory method for an audio source made of the resources of an audio virtual track
+         * @param virtualTrack the audio virtual track
+         * @param trackFilePaths the paths of the track files of the virtual track by track file ID
+         * @return the audio source
+         * @throws IOException - any I/O related error is exposed through an IOException
+         * @throws IMFException - if a track file is missing, or if a resource is not a whole number of samples
+         */
+        public static AudioSource fromVirtualTrack(@Nonnull IMFEssenceComponentVirtualTrack virtualTrack, @Nonnull Map<UUID, Path> trackFilePaths)
+                throws IOException {
+            return fromVirtualTrack(virtualTrack, trackFilePaths, new HashMap<>());
+        }
+
+        private static AudioSource fromVirtualTrack(IMFEssenceComponentVirtualTrack virtualTrack, Map<UUID, Path> trackFilePaths,
+                                                    Map<UUID, PCMEssenceReader> readers) throws IOException {
+            List<PCMEssenceReader> segmentReaders = new ArrayList<>();
+            List<Long> readerFirstSamples = new ArrayList<>();
+            List<Long> segmentSampleCounts = new ArrayList<>();
+            for (IMFTrackFileResourceType resource : virtualTrack.getTrackFileResourceList()) {
+                UUID trackFileId = UUIDHelper.fromUUIDAsURNStringToUUID(resource.getTrackFileId());
+                PCMEssenceReader reader = readers.get(trackFileId);
+                if (reader == null) {
+                    Path trackFilePath = trackFilePaths.get(trackFileId);
+                    if (trackFilePath == null) {
+                        throw new IMFException(String.format("Track file %s of virtual track %s is missing", trackFileId, virtualTrack.getTrackID()));
+                    }
+                    reader = PCMEssenceReader.fromPath(trackFilePath);
+                    readers.put(trackFileId, reader);
+                }
+                PCMEssenceReader.SampleFormat format = reader.getFormat();
+                long entryPoint = toSamples(resource.getEntryPoint(), resource.getEditRate(), format, resource.getId());
+                long sourceDuration = toSamples(resource.getSourceDuration(), resource.getEditRate(), format, resource.getId());
+                if (entryPoint + sourceDuration > reader.getSampleCount()) {
+                    throw new IMFException(String.format("Resource %s ends at sample %d beyond the %d samples of track file %s",
+                            resource.getId(), entryPoint + sourceDuration, reader.getSampleCount(), trackFileId));
+                }
+                for (long repeat = 0; repeat < resource.getRepeatCount().longValue(); repeat++) {
+                    segmentReaders.add(reader);
+                    readerFirstSamples.add(entryPoint);
+                    segmentSampleCounts.add(sourceDuration);
+                }
+            }
+            if (segmentReaders.isEmpty()) {
+                throw new IMFException(String.format("Virtual track %s does not have resources", virtualTrack.getTrackID()));
+            }
+            return new AudioSource(segmentReaders, readerFirstSamples, segmentSampleCounts);
+        }
+
+        private static long toSamples(BigInteger editUnits, Composition.EditRate editRate, PCMEssenceReader.SampleFormat format, String resourceId) {
+            BigInteger[] samples = editUnits
+                    .multiply(BigInteger.valueOf(format.getSampleRateNumerator()))
+                    .multiply(BigInteger.valueOf(editRate.getDenominator()))
+                    .divideAndRemainder(BigInteger.valueOf(format.getSampleRateDenominator()).multiply(BigInteger.valueOf(editRate.getNumerator())));
+            if (samples[1].signum() != 0) {
+                throw new IMFException(String.format("%s edit units at %d/%d of resource %s are not a whole number of samples at %d/%d",
+                        editUnits, editRate.getNumerator(), editRate.getDenominator(), resourceId,
+                        format.getSampleRateNumerator(), format.getSampleRateDenominator()));
+            }
+            return samples[0].longValueExact();
+        }
+
+        public PCMEssenceReader.SampleFormat getFormat() {
+            return readers[0].getFormat();
+        }
+
+        public long getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Getter for the channel labels of the audio source, those of its first track file
+         * @return an array with one entry per channel, null for channels without a label
+         */
+        public AudioChannelLabelSubDescriptor.AudioChannelLabelSubDescriptorBO[] getAudioChannelLabels() {
+            return readers[0].getAudioChannelLabels();
+        }
+
+        /**
+         * A method that reads a range of samples of all channels
+         * @param firstSample the zero based first sample of the audio source
+         * @param count the number of samples to read
+         * @return the samples as interleaved little-endian PCM
+         * @throws IOException - any I/O related error is exposed through an IOException
+         */
+        public byte[] readSamples(long firstSample, int count) throws IOException {
+            if (firstSample < 0 || count < 0 || firstSample + count > sampleCount) {
+                throw new IllegalArgumentException(String.format("Samples [%d, %d) are outside the range [0, %d) of the audio source",
+                        firstSample, firstSample + count, sampleCount));
+            }
+            int segment = Arrays.binarySearch(segmentFirstSamples, firstSample);
+            if (segment < 0) {
+                segment = -segment - 2;
+            }
+            int blockAlign = getFormat().getBlockAlign();
+            byte[] samples = null;
+            int position = 0;
+            long sample = firstSample;
+            while (sample < firstSample + count) {
+                long segmentEnd = (segment + 1 < segmentFirstSamples.length) ? segmentFirstSamples[segment + 1] : sampleCount;
+                int pieceSampleCount = (int) Math.min(segmentEnd - sample, firstSample + count - sample);
+                if (pieceSampleCount > 0) {
+                    byte[] piece = readers[segment].readSamples(readerFirstSamples[segment] + sample - segmentFirstSamples[segment], pieceSampleCount);
+                    if (pieceSampleCount == count) {
+                        return piece;
+                    }
+                    if (samples == null) {
+                        samples = new byte[count * blockAlign];
+                    }
+                    System.arraycopy(piece, 0, samples, position, piece.length);
+                    position += piece.length;
+                    sample += pieceSampleCount;
+                }
+                segment++;
+            }
+            return (samples != null) ? samples : new byte[0];
+        }
+    }
+
+    /**
+     * The result of the rendering of a macro
+     */
+    @Immutable
+    public static final class RenderResult {
+        private final List<String> outputHandles;
+        private final long sampleCount;
+        private final int sampleRate;
+        private final int bitsPerSample;
+        private final long clippedSampleCount;
+
+        private RenderResult(List<String> outputHandles, long sampleCount, int sampleRate, int bitsPerSample, long clippedSampleCount) {
+            this.outputHandles = Collections.unmodifiableList(new ArrayList<>(outputHandles));
+            this.sampleCount = sampleCount;
+            this.sampleRate = sampleRate;
+            this.bitsPerSample = bitsPerSample;
+            this.clippedSampleCount = clippedSampleCount;
+        }
+
+        /**
+         * Getter for the handles of the rendered channels, in the order in which they are interleaved
+         * @return a list of output handles
+         */
+        public List<String> getOutputHandles() {
+            return outputHandles;
+        }
+
+        public long getSampleCount() {
+            return sampleCount;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public int getBitsPerSample() {
+            return bitsPerSample;
+        }
+
+        /**
+         * Getter for the number of rendered samples, over all channels, that were clipped to full scale
+         * @return the number of clipped samples
+         */
+        public long getClippedSampleCount() {
+            return clippedSampleCount;
+        }
+    }
+}
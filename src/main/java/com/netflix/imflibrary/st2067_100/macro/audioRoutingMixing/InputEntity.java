@@ -20,6 +20,7 @@ package com.netflix.imflibrary.st2067_100.macro.audioRoutingMixing;
 
 import com.netflix.imflibrary.st2067_100.macro.Sequence;
 
+import jakarta.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.math.BigDecimal;
 
@@ -30,4 +31,12 @@ public class InputEntity extends Sequence {
         super(annotaion, handle);
         this.gain = gain;
     }
+
+    /**
+     * Getter for the gain applied to this input
+     * @return the gain in dB, null when the input is not attenuated
+     */
+    public @Nullable BigDecimal getGain() {
+        return gain;
+    }
 }
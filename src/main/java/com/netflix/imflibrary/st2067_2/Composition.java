@@ -26,6 +26,7 @@ import com.netflix.imflibrary.exceptions.IMFException;
 import com.netflix.imflibrary.st0377.HeaderPartition;
 import com.netflix.imflibrary.utils.ErrorLogger;
 import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.RationalTime;
 import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
 import com.netflix.imflibrary.utils.Utilities;
 import org.slf4j.Logger;
@@ -268,6 +269,9 @@ public final class Composition {
         protected final String sequenceType;
         protected final List<? extends IMFBaseResourceType> resources;
         protected final Composition.EditRate compositionEditRate;
+        /* Lazily computed from immutable state, a race at worst computes the same values twice */
+        private volatile List<? extends IMFBaseResourceType> normalizedResources = null;
+        private volatile Long timelineFingerprint = null;
 
         /**
          * Constructor for a VirtualTrack object
@@ -314,13 +318,19 @@ public final class Composition {
         /**
          * A method to return the duration of this VirtualTrack
          * @return a long integer representing the duration of this VirtualTrack in Track Edit Rate units
+         * @throws IMFException with a FATAL error if the duration does not fit in a long integer
          */
         public long getDurationInTrackEditRateUnits(){
             long duration = 0L;
             for(IMFBaseResourceType imfBaseResourceType : this.resources){
                 // Only handle TrackFileResource sequences currently
                 if (imfBaseResourceType instanceof IMFTrackFileResourceType) {
-                    duration += imfBaseResourceType.getSourceDuration().longValue() * imfBaseResourceType.getRepeatCount().longValue();
+                    try {
+                        duration = Math.addExact(duration, imfBaseResourceType.getDuration());
+                    }
+                    catch (ArithmeticException e) {
+                        throw durationOverflowException("in Track Edit Rate units", e);
+                    }
                 }
             }
             return duration;
@@ -329,16 +339,68 @@ public final class Composition {
         /**
          * A method to return the duration of this VirtualTrack
          * @return a long integer representing the duration of this VirtualTrack in Composition Edit Rate units
+         * @throws IMFException with a FATAL error if the duration does not fit in a long integer
          */
         public long getDuration(){
             long duration = getDurationInTrackEditRateUnits();
             Composition.EditRate resourceEditRate = this.resources.get(0).getEditRate();
-            long durationInCompositionEditUnits = Math.round((double) duration * (((double)this.compositionEditRate.getNumerator()/this.compositionEditRate.getDenominator()) / ((double)resourceEditRate.getNumerator()/resourceEditRate.getDenominator())));
-            return durationInCompositionEditUnits;
+            try {
+                return RationalTime.convertEditUnits(duration,
+                        resourceEditRate.getNumerator(), resourceEditRate.getDenominator(),
+                        this.compositionEditRate.getNumerator(), this.compositionEditRate.getDenominator());
+            }
+            catch (ArithmeticException e) {
+                throw durationOverflowException("in Composition Edit Rate units", e);
+            }
+        }
+
+        private IMFException durationOverflowException(String units, ArithmeticException e) {
+            IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+            String message = String.format("The duration of the VirtualTrack represented by ID %s %s cannot be represented as a 64-bit integer: %s",
+                    this.trackID, units, e.getMessage());
+            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, message);
+            return new IMFException(message, e, imfErrorLogger);
         }
 
         /**
-         * A method to determine the equivalence of any 2 virtual tracks.
+         * A method that returns a fingerprint of the timeline represented by this VirtualTrack. The fingerprint covers the
+         * sequence type and every field compared by {@link #equivalent(VirtualTrack)}, computed over the normalized
+         * resource list for essence tracks, so that 2 equivalent virtual tracks always have the same fingerprint and
+         * virtual tracks with different fingerprints are never equivalent. The fingerprint is computed once.
+         *
+         * @return a 64-bit fingerprint of the timeline of this VirtualTrack
+         */
+        public long getTimelineFingerprint() {
+            Long fingerprint = this.timelineFingerprint;
+            if (fingerprint == null) {
+                long hash = IMFBaseResourceType.fingerprint(0xcbf29ce484222325L, this.sequenceType.hashCode());
+                List<? extends IMFBaseResourceType> timelineResources = this.resources;
+                if (this instanceof IMFEssenceComponentVirtualTrack && !this.resources.isEmpty()) {
+                    hash = IMFBaseResourceType.fingerprint(hash, this.getDuration());
+                    timelineResources = getNormalizedResources();
+                }
+                hash = IMFBaseResourceType.fingerprint(hash, timelineResources.size());
+                for (IMFBaseResourceType resource : timelineResources) {
+                    hash = resource.timelineFingerprint(hash);
+                }
+                fingerprint = hash;
+                this.timelineFingerprint = fingerprint;
+            }
+            return fingerprint;
+        }
+
+        private List<? extends IMFBaseResourceType> getNormalizedResources() {
+            List<? extends IMFBaseResourceType> normalized = this.normalizedResources;
+            if (normalized == null) {
+                normalized = this.normalizeResourceList(IMFEssenceComponentVirtualTrack.class.cast(this).getTrackFileResourceList());
+                this.normalizedResources = normalized;
+            }
+            return normalized;
+        }
+
+        /**
+         * A method to determine the equivalence of any 2 virtual tracks. Virtual tracks are first compared by their
+         * timeline fingerprints, and their resources are only compared when the fingerprints match.
          *
          * @param other - the object to compare against
          * @return boolean indicating if the 2 virtual tracks are equivalent or represent the same timeline
@@ -350,16 +412,21 @@ public final class Composition {
                 return false;
             }
 
+            /* Marker tracks are compared resource by resource against the resources of this track, so their fingerprints
+               are only comparable when both tracks have the same number of resources */
+            if ((this instanceof IMFEssenceComponentVirtualTrack || this.resources.size() == other.resources.size())
+                    && this.getTimelineFingerprint() != other.getTimelineFingerprint()) {
+                return false;
+            }
+
             List<? extends IMFBaseResourceType> otherResourceList = other.resources;
             boolean result = false;
             if(this instanceof IMFEssenceComponentVirtualTrack){
                 if(this.getDuration() != other.getDuration()){
                     return false;
                 }
-                IMFEssenceComponentVirtualTrack thisVirtualTrack = IMFEssenceComponentVirtualTrack.class.cast(this);
-                IMFEssenceComponentVirtualTrack otherVirtualTrack = IMFEssenceComponentVirtualTrack.class.cast(other);
-                List<IMFTrackFileResourceType> normalizedResourceList = this.normalizeResourceList(thisVirtualTrack.getTrackFileResourceList());
-                List<IMFTrackFileResourceType> normalizedOtherResourceList = this.normalizeResourceList(otherVirtualTrack.getTrackFileResourceList());
+                List<? extends IMFBaseResourceType> normalizedResourceList = this.getNormalizedResources();
+                List<? extends IMFBaseResourceType> normalizedOtherResourceList = other.getNormalizedResources();
                 if(normalizedResourceList.size() != normalizedOtherResourceList.size()){
                     return false;
                 }
@@ -393,16 +460,12 @@ public final class Composition {
                         && curr.getEditRate().equals(prev.getEditRate())
                         && curr.getEntryPoint().longValue() == (prev.getEntryPoint().longValue() + prev.getSourceDuration().longValue())){
                     //Candidate for normalization - We could create one resource representing the timelines of prev and curr
-                    List<Long> editRate = new ArrayList<>();
-                    editRate.add(prev.getEditRate().getNumerator());
-                    editRate.add(prev.getEditRate().getDenominator());
-
                     if(prev.getRepeatCount().longValue() > 1) {
-                        BigInteger newRepeatCount = new BigInteger(String.format("%d", prev.getRepeatCount().longValue() - 1L));
+                        BigInteger newRepeatCount = prev.getRepeatCount().subtract(BigInteger.ONE);
                         IMFTrackFileResourceType modifiedPrevTrackFileResourceType =
                                 new IMFTrackFileResourceType(prev.getId(),
                                         prev.getTrackFileId(),
-                                        editRate,
+                                        prev.getEditRate(),
                                         prev.getIntrinsicDuration(),
                                         prev.getEntryPoint(),
                                         prev.getSourceDuration(),
@@ -413,28 +476,25 @@ public final class Composition {
                         normalizedResourceList.add(modifiedPrevTrackFileResourceType);
                     }
 
-                    BigInteger newSourceDuration = new BigInteger(String.format("%d", curr.getSourceDuration().longValue() + prev.getSourceDuration().longValue()));
+                    BigInteger newSourceDuration = BigInteger.valueOf(Math.addExact(curr.getSourceDuration().longValueExact(), prev.getSourceDuration().longValueExact()));
                     IMFTrackFileResourceType mergedTrackFileResourceType = new IMFTrackFileResourceType(prev.getId(),
                             prev.getTrackFileId(),
-                            editRate,
+                            prev.getEditRate(),
                             prev.getIntrinsicDuration(),
                             prev.getEntryPoint(),
                             newSourceDuration,
-                            new BigInteger("1"),
+                            BigInteger.ONE,
                             prev.getSourceEncoding(),
                             prev.getHash(),
                             prev.getHashAlgorithm());
                     prev = mergedTrackFileResourceType;
 
                     if(curr.getRepeatCount().longValue() > 1) {
-                        BigInteger newRepeatCount = new BigInteger(String.format("%d", curr.getRepeatCount().longValue() - 1L));
-                        editRate = new ArrayList<>();
-                        editRate.add(curr.getEditRate().getNumerator());
-                        editRate.add(curr.getEditRate().getDenominator());
+                        BigInteger newRepeatCount = curr.getRepeatCount().subtract(BigInteger.ONE);
                         IMFTrackFileResourceType modifiedCurrTrackFileResourceType =
                                 new IMFTrackFileResourceType(curr.getId(),
                                         curr.getTrackFileId(),
-                                        editRate,
+                                        curr.getEditRate(),
                                         curr.getIntrinsicDuration(),
                                         curr.getEntryPoint(),
                                         curr.getSourceDuration(),
@@ -0,0 +1,381 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st2067_2;
+
+import com.netflix.imflibrary.utils.RationalTime;
+import com.netflix.imflibrary.utils.UUIDHelper;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An immutable index of the timeline of a Composition that resolves a position on a virtual track, expressed in
+ * Composition edit units, to the resource that plays at that position. Every virtual track is indexed once, with the
+ * start of each resource stored both as an exact rational time and as the first Composition edit unit that falls within
+ * the resource, so that a lookup is a binary search over the resources of the track followed by a constant number of
+ * exact rational operations, irrespective of the number of resources, segments or repetitions in the Composition.
+ *
+ * A Composition edit unit N belongs to the resource that is playing at time N / CompositionEditRate. Where the edit
+ * rate of a resource differs from the Composition edit rate, the position within the resource is the resource edit unit
+ * that is playing at that time.
+ */
+@Immutable
+public final class CompositionTimeline {
+    private final Composition.EditRate compositionEditRate;
+    private final Map<UUID, TrackIndex> trackIndexMap;
+
+    /**
+     * Constructor for a CompositionTimeline
+     *
+     * @param compositionEditRate the edit rate of the Composition
+     * @param virtualTracks the virtual tracks of the Composition
+     */
+    public CompositionTimeline(@Nonnull Composition.EditRate compositionEditRate,
+                               @Nonnull Collection<? extends Composition.VirtualTrack> virtualTracks) {
+        this.compositionEditRate = compositionEditRate;
+        Map<UUID, TrackIndex> trackIndexMap = new LinkedHashMap<>();
+        for (Composition.VirtualTrack virtualTrack : virtualTracks) {
+            trackIndexMap.put(virtualTrack.getTrackID(), new TrackIndex(compositionEditRate, virtualTrack.getResourceList()));
+        }
+        this.trackIndexMap = Collections.unmodifiableMap(trackIndexMap);
+    }
+
+    /**
+     * Getter for the edit rate in which positions on this timeline are expressed
+     *
+     * @return the edit rate of the Composition
+     */
+    public Composition.EditRate getCompositionEditRate() {
+        return this.compositionEditRate;
+    }
+
+    /**
+     * Getter for the IDs of the virtual tracks indexed by this timeline
+     *
+     * @return an unmodifiable list of virtual track IDs, in the order of the virtual tracks of the Composition
+     */
+    public List<UUID> getVirtualTrackIDs() {
+        return Collections.unmodifiableList(new ArrayList<>(this.trackIndexMap.keySet()));
+    }
+
+    /**
+     * A method to return the duration of a virtual track
+     *
+     * @param virtualTrackID the ID of the virtual track
+     * @return the number of Composition edit units that the virtual track spans, or -1 if the timeline does not contain
+     * a virtual track with that ID
+     */
+    public long getDuration(@Nonnull UUID virtualTrackID) {
+        TrackIndex trackIndex = this.trackIndexMap.get(virtualTrackID);
+        return (trackIndex == null) ? -1L : trackIndex.getDuration();
+    }
+
+    /**
+     * A method to resolve a position on a virtual track to the resource that plays at that position
+     *
+     * @param virtualTrackID the ID of the virtual track
+     * @param compositionEditUnit the position on the virtual track, in Composition edit units
+     * @return the resolved position, or null if the timeline does not contain a virtual track with that ID or the
+     * position lies outside the virtual track
+     */
+    @Nullable
+    public TimelineEntry getEntry(@Nonnull UUID virtualTrackID, long compositionEditUnit) {
+        TrackIndex trackIndex = this.trackIndexMap.get(virtualTrackID);
+        if (trackIndex == null) {
+            return null;
+        }
+        int resourceIndex = trackIndex.findResourceIndex(compositionEditUnit);
+        return (resourceIndex < 0) ? null : trackIndex.getEntry(resourceIndex, compositionEditUnit);
+    }
+
+    /**
+     * A method to resolve a range of a virtual track to the resources that play within that range. The first entry is
+     * resolved at the start of the range and every subsequent entry at the first Composition edit unit of its resource.
+     *
+     * @param virtualTrackID the ID of the virtual track
+     * @param startEditUnit the first Composition edit unit of the range, inclusive
+     * @param endEditUnit the last Composition edit unit of the range, exclusive
+     * @return an unmodifiable list of resolved positions, one per resource that overlaps the range, empty if the timeline
+     * does not contain a virtual track with that ID or the range does not overlap the virtual track
+     */
+    public List<TimelineEntry> getEntries(@Nonnull UUID virtualTrackID, long startEditUnit, long endEditUnit) {
+        TrackIndex trackIndex = this.trackIndexMap.get(virtualTrackID);
+        if (trackIndex == null) {
+            return Collections.emptyList();
+        }
+        long start = Math.max(startEditUnit, 0L);
+        long end = Math.min(endEditUnit, trackIndex.getDuration());
+        List<TimelineEntry> entries = new ArrayList<>();
+        if (start >= end) {
+            return Collections.unmodifiableList(entries);
+        }
+        int resourceIndex = trackIndex.findResourceIndex(start);
+        long position = start;
+        while (resourceIndex >= 0 && resourceIndex < trackIndex.size() && position < end) {
+            entries.add(trackIndex.getEntry(resourceIndex, position));
+            resourceIndex = trackIndex.nextNonEmptyIndex(resourceIndex);
+            if (resourceIndex >= 0) {
+                position = trackIndex.getCompositionStart(resourceIndex);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * This class is an immutable representation of a position on a virtual track resolved against the resource that plays
+     * at that position.
+     */
+    @Immutable
+    public static final class TimelineEntry {
+        private final IMFBaseResourceType resource;
+        private final int resourceIndex;
+        private final UUID trackFileID;
+        private final long compositionEditUnit;
+        private final long resourceStartEditUnit;
+        private final long resourceEndEditUnit;
+        private final long repeatIndex;
+        private final long sourceOffset;
+
+        private TimelineEntry(IMFBaseResourceType resource, int resourceIndex, long compositionEditUnit,
+                              long resourceStartEditUnit, long resourceEndEditUnit, long repeatIndex, long sourceOffset) {
+            this.resource = resource;
+            this.resourceIndex = resourceIndex;
+            this.trackFileID = (resource instanceof IMFTrackFileResourceType)
+                    ? UUIDHelper.fromUUIDAsURNStringToUUID(((IMFTrackFileResourceType) resource).getTrackFileId()) : null;
+            this.compositionEditUnit = compositionEditUnit;
+            this.resourceStartEditUnit = resourceStartEditUnit;
+            this.resourceEndEditUnit = resourceEndEditUnit;
+            this.repeatIndex = repeatIndex;
+            this.sourceOffset = sourceOffset;
+        }
+
+        /**
+         * Getter for the resource that plays at this position
+         *
+         * @return the resource
+         */
+        public IMFBaseResourceType getResource() {
+            return this.resource;
+        }
+
+        /**
+         * Getter for the index of the resource within the resource list of the virtual track
+         *
+         * @return the index of the resource
+         */
+        public int getResourceIndex() {
+            return this.resourceIndex;
+        }
+
+        /**
+         * Getter for the ID of the track file referenced by the resource
+         *
+         * @return the track file ID, or null if the resource is not a track file resource
+         */
+        @Nullable
+        public UUID getTrackFileID() {
+            return this.trackFileID;
+        }
+
+        /**
+         * Getter for the position that was resolved
+         *
+         * @return the position on the virtual track in Composition edit units
+         */
+        public long getCompositionEditUnit() {
+            return this.compositionEditUnit;
+        }
+
+        /**
+         * Getter for the first Composition edit unit that falls within the resource
+         *
+         * @return the start of the resource on the virtual track in Composition edit units, inclusive
+         */
+        public long getResourceStartEditUnit() {
+            return this.resourceStartEditUnit;
+        }
+
+        /**
+         * Getter for the first Composition edit unit that falls after the resource
+         *
+         * @return the end of the resource on the virtual track in Composition edit units, exclusive
+         */
+        public long getResourceEndEditUnit() {
+            return this.resourceEndEditUnit;
+        }
+
+        /**
+         * Getter for the entry point of the resource
+         *
+         * @return the entry point of the resource in resource edit units
+         */
+        public long getEntryPoint() {
+            return this.resource.getEntryPoint().longValue();
+        }
+
+        /**
+         * Getter for the zero-based repetition of the resource that plays at this position
+         *
+         * @return the repeat index
+         */
+        public long getRepeatIndex() {
+            return this.repeatIndex;
+        }
+
+        /**
+         * Getter for the offset of this position from the entry point of the resource, within the current repetition
+         *
+         * @return the offset in resource edit units, in the range [0, SourceDuration)
+         */
+        public long getSourceOffset() {
+            return this.sourceOffset;
+        }
+
+        /**
+         * Getter for the edit unit of the underlying track file that plays at this position
+         *
+         * @return the entry point plus the source offset, in resource edit units
+         */
+        public long getSourceEditUnit() {
+            return getEntryPoint() + this.sourceOffset;
+        }
+
+        /**
+         * A method that returns a string representation of a TimelineEntry object
+         *
+         * @return string representing the object
+         */
+        @Override
+        public String toString() {
+            return String.format("TimelineEntry{compositionEditUnit=%d, resourceId=%s, trackFileId=%s, resourceRange=[%d, %d), " +
+                            "repeatIndex=%d, sourceEditUnit=%d}", this.compositionEditUnit, this.resource.getId(), this.trackFileID,
+                    this.resourceStartEditUnit, this.resourceEndEditUnit, this.repeatIndex, getSourceEditUnit());
+        }
+    }
+
+    /**
+     * The index of a single virtual track. starts[i] is the exact start time of resource i in seconds, and
+     * compositionStarts[i] is the first Composition edit unit whose start time is not before the start of resource i,
+     * i.e. ceil(starts[i] * CompositionEditRate).
+     */
+    private static final class TrackIndex {
+        private final Composition.EditRate compositionEditRate;
+        private final RationalTime compositionEditUnitDuration;
+        private final List<? extends IMFBaseResourceType> resources;
+        private final RationalTime[] starts;
+        private final long[] compositionStarts;
+
+        private TrackIndex(Composition.EditRate compositionEditRate, List<? extends IMFBaseResourceType> resources) {
+            this.compositionEditRate = compositionEditRate;
+            this.compositionEditUnitDuration = RationalTime.valueOf(compositionEditRate.getDenominator(), compositionEditRate.getNumerator());
+            this.resources = resources;
+            int size = resources.size();
+            this.starts = new RationalTime[size + 1];
+            this.compositionStarts = new long[size + 1];
+
+            RationalTime start = RationalTime.ZERO;
+            for (int i = 0; i < size; i++) {
+                this.starts[i] = start;
+                this.compositionStarts[i] = start.divide(this.compositionEditUnitDuration).ceil();
+
+                IMFBaseResourceType resource = resources.get(i);
+                Composition.EditRate resourceEditRate = getResourceEditRate(resource, compositionEditRate);
+                start = start.add(RationalTime.fromEditUnits(resource.getDuration(), resourceEditRate.getNumerator(), resourceEditRate.getDenominator()));
+            }
+            this.starts[size] = start;
+            this.compositionStarts[size] = start.divide(this.compositionEditUnitDuration).ceil();
+        }
+
+        private static Composition.EditRate getResourceEditRate(IMFBaseResourceType resource, Composition.EditRate compositionEditRate) {
+            return (resource.getEditRate() != null) ? resource.getEditRate() : compositionEditRate;
+        }
+
+        private int size() {
+            return this.resources.size();
+        }
+
+        private long getDuration() {
+            return this.compositionStarts[this.resources.size()];
+        }
+
+        private long getCompositionStart(int resourceIndex) {
+            return this.compositionStarts[resourceIndex];
+        }
+
+        /**
+         * Returns the index of the last resource that starts at or before the provided edit unit, skipping resources that
+         * do not span a whole Composition edit unit, or -1 if the edit unit lies outside the track.
+         */
+        private int findResourceIndex(long compositionEditUnit) {
+            int size = this.resources.size();
+            if (size == 0 || compositionEditUnit < 0 || compositionEditUnit >= this.compositionStarts[size]) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(this.compositionStarts, 0, size, compositionEditUnit);
+            if (index >= 0) {
+                /* Several resources may map to the same first edit unit, the last of them is playing */
+                while (index + 1 < size && this.compositionStarts[index + 1] == compositionEditUnit) {
+                    index++;
+                }
+                return index;
+            }
+            return -index - 2;
+        }
+
+        /**
+         * Returns the index of the next resource that spans at least one Composition edit unit, or -1 if there is none.
+         */
+        private int nextNonEmptyIndex(int resourceIndex) {
+            int size = this.resources.size();
+            for (int index = resourceIndex + 1; index < size; index++) {
+                if (this.compositionStarts[index] < this.compositionStarts[index + 1]) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private TimelineEntry getEntry(int resourceIndex, long compositionEditUnit) {
+            IMFBaseResourceType resource = this.resources.get(resourceIndex);
+            Composition.EditRate resourceEditRate = getResourceEditRate(resource, this.compositionEditRate);
+
+            /* elapsed = N / CompositionEditRate - start seconds, resource edit unit = floor(elapsed * ResourceEditRate) */
+            RationalTime elapsed = this.compositionEditUnitDuration.multiply(compositionEditUnit).subtract(this.starts[resourceIndex]);
+            long elapsedEditUnits = elapsed.multiply(RationalTime.valueOf(resourceEditRate.getNumerator(), resourceEditRate.getDenominator())).floor();
+
+            long sourceDuration = resource.getSourceDuration().longValueExact();
+            return new TimelineEntry(resource,
+                    resourceIndex,
+                    compositionEditUnit,
+                    this.compositionStarts[resourceIndex],
+                    this.compositionStarts[resourceIndex + 1],
+                    elapsedEditUnits / sourceDuration,
+                    elapsedEditUnits % sourceDuration);
+        }
+    }
+}
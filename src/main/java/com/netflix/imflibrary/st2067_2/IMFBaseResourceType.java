@@ -18,6 +18,7 @@
 
 package com.netflix.imflibrary.st2067_2;
 
+import com.netflix.imflibrary.IMFErrorLogger;
 import com.netflix.imflibrary.IMFErrorLoggerImpl;
 import com.netflix.imflibrary.exceptions.IMFException;
 
@@ -68,6 +69,33 @@ public abstract class IMFBaseResourceType {
 
     }
 
+    /**
+     * Constructor for a Base Resource with an already validated EditRate, used when deriving resources from existing ones
+     * so that the EditRate does not need to be unpacked and parsed again.
+     *
+     * @param id the urn:uuid of the Resource
+     * @param editRate the EditRate of the Resource
+     * @param intrinsicDuration the intrinsic duration of the Resource
+     * @param entryPoint the entry point of the Resource, 0 if null
+     * @param sourceDuration the source duration of the Resource, intrinsicDuration - entryPoint if null
+     * @param repeatCount the repeat count of the Resource, 1 if null
+     */
+    protected IMFBaseResourceType(String id,
+                                  Composition.EditRate editRate,
+                                  BigInteger intrinsicDuration,
+                                  BigInteger entryPoint,
+                                  BigInteger sourceDuration,
+                                  BigInteger repeatCount)
+    {
+        imfErrorLogger = new IMFErrorLoggerImpl();
+        this.id = id;
+        this.editRate = editRate;
+        this.intrinsicDuration = intrinsicDuration;
+        this.entryPoint = (entryPoint != null)? entryPoint: BigInteger.ZERO;
+        this.sourceDuration = (sourceDuration != null) ? sourceDuration: this.intrinsicDuration.subtract(this.entryPoint);
+        this.repeatCount = (repeatCount != null)? repeatCount: BigInteger.ONE;
+    }
+
     /**
      * Getter for the Resource ID
      * @return a string representing the urn:uuid of the Resource
@@ -120,12 +148,56 @@ public abstract class IMFBaseResourceType {
      * Getter for the Resource Duration
      * @return a Long integer representing this Resource's duration on the timeline
      *          in units of the Resource Edit Rate
+     * @throws IMFException with a FATAL error if the duration does not fit in a long integer
      */
     public long getDuration(){
-        return this.getSourceDuration().longValue() * this.getRepeatCount().longValue();
+        try {
+            return Math.multiplyExact(this.getSourceDuration().longValueExact(), this.getRepeatCount().longValueExact());
+        }
+        catch (ArithmeticException e) {
+            IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+            String message = String.format("The duration of the Resource represented by ID %s, SourceDuration %s x RepeatCount %s, exceeds the range of a 64-bit integer",
+                    this.id, this.getSourceDuration(), this.getRepeatCount());
+            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, message);
+            throw new IMFException(message, e, imfErrorLogger);
+        }
     }
 
 
+    /**
+     * A method that folds the fields compared by {@link #equivalent(IMFBaseResourceType)} into a timeline fingerprint, so
+     * that equivalent resources always produce the same fingerprint.
+     *
+     * @param fingerprint the fingerprint accumulated so far
+     * @return the fingerprint including this resource
+     */
+    long timelineFingerprint(long fingerprint)
+    {
+        fingerprint = fingerprint(fingerprint, editRate.hashCode());
+        fingerprint = fingerprint(fingerprint, entryPoint.hashCode());
+        fingerprint = fingerprint(fingerprint, intrinsicDuration.hashCode());
+        fingerprint = fingerprint(fingerprint, sourceDuration.hashCode());
+        return fingerprint(fingerprint, repeatCount.hashCode());
+    }
+
+    /**
+     * A helper method to fold a value into a 64-bit fingerprint, using an FNV-1a step followed by the finalizer of
+     * MurmurHash3 so that every bit of the value affects every bit of the fingerprint.
+     *
+     * @param fingerprint the fingerprint accumulated so far
+     * @param value the value to fold in
+     * @return the updated fingerprint
+     */
+    static long fingerprint(long fingerprint, long value)
+    {
+        long hash = (fingerprint ^ value) * 0x100000001b3L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
     /**
      * A method to determine the equivalence of any two Base Resource.
      * @param other - the object to compare against
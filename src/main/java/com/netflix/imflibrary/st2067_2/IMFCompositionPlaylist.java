@@ -61,6 +61,16 @@ public class IMFCompositionPlaylist {
 
     private final Map<UUID, ? extends Composition.VirtualTrack> virtualTrackMap;
     private final Map<UUID, List<Node>> essenceDescriptorDomNodeMap;
+    /*Indexes built at construction, keyed by track file ID, virtual track ID and track file ID respectively*/
+    private final Map<UUID, IMFSequenceType> trackFileSequenceMap;
+    private final Map<UUID, IMFSequenceType> virtualTrackSequenceMap;
+    private final Map<UUID, UUID> trackFileSourceEncodingMap;
+    /*Built on first use, since creating the DOMNodeObjectModels of the EssenceDescriptorList is expensive*/
+    private volatile Map<UUID, DOMNodeObjectModel> essenceDescriptorListMap = null;
+    /*Built on first use, indexes the timeline of every virtual track of the Composition*/
+    private volatile CompositionTimeline compositionTimeline = null;
+    /*Built on first use, groups the audio virtual tracks by the set of EssenceDescriptors referenced by their resources*/
+    private volatile Map<Set<DOMNodeObjectModel>, ? extends Composition.VirtualTrack> audioVirtualTracksMap = null;
 
     private final IMFErrorLogger imfErrorLogger;
     private final RegXMLLibDictionary regXMLLibDictionary;
@@ -232,10 +242,81 @@ public class IMFCompositionPlaylist {
         this.regXMLLibDictionary = new RegXMLLibDictionary();
         this.virtualTrackMap = this.getVirtualTracksMap(imfErrorLogger);
         this.essenceDescriptorDomNodeMap = Collections.unmodifiableMap(createEssenceDescriptorDomNodeMap());
+        this.trackFileSequenceMap = Collections.unmodifiableMap(createTrackFileSequenceMap());
+        this.virtualTrackSequenceMap = Collections.unmodifiableMap(createVirtualTrackSequenceMap());
+        this.trackFileSourceEncodingMap = Collections.unmodifiableMap(createTrackFileSourceEncodingMap());
 
         // Map<UUID, DOMNodeObjectModel> essenceDescriptorListMap= this.getEssenceDescriptorListMap(ignoreSet);
     }
 
+    /**
+     * A method that maps the ID of every track file referenced by the Composition to the first sequence, in
+     * segment and sequence order, that references it.
+     *
+     * @return a map of track file IDs to sequences
+     */
+    private Map<UUID, IMFSequenceType> createTrackFileSequenceMap() {
+        Map<UUID, IMFSequenceType> trackFileSequenceMap = new HashMap<>();
+        List<IMFSegmentType> segments = getSegmentList();
+        if (segments == null)
+            return trackFileSequenceMap;
+
+        for (IMFSegmentType segment : segments) {
+            List<IMFSequenceType> sequences = segment.getSequenceList();
+            if (sequences == null)
+                continue;
+
+            for (IMFSequenceType sequence : sequences) {
+                List<? extends IMFBaseResourceType> resourceList = sequence.getResourceList();
+                if (resourceList != null && !resourceList.isEmpty() && resourceList.get(0) instanceof IMFTrackFileResourceType) {
+                    for (IMFBaseResourceType baseResource : resourceList) {
+                        IMFTrackFileResourceType trackFileResource = IMFTrackFileResourceType.class.cast(baseResource);
+                        trackFileSequenceMap.putIfAbsent(UUIDHelper.fromUUIDAsURNStringToUUID(trackFileResource.getTrackFileId()), sequence);
+                    }
+                }
+            }
+        }
+        return trackFileSequenceMap;
+    }
+
+    /**
+     * A method that maps the ID of every virtual track of the Composition to its first sequence, in segment order.
+     *
+     * @return a map of virtual track IDs to sequences
+     */
+    private Map<UUID, IMFSequenceType> createVirtualTrackSequenceMap() {
+        Map<UUID, IMFSequenceType> virtualTrackSequenceMap = new HashMap<>();
+        List<IMFSegmentType> segments = getSegmentList();
+        if (segments == null)
+            return virtualTrackSequenceMap;
+
+        for (IMFSegmentType segment : segments) {
+            List<IMFSequenceType> sequences = segment.getSequenceList();
+            if (sequences == null)
+                continue;
+
+            for (IMFSequenceType sequence : sequences) {
+                virtualTrackSequenceMap.putIfAbsent(UUIDHelper.fromUUIDAsURNStringToUUID(sequence.getTrackId()), sequence);
+            }
+        }
+        return virtualTrackSequenceMap;
+    }
+
+    /**
+     * A method that maps the ID of every track file referenced by the track file resources of the Composition to the
+     * source encoding element of the first resource that references it.
+     *
+     * @return a map of track file IDs to source encoding element IDs
+     */
+    private Map<UUID, UUID> createTrackFileSourceEncodingMap() {
+        Map<UUID, UUID> trackFileSourceEncodingMap = new HashMap<>();
+        for (IMFTrackFileResourceType trackFileResource : getTrackFileResources()) {
+            trackFileSourceEncodingMap.putIfAbsent(UUIDHelper.fromUUIDAsURNStringToUUID(trackFileResource.getTrackFileId()),
+                    UUIDHelper.fromUUIDAsURNStringToUUID(trackFileResource.getSourceEncoding()));
+        }
+        return trackFileSourceEncodingMap;
+    }
+
 
 
 
@@ -463,6 +544,21 @@ public class IMFCompositionPlaylist {
         return Collections.unmodifiableMap(this.virtualTrackMap);
     }
 
+    /**
+     * Getter for the timeline index of this Composition, that resolves a position on any virtual track to the resource
+     * that plays at that position. The index is built on first use and shared by subsequent invocations.
+     *
+     * @return the {@link CompositionTimeline} of this Composition
+     */
+    public CompositionTimeline getCompositionTimeline() {
+        CompositionTimeline timeline = this.compositionTimeline;
+        if (timeline == null) {
+            timeline = new CompositionTimeline(getEditRate(), this.virtualTrackMap.values());
+            this.compositionTimeline = timeline;
+        }
+        return timeline;
+    }
+
     /**
      * Getter for the UUID corresponding to this Composition document
      *
@@ -506,87 +602,35 @@ public class IMFCompositionPlaylist {
     /**
      * Returns the sequence namespace for the provided track file id
      *
+     * @param trackFileID the ID of a track file referenced by the Composition
      * @return the Sequence Namespace, null if Track File ID not part of any essence virtual track
      */
     public String getSequenceNamespaceForTrackFileID(@Nonnull UUID trackFileID) {
-
-        List<IMFSegmentType> segments = getSegmentList();
-        if (segments == null)
-            return null;
-
-        for (IMFSegmentType segment : segments) {
-            List<IMFSequenceType> sequences = segment.getSequenceList();
-            if (sequences == null)
-                continue;
-
-            for (IMFSequenceType sequence : sequences) {
-                List<? extends IMFBaseResourceType> resourceList = sequence.getResourceList();
-                if (resourceList != null && !resourceList.isEmpty() && resourceList.get(0) instanceof IMFTrackFileResourceType) {
-                    for (IMFBaseResourceType baseResource : resourceList) {
-                        IMFTrackFileResourceType trackFileResource = IMFTrackFileResourceType.class.cast(baseResource);
-                        if (trackFileID.equals(UUIDHelper.fromUUIDAsURNStringToUUID(trackFileResource.getTrackFileId())))
-                            return sequence.namespace;
-                    }
-                }
-            }
-        }
-
-        return null;
+        IMFSequenceType sequence = this.trackFileSequenceMap.get(trackFileID);
+        return (sequence == null) ? null : sequence.namespace;
     }
 
 
     /**
-     * Returns the sequence namespace for the provided track file id
+     * Returns the sequence namespace for the provided virtual track id
      *
-     * @return the Sequence Namespace, null if Track File ID not part of any essence virtual track
+     * @param virtualTrackID the ID of a virtual track of the Composition
+     * @return the Sequence Namespace, null if the Composition does not contain a virtual track with that ID
      */
     public String getSequenceNamespaceForVirtualTrackID(@Nonnull UUID virtualTrackID) {
-
-        List<IMFSegmentType> segments = getSegmentList();
-        if (segments == null)
-            return null;
-
-        for (IMFSegmentType segment : segments) {
-            List<IMFSequenceType> sequences = segment.getSequenceList();
-            if (sequences == null)
-                continue;
-
-            for (IMFSequenceType sequence : sequences) {
-                UUID trackID = UUIDHelper.fromUUIDAsURNStringToUUID(sequence.getTrackId());
-                if (trackID.equals(virtualTrackID)) {
-                    return sequence.namespace;
-                }
-            }
-        }
-
-        return null;
+        IMFSequenceType sequence = this.virtualTrackSequenceMap.get(virtualTrackID);
+        return (sequence == null) ? null : sequence.namespace;
     }
 
     /**
-     * Returns the sequence namespace for the provided track file id
+     * Returns the sequence type for the provided virtual track id
      *
-     * @return the Sequence Namespace, null if Track File ID not part of any essence virtual track
+     * @param virtualTrackID the ID of a virtual track of the Composition
+     * @return the Sequence Type, null if the Composition does not contain a virtual track with that ID
      */
     public String getSequenceTypeForVirtualTrackID(@Nonnull UUID virtualTrackID) {
-
-        List<IMFSegmentType> segments = getSegmentList();
-        if (segments == null)
-            return null;
-
-        for (IMFSegmentType segment : segments) {
-            List<IMFSequenceType> sequences = segment.getSequenceList();
-            if (sequences == null)
-                continue;
-
-            for (IMFSequenceType sequence : sequences) {
-                UUID trackID = UUIDHelper.fromUUIDAsURNStringToUUID(sequence.getTrackId());
-                if (trackID.equals(virtualTrackID)) {
-                    return sequence.type;
-                }
-            }
-        }
-
-        return null;
+        IMFSequenceType sequence = this.virtualTrackSequenceMap.get(virtualTrackID);
+        return (sequence == null) ? null : sequence.type;
     }
 
 
@@ -807,16 +851,15 @@ public class IMFCompositionPlaylist {
      * A utility method to retrieve the EssenceDescriptor within a Composition for a Resource with given track file ID.
      *
      * @param trackFileId the track file id of the resource
-     * @return  the DOMNodeObjectModel representing the EssenceDescriptor
+     * @return  the DOMNodeObjectModel representing the EssenceDescriptor, null if no resource references the track file
      */
+    @Nullable
     public DOMNodeObjectModel getEssenceDescriptor(UUID trackFileId) {
-        IMFTrackFileResourceType imfTrackFileResourceType = this.getTrackFileResources()
-                .stream()
-                .filter(e -> UUIDHelper.fromUUIDAsURNStringToUUID(e.getTrackFileId()).equals(trackFileId))
-                .findFirst()
-                .get();
-
-        return this.getEssenceDescriptorListMap().get(UUIDHelper.fromUUIDAsURNStringToUUID(imfTrackFileResourceType.getSourceEncoding()));
+        UUID sourceEncoding = this.trackFileSourceEncodingMap.get(trackFileId);
+        if (sourceEncoding == null) {
+            return null;
+        }
+        return this.getEssenceDescriptorListMap().get(sourceEncoding);
     }
 
 
@@ -882,11 +925,20 @@ public class IMFCompositionPlaylist {
 
     /**
      * A utility method that will analyze the EssenceDescriptorList in a Composition and construct a HashMap mapping
-     * a UUID to a EssenceDescriptor.
+     * a UUID to a EssenceDescriptor. The map is created on first use and shared by subsequent invocations.
      *
      * @return a HashMap mapping the UUID to its corresponding EssenceDescriptor in the Composition
      */
     public Map<UUID, DOMNodeObjectModel> getEssenceDescriptorListMap() {
+        Map<UUID, DOMNodeObjectModel> essenceDescriptorMap = this.essenceDescriptorListMap;
+        if (essenceDescriptorMap == null) {
+            essenceDescriptorMap = createEssenceDescriptorListMap();
+            this.essenceDescriptorListMap = essenceDescriptorMap;
+        }
+        return essenceDescriptorMap;
+    }
+
+    private Map<UUID, DOMNodeObjectModel> createEssenceDescriptorListMap() {
         IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
         Map<UUID, DOMNodeObjectModel> essenceDescriptorMap = new HashMap<>();
         if (getEssenceDescriptorList() != null) {
@@ -916,7 +968,22 @@ public class IMFCompositionPlaylist {
     }
 
 
+    /**
+     * A method that groups the audio virtual tracks of this Composition by the set of EssenceDescriptors referenced by
+     * their resources. The map is created on first use and shared by subsequent invocations.
+     *
+     * @return an unmodifiable map of EssenceDescriptor sets to audio virtual tracks
+     */
     public Map<Set<DOMNodeObjectModel>, ? extends Composition.VirtualTrack> getAudioVirtualTracksMap() {
+        Map<Set<DOMNodeObjectModel>, ? extends Composition.VirtualTrack> audioMap = this.audioVirtualTracksMap;
+        if (audioMap == null) {
+            audioMap = createAudioVirtualTracksMap();
+            this.audioVirtualTracksMap = audioMap;
+        }
+        return audioMap;
+    }
+
+    private Map<Set<DOMNodeObjectModel>, ? extends Composition.VirtualTrack> createAudioVirtualTracksMap() {
         IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
         List<? extends Composition.VirtualTrack> audioVirtualTracks = this.getAudioVirtualTracks();
         Map<UUID, DOMNodeObjectModel> essenceDescriptorListMap = this.getEssenceDescriptorListMap();
@@ -934,7 +1001,7 @@ public class IMFCompositionPlaylist {
                     imfErrorLogger.addAllErrors(e.getErrors());
                 }
             }
-            audioVirtualTrackMap.put(set, audioVirtualTrack);
+            audioVirtualTrackMap.put(Collections.unmodifiableSet(set), audioVirtualTrack);
         }
         if(imfErrorLogger.hasFatalErrors())
         {
@@ -991,7 +1058,7 @@ public class IMFCompositionPlaylist {
             DOMNodeObjectModel imageEssencedescriptorDOMNode = this.getEssenceDescriptor(id);
 
             if (imageEssencedescriptorDOMNode != null) {
-                UUID imageEssenceDescriptorID = this.getEssenceDescriptorListMap().entrySet().stream().filter(e -> e.getValue().equals(imageEssencedescriptorDOMNode)).map(e -> e.getKey()).findFirst().get();
+                UUID imageEssenceDescriptorID = this.trackFileSourceEncodingMap.get(id);
                 CompositionImageEssenceDescriptorModel imageEssenceDescriptorModel = new CompositionImageEssenceDescriptorModel(imageEssenceDescriptorID, imageEssencedescriptorDOMNode, regXMLLibDictionary);
                 imageEssenceDescriptorModels.add(imageEssenceDescriptorModel);
             }
@@ -23,6 +23,7 @@ import java.math.BigInteger;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A class that models Marker resource structure of an IMF Composition Playlist.
@@ -53,6 +54,18 @@ public final class IMFMarkerResourceType extends IMFBaseResourceType {
         return this.markerList;
     }
 
+    @Override
+    long timelineFingerprint(long fingerprint)
+    {
+        fingerprint = fingerprint(super.timelineFingerprint(fingerprint), this.markerList.size());
+        for(IMFMarkerType marker : this.markerList){
+            fingerprint = fingerprint(fingerprint, marker.getOffset().hashCode());
+            fingerprint = fingerprint(fingerprint, marker.getLabel().getValue().hashCode());
+            fingerprint = fingerprint(fingerprint, Objects.hashCode(marker.getLabel().getScope()));
+        }
+        return fingerprint;
+    }
+
     /**
      * A method to determine the equivalence of any 2 Marker resource.
      * @param other - the object to compare against
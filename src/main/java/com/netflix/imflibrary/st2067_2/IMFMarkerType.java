@@ -20,6 +20,7 @@ package com.netflix.imflibrary.st2067_2;
 
 import javax.annotation.concurrent.Immutable;
 import java.math.BigInteger;
+import java.util.Objects;
 
 /**
  * A class that models an IMF MarkerType.
@@ -121,7 +122,7 @@ public final class IMFMarkerType {
             }
             boolean result = true;
             result &= value.equals(other.getValue());
-            result &= scope.equals(other.getScope());
+            result &= Objects.equals(scope, other.getScope());
 
             return result;
         }
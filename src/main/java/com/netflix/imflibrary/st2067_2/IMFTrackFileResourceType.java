@@ -52,6 +52,39 @@ public final class IMFTrackFileResourceType extends IMFBaseResourceType {
         this.hashAlgorithm = hashAlgorithm;
     }
 
+    /**
+     * Constructor for a TrackFile Resource with an already validated EditRate, used when deriving resources from
+     * existing ones, for instance while normalizing the resource list of a virtual track
+     *
+     * @param id the urn:uuid of the Resource
+     * @param trackFileId the urn:uuid of the track file of the Resource
+     * @param editRate the EditRate of the Resource
+     * @param intrinsicDuration the intrinsic duration of the Resource
+     * @param entryPoint the entry point of the Resource, 0 if null
+     * @param sourceDuration the source duration of the Resource, intrinsicDuration - entryPoint if null
+     * @param repeatCount the repeat count of the Resource, 1 if null
+     * @param sourceEncoding the urn:uuid of the essence descriptor of the track file
+     * @param hash the hash of the track file, may be null
+     * @param hashAlgorithm the algorithm of the hash of the track file, may be null
+     */
+    public IMFTrackFileResourceType(String id,
+                                    String trackFileId,
+                                    Composition.EditRate editRate,
+                                    BigInteger intrinsicDuration,
+                                    BigInteger entryPoint,
+                                    BigInteger sourceDuration,
+                                    BigInteger repeatCount,
+                                    String sourceEncoding,
+                                    byte[] hash,
+                                    String hashAlgorithm )
+    {
+        super(id, editRate, intrinsicDuration, entryPoint, sourceDuration, repeatCount);
+        this.trackFileId = trackFileId;
+        this.sourceEncoding = sourceEncoding;
+        this.hash = (hash == null) ? null : Arrays.copyOf(hash, hash.length);
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
     /**
      * Getter for the Track Resource's track file Id
      * @return a string representing the urn:uuid of the Track Resource's track file Id
@@ -87,6 +120,12 @@ public final class IMFTrackFileResourceType extends IMFBaseResourceType {
     }
 
 
+    @Override
+    long timelineFingerprint(long fingerprint)
+    {
+        return fingerprint(super.timelineFingerprint(fingerprint), trackFileId.hashCode());
+    }
+
     /**
      * A method to determine the equivalence of any 2 TrackFileResource.
      * @param other - the object to compare against
@@ -41,6 +41,7 @@ public final class MGAAudioMetadataSubDescriptor extends SubDescriptor {
     public static final String MGA_MCA_TAG_SYMBOL = "MGASf";
     public static final String MGA_MCA_TAG_NAME = "MGA Soundfield";
     public static final UL MGA_MCA_LABEL_DICTIONNARY_ID_UL = UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.03020222.00000000");
+    public static final UL SADM_METADATA_PAYLOAD_UL = UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04040212.00000000");
     private static final String ERROR_DESCRIPTION_PREFIX = "MXF Header Partition: " + MGAAudioMetadataSubDescriptor.class.getSimpleName() + " : ";
     private final MGAAudioMetadataSubDescriptorBO mgaAudioMetadataSubDescriptorBO;
 
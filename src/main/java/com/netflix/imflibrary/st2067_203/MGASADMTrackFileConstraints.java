@@ -53,7 +53,7 @@ import java.util.stream.Collectors;
 public final class MGASADMTrackFileConstraints {
 
     private static final String IMF_MGASADM_EXCEPTION_PREFIX = "IMF MGA S-ADM check: ";
-    private static final UL SerialAudioDefinitionModelMetadataPayload = UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04040212.00000000");
+    private static final UL SerialAudioDefinitionModelMetadataPayload = MGAAudioMetadataSubDescriptor.SADM_METADATA_PAYLOAD_UL;
 
     // Prevent instantiation
     private MGASADMTrackFileConstraints() {}
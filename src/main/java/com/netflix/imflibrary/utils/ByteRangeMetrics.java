@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A pluggable metrics interface that is notified of every byte range request made through an
+ * {@link InstrumentedByteRangeProvider}. {@link ByteRangeStatistics} is an in-memory implementation, other
+ * implementations can forward requests to a metrics registry.
+ */
+public interface ByteRangeMetrics
+{
+    /**
+     * Metrics that discard all requests
+     */
+    ByteRangeMetrics NONE = request -> {};
+
+    /**
+     * Invoked once a byte range request has completed. This method may be invoked concurrently from several threads.
+     *
+     * @param request the completed request
+     */
+    void record(Request request);
+
+    /**
+     * Indicates whether the full access trace, including caller tags, should be recorded. Determining the caller of a
+     * request has a cost, so this is only done when requested.
+     *
+     * @return true if requests should carry a caller tag, false otherwise
+     */
+    default boolean isTracingEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * The method of ResourceByteRangeProvider through which a byte range was requested
+     */
+    enum RequestType
+    {
+        BYTES,
+        FILE,
+        STREAM
+    }
+
+    /**
+     * An object model for a single completed byte range request
+     */
+    @Immutable
+    final class Request
+    {
+        private final RequestType requestType;
+        private final String resource;
+        private final long rangeStart;
+        private final long length;
+        private final long durationNanos;
+        private final String callerTag;
+
+        /**
+         * Instantiates a new Request
+         *
+         * @param requestType the method through which the byte range was requested
+         * @param resource a tag identifying the resource that the byte range was requested from, e.g. its file name
+         * @param rangeStart zero indexed inclusive start offset of the byte range
+         * @param length the number of bytes requested, or for a stream the number of bytes read from it
+         * @param durationNanos the time taken to serve the request in nanoseconds
+         * @param callerTag a tag identifying the caller that made the request, may be empty
+         */
+        public Request(RequestType requestType, String resource, long rangeStart, long length, long durationNanos, String callerTag)
+        {
+            this.requestType = requestType;
+            this.resource = (resource == null) ? "" : resource;
+            this.rangeStart = rangeStart;
+            this.length = length;
+            this.durationNanos = durationNanos;
+            this.callerTag = (callerTag == null) ? "" : callerTag;
+        }
+
+        /**
+         * Getter for the request type
+         * @return the method through which the byte range was requested
+         */
+        public RequestType getRequestType()
+        {
+            return this.requestType;
+        }
+
+        /**
+         * Getter for the resource
+         * @return a tag identifying the resource that the byte range was requested from
+         */
+        public String getResource()
+        {
+            return this.resource;
+        }
+
+        /**
+         * Getter for the start offset of the byte range
+         * @return zero indexed inclusive start offset of the byte range
+         */
+        public long getRangeStart()
+        {
+            return this.rangeStart;
+        }
+
+        /**
+         * Getter for the length of the byte range
+         * @return the number of bytes requested, or for a stream the number of bytes read from it
+         */
+        public long getLength()
+        {
+            return this.length;
+        }
+
+        /**
+         * Getter for the duration of the request
+         * @return the time taken to serve the request in nanoseconds
+         */
+        public long getDurationNanos()
+        {
+            return this.durationNanos;
+        }
+
+        /**
+         * Getter for the caller tag
+         * @return a tag identifying the caller that made the request, may be empty
+         */
+        public String getCallerTag()
+        {
+            return this.callerTag;
+        }
+
+        /**
+         * toString() method to return a string representation of this request
+         * @return string representation of the request
+         */
+        public String toString()
+        {
+            return String.format("%s %s [%d, %d] %d ns %s", this.requestType, this.resource, this.rangeStart, this.rangeStart + this.length - 1, this.durationNanos, this.callerTag);
+        }
+    }
+}
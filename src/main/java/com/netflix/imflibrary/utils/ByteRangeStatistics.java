@@ -0,0 +1,387 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory implementation of {@link ByteRangeMetrics} that keeps the number of requests, the number of bytes
+ * requested, a latency histogram and optionally the full access trace. Traces can be written to and read from a
+ * simple text format and replayed against a set of ResourceByteRangeProviders, one per resource of the trace, e.g. to
+ * benchmark storage backends against the access pattern of a real validation.
+ */
+@ThreadSafe
+public final class ByteRangeStatistics implements ByteRangeMetrics
+{
+    private static final Logger logger = LoggerFactory.getLogger(ByteRangeStatistics.class);
+
+    static final String TRACE_HEADER = "# photon byte range trace v2: type,resource,rangeStart,length,durationNanos,callerTag";
+    private static final int NUMBER_OF_TRACE_FIELDS = 6;
+
+    /**
+     * Latency histogram buckets: bucket i counts requests that took [2^(i-1), 2^i) microseconds, bucket 0 counts
+     * requests that took less than 1 microsecond
+     */
+    private static final int NUMBER_OF_LATENCY_BUCKETS = 40;
+    private static final int REPLAY_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final boolean tracingEnabled;
+    private final LongAdder numberOfRequests = new LongAdder();
+    private final LongAdder numberOfBytes = new LongAdder();
+    private final LongAdder totalDurationNanos = new LongAdder();
+    private final AtomicLong maximumDurationNanos = new AtomicLong(0);
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(NUMBER_OF_LATENCY_BUCKETS);
+    private final ConcurrentLinkedQueue<Request> trace = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Instantiates a new ByteRangeStatistics object
+     *
+     * @param tracingEnabled true if every request, including its caller tag, should be kept in the access trace
+     */
+    public ByteRangeStatistics(boolean tracingEnabled)
+    {
+        this.tracingEnabled = tracingEnabled;
+    }
+
+    @Override
+    public void record(Request request)
+    {
+        this.numberOfRequests.increment();
+        this.numberOfBytes.add(request.getLength());
+        this.totalDurationNanos.add(request.getDurationNanos());
+        this.maximumDurationNanos.accumulateAndGet(request.getDurationNanos(), Math::max);
+        this.latencyHistogram.incrementAndGet(getLatencyBucket(request.getDurationNanos()));
+        if (this.tracingEnabled)
+        {
+            this.trace.add(request);
+        }
+    }
+
+    @Override
+    public boolean isTracingEnabled()
+    {
+        return this.tracingEnabled;
+    }
+
+    /**
+     * Getter for the number of requests
+     * @return the number of requests recorded so far
+     */
+    public long getNumberOfRequests()
+    {
+        return this.numberOfRequests.sum();
+    }
+
+    /**
+     * Getter for the number of bytes requested
+     * @return the total number of bytes requested so far
+     */
+    public long getNumberOfBytes()
+    {
+        return this.numberOfBytes.sum();
+    }
+
+    /**
+     * Getter for the cumulative time spent serving requests
+     * @return the sum of the durations of all requests recorded so far in nanoseconds
+     */
+    public long getTotalDurationNanos()
+    {
+        return this.totalDurationNanos.sum();
+    }
+
+    /**
+     * Getter for the latency histogram
+     * @return an array where element i is the number of requests that took [2^(i-1), 2^i) microseconds, element 0
+     * being the number of requests that took less than 1 microsecond
+     */
+    public long[] getLatencyHistogram()
+    {
+        long[] histogram = new long[NUMBER_OF_LATENCY_BUCKETS];
+        for (int i = 0; i < NUMBER_OF_LATENCY_BUCKETS; i++)
+        {
+            histogram[i] = this.latencyHistogram.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * Getter for an approximate latency percentile, computed from the latency histogram
+     * @param percentile the percentile in the range (0, 100]
+     * @return the upper bound in microseconds of the histogram bucket that contains the requested percentile
+     */
+    public long getLatencyPercentileMicros(double percentile)
+    {
+        if (percentile <= 0 || percentile > 100)
+        {
+            throw new IllegalArgumentException(String.format("percentile = %f is not within (0, 100]", percentile));
+        }
+        long[] histogram = getLatencyHistogram();
+        long total = 0;
+        for (long count : histogram)
+        {
+            total += count;
+        }
+        long threshold = (long)Math.ceil(total * percentile / 100);
+        long cumulative = 0;
+        for (int i = 0; i < histogram.length; i++)
+        {
+            cumulative += histogram[i];
+            if (cumulative >= threshold && cumulative > 0)
+            {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Getter for the access trace
+     * @return an unmodifiable list of all requests in the order in which they completed, empty if tracing is not enabled
+     */
+    public List<Request> getTrace()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.trace));
+    }
+
+    /**
+     * A method that returns a human readable summary of the statistics
+     * @return a summary of the number of requests, bytes and latencies
+     */
+    public String getSummary()
+    {
+        long requests = getNumberOfRequests();
+        long bytes = getNumberOfBytes();
+        if (requests == 0)
+        {
+            return "0 byte range requests";
+        }
+        return String.format("%d byte range requests, %d bytes (%d bytes/request), total %.3f ms, mean %.1f us, p50 <= %d us, p90 <= %d us, p99 <= %d us, max %.1f us",
+                requests,
+                bytes,
+                bytes / requests,
+                getTotalDurationNanos() / 1e6,
+                getTotalDurationNanos() / 1e3 / requests,
+                getLatencyPercentileMicros(50),
+                getLatencyPercentileMicros(90),
+                getLatencyPercentileMicros(99),
+                this.maximumDurationNanos.get() / 1e3);
+    }
+
+    /**
+     * A method that writes the access trace in a replayable text format, one request per line
+     * @param writer the writer that the trace is written to
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void writeTrace(@Nonnull Writer writer) throws IOException
+    {
+        writeTrace(getTrace(), writer);
+    }
+
+    /**
+     * A stateless method that writes an access trace in a replayable text format, one request per line
+     * @param trace the requests to write
+     * @param writer the writer that the trace is written to
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static void writeTrace(@Nonnull List<Request> trace, @Nonnull Writer writer) throws IOException
+    {
+        BufferedWriter bufferedWriter = new BufferedWriter(writer);
+        bufferedWriter.write(TRACE_HEADER);
+        bufferedWriter.newLine();
+        for (Request request : trace)
+        {
+            bufferedWriter.write(String.format("%s,%s,%d,%d,%d,%s", request.getRequestType(), escapeResource(request.getResource()),
+                    request.getRangeStart(), request.getLength(), request.getDurationNanos(), request.getCallerTag()));
+            bufferedWriter.newLine();
+        }
+        bufferedWriter.flush();
+    }
+
+    /**
+     * A stateless method that reads an access trace written by {@link #writeTrace(Writer)}
+     * @param reader the reader that the trace is read from
+     * @return the list of requests in the trace
+     * @throws IOException - any I/O related error, including a malformed trace, is exposed through an IOException
+     */
+    public static List<Request> readTrace(@Nonnull Reader reader) throws IOException
+    {
+        List<Request> trace = new ArrayList<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = bufferedReader.readLine()) != null)
+        {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            String[] fields = line.split(",", NUMBER_OF_TRACE_FIELDS);
+            if (fields.length < NUMBER_OF_TRACE_FIELDS - 1)
+            {
+                throw new IOException(String.format("Malformed byte range trace at line %d: %s", lineNumber, line));
+            }
+            try
+            {
+                trace.add(new Request(RequestType.valueOf(fields[0]),
+                        unescapeResource(fields[1]),
+                        Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]),
+                        Long.parseLong(fields[4]),
+                        (fields.length == NUMBER_OF_TRACE_FIELDS) ? fields[5] : ""));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException(String.format("Malformed byte range trace at line %d: %s", lineNumber, line), e);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * A stateless method that returns the resources referenced by an access trace
+     * @param trace the requests of the trace
+     * @return the distinct resources of the trace, in the order of their first request
+     */
+    public static Set<String> getResources(@Nonnull List<Request> trace)
+    {
+        Set<String> resources = new LinkedHashSet<>();
+        for (Request request : trace)
+        {
+            resources.add(request.getResource());
+        }
+        return resources;
+    }
+
+    /**
+     * A stateless method that replays an access trace, in the order of the trace, against the ResourceByteRangeProvider
+     * of the resource of each request. Every request is replayed as an in-memory byte range request, split into chunks
+     * of at most 64 MiB.
+     * @param trace the requests to replay
+     * @param resourceByteRangeProviders a map of the resources of the trace to the providers to replay their requests against
+     * @param byteRangeMetrics the metrics object that the replayed requests are reported to
+     * @throws IOException - any I/O related error, including a resource of the trace without a provider, is exposed
+     * through an IOException
+     */
+    public static void replayTrace(@Nonnull List<Request> trace, @Nonnull Map<String, ? extends ResourceByteRangeProvider> resourceByteRangeProviders,
+                                   @Nonnull ByteRangeMetrics byteRangeMetrics) throws IOException
+    {
+        Map<String, ResourceByteRangeProvider> instrumentedProviders = new HashMap<>();
+        for (String resource : getResources(trace))
+        {
+            ResourceByteRangeProvider resourceByteRangeProvider = resourceByteRangeProviders.get(resource);
+            if (resourceByteRangeProvider == null)
+            {
+                throw new IOException(String.format("The byte range trace references resource \"%s\" for which no provider was supplied", resource));
+            }
+            instrumentedProviders.put(resource, new InstrumentedByteRangeProvider(resourceByteRangeProvider, byteRangeMetrics, resource));
+        }
+        for (Request request : trace)
+        {
+            ResourceByteRangeProvider instrumentedProvider = instrumentedProviders.get(request.getResource());
+            long rangeEnd = request.getRangeStart() + request.getLength() - 1;
+            for (long chunkStart = request.getRangeStart(); chunkStart <= rangeEnd; chunkStart += REPLAY_CHUNK_SIZE)
+            {
+                instrumentedProvider.getByteRangeAsBytes(chunkStart, Math.min(rangeEnd, chunkStart + REPLAY_CHUNK_SIZE - 1));
+            }
+        }
+    }
+
+    /**
+     * Resources are written in a column of the trace, so the separators of the trace format are percent-encoded
+     */
+    private static String escapeResource(String resource)
+    {
+        return resource.replace("%", "%25").replace(",", "%2C").replace("\n", "%0A").replace("\r", "%0D");
+    }
+
+    private static String unescapeResource(String resource)
+    {
+        return resource.replace("%0D", "\r").replace("%0A", "\n").replace("%2C", ",").replace("%25", "%");
+    }
+
+    private static int getLatencyBucket(long durationNanos)
+    {
+        long durationMicros = durationNanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(durationMicros);
+        return Math.min(bucket, NUMBER_OF_LATENCY_BUCKETS - 1);
+    }
+
+    private static String usage()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Usage:%n"));
+        sb.append(String.format("%s <trace_file> <resource_directory> - replays a byte range trace against the resources of the trace, resolved as file names in <resource_directory>%n", ByteRangeStatistics.class.getName()));
+        return sb.toString();
+    }
+
+    public static void main(String args[]) throws IOException
+    {
+        if (args.length != 2)
+        {
+            logger.error(usage());
+            System.exit(-1);
+        }
+
+        List<Request> trace;
+        try (Reader reader = Files.newBufferedReader(Utilities.getPathFromString(args[0]), StandardCharsets.UTF_8))
+        {
+            trace = readTrace(reader);
+        }
+        Path resourceDirectory = Utilities.getPathFromString(args[1]);
+        Map<String, ResourceByteRangeProvider> resourceByteRangeProviders = new HashMap<>();
+        for (String resource : getResources(trace))
+        {
+            Path resourcePath = resourceDirectory.resolve(resource);
+            if (!Files.isRegularFile(resourcePath))
+            {
+                logger.error(String.format("The byte range trace references resource \"%s\", which is not a file in %s", resource, resourceDirectory));
+                System.exit(-1);
+            }
+            resourceByteRangeProviders.put(resource, new FileByteRangeProvider(resourcePath));
+        }
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(false);
+        replayTrace(trace, resourceByteRangeProviders, byteRangeStatistics);
+        logger.info(String.format("Replayed %d requests against %d resources in %s: %s", trace.size(), resourceByteRangeProviders.size(), resourceDirectory, byteRangeStatistics.getSummary()));
+    }
+}
@@ -27,6 +27,7 @@ import org.w3c.dom.Node;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -36,13 +37,19 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * A class that implements the logic of representing a DOM Node into a Hierarchical Hash Map
+ * A class that implements the logic of representing a DOM Node into a Hierarchical Hash Map. Instances are immutable,
+ * their hash code and 128-bit structural {@link Fingerprint} are computed once at construction and projections that
+ * exclude an ignore set are computed lazily and cached, so that repeated comparisons of the same essence descriptors
+ * do not walk the trees again.
  */
+@Immutable
 public class DOMNodeObjectModel {
     /*See definitions of NodeType in package org.w3c.dom.Node*/
     @Nonnull
@@ -55,105 +62,189 @@ public class DOMNodeObjectModel {
     @Nonnull
     private final String localNamespaceURI;
     /*List of child ElementDOMNodes*/
-    private final Map<DOMNodeObjectModel, Integer> childrenDOMNodes = new LinkedHashMap<>();
+    private final Map<DOMNodeObjectModel, Integer> childrenDOMNodes;
     /*Store for the Key-Value pairs corresponding of the Text Nodes of this ElementDOMNode*/
-    private final Map<DOMNodeElementTuple, Map<String, Integer>> fields = new HashMap<>();
-    private final Map<String, Map<String, Integer>> fieldsLocalNameMap = new HashMap<>();
+    private final Map<DOMNodeElementTuple, Map<String, Integer>> fields;
+    private final Map<String, Map<String, Integer>> fieldsLocalNameMap;
+    private final List<ErrorLogger.ErrorObject> errors;
+    private final int fieldCount;
+    private final int hashCode;
+    private final Fingerprint fingerprint;
+    /*Projections of this DOMNodeObjectModel without the elements of an ignore set, created on first use*/
+    private volatile ConcurrentHashMap<Set<String>, DOMNodeObjectModel> ignoreSetProjections = null;
     private static final Logger logger = LoggerFactory.getLogger(DOMNodeObjectModel.class);
-    private final IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+
     /**
      * A constructor for the object model of a DOM Node.
      * @param node the DOM Node whose object model is desired.
      */
     public DOMNodeObjectModel(@Nonnull Node node){
-        this.node = node;
-        this.nodeType = node.getNodeType();
-        this.localName = node.getLocalName();
-        this.localNamespaceURI = node.getNamespaceURI();
-        if(this.localName == null){
-            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger
-                            .IMFErrors.ErrorLevels.NON_FATAL,
-                    String.format("DOM Node Local Name is not set for a node of type %d", node.getNodeType()));
-            return;
-        }
-        Node child = node.getFirstChild();
-        switch(child.getNodeType()){
-            case Node.ELEMENT_NODE:
-                while(child != null) {
-                    Node grandChild = child.getFirstChild();
-                    if (grandChild != null){
-                        if(grandChild.getNodeType() == Node.TEXT_NODE) {
-                            DOMNodeElementTuple domNodeElementTuple = new DOMNodeElementTuple(child.getNamespaceURI(), child.getLocalName());
-                            Map<String, Integer> values = fields.get(domNodeElementTuple);
-                            Map<String, Integer> fieldsLocalNameValues = fieldsLocalNameMap.get(domNodeElementTuple.getLocalName());
-                            if (values == null) {
-                                values = new HashMap<String, Integer>();
-                                fields.put(domNodeElementTuple, values);
-                            }
-                            if(fieldsLocalNameValues == null){
-                                fieldsLocalNameValues = new HashMap<String, Integer>();
-                                fieldsLocalNameMap.put(domNodeElementTuple.getLocalName(), fieldsLocalNameValues);
-                            }
-                            Integer count = 0;
-                            if(values.containsKey(child.getFirstChild().getNodeValue())) {
-                                count = values.get(child.getFirstChild().getNodeValue());
-                            }
-                            values.put(child.getFirstChild().getNodeValue(), count+1);
-                            Integer localNameCount = 0;
-                            if(fieldsLocalNameValues.containsKey(domNodeElementTuple.getNamespaceURI())){
-                                localNameCount = fieldsLocalNameValues.get(domNodeElementTuple.getNamespaceURI());
-                            }
-                            fieldsLocalNameValues.put(domNodeElementTuple.getNamespaceURI(), localNameCount+1);
-                        } else {
-                            Integer count = 0;
-                            DOMNodeObjectModel domNode = new DOMNodeObjectModel(child);
-                            if(childrenDOMNodes.containsKey(domNode))
-                            {
-                                count = childrenDOMNodes.get(domNode);
-                            }
-                            childrenDOMNodes.put(domNode, count+1);
-                            imfErrorLogger.addAllErrors(domNode.getErrors());
-                        }
-                    }
-                    child = child.getNextSibling();
-                }
-                break;
-            case Node.COMMENT_NODE:
-                //Ignore comment nodes
-                break;
-            default:
-                String message = String.format("Unsupported DOM Node type  %d ", child.getNodeType());
-                imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger
-                        .IMFErrors.ErrorLevels.FATAL,
-                        message);
-                throw new IMFException(message, imfErrorLogger);
-        }
+        this(node, new DOMNodeContents(node));
+    }
+
+    private DOMNodeObjectModel(Node node, DOMNodeContents domNodeContents){
+        this(node, node.getLocalName(), node.getNamespaceURI(), node.getNodeType(), domNodeContents.childrenDOMNodes, domNodeContents.fields,
+                domNodeContents.fieldsLocalNameMap, domNodeContents.getErrors());
     }
 
     private DOMNodeObjectModel(Node node, String localName, String localNamespaceURI, short nodeType, Map<DOMNodeObjectModel, Integer> childrenDOMNodes, Map<DOMNodeElementTuple, Map<String,
             Integer>> fields,
                                Map<String, Map<String, Integer>> fieldsLocalNamesMap){
+        this(node, localName, localNamespaceURI, nodeType, childrenDOMNodes, fields, fieldsLocalNamesMap, Collections.emptyList());
+    }
+
+    private DOMNodeObjectModel(Node node, String localName, String localNamespaceURI, short nodeType, Map<DOMNodeObjectModel, Integer> childrenDOMNodes, Map<DOMNodeElementTuple, Map<String,
+            Integer>> fields,
+                               Map<String, Map<String, Integer>> fieldsLocalNamesMap, List<ErrorLogger.ErrorObject> errors){
         this.node = node;
         this.localName = localName;
         this.localNamespaceURI = localNamespaceURI;
         this.nodeType = nodeType;
-        this.childrenDOMNodes.putAll(childrenDOMNodes);
-        this.fields.putAll(fields);
-        this.fieldsLocalNameMap.putAll(fieldsLocalNamesMap);
+        this.childrenDOMNodes = Collections.unmodifiableMap(childrenDOMNodes);
+        this.fields = Collections.unmodifiableMap(fields);
+        this.fieldsLocalNameMap = Collections.unmodifiableMap(fieldsLocalNamesMap);
+        this.errors = errors;
+
+        int count = this.fields.size();
+        for(DOMNodeObjectModel child : this.childrenDOMNodes.keySet()) {
+            count += child.fieldCount;
+        }
+        this.fieldCount = count;
+
+        int hash = 1;
+        hash = hash * 31 + Objects.hashCode(this.localName);
+        hash = hash * 31 + this.nodeType.hashCode();
+        hash = hash * 31 + this.fields.hashCode();
+        hash = hash * 31 + this.childrenDOMNodes.hashCode();
+        this.hashCode = hash;
+        this.fingerprint = Fingerprint.of(this);
     }
 
     /**
-     * A static factory method that will create a DOMNodeObjectModel without the fields that were set to be ignored
+     * The child elements, fields and errors collected while walking a DOM Node
+     */
+    private static final class DOMNodeContents {
+        private final Map<DOMNodeObjectModel, Integer> childrenDOMNodes = new LinkedHashMap<>();
+        private final Map<DOMNodeElementTuple, Map<String, Integer>> fields = new HashMap<>();
+        private final Map<String, Map<String, Integer>> fieldsLocalNameMap = new HashMap<>();
+        /*Allocated on the first error only, since the vast majority of DOM Nodes are error free*/
+        private IMFErrorLogger imfErrorLogger = null;
+
+        private DOMNodeContents(Node node){
+            if(node.getLocalName() == null){
+                getErrorLogger().addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger
+                                .IMFErrors.ErrorLevels.NON_FATAL,
+                        String.format("DOM Node Local Name is not set for a node of type %d", node.getNodeType()));
+                return;
+            }
+            Node child = node.getFirstChild();
+            switch(child.getNodeType()){
+                case Node.ELEMENT_NODE:
+                    while(child != null) {
+                        Node grandChild = child.getFirstChild();
+                        if (grandChild != null){
+                            if(grandChild.getNodeType() == Node.TEXT_NODE) {
+                                DOMNodeElementTuple domNodeElementTuple = new DOMNodeElementTuple(child.getNamespaceURI(), child.getLocalName());
+                                Map<String, Integer> values = fields.get(domNodeElementTuple);
+                                Map<String, Integer> fieldsLocalNameValues = fieldsLocalNameMap.get(domNodeElementTuple.getLocalName());
+                                if (values == null) {
+                                    values = new HashMap<String, Integer>();
+                                    fields.put(domNodeElementTuple, values);
+                                }
+                                if(fieldsLocalNameValues == null){
+                                    fieldsLocalNameValues = new HashMap<String, Integer>();
+                                    fieldsLocalNameMap.put(domNodeElementTuple.getLocalName(), fieldsLocalNameValues);
+                                }
+                                Integer count = 0;
+                                if(values.containsKey(child.getFirstChild().getNodeValue())) {
+                                    count = values.get(child.getFirstChild().getNodeValue());
+                                }
+                                values.put(child.getFirstChild().getNodeValue(), count+1);
+                                Integer localNameCount = 0;
+                                if(fieldsLocalNameValues.containsKey(domNodeElementTuple.getNamespaceURI())){
+                                    localNameCount = fieldsLocalNameValues.get(domNodeElementTuple.getNamespaceURI());
+                                }
+                                fieldsLocalNameValues.put(domNodeElementTuple.getNamespaceURI(), localNameCount+1);
+                            } else {
+                                Integer count = 0;
+                                DOMNodeObjectModel domNode = new DOMNodeObjectModel(child);
+                                if(childrenDOMNodes.containsKey(domNode))
+                                {
+                                    count = childrenDOMNodes.get(domNode);
+                                }
+                                childrenDOMNodes.put(domNode, count+1);
+                                if(!domNode.getErrors().isEmpty()) {
+                                    getErrorLogger().addAllErrors(domNode.getErrors());
+                                }
+                            }
+                        }
+                        child = child.getNextSibling();
+                    }
+                    break;
+                case Node.COMMENT_NODE:
+                    //Ignore comment nodes
+                    break;
+                default:
+                    String message = String.format("Unsupported DOM Node type  %d ", child.getNodeType());
+                    getErrorLogger().addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger
+                                    .IMFErrors.ErrorLevels.FATAL,
+                            message);
+                    throw new IMFException(message, getErrorLogger());
+            }
+            fields.replaceAll((key, values) -> Collections.unmodifiableMap(values));
+            fieldsLocalNameMap.replaceAll((key, values) -> Collections.unmodifiableMap(values));
+        }
+
+        private IMFErrorLogger getErrorLogger(){
+            if(this.imfErrorLogger == null){
+                this.imfErrorLogger = new IMFErrorLoggerImpl();
+            }
+            return this.imfErrorLogger;
+        }
+
+        private List<ErrorLogger.ErrorObject> getErrors(){
+            return (this.imfErrorLogger == null) ? Collections.emptyList() : this.imfErrorLogger.getErrors();
+        }
+    }
+
+    /**
+     * A static factory method that will create a DOMNodeObjectModel without the fields that were set to be ignored. The
+     * result is cached in the DOMNodeObjectModel, so that subsequent invocations with the same ignore set return the
+     * same object.
      * @param domNodeObjectModel a DOMNodeObjectModel object to derive the statically constructed model from
      * @param ignoreSet a non-null, empty or non-empty set of strings representing the local names of the DOM Node elements
      *                  that should be excluded in from the newly minted DOMNodeObjectModel
      * @return a DOMNodeObjectModel that excludes the elements indicated in the ignore set.
      */
     public static DOMNodeObjectModel createDOMNodeObjectModelIgnoreSet(DOMNodeObjectModel domNodeObjectModel, @Nonnull Set<String> ignoreSet){
+        return domNodeObjectModel.getIgnoreSetProjection(Set.copyOf(ignoreSet));
+    }
 
+    private DOMNodeObjectModel getIgnoreSetProjection(Set<String> ignoreSet){
+        ConcurrentHashMap<Set<String>, DOMNodeObjectModel> projections = this.ignoreSetProjections;
+        if(projections == null) {
+            synchronized (this) {
+                if(this.ignoreSetProjections == null) {
+                    this.ignoreSetProjections = new ConcurrentHashMap<>();
+                }
+                projections = this.ignoreSetProjections;
+            }
+        }
+        DOMNodeObjectModel projection = projections.get(ignoreSet);
+        if(projection == null) {
+            projection = createIgnoreSetProjection(ignoreSet);
+            DOMNodeObjectModel existingProjection = projections.putIfAbsent(ignoreSet, projection);
+            if(existingProjection != null) {
+                projection = existingProjection;
+            }
+        }
+        return projection;
+    }
+
+    private DOMNodeObjectModel createIgnoreSetProjection(Set<String> ignoreSet){
 
         Map<DOMNodeElementTuple, Map<String, Integer>> thisFields = new HashMap<>();
-        for(Map.Entry<DOMNodeElementTuple, Map<String, Integer>> entry : domNodeObjectModel.getFields().entrySet()){
+        for(Map.Entry<DOMNodeElementTuple, Map<String, Integer>> entry : this.fields.entrySet()){
             if(!ignoreSet.contains(entry.getKey().getLocalName())){
                 thisFields.put(entry.getKey(), entry.getValue());
             }
@@ -161,25 +252,25 @@ public class DOMNodeObjectModel {
 
 
         Map<String, Map<String, Integer>> thisFieldsLocalNamesMap = new HashMap<>();
-        for(Map.Entry<String, Map<String, Integer>> entry : domNodeObjectModel.getFieldsLocalNameMap().entrySet()){
+        for(Map.Entry<String, Map<String, Integer>> entry : this.fieldsLocalNameMap.entrySet()){
             if(!ignoreSet.contains(entry.getKey())){
                 thisFieldsLocalNamesMap.put(entry.getKey(), entry.getValue());
             }
         }
 
         Map<DOMNodeObjectModel, Integer> childrenDOMNodes = new HashMap<>();
-        for(Map.Entry<DOMNodeObjectModel, Integer> entry : domNodeObjectModel.getChildrenDOMNodes().entrySet()){
+        for(Map.Entry<DOMNodeObjectModel, Integer> entry : this.childrenDOMNodes.entrySet()){
             if(!ignoreSet.contains(entry.getKey().getLocalName()))
             {
-                DOMNodeObjectModel child = entry.getKey().createDOMNodeObjectModelIgnoreSet(entry.getKey(), ignoreSet);
+                DOMNodeObjectModel child = entry.getKey().getIgnoreSetProjection(ignoreSet);
                 if (child.getChildrenDOMNodes().size() > 0
                         || child.getFields().size() > 0) {
                     childrenDOMNodes.put(child, entry.getValue());
                 }
             }
         }
-        return new DOMNodeObjectModel(domNodeObjectModel.getNode(), domNodeObjectModel.getLocalName(), domNodeObjectModel.getLocalNamespaceURI(),
-                domNodeObjectModel.getNodeType(), Collections.unmodifiableMap(childrenDOMNodes), Collections.unmodifiableMap(thisFields), Collections.unmodifiableMap(thisFieldsLocalNamesMap));
+        return new DOMNodeObjectModel(this.node, this.localName, this.localNamespaceURI,
+                this.nodeType, childrenDOMNodes, thisFields, thisFieldsLocalNamesMap);
     }
 
     /**
@@ -219,7 +310,7 @@ public class DOMNodeObjectModel {
             }
         }
         return new DOMNodeObjectModel(domNodeObjectModel.getNode(), domNodeObjectModel.getLocalName(), domNodeObjectModel.getLocalNamespaceURI(),
-                domNodeObjectModel.getNodeType(), Collections.unmodifiableMap(childrenDOMNodes), Collections.unmodifiableMap(thisFields), Collections.unmodifiableMap(thisFieldsLocalNamesMap));
+                domNodeObjectModel.getNodeType(), childrenDOMNodes, thisFields, thisFieldsLocalNamesMap);
     }
 
     /**
@@ -247,7 +338,7 @@ public class DOMNodeObjectModel {
             childrenDOMNodes.put(child, entry.getValue());
         }
         return new DOMNodeObjectModel(domNodeObjectModel.getNode(), domNodeObjectModel.getLocalName(), domNodeObjectModel.getLocalNamespaceURI(),
-                domNodeObjectModel.getNodeType(), Collections.unmodifiableMap(childrenDOMNodes), Collections.unmodifiableMap(thisFields), Collections.unmodifiableMap(domNodeObjectModel.getFieldsLocalNameMap()));
+                domNodeObjectModel.getNodeType(), childrenDOMNodes, thisFields, domNodeObjectModel.getFieldsLocalNameMap());
     }
 
     /**
@@ -366,7 +457,7 @@ public class DOMNodeObjectModel {
      * @return a map of Key, Value pairs corresponding to the fields on the DOM Node
      */
     public Map<DOMNodeElementTuple, Map<String, Integer>> getFields(){
-        return Collections.unmodifiableMap(this.fields);
+        return this.fields;
     }
 
     /**
@@ -374,7 +465,7 @@ public class DOMNodeObjectModel {
      * @return a map of Key, Value pairs corresponding to the fieldsLocalName and the corresponding NamespaceURIs
      */
     public Map<String, Map<String, Integer>> getFieldsLocalNameMap(){
-        return Collections.unmodifiableMap(this.fieldsLocalNameMap);
+        return this.fieldsLocalNameMap;
     }
 
     /**
@@ -382,7 +473,7 @@ public class DOMNodeObjectModel {
      * @return a map of Key, Value pairs corresponding to the fields on the DOM Node
      */
     public Map<DOMNodeObjectModel, Integer> getChildrenDOMNodes(){
-        return Collections.unmodifiableMap(this.childrenDOMNodes);
+        return this.childrenDOMNodes;
     }
 
 
@@ -391,18 +482,31 @@ public class DOMNodeObjectModel {
      * @return an unmodifiable list of Errors
      */
     public List<ErrorLogger.ErrorObject> getErrors(){
-        return imfErrorLogger.getErrors();
+        return this.errors;
+    }
+
+    /**
+     * A getter for the structural fingerprint of this DOMNodeObjectModel. Equal DOMNodeObjectModels have equal
+     * fingerprints, different fingerprints imply different DOMNodeObjectModels.
+     * @return the 128-bit fingerprint of this DOMNodeObjectModel
+     */
+    public Fingerprint getFingerprint(){
+        return this.fingerprint;
     }
 
     /**
      * A method to compare 2 DOMObjectNodeModel objects to verify if 2 DOM Nodes have the same
-     * content.
+     * content. DOMNodeObjectModels with different hash codes or fingerprints are rejected without walking their trees.
      * @param other the node to compare with.
      * @return boolean returns true if the 2 DOMNodeObjectModels have the same content.
      */
     @Override
     public boolean equals(Object other){
 
+        if(this == other){
+            return true;
+        }
+
         if(other == null
                 || this.getClass() != other.getClass()){
             return false;
@@ -410,7 +514,13 @@ public class DOMNodeObjectModel {
 
         DOMNodeObjectModel otherDOMNodeObjectModel = (DOMNodeObjectModel) other;
 
-        if(this.nodeType.equals(otherDOMNodeObjectModel.nodeType) &&
+        if(this.hashCode != otherDOMNodeObjectModel.hashCode
+                || !this.fingerprint.equals(otherDOMNodeObjectModel.fingerprint)){
+            return false;
+        }
+
+        if(Objects.equals(this.localName, otherDOMNodeObjectModel.localName) &&
+            this.nodeType.equals(otherDOMNodeObjectModel.nodeType) &&
             this.fields.equals(otherDOMNodeObjectModel.fields) &&
             this.childrenDOMNodes.equals(otherDOMNodeObjectModel.childrenDOMNodes)) {
             return true;
@@ -497,8 +607,7 @@ public class DOMNodeObjectModel {
 
 
         return new DOMNodeObjectModel(this.getNode(), this.getLocalName(), this.getLocalNamespaceURI(),
-                this.getNodeType(), Collections.unmodifiableMap(outChildrenDOMNodes), Collections.unmodifiableMap
-                (thisFields), Collections.unmodifiableMap(this.fieldsLocalNameMap));
+                this.getNodeType(), outChildrenDOMNodes, thisFields, this.fieldsLocalNameMap);
     }
 
 
@@ -507,15 +616,7 @@ public class DOMNodeObjectModel {
      * @return Integer total number of fields .
      */
     public Integer getFieldCount(){
-        Integer entryCount = 0;
-
-        entryCount += this.fields.size();
-
-        for(Map.Entry<DOMNodeObjectModel, Integer> entry: this.childrenDOMNodes.entrySet()) {
-            entryCount += entry.getKey().getFieldCount();
-        }
-
-        return entryCount;
+        return this.fieldCount;
     }
 
     /**
@@ -524,12 +625,7 @@ public class DOMNodeObjectModel {
      */
     @Override
     public int hashCode(){
-        int hash = 1;
-        hash = hash * 31 + localName.hashCode();
-        hash = hash * 31 + this.nodeType.hashCode();
-        hash = hash * 31 + this.fields.hashCode();
-        hash = hash * 31 + this.childrenDOMNodes.hashCode();
-        return hash;
+        return this.hashCode;
     }
 
     /**
@@ -801,6 +897,112 @@ public class DOMNodeObjectModel {
     }
 
 
+    /**
+     * A 128-bit structural fingerprint of a DOMNodeObjectModel, covering the node type, local name, fields and
+     * children that {@link DOMNodeObjectModel#equals(Object)} compares. Fields and children are combined in an
+     * order-independent manner, taking their number of occurrences into account.
+     */
+    @Immutable
+    public static final class Fingerprint {
+        private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+        private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+        private static final long LOW_LANE_MULTIPLIER = 0xc2b2ae3d27d4eb4fL;
+
+        private final long high;
+        private final long low;
+
+        private Fingerprint(long high, long low){
+            this.high = high;
+            this.low = low;
+        }
+
+        private static Fingerprint of(DOMNodeObjectModel domNodeObjectModel){
+            long fieldsHigh = 0;
+            long fieldsLow = 0;
+            for(Map.Entry<DOMNodeElementTuple, Map<String, Integer>> entry : domNodeObjectModel.fields.entrySet()){
+                Fingerprint key = combine(of(entry.getKey().getNamespaceURI()), of(entry.getKey().getLocalName()));
+                for(Map.Entry<String, Integer> value : entry.getValue().entrySet()){
+                    Fingerprint field = combine(combine(key, of(value.getKey())), new Fingerprint(value.getValue(), value.getValue()));
+                    fieldsHigh += field.high;
+                    fieldsLow += field.low;
+                }
+            }
+            long childrenHigh = 0;
+            long childrenLow = 0;
+            for(Map.Entry<DOMNodeObjectModel, Integer> entry : domNodeObjectModel.childrenDOMNodes.entrySet()){
+                Fingerprint child = combine(entry.getKey().fingerprint, new Fingerprint(entry.getValue(), entry.getValue()));
+                childrenHigh += child.high;
+                childrenLow += child.low;
+            }
+            Fingerprint fingerprint = combine(of(domNodeObjectModel.localName), new Fingerprint(domNodeObjectModel.nodeType, domNodeObjectModel.nodeType));
+            fingerprint = combine(fingerprint, new Fingerprint(fieldsHigh, fieldsLow));
+            return combine(fingerprint, new Fingerprint(childrenHigh, childrenLow));
+        }
+
+        private static Fingerprint of(@Nullable String string){
+            if(string == null){
+                return new Fingerprint(0, 0);
+            }
+            long high = FNV_OFFSET_BASIS;
+            long low = GOLDEN_GAMMA;
+            for(int i = 0; i < string.length(); i++){
+                char c = string.charAt(i);
+                high = (high ^ c) * FNV_PRIME;
+                low = (low + c) * LOW_LANE_MULTIPLIER;
+            }
+            return new Fingerprint(mix(high ^ string.length()), mix(low + string.length()));
+        }
+
+        private static Fingerprint combine(Fingerprint first, Fingerprint second){
+            return new Fingerprint(mix(first.high * GOLDEN_GAMMA + second.high), mix(first.low * LOW_LANE_MULTIPLIER + second.low + 1));
+        }
+
+        /*Finalization step of the 64-bit MurmurHash3 hash function*/
+        private static long mix(long value){
+            long h = value;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        /**
+         * Overriding the equals method of Object to provide a specific implementation for this class
+         * @param other the object to compared with
+         * @return true if the passed in object is a Fingerprint with the same 128-bit value
+         */
+        @Override
+        public boolean equals(Object other){
+            if(other == null
+                    || other.getClass() != this.getClass()){
+                return false;
+            }
+            Fingerprint otherFingerprint = (Fingerprint) other;
+            return this.high == otherFingerprint.high && this.low == otherFingerprint.low;
+        }
+
+        /**
+         * A Java compliant implementation of the hashCode() method
+         * @return integer containing the hash code corresponding to this object
+         */
+        @Override
+        public int hashCode(){
+            return (int) (this.high ^ (this.high >>> 32));
+        }
+
+        /**
+         * toString() method of Fingerprint
+         * @return the fingerprint as a string of 32 hexadecimal digits
+         */
+        @Override
+        public String toString(){
+            return String.format("%016x%016x", this.high, this.low);
+        }
+    }
+
     /**
      * A thin class modeling a DOM Node Element Key
      */
@@ -134,7 +134,7 @@ public interface ErrorLogger
             int hash = 9;
             hash = hash*31 + this.errorCode.toString().hashCode();
             hash = hash*31 + this.errorLevel.toString().hashCode();
-            hash = hash*31 + this.errorCode.toString().hashCode();
+            hash = hash*31 + this.errorDescription.hashCode();
             return hash;
         }
 
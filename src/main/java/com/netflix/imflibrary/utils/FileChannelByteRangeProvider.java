@@ -0,0 +1,178 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is an implementation of {@link com.netflix.imflibrary.utils.ResourceByteRangeProvider} - the underlying
+ * resource is a path. Unlike {@link FileByteRangeProvider}, byte ranges are read with positional reads of a single
+ * {@link FileChannel}, which do not depend on the position of the channel, so that concurrent byte range requests are
+ * served in parallel instead of one at a time. The FileChannel stays open until the provider is closed.
+ */
+@ThreadSafe
+public final class FileChannelByteRangeProvider implements ResourceByteRangeProvider, Closeable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel fileChannel;
+    private final long fileSize;
+
+    /**
+     * Constructor for a FileChannelByteRangeProvider
+     * @param resourcePath whose data will be read by this data provider
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public FileChannelByteRangeProvider(@Nonnull Path resourcePath) throws IOException
+    {
+        this.fileChannel = FileChannel.open(resourcePath, StandardOpenOption.READ);
+        this.fileSize = this.fileChannel.size();
+    }
+
+    /**
+     * A method that returns the size in bytes of the underlying resource, in this case a File
+     * @return the size in bytes of the underlying resource, in this case a File
+     */
+    @Override
+    public long getResourceSize()
+    {
+        return this.fileSize;
+    }
+
+    /**
+     * A method to obtain bytes in the inclusive range [start, end] as a path
+     *
+     * @param rangeStart zero indexed inclusive start offset; range from [0, (resourceSize -1)] inclusive
+     * @param rangeEnd zero indexed inclusive end offset; range from [0, (resourceSize -1)] inclusive
+     * @param workingDirectory the working directory where the output file is placed
+     * @return file containing desired byte range
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    @Override
+    public Path getByteRange(long rangeStart, long rangeEnd, Path workingDirectory) throws IOException
+    {
+        validateRangeRequest(rangeStart, rangeEnd);
+        Path rangeFilePath = workingDirectory.resolve("range");
+        try (SeekableByteChannel outputChannel = Files.newByteChannel(rangeFilePath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = rangeStart;
+            while (position <= rangeEnd)
+            {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), rangeEnd - position + 1));
+                read(buffer, position);
+                buffer.flip();
+                position += buffer.remaining();
+                while (buffer.hasRemaining())
+                {
+                    outputChannel.write(buffer);
+                }
+            }
+        }
+        return rangeFilePath;
+    }
+
+    /**
+     * This method provides a way to obtain a byte range from the resource in-memory. A limitation of this method is
+     * that the total size of the byte range request is capped at 0x7fffffff (the maximum value possible for type int
+     * in java)
+     *
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @return byte[] containing desired byte range
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    @Override
+    public byte[] getByteRangeAsBytes(long rangeStart, long rangeEnd) throws IOException
+    {
+        validateRangeRequest(rangeStart, rangeEnd);
+        if ((rangeEnd - rangeStart + 1) > Integer.MAX_VALUE)
+        {
+            throw new IOException(String.format("Number of bytes requested = %d is greater than %d", (rangeEnd - rangeStart + 1), Integer.MAX_VALUE));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (rangeEnd - rangeStart + 1));
+        read(buffer, rangeStart);
+        return buffer.array();
+    }
+
+    /**
+     * A method to obtain bytes in the inclusive range [start, end] as a channel, that reads the bytes lazily from
+     * the underlying file
+     *
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @return a channel over the desired byte range
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    @Override
+    public SeekableByteChannel getByteRangeAsStream(long rangeStart, long rangeEnd) throws IOException
+    {
+        validateRangeRequest(rangeStart, rangeEnd);
+        return new ResourceByteRangeChannel(this, rangeStart, rangeEnd);
+    }
+
+    /**
+     * Closes the underlying FileChannel, after which byte range requests fail
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.fileChannel.close();
+    }
+
+    private void read(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            int numBytesRead = this.fileChannel.read(buffer, position);
+            if (numBytesRead == -1)
+            {
+                throw new EOFException("Unexpected end of stream while reading bytes.");
+            }
+            position += numBytesRead;
+        }
+    }
+
+    private void validateRangeRequest(long rangeStart, long rangeEnd) throws IOException
+    {
+        try
+        {
+            ResourceByteRangeProvider.Utilities.validateRangeRequest(this.fileSize, rangeStart, rangeEnd);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Invalid range request: " + e.getMessage(), e);
+        }
+    }
+}
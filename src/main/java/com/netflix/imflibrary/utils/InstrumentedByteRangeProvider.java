@@ -0,0 +1,225 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * This class is a decorator for a {@link com.netflix.imflibrary.utils.ResourceByteRangeProvider} that reports the
+ * offset, length and latency of every byte range request to a {@link ByteRangeMetrics} object.
+ */
+@Immutable
+public final class InstrumentedByteRangeProvider implements ResourceByteRangeProvider
+{
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private final ResourceByteRangeProvider resourceByteRangeProvider;
+    private final ByteRangeMetrics byteRangeMetrics;
+    private final String resourceTag;
+
+    /**
+     * Constructor for an InstrumentedByteRangeProvider
+     * @param resourceByteRangeProvider the provider whose requests are instrumented
+     * @param byteRangeMetrics the metrics object that every request is reported to
+     * @param resourceTag a tag identifying the underlying resource, e.g. its file name, reported as the resource of every request
+     */
+    public InstrumentedByteRangeProvider(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, @Nonnull ByteRangeMetrics byteRangeMetrics, @Nonnull String resourceTag)
+    {
+        this.resourceByteRangeProvider = resourceByteRangeProvider;
+        this.byteRangeMetrics = byteRangeMetrics;
+        this.resourceTag = resourceTag;
+    }
+
+    /**
+     * A method that returns the size in bytes of the underlying resource
+     * @return size of resource in bytes
+     */
+    public long getResourceSize()
+    {
+        return this.resourceByteRangeProvider.getResourceSize();
+    }
+
+    /**
+     * A method to obtain bytes in the inclusive range [start, end] as a file
+     *
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @param workingDirectory the working directory where the output file is placed
+     * @return file containing desired byte range
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public Path getByteRange(long rangeStart, long rangeEnd, Path workingDirectory) throws IOException
+    {
+        long startTime = System.nanoTime();
+        Path path = this.resourceByteRangeProvider.getByteRange(rangeStart, rangeEnd, workingDirectory);
+        record(ByteRangeMetrics.RequestType.FILE, rangeStart, rangeEnd, startTime);
+        return path;
+    }
+
+    /**
+     * A method to obtain bytes in the inclusive range [start, end] as a byte[]
+     *
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @return byte array containing desired byte range
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public byte[] getByteRangeAsBytes(long rangeStart, long rangeEnd) throws IOException
+    {
+        long startTime = System.nanoTime();
+        byte[] bytes = this.resourceByteRangeProvider.getByteRangeAsBytes(rangeStart, rangeEnd);
+        record(ByteRangeMetrics.RequestType.BYTES, rangeStart, rangeEnd, startTime);
+        return bytes;
+    }
+
+    /**
+     * A method to obtain bytes in the inclusive range [start, end] as a SeekableByteChannel. The request is reported
+     * when the channel is closed, with the number of bytes read from the channel as its length and the time spent
+     * opening and reading the channel as its latency.
+     *
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @return SeekableByteChannel corresponding to the desired byte range
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public SeekableByteChannel getByteRangeAsStream(long rangeStart, long rangeEnd) throws IOException
+    {
+        long startTime = System.nanoTime();
+        SeekableByteChannel seekableByteChannel = this.resourceByteRangeProvider.getByteRangeAsStream(rangeStart, rangeEnd);
+        return new CountingByteChannel(seekableByteChannel, rangeStart, getCallerTag(), System.nanoTime() - startTime);
+    }
+
+    private void record(ByteRangeMetrics.RequestType requestType, long rangeStart, long rangeEnd, long startTime)
+    {
+        long durationNanos = System.nanoTime() - startTime;
+        this.byteRangeMetrics.record(new ByteRangeMetrics.Request(requestType, this.resourceTag, rangeStart, rangeEnd - rangeStart + 1, durationNanos, getCallerTag()));
+    }
+
+    private String getCallerTag()
+    {
+        if (!this.byteRangeMetrics.isTracingEnabled())
+        {
+            return "";
+        }
+        Optional<StackWalker.StackFrame> caller = stackWalker.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(InstrumentedByteRangeProvider.class.getName()))
+                .findFirst());
+        if (!caller.isPresent())
+        {
+            return "";
+        }
+        String className = caller.get().getClassName();
+        return String.format("%s.%s", className.substring(className.lastIndexOf('.') + 1), caller.get().getMethodName());
+    }
+
+    /**
+     * A SeekableByteChannel that counts the bytes read through it, and reports them as a single request when closed
+     */
+    private final class CountingByteChannel implements SeekableByteChannel
+    {
+        private final SeekableByteChannel seekableByteChannel;
+        private final long rangeStart;
+        private final String callerTag;
+        private long bytesRead = 0;
+        private long durationNanos;
+        private boolean recorded = false;
+
+        private CountingByteChannel(SeekableByteChannel seekableByteChannel, long rangeStart, String callerTag, long openDurationNanos)
+        {
+            this.seekableByteChannel = seekableByteChannel;
+            this.rangeStart = rangeStart;
+            this.callerTag = callerTag;
+            this.durationNanos = openDurationNanos;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException
+        {
+            long startTime = System.nanoTime();
+            int read = this.seekableByteChannel.read(dst);
+            this.durationNanos += System.nanoTime() - startTime;
+            if (read > 0)
+            {
+                this.bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException
+        {
+            return this.seekableByteChannel.write(src);
+        }
+
+        @Override
+        public long position() throws IOException
+        {
+            return this.seekableByteChannel.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException
+        {
+            this.seekableByteChannel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException
+        {
+            return this.seekableByteChannel.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException
+        {
+            this.seekableByteChannel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return this.seekableByteChannel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                this.seekableByteChannel.close();
+            }
+            finally
+            {
+                if (!this.recorded)
+                {
+                    this.recorded = true;
+                    byteRangeMetrics.record(new ByteRangeMetrics.Request(ByteRangeMetrics.RequestType.STREAM, resourceTag, this.rangeStart, this.bytesRead, this.durationNanos, this.callerTag));
+                }
+            }
+        }
+    }
+}
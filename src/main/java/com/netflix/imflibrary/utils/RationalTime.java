@@ -0,0 +1,478 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import javax.annotation.concurrent.Immutable;
+import java.math.BigInteger;
+
+/**
+ * An immutable exact rational number used for timeline arithmetic, such as durations expressed in seconds or the
+ * conversion of a number of edit units between two edit rates. Values are always held in lowest terms with a positive
+ * denominator. Arithmetic is carried out on a long numerator and denominator with overflow checks, and a value only
+ * falls back to a BigInteger representation when an intermediate result does not fit in a long, so that the common case
+ * does not allocate anything beyond the result itself.
+ *
+ * Unlike {@link Fraction}, which models a ratio as it appears in essence descriptors, two RationalTime objects are equal
+ * whenever they represent the same number.
+ */
+@Immutable
+public final class RationalTime implements Comparable<RationalTime>
+{
+    /**
+     * The rational number 0
+     */
+    public static final RationalTime ZERO = new RationalTime(0L, 1L);
+    /**
+     * The rational number 1/2
+     */
+    private static final RationalTime ONE_HALF = new RationalTime(1L, 2L);
+
+    private final long numerator;
+    private final long denominator;
+    /* Non-null only when the value cannot be represented on longs */
+    private final BigInteger bigNumerator;
+    private final BigInteger bigDenominator;
+
+    private RationalTime(long numerator, long denominator)
+    {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.bigNumerator = null;
+        this.bigDenominator = null;
+    }
+
+    private RationalTime(BigInteger bigNumerator, BigInteger bigDenominator)
+    {
+        this.numerator = 0L;
+        this.denominator = 1L;
+        this.bigNumerator = bigNumerator;
+        this.bigDenominator = bigDenominator;
+    }
+
+    /**
+     * Returns the rational number equal to the provided integer
+     *
+     * @param value the integer
+     * @return the rational number value/1
+     */
+    public static RationalTime valueOf(long value)
+    {
+        return (value == 0L) ? ZERO : valueOf(value, 1L);
+    }
+
+    /**
+     * Returns the rational number numerator/denominator in lowest terms
+     *
+     * @param numerator the numerator
+     * @param denominator the denominator, must not be 0
+     * @return the rational number
+     * @throws ArithmeticException if the denominator is 0
+     */
+    public static RationalTime valueOf(long numerator, long denominator)
+    {
+        if (denominator == 0L)
+        {
+            throw new ArithmeticException(String.format("Rational %d/%d has a zero denominator", numerator, denominator));
+        }
+        if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE)
+        {
+            return valueOf(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        }
+        if (denominator < 0L)
+        {
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        long gcd = gcd(Math.abs(numerator), denominator);
+        return new RationalTime(numerator / gcd, denominator / gcd);
+    }
+
+    /**
+     * Returns the rational number numerator/denominator in lowest terms
+     *
+     * @param numerator the numerator
+     * @param denominator the denominator, must not be 0
+     * @return the rational number
+     * @throws ArithmeticException if the denominator is 0
+     */
+    public static RationalTime valueOf(BigInteger numerator, BigInteger denominator)
+    {
+        if (denominator.signum() == 0)
+        {
+            throw new ArithmeticException(String.format("Rational %s/%s has a zero denominator", numerator, denominator));
+        }
+        if (denominator.signum() < 0)
+        {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        numerator = numerator.divide(gcd);
+        denominator = denominator.divide(gcd);
+        if (fitsInLong(numerator) && fitsInLong(denominator))
+        {
+            return new RationalTime(numerator.longValue(), denominator.longValue());
+        }
+        return new RationalTime(numerator, denominator);
+    }
+
+    /**
+     * Returns the duration in seconds of a number of edit units at an edit rate
+     *
+     * @param editUnits the number of edit units
+     * @param editRateNumerator the numerator of the edit rate
+     * @param editRateDenominator the denominator of the edit rate
+     * @return editUnits * editRateDenominator / editRateNumerator
+     */
+    public static RationalTime fromEditUnits(long editUnits, long editRateNumerator, long editRateDenominator)
+    {
+        return valueOf(editRateDenominator, editRateNumerator).multiply(editUnits);
+    }
+
+    /**
+     * Converts a number of edit units between two edit rates, rounding half up. This is the exact equivalent of
+     * Math.round(editUnits * (toRate / fromRate)) and does not allocate unless the computation overflows a long.
+     *
+     * @param editUnits the number of edit units at the source edit rate
+     * @param fromNumerator the numerator of the source edit rate
+     * @param fromDenominator the denominator of the source edit rate
+     * @param toNumerator the numerator of the target edit rate
+     * @param toDenominator the denominator of the target edit rate
+     * @return the number of edit units at the target edit rate
+     */
+    public static long convertEditUnits(long editUnits, long fromNumerator, long fromDenominator, long toNumerator, long toDenominator)
+    {
+        try
+        {
+            /* editUnits * (toNumerator * fromDenominator) / (toDenominator * fromNumerator) */
+            long numerator = Math.multiplyExact(toNumerator, fromDenominator);
+            long denominator = Math.multiplyExact(toDenominator, fromNumerator);
+            long gcd = gcd(Math.abs(numerator), Math.abs(denominator));
+            numerator /= gcd;
+            denominator /= gcd;
+            if (denominator < 0L)
+            {
+                numerator = Math.negateExact(numerator);
+                denominator = Math.negateExact(denominator);
+            }
+            long scaled = Math.multiplyExact(editUnits, numerator);
+            /* floor((2 * scaled + denominator) / (2 * denominator)) */
+            return Math.floorDiv(Math.addExact(Math.multiplyExact(2L, scaled), denominator), Math.multiplyExact(2L, denominator));
+        }
+        catch (ArithmeticException e)
+        {
+            return valueOf(editUnits)
+                    .multiply(valueOf(toNumerator, toDenominator))
+                    .divide(valueOf(fromNumerator, fromDenominator))
+                    .round();
+        }
+    }
+
+    /**
+     * Returns the sum of this rational and another
+     *
+     * @param other the rational to add
+     * @return this + other
+     */
+    public RationalTime add(RationalTime other)
+    {
+        if (this.bigNumerator == null && other.bigNumerator == null)
+        {
+            try
+            {
+                long gcd = gcd(this.denominator, other.denominator);
+                long thisFactor = other.denominator / gcd;
+                long otherFactor = this.denominator / gcd;
+                return valueOf(Math.addExact(Math.multiplyExact(this.numerator, thisFactor), Math.multiplyExact(other.numerator, otherFactor)),
+                        Math.multiplyExact(this.denominator, thisFactor));
+            }
+            catch (ArithmeticException e)
+            {
+                //fall through to the BigInteger computation
+            }
+        }
+        return valueOf(getBigNumerator().multiply(other.getBigDenominator()).add(other.getBigNumerator().multiply(getBigDenominator())),
+                getBigDenominator().multiply(other.getBigDenominator()));
+    }
+
+    /**
+     * Returns the difference between this rational and another
+     *
+     * @param other the rational to subtract
+     * @return this - other
+     */
+    public RationalTime subtract(RationalTime other)
+    {
+        return add(other.negate());
+    }
+
+    /**
+     * Returns the product of this rational and an integer
+     *
+     * @param value the integer to multiply by
+     * @return this * value
+     */
+    public RationalTime multiply(long value)
+    {
+        if (this.bigNumerator == null && value != Long.MIN_VALUE)
+        {
+            try
+            {
+                long gcd = gcd(Math.abs(value), this.denominator);
+                return valueOf(Math.multiplyExact(this.numerator, value / gcd), this.denominator / gcd);
+            }
+            catch (ArithmeticException e)
+            {
+                //fall through to the BigInteger computation
+            }
+        }
+        return valueOf(getBigNumerator().multiply(BigInteger.valueOf(value)), getBigDenominator());
+    }
+
+    /**
+     * Returns the product of this rational and another
+     *
+     * @param other the rational to multiply by
+     * @return this * other
+     */
+    public RationalTime multiply(RationalTime other)
+    {
+        if (this.bigNumerator == null && other.bigNumerator == null)
+        {
+            try
+            {
+                long gcd1 = gcd(Math.abs(this.numerator), other.denominator);
+                long gcd2 = gcd(Math.abs(other.numerator), this.denominator);
+                return valueOf(Math.multiplyExact(this.numerator / gcd1, other.numerator / gcd2),
+                        Math.multiplyExact(this.denominator / gcd2, other.denominator / gcd1));
+            }
+            catch (ArithmeticException e)
+            {
+                //fall through to the BigInteger computation
+            }
+        }
+        return valueOf(getBigNumerator().multiply(other.getBigNumerator()), getBigDenominator().multiply(other.getBigDenominator()));
+    }
+
+    /**
+     * Returns the quotient of this rational and another
+     *
+     * @param other the rational to divide by, must not be 0
+     * @return this / other
+     * @throws ArithmeticException if other is 0
+     */
+    public RationalTime divide(RationalTime other)
+    {
+        return multiply(other.reciprocal());
+    }
+
+    /**
+     * Returns the negation of this rational
+     *
+     * @return -this
+     */
+    public RationalTime negate()
+    {
+        return (this.bigNumerator == null) ? new RationalTime(-this.numerator, this.denominator)
+                : valueOf(this.bigNumerator.negate(), this.bigDenominator);
+    }
+
+    /**
+     * Returns the reciprocal of this rational
+     *
+     * @return 1 / this
+     * @throws ArithmeticException if this rational is 0
+     */
+    public RationalTime reciprocal()
+    {
+        return (this.bigNumerator == null) ? valueOf(this.denominator, this.numerator)
+                : valueOf(this.bigDenominator, this.bigNumerator);
+    }
+
+    /**
+     * Returns the largest integer that is not greater than this rational
+     *
+     * @return floor(this)
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public long floor()
+    {
+        if (this.bigNumerator == null)
+        {
+            return Math.floorDiv(this.numerator, this.denominator);
+        }
+        BigInteger[] quotientAndRemainder = this.bigNumerator.divideAndRemainder(this.bigDenominator);
+        BigInteger quotient = (quotientAndRemainder[1].signum() < 0) ? quotientAndRemainder[0].subtract(BigInteger.ONE) : quotientAndRemainder[0];
+        return quotient.longValueExact();
+    }
+
+    /**
+     * Returns the smallest integer that is not less than this rational
+     *
+     * @return ceil(this)
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public long ceil()
+    {
+        return Math.negateExact(negate().floor());
+    }
+
+    /**
+     * Returns the integer closest to this rational, with ties rounding towards positive infinity as Math.round does
+     *
+     * @return floor(this + 1/2)
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public long round()
+    {
+        return add(ONE_HALF).floor();
+    }
+
+    /**
+     * Returns the sign of this rational
+     *
+     * @return -1, 0 or 1 as this rational is negative, zero or positive
+     */
+    public int signum()
+    {
+        return (this.bigNumerator == null) ? Long.signum(this.numerator) : this.bigNumerator.signum();
+    }
+
+    /**
+     * Checks whether this rational represents an integer
+     *
+     * @return true if the denominator of this rational in lowest terms is 1
+     */
+    public boolean isInteger()
+    {
+        return (this.bigNumerator == null) ? this.denominator == 1L : this.bigDenominator.equals(BigInteger.ONE);
+    }
+
+    /**
+     * Getter for the numerator of this rational in lowest terms
+     *
+     * @return the numerator
+     */
+    public BigInteger getNumerator()
+    {
+        return getBigNumerator();
+    }
+
+    /**
+     * Getter for the denominator of this rational in lowest terms
+     *
+     * @return the denominator, always positive
+     */
+    public BigInteger getDenominator()
+    {
+        return getBigDenominator();
+    }
+
+    @Override
+    public int compareTo(RationalTime other)
+    {
+        if (this.bigNumerator == null && other.bigNumerator == null)
+        {
+            try
+            {
+                return Long.compare(Math.multiplyExact(this.numerator, other.denominator), Math.multiplyExact(other.numerator, this.denominator));
+            }
+            catch (ArithmeticException e)
+            {
+                //fall through to the BigInteger computation
+            }
+        }
+        return getBigNumerator().multiply(other.getBigDenominator()).compareTo(other.getBigNumerator().multiply(getBigDenominator()));
+    }
+
+    /**
+     * A method to compare 2 rationals, returns true if they represent the same number
+     *
+     * @param other the object that this rational should be compared with
+     * @return result of comparing this rational with the object that was passed in
+     */
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (!(other instanceof RationalTime))
+        {
+            return false;
+        }
+        RationalTime otherRational = (RationalTime) other;
+        /* Both are in lowest terms and only use BigIntegers when the value does not fit in longs */
+        if (this.bigNumerator == null && otherRational.bigNumerator == null)
+        {
+            return this.numerator == otherRational.numerator && this.denominator == otherRational.denominator;
+        }
+        return getBigNumerator().equals(otherRational.getBigNumerator()) && getBigDenominator().equals(otherRational.getBigDenominator());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        if (this.bigNumerator == null)
+        {
+            return 31 * Long.hashCode(this.numerator) + Long.hashCode(this.denominator);
+        }
+        return 31 * this.bigNumerator.hashCode() + this.bigDenominator.hashCode();
+    }
+
+    /**
+     * A method that returns a string representation of a RationalTime object
+     *
+     * @return string representing the object
+     */
+    @Override
+    public String toString()
+    {
+        return (this.bigNumerator == null) ? String.format("%d/%d", this.numerator, this.denominator)
+                : String.format("%s/%s", this.bigNumerator, this.bigDenominator);
+    }
+
+    private BigInteger getBigNumerator()
+    {
+        return (this.bigNumerator == null) ? BigInteger.valueOf(this.numerator) : this.bigNumerator;
+    }
+
+    private BigInteger getBigDenominator()
+    {
+        return (this.bigDenominator == null) ? BigInteger.valueOf(this.denominator) : this.bigDenominator;
+    }
+
+    private static boolean fitsInLong(BigInteger value)
+    {
+        /* Long.MIN_VALUE is excluded so that negation never overflows */
+        return value.bitLength() < Long.SIZE && value.longValue() != Long.MIN_VALUE;
+    }
+
+    private static long gcd(long a, long b)
+    {
+        while (b != 0L)
+        {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return (a == 0L) ? 1L : a;
+    }
+}
@@ -45,6 +45,8 @@ import static com.sandflow.smpte.regxml.dict.importers.RegisterImporter.fromRegi
  */
 public final class RegXMLLibDictionary {
 
+    private static volatile RegXMLLibDictionary sharedInstance = null;
+
     private final MetaDictionaryCollection metaDictionaryCollection;
 
     /**
@@ -96,6 +98,32 @@ public final class RegXMLLibDictionary {
         }
     }
 
+    /**
+     * A method that returns a RegXMLLibDictionary shared by all its callers. Loading the registers dominates the cost of
+     * constructing a RegXMLLibDictionary, and the dictionary is not modified once it has been loaded, so callers that
+     * convert many sets, possibly from several threads, should prefer the shared instance.
+     *
+     * @return the shared RegXMLLibDictionary
+     * @throws IMFException - if any error occurs loading registers
+     */
+    public static RegXMLLibDictionary getSharedInstance() throws IMFException
+    {
+        RegXMLLibDictionary instance = sharedInstance;
+        if (instance == null)
+        {
+            synchronized (RegXMLLibDictionary.class)
+            {
+                instance = sharedInstance;
+                if (instance == null)
+                {
+                    instance = new RegXMLLibDictionary();
+                    sharedInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
     /**
      * A utility method that gets Symbol name provided URN for an element
      * @return MetaDictionaryCollection
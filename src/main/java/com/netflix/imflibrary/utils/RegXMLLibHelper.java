@@ -86,6 +86,27 @@ public final class RegXMLLibHelper {
         }
     }
 
+    /**
+     * Constructor for the RegXMLLibHelper that uses an already loaded dictionary, such as the one returned by
+     * {@link RegXMLLibDictionary#getSharedInstance()}
+     *
+     * @param regXMLLibDictionary the dictionary used to convert sets
+     * @param primerPack the Triplet representing the primer pack
+     * @param primerPackByteProvider the data provider for the primer pack
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public RegXMLLibHelper(RegXMLLibDictionary regXMLLibDictionary, KLVPacket.Header primerPack, ByteProvider primerPackByteProvider) throws IOException{
+
+        try
+        {
+            this.regXMLLibDictionary = regXMLLibDictionary;
+            this.localTagRegister = PrimerPack.createLocalTagRegister(this.getTripletFromKLVHeader(primerPack, primerPackByteProvider));
+        }
+        catch (Exception e){
+            throw new IOException(String.format("Unable to create the local tag register from the primer pack"));
+        }
+    }
+
     /**
      * A utility method that provides an XML Document fragment representing an MXF KLV triplet
      * @param triplet the KLV triplet that needs to be serialized to an XML document fragment
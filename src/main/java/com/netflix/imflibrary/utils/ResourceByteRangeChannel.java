@@ -0,0 +1,210 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only {@link SeekableByteChannel} over the inclusive byte range [start, end] of a
+ * {@link com.netflix.imflibrary.utils.ResourceByteRangeProvider}. Bytes are fetched lazily with byte range requests of
+ * at most a chunk size, so that an arbitrarily large range can be streamed with bounded memory and without the
+ * temporary files used by {@link ResourceByteRangeProvider#getByteRangeAsStream(long, long)}.
+ */
+@NotThreadSafe
+public final class ResourceByteRangeChannel implements SeekableByteChannel
+{
+    /**
+     * The default maximum number of bytes fetched by a single byte range request
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final ResourceByteRangeProvider resourceByteRangeProvider;
+    private final long rangeStart;
+    private final long size;
+    private final int chunkSize;
+    private long position = 0;
+    private byte[] chunk = null;
+    private long chunkPosition = 0;
+    private boolean open = true;
+
+    /**
+     * Constructor for a ResourceByteRangeChannel that fetches at most {@link #DEFAULT_CHUNK_SIZE} bytes per request
+     *
+     * @param resourceByteRangeProvider the provider of the underlying resource
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     */
+    public ResourceByteRangeChannel(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, long rangeStart, long rangeEnd)
+    {
+        this(resourceByteRangeProvider, rangeStart, rangeEnd, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor for a ResourceByteRangeChannel
+     *
+     * @param resourceByteRangeProvider the provider of the underlying resource
+     * @param rangeStart zero indexed inclusive start offset; ranges from 0 through (resourceSize -1) both included
+     * @param rangeEnd zero indexed inclusive end offset; ranges from 0 through (resourceSize -1) both included
+     * @param chunkSize the maximum number of bytes fetched by a single byte range request
+     */
+    public ResourceByteRangeChannel(@Nonnull ResourceByteRangeProvider resourceByteRangeProvider, long rangeStart, long rangeEnd, int chunkSize)
+    {
+        ResourceByteRangeProvider.Utilities.validateRangeRequest(resourceByteRangeProvider.getResourceSize(), rangeStart, rangeEnd);
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException(String.format("chunkSize = %d is not > 0", chunkSize));
+        }
+        this.resourceByteRangeProvider = resourceByteRangeProvider;
+        this.rangeStart = rangeStart;
+        this.size = rangeEnd - rangeStart + 1;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * A method that reads a sequence of bytes from the current position of the channel into a buffer
+     *
+     * @param dst the buffer into which bytes are transferred
+     * @return the number of bytes read, or -1 if the channel has reached the end of the range
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        ensureOpen();
+        if (this.position >= this.size)
+        {
+            return -1;
+        }
+        int numBytesRead = 0;
+        while (dst.hasRemaining() && this.position < this.size)
+        {
+            if (this.chunk == null || this.position < this.chunkPosition || this.position >= this.chunkPosition + this.chunk.length)
+            {
+                long chunkEnd = Math.min(this.position + this.chunkSize, this.size) - 1;
+                this.chunk = this.resourceByteRangeProvider.getByteRangeAsBytes(this.rangeStart + this.position, this.rangeStart + chunkEnd);
+                this.chunkPosition = this.position;
+            }
+            int offset = (int) (this.position - this.chunkPosition);
+            int length = Math.min(dst.remaining(), this.chunk.length - offset);
+            dst.put(this.chunk, offset, length);
+            this.position += length;
+            numBytesRead += length;
+        }
+        return numBytesRead;
+    }
+
+    /**
+     * Writing is not supported by this channel
+     *
+     * @param src the buffer from which bytes would be transferred
+     * @return never returns
+     * @throws NonWritableChannelException - always
+     */
+    @Override
+    public int write(ByteBuffer src)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Getter for the position of the channel relative to the start of the range
+     *
+     * @return the position in bytes
+     * @throws IOException - if the channel is closed
+     */
+    @Override
+    public long position() throws IOException
+    {
+        ensureOpen();
+        return this.position;
+    }
+
+    /**
+     * Setter for the position of the channel relative to the start of the range, a position beyond the end of the
+     * range is legal and causes subsequent reads to signal the end of the range
+     *
+     * @param newPosition the new position in bytes
+     * @return this channel
+     * @throws IOException - if the channel is closed
+     */
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        ensureOpen();
+        if (newPosition < 0)
+        {
+            throw new IllegalArgumentException(String.format("newPosition = %d is < 0", newPosition));
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    /**
+     * Getter for the size of the range
+     *
+     * @return the number of bytes in the range
+     * @throws IOException - if the channel is closed
+     */
+    @Override
+    public long size() throws IOException
+    {
+        ensureOpen();
+        return this.size;
+    }
+
+    /**
+     * Truncation is not supported by this channel
+     *
+     * @param size the size that the channel would be truncated to
+     * @return never returns
+     * @throws NonWritableChannelException - always
+     */
+    @Override
+    public SeekableByteChannel truncate(long size)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return this.open;
+    }
+
+    @Override
+    public void close()
+    {
+        this.open = false;
+        this.chunk = null;
+    }
+
+    private void ensureOpen() throws ClosedChannelException
+    {
+        if (!this.open)
+        {
+            throw new ClosedChannelException();
+        }
+    }
+}
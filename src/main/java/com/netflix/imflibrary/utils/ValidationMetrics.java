@@ -0,0 +1,280 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lightweight collector of per-phase timings and allocation counters for validations. Phases are identified by name,
+ * e.g. "CPL parsing" or a validator's constraints specification, and are timed through {@link #start(String)}:
+ *
+ * <pre>
+ *     try (ValidationMetrics.Timer timer = validationMetrics.start("AssetMap parsing")) {
+ *         ...
+ *     }
+ * </pre>
+ *
+ * Allocated bytes are measured for the thread that starts and stops a timer, when the JVM supports it. Completed
+ * phases can additionally be forwarded to a {@link Listener}, e.g. to publish them to a metrics registry.
+ */
+@ThreadSafe
+public final class ValidationMetrics
+{
+    /**
+     * Metrics that do not record anything
+     */
+    public static final ValidationMetrics NONE = new ValidationMetrics(false, (phase, durationNanos, allocatedBytes) -> {});
+
+    private static final Listener NO_LISTENER = (phase, durationNanos, allocatedBytes) -> {};
+
+    private final boolean enabled;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, PhaseStatistics> phaseStatisticsMap = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> phaseOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Instantiates a new ValidationMetrics object
+     */
+    public ValidationMetrics()
+    {
+        this(true, NO_LISTENER);
+    }
+
+    /**
+     * Instantiates a new ValidationMetrics object that also forwards every completed phase to a listener
+     * @param listener the listener that completed phases are forwarded to
+     */
+    public ValidationMetrics(@Nonnull Listener listener)
+    {
+        this(true, listener);
+    }
+
+    private ValidationMetrics(boolean enabled, Listener listener)
+    {
+        this.enabled = enabled;
+        this.listener = listener;
+    }
+
+    /**
+     * A listener that is notified of every completed phase, e.g. to publish timings to a metrics registry
+     */
+    public interface Listener
+    {
+        /**
+         * Invoked once a phase has completed. This method may be invoked concurrently from several threads.
+         * @param phase the name of the phase
+         * @param durationNanos the duration of the phase in nanoseconds
+         * @param allocatedBytes the number of bytes allocated by the timing thread during the phase, -1 if unknown
+         */
+        void onPhaseCompleted(String phase, long durationNanos, long allocatedBytes);
+    }
+
+    /**
+     * A method that starts timing a phase
+     * @param phase the name of the phase
+     * @return a Timer that records the phase when it is closed
+     */
+    public Timer start(@Nonnull String phase)
+    {
+        return new Timer(phase);
+    }
+
+    /**
+     * A method that records a completed phase
+     * @param phase the name of the phase
+     * @param durationNanos the duration of the phase in nanoseconds
+     * @param allocatedBytes the number of bytes allocated during the phase, -1 if unknown
+     */
+    public void record(@Nonnull String phase, long durationNanos, long allocatedBytes)
+    {
+        if (!this.enabled)
+        {
+            return;
+        }
+        PhaseStatistics phaseStatistics = this.phaseStatisticsMap.computeIfAbsent(phase, key -> {
+            this.phaseOrder.add(key);
+            return new PhaseStatistics();
+        });
+        phaseStatistics.add(durationNanos, allocatedBytes);
+        this.listener.onPhaseCompleted(phase, durationNanos, allocatedBytes);
+    }
+
+    /**
+     * Getter for the statistics of all phases recorded so far
+     * @return an unmodifiable map of phase names to statistics, in the order in which the phases were first recorded
+     */
+    public Map<String, PhaseStatistics> getPhaseStatistics()
+    {
+        Map<String, PhaseStatistics> map = new LinkedHashMap<>();
+        for (String phase : this.phaseOrder)
+        {
+            map.put(phase, this.phaseStatisticsMap.get(phase));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * A method that returns a human readable summary of all phases, ordered by decreasing total duration
+     * @return a list of lines, one per phase
+     */
+    public List<String> getSummary()
+    {
+        List<Map.Entry<String, PhaseStatistics>> entries = new ArrayList<>(getPhaseStatistics().entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().getTotalDurationNanos(), a.getValue().getTotalDurationNanos()));
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, PhaseStatistics> entry : entries)
+        {
+            PhaseStatistics phaseStatistics = entry.getValue();
+            String allocated = (phaseStatistics.getAllocatedBytes() < 0) ? "n/a" : String.format("%.1f MiB", phaseStatistics.getAllocatedBytes() / (1024.0 * 1024.0));
+            lines.add(String.format("%s: count %d, total %.3f ms, mean %.3f ms, max %.3f ms, allocated %s",
+                    entry.getKey(),
+                    phaseStatistics.getCount(),
+                    phaseStatistics.getTotalDurationNanos() / 1e6,
+                    phaseStatistics.getTotalDurationNanos() / 1e6 / phaseStatistics.getCount(),
+                    phaseStatistics.getMaximumDurationNanos() / 1e6,
+                    allocated));
+        }
+        return lines;
+    }
+
+    /**
+     * Statistics of a single phase
+     */
+    @ThreadSafe
+    public static final class PhaseStatistics
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalDurationNanos = new LongAdder();
+        private final AtomicLong maximumDurationNanos = new AtomicLong(0);
+        private final LongAdder allocatedBytes = new LongAdder();
+        private volatile boolean allocatedBytesKnown = true;
+
+        private void add(long durationNanos, long allocatedBytes)
+        {
+            this.count.increment();
+            this.totalDurationNanos.add(durationNanos);
+            this.maximumDurationNanos.accumulateAndGet(durationNanos, Math::max);
+            if (allocatedBytes < 0)
+            {
+                this.allocatedBytesKnown = false;
+            }
+            else
+            {
+                this.allocatedBytes.add(allocatedBytes);
+            }
+        }
+
+        /**
+         * Getter for the number of times the phase was recorded
+         * @return the number of times the phase was recorded
+         */
+        public long getCount()
+        {
+            return this.count.sum();
+        }
+
+        /**
+         * Getter for the total duration of the phase
+         * @return the sum of the durations of the phase in nanoseconds
+         */
+        public long getTotalDurationNanos()
+        {
+            return this.totalDurationNanos.sum();
+        }
+
+        /**
+         * Getter for the maximum duration of the phase
+         * @return the longest duration of the phase in nanoseconds
+         */
+        public long getMaximumDurationNanos()
+        {
+            return this.maximumDurationNanos.get();
+        }
+
+        /**
+         * Getter for the number of bytes allocated during the phase
+         * @return the number of bytes allocated, -1 if allocations could not be measured
+         */
+        public long getAllocatedBytes()
+        {
+            return this.allocatedBytesKnown ? this.allocatedBytes.sum() : -1;
+        }
+    }
+
+    /**
+     * A timer for a single execution of a phase, recorded when closed
+     */
+    public final class Timer implements AutoCloseable
+    {
+        private final String phase;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+        private boolean closed = false;
+
+        private Timer(String phase)
+        {
+            this.phase = phase;
+            this.startAllocatedBytes = ValidationMetrics.this.enabled ? getCurrentThreadAllocatedBytes() : -1;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Stops this timer and records the phase, subsequent invocations have no effect
+         */
+        @Override
+        public void close()
+        {
+            if (this.closed || !ValidationMetrics.this.enabled)
+            {
+                return;
+            }
+            this.closed = true;
+            long durationNanos = System.nanoTime() - this.startNanos;
+            long endAllocatedBytes = getCurrentThreadAllocatedBytes();
+            long allocatedBytes = (this.startAllocatedBytes < 0 || endAllocatedBytes < 0) ? -1 : endAllocatedBytes - this.startAllocatedBytes;
+            record(this.phase, durationNanos, allocatedBytes);
+        }
+    }
+
+    private static long getCurrentThreadAllocatedBytes()
+    {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled())
+            {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A streaming implementation of the XXH64 non-cryptographic hash function (https://github.com/Cyan4973/xxHash). The
+ * hash of a sequence of bytes does not depend on how the sequence is split across calls to
+ * {@link #update(byte[], int, int)}.
+ */
+@NotThreadSafe
+public final class XXHash64
+{
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_SIZE = 32;
+
+    private final long seed;
+    private final byte[] buffer = new byte[STRIPE_SIZE];
+    private int bufferSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    /**
+     * Constructor for an XXHash64 with a seed of 0
+     */
+    public XXHash64()
+    {
+        this(0);
+    }
+
+    /**
+     * Constructor for an XXHash64
+     *
+     * @param seed the seed of the hash
+     */
+    public XXHash64(long seed)
+    {
+        this.seed = seed;
+        reset();
+    }
+
+    /**
+     * A method that computes the hash of a sequence of bytes in a single call
+     *
+     * @param bytes the array that holds the bytes
+     * @param offset the offset of the first byte in the array
+     * @param length the number of bytes
+     * @return the hash with a seed of 0
+     */
+    public static long hash(byte[] bytes, int offset, int length)
+    {
+        XXHash64 xxHash64 = new XXHash64();
+        xxHash64.update(bytes, offset, length);
+        return xxHash64.getValue();
+    }
+
+    /**
+     * A method that discards the bytes hashed so far
+     */
+    public void reset()
+    {
+        this.v1 = this.seed + PRIME64_1 + PRIME64_2;
+        this.v2 = this.seed + PRIME64_2;
+        this.v3 = this.seed;
+        this.v4 = this.seed - PRIME64_1;
+        this.bufferSize = 0;
+        this.totalLength = 0;
+    }
+
+    /**
+     * A method that adds bytes to the hashed sequence
+     *
+     * @param bytes the array that holds the bytes
+     * @param offset the offset of the first byte in the array
+     * @param length the number of bytes
+     */
+    public void update(byte[] bytes, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > bytes.length - length)
+        {
+            throw new IndexOutOfBoundsException(String.format("offset = %d and length = %d are out of the bounds of an array of length %d",
+                    offset, length, bytes.length));
+        }
+        this.totalLength += length;
+        int position = offset;
+        int end = offset + length;
+
+        if (this.bufferSize > 0)
+        {
+            int count = Math.min(STRIPE_SIZE - this.bufferSize, length);
+            System.arraycopy(bytes, position, this.buffer, this.bufferSize, count);
+            this.bufferSize += count;
+            position += count;
+            if (this.bufferSize < STRIPE_SIZE)
+            {
+                return;
+            }
+            processStripe(this.buffer, 0);
+            this.bufferSize = 0;
+        }
+
+        while (end - position >= STRIPE_SIZE)
+        {
+            processStripe(bytes, position);
+            position += STRIPE_SIZE;
+        }
+
+        System.arraycopy(bytes, position, this.buffer, 0, end - position);
+        this.bufferSize = end - position;
+    }
+
+    /**
+     * Getter for the hash of the bytes added so far
+     *
+     * @return the 64 bit hash
+     */
+    public long getValue()
+    {
+        long hash;
+        if (this.totalLength >= STRIPE_SIZE)
+        {
+            hash = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7) + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+            hash = mergeRound(hash, this.v1);
+            hash = mergeRound(hash, this.v2);
+            hash = mergeRound(hash, this.v3);
+            hash = mergeRound(hash, this.v4);
+        }
+        else
+        {
+            hash = this.seed + PRIME64_5;
+        }
+        hash += this.totalLength;
+
+        int position = 0;
+        while (this.bufferSize - position >= 8)
+        {
+            hash ^= round(0, readLong(this.buffer, position));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            position += 8;
+        }
+        if (this.bufferSize - position >= 4)
+        {
+            hash ^= (readInt(this.buffer, position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            position += 4;
+        }
+        while (position < this.bufferSize)
+        {
+            hash ^= (this.buffer[position] & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            position++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private void processStripe(byte[] bytes, int position)
+    {
+        this.v1 = round(this.v1, readLong(bytes, position));
+        this.v2 = round(this.v2, readLong(bytes, position + 8));
+        this.v3 = round(this.v3, readLong(bytes, position + 16));
+        this.v4 = round(this.v4, readLong(bytes, position + 24));
+    }
+
+    private static long round(long accumulator, long input)
+    {
+        return Long.rotateLeft(accumulator + input * PRIME64_2, 31) * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, long value)
+    {
+        return (accumulator ^ round(0, value)) * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long readLong(byte[] bytes, int position)
+    {
+        return (readInt(bytes, position) & 0xFFFFFFFFL) | ((long) readInt(bytes, position + 4) << 32);
+    }
+
+    private static int readInt(byte[] bytes, int position)
+    {
+        return (bytes[position] & 0xFF) | ((bytes[position + 1] & 0xFF) << 8) | ((bytes[position + 2] & 0xFF) << 16) | ((bytes[position + 3] & 0xFF) << 24);
+    }
+}
@@ -116,26 +116,40 @@ abstract public class IMFCPLValidator implements ConstraintsValidator {
 
                 Long sequenceDurationInCompositionEditUnits = 0L;
                 Long sequenceDuration = 0L;
-                //Based on Section 6.2 and 6.3 in st2067-2:2016 All resources of either an Image Sequence or an Audio Sequence have to be of the same EditRate, hence we can sum the source durations of all the resources
-                //of a virtual track to get its duration in resource edit units.
-                for(IMFBaseResourceType imfBaseResourceType : resources){
-                    sequenceDuration += imfBaseResourceType.getDuration();
+                try {
+                    //Based on Section 6.2 and 6.3 in st2067-2:2016 All resources of either an Image Sequence or an Audio Sequence have to be of the same EditRate, hence we can sum the source durations of all the resources
+                    //of a virtual track to get its duration in resource edit units.
+                    for(IMFBaseResourceType imfBaseResourceType : resources){
+                        sequenceDuration = Math.addExact(sequenceDuration, imfBaseResourceType.getDuration());
+                    }
+                    //Section 7.3 st2067-3:2016
+                    long compositionEditRateNumerator = imfCompositionPlaylist.getEditRate().getNumerator();
+                    long compositionEditRateDenominator = imfCompositionPlaylist.getEditRate().getDenominator();
+                    long resourceEditRateNumerator = resources.get(0).getEditRate().getNumerator();
+                    long resourceEditRateDenominator = resources.get(0).getEditRate().getDenominator();
+
+                    RationalTime sequenceDurationInCompositionEditRate = RationalTime.valueOf(sequenceDuration)
+                            .multiply(RationalTime.valueOf(compositionEditRateNumerator, compositionEditRateDenominator))
+                            .divide(RationalTime.valueOf(resourceEditRateNumerator, resourceEditRateDenominator));
+                    //Section 7.3 st2067-3:2016
+                    if(!sequenceDurationInCompositionEditRate.isInteger()){
+                        Double sequenceDurationDoubleValue = sequenceDurationInCompositionEditRate.getNumerator().doubleValue() / sequenceDurationInCompositionEditRate.getDenominator().doubleValue();
+                        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
+                                String.format("Segment represented by the Id %s in the Composition represented by ID %s has a sequence represented by ID %s, whose duration represented in Composition Edit Units is (%f) is not an integer"
+                                        , segment.getId(), imfCompositionPlaylist.getUUID().toString(), sequence.getId(), sequenceDurationDoubleValue));
+                    }
+                    sequenceDurationInCompositionEditUnits = sequenceDurationInCompositionEditRate.round();
+                }
+                catch (IMFException e) {
+                    imfErrorLogger.addAllErrors(e.getErrors());
+                    continue;
                 }
-                //Section 7.3 st2067-3:2016
-                long compositionEditRateNumerator = imfCompositionPlaylist.getEditRate().getNumerator();
-                long compositionEditRateDenominator = imfCompositionPlaylist.getEditRate().getDenominator();
-                long resourceEditRateNumerator = resources.get(0).getEditRate().getNumerator();
-                long resourceEditRateDenominator = resources.get(0).getEditRate().getDenominator();
-
-                long sequenceDurationInCompositionEditRateReminder = (sequenceDuration * compositionEditRateNumerator * resourceEditRateDenominator) % (compositionEditRateDenominator * resourceEditRateNumerator);
-                Double sequenceDurationDoubleValue = ((double)sequenceDuration * compositionEditRateNumerator * resourceEditRateDenominator) / (compositionEditRateDenominator * resourceEditRateNumerator);
-                //Section 7.3 st2067-3:2016
-                if(sequenceDurationInCompositionEditRateReminder != 0){
-                    imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL,
-                            String.format("Segment represented by the Id %s in the Composition represented by ID %s has a sequence represented by ID %s, whose duration represented in Composition Edit Units is (%f) is not an integer"
-                                    , segment.getId(), imfCompositionPlaylist.getUUID().toString(), sequence.getId(), sequenceDurationDoubleValue));
+                catch (ArithmeticException e) {
+                    imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL,
+                            String.format("Segment represented by the Id %s in the Composition represented by ID %s has a sequence represented by ID %s, whose duration cannot be represented as a 64-bit integer: %s"
+                                    , segment.getId(), imfCompositionPlaylist.getUUID().toString(), sequence.getId(), e.getMessage()));
+                    continue;
                 }
-                sequenceDurationInCompositionEditUnits = Math.round(sequenceDurationDoubleValue);
                 sequencesDurationSet.add(sequenceDurationInCompositionEditUnits);
 
             }
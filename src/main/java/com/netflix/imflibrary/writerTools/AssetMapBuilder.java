@@ -133,6 +133,9 @@ public class AssetMapBuilder {
         for(AssetMapBuilder.Asset assetMapBuilderAsset : this.assets){
             org.smpte_ra.schemas._429_9._2007.am.AssetType assetType = new AssetType();
             assetType.setId(assetMapBuilderAsset.uuid);
+            if(assetMapBuilderAsset.annotationText != null && assetMapBuilderAsset.annotationText.getValue() != null){
+                assetType.setAnnotationText(assetMapBuilderAsset.annotationText);
+            }
             assetType.setPackingList(assetMapBuilderAsset.packingList);
             org.smpte_ra.schemas._429_9._2007.am.AssetType.ChunkList chunkList = new org.smpte_ra.schemas._429_9._2007.am.AssetType.ChunkList();
             assetType.setChunkList(chunkList);
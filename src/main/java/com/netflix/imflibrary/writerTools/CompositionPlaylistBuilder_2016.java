@@ -32,6 +32,7 @@ import com.netflix.imflibrary.utils.ErrorLogger;
 import com.netflix.imflibrary.utils.UUIDHelper;
 import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
 import com.netflix.imflibrary.writerTools.utils.IMFUtils;
+import com.netflix.imflibrary.writerTools.utils.IMFXMLStreamWriter;
 import com.netflix.imflibrary.writerTools.utils.ValidationEventHandlerImpl;
 import org.smpte_ra.schemas._2067_3._2016.CompositionPlaylistType;
 import org.smpte_ra.schemas._2067_3._2016.CompositionTimecodeType;
@@ -54,6 +55,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -254,6 +256,63 @@ public class CompositionPlaylistBuilder_2016 {
         return imfErrorLogger.getErrors();
     }
 
+    /**
+     * A method to write a CompositionPlaylist document conforming to the st2067-2/3:2016 schema through a
+     * {@link CompositionPlaylistStreamWriter_2016}, without building and marshalling its JAXB object graph. The document
+     * is not validated while it is written, see {@link CompositionPlaylistStreamWriter_2016#validate(InputStream)}.
+     * @return the size and SHA-1 digest of the CPL document, as required by its PackingList entry
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public IMFXMLStreamWriter.WrittenDocument buildStreaming() throws IOException {
+        Path outputPath = this.workingDirectory.resolve(this.cplFileName);
+        try (CompositionPlaylistStreamWriter_2016 cplWriter = new CompositionPlaylistStreamWriter_2016(
+                new BufferedOutputStream(Files.newOutputStream(outputPath)),
+                this.uuid,
+                this.annotationText.getValue(),
+                IMFUtils.createXMLGregorianCalendar(),
+                this.issuer.getValue(),
+                this.creator.getValue(),
+                "Not Included",
+                new Composition.EditRate(this.compositionEditRate),
+                this.totalRunningTime,
+                this.applicationIds,
+                this.coreConstraintsSchema)) {
+
+            for (IMFEssenceDescriptorBaseType imfEssenceDescriptorBaseType : this.imfEssenceDescriptorBaseTypeList) {
+                cplWriter.writeEssenceDescriptor(imfEssenceDescriptorBaseType);
+            }
+            cplWriter.startSegment(IMFUUIDGenerator.getInstance().generateUUID(), "Segment-1");
+
+            //The MarkerSequence precedes all other Sequences of a Segment
+            List<Composition.VirtualTrack> orderedVirtualTracks = new ArrayList<>();
+            for (Composition.VirtualTrack virtualTrack : this.virtualTracks) {
+                if (virtualTrack instanceof IMFMarkerVirtualTrack) {
+                    orderedVirtualTracks.add(0, virtualTrack);
+                }
+                else {
+                    orderedVirtualTracks.add(virtualTrack);
+                }
+            }
+            for (Composition.VirtualTrack virtualTrack : orderedVirtualTracks) {
+                cplWriter.startSequence(IMFUUIDGenerator.getInstance().generateUUID(), IMFUUIDGenerator.getInstance().generateUUID(), virtualTrack.getSequenceType());
+                if (virtualTrack instanceof IMFEssenceComponentVirtualTrack) {
+                    for (IMFTrackFileResourceType trackFileResource : ((IMFEssenceComponentVirtualTrack) virtualTrack).getTrackFileResourceList()) {
+                        cplWriter.writeTrackFileResource(trackFileResource,
+                                this.trackResourceSourceEncodingMap.get(UUIDHelper.fromUUIDAsURNStringToUUID(trackFileResource.getTrackFileId())));
+                    }
+                }
+                else if (virtualTrack instanceof IMFMarkerVirtualTrack) {
+                    for (IMFMarkerResourceType markerResource : ((IMFMarkerVirtualTrack) virtualTrack).getMarkerResourceList()) {
+                        cplWriter.writeMarkerResource(markerResource);
+                    }
+                }
+                cplWriter.endSequence();
+            }
+            cplWriter.endSegment();
+            return cplWriter.finish();
+        }
+    }
+
     private List<org.smpte_ra.schemas._2067_3._2016.BaseResourceType> buildTrackResourceList(Composition.VirtualTrack virtualTrack){
         List<org.smpte_ra.schemas._2067_3._2016.BaseResourceType> trackResourceList = new ArrayList<>();
 
@@ -0,0 +1,380 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.st2067_2.Composition;
+import com.netflix.imflibrary.st2067_2.CoreConstraints;
+import com.netflix.imflibrary.st2067_2.IMFEssenceDescriptorBaseType;
+import com.netflix.imflibrary.st2067_2.IMFMarkerResourceType;
+import com.netflix.imflibrary.st2067_2.IMFMarkerType;
+import com.netflix.imflibrary.st2067_2.IMFTrackFileResourceType;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.UUIDHelper;
+import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
+import com.netflix.imflibrary.writerTools.utils.IMFXMLStreamWriter;
+import org.w3c.dom.Node;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A class that writes a CompositionPlaylist document compliant with the st2067-2/3:2016 schema (or the st2067-2:2020
+ * core constraints) while the Composition is being assembled, without building a JAXB object graph of the document.
+ *
+ * The document is written strictly in schema order, so the calls made on a writer follow the structure of the document:
+ * EssenceDescriptors are written first, then for every Segment each of its Sequences is started, its Resources are
+ * written and it is ended, before {@link #finish()} completes the document. The size and SHA-1 digest that the
+ * PackingList entry of the CompositionPlaylist requires are returned by {@link #finish()}.
+ */
+public class CompositionPlaylistStreamWriter_2016 extends IMFXMLStreamWriter {
+
+    /**
+     * The namespace of a st2067-3:2016 CompositionPlaylist document
+     */
+    public static final String CPL_NAMESPACE = "http://www.smpte-ra.org/schemas/2067-3/2016";
+    private static final String DSIG_NAMESPACE = "http://www.w3.org/2000/09/xmldsig#";
+    private static final String IAB_NAMESPACE = "http://www.smpte-ra.org/ns/2067-201/2019";
+    private static final String MGASADM_NAMESPACE = "http://www.smpte-ra.org/ns/2067-203/2022";
+    private static final String IAB_SEQUENCE = "IABSequence";
+    private static final String MGASADM_SIGNAL_SEQUENCE = "MGASADMSignalSequence";
+    private static final String[] SCHEMAS = {"org/w3/_2000_09/xmldsig/xmldsig-core-schema.xsd",
+            "org/smpte_ra/schemas/st0433_2008/dcmlTypes/dcmlTypes.xsd",
+            "org/smpte_ra/schemas/st2067_3_2016/imf-cpl-20160411.xsd",
+            "org/smpte_ra/schemas/st2067_2_2016/imf-core-constraints-20160411.xsd",
+            "org/smpte_ra/schemas/st2067_2_2020/imf-core-constraints-2020.xsd"};
+
+    private enum State {
+        HEADER, ESSENCE_DESCRIPTOR_LIST, SEGMENT_LIST, SEGMENT, SEQUENCE
+    }
+
+    private final Composition.EditRate compositionEditRate;
+    private final long totalRunningTime;
+    private final Set<String> applicationIds;
+    private final String coreConstraintsSchema;
+    private State state = State.HEADER;
+    private int numberOfSegments = 0;
+    private int numberOfSequences = 0;
+    private int numberOfResources = 0;
+
+    /**
+     * A constructor for the CompositionPlaylistStreamWriter_2016 object, that writes the header of the
+     * CompositionPlaylist document
+     * @param outputStream the stream that the CompositionPlaylist document is written to
+     * @param uuid identifying the CompositionPlaylist document
+     * @param annotationText a free form human readable text, null if it should be omitted
+     * @param issueDate date at which the CompositionPlaylist was issued
+     * @param issuer a free form human readable text describing the issuer of the CompositionPlaylist document
+     * @param creator a free form human readable text describing the tool used to create the CompositionPlaylist document
+     * @param contentTitle the title of the content of the Composition
+     * @param compositionEditRate the edit rate of the Composition
+     * @param totalRunningTime a long value representing in seconds the total running time of this composition
+     * @param applicationIds ApplicationIds for the composition
+     * @param coreConstraintsSchema schema defining core constraints version
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public CompositionPlaylistStreamWriter_2016(@Nonnull OutputStream outputStream,
+                                                @Nonnull UUID uuid,
+                                                @Nullable String annotationText,
+                                                @Nonnull XMLGregorianCalendar issueDate,
+                                                @Nonnull String issuer,
+                                                @Nonnull String creator,
+                                                @Nonnull String contentTitle,
+                                                @Nonnull Composition.EditRate compositionEditRate,
+                                                long totalRunningTime,
+                                                @Nonnull Set<String> applicationIds,
+                                                @Nonnull String coreConstraintsSchema) throws IOException {
+        super(outputStream, CPL_NAMESPACE);
+        if (!coreConstraintsSchema.equals(CoreConstraints.NAMESPACE_IMF_2016)
+                && !coreConstraintsSchema.equals(CoreConstraints.NAMESPACE_IMF_2020)) {
+            throw new IMFAuthoringException(String.format("Core constraints %s are not supported by a st2067-3:2016 CompositionPlaylist", coreConstraintsSchema));
+        }
+        this.compositionEditRate = compositionEditRate;
+        this.totalRunningTime = totalRunningTime;
+        this.applicationIds = applicationIds;
+        this.coreConstraintsSchema = coreConstraintsSchema;
+
+        Map<String, String> namespaces = new LinkedHashMap<>();
+        namespaces.put("cc", coreConstraintsSchema);
+        namespaces.put("ds", DSIG_NAMESPACE);
+        namespaces.put("iab", IAB_NAMESPACE);
+        namespaces.put("imfsadm", MGASADM_NAMESPACE);
+        namespaces.put("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+        startDocument("CompositionPlaylist", namespaces);
+        writeTextElement("Id", UUIDHelper.fromUUID(uuid));
+        if (annotationText != null) {
+            writeUserTextElement("Annotation", annotationText, "en");
+        }
+        writeTextElement("IssueDate", issueDate.toXMLFormat());
+        writeUserTextElement("Issuer", issuer, "en");
+        writeUserTextElement("Creator", creator, "en");
+        writeUserTextElement("ContentTitle", contentTitle, "en");
+        startElement("ContentVersionList");
+        startElement("ContentVersion");
+        writeTextElement("Id", IMFUUIDGenerator.getInstance().getUrnUUID());
+        writeUserTextElement("LabelText", "Photon CompositionPlaylistBuilder", "en");
+        endElement();
+        endElement();
+    }
+
+    /**
+     * A method to write an EssenceDescriptor of the Composition. EssenceDescriptors must be written before the first
+     * Segment is started.
+     * @param essenceDescriptor the EssenceDescriptor, whose content is a list of DOM nodes
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void writeEssenceDescriptor(@Nonnull IMFEssenceDescriptorBaseType essenceDescriptor) throws IOException {
+        if (this.state == State.HEADER) {
+            startElement("EssenceDescriptorList");
+            this.state = State.ESSENCE_DESCRIPTOR_LIST;
+        }
+        requireState(State.ESSENCE_DESCRIPTOR_LIST, "EssenceDescriptor");
+        startElement("EssenceDescriptor");
+        writeTextElement("Id", UUIDHelper.fromUUID(essenceDescriptor.getId()));
+        for (Object object : essenceDescriptor.getAny()) {
+            if (!(object instanceof Node)) {
+                throw new IMFAuthoringException(String.format("EssenceDescriptor %s contains an object of type %s, only DOM nodes can be written",
+                        essenceDescriptor.getId(), object.getClass().getName()));
+            }
+            writeNode((Node) object);
+        }
+        endElement();
+    }
+
+    /**
+     * A method to start a Segment of the Composition
+     * @param uuid identifying the Segment
+     * @param annotationText a free form human readable text, null if it should be omitted
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void startSegment(@Nonnull UUID uuid, @Nullable String annotationText) throws IOException {
+        if (this.state == State.HEADER || this.state == State.ESSENCE_DESCRIPTOR_LIST) {
+            writeSegmentListPreamble();
+        }
+        requireState(State.SEGMENT_LIST, "Segment");
+        startElement("Segment");
+        writeTextElement("Id", UUIDHelper.fromUUID(uuid));
+        if (annotationText != null) {
+            writeUserTextElement("Annotation", annotationText, "en");
+        }
+        startElement("SequenceList");
+        this.state = State.SEGMENT;
+        this.numberOfSegments++;
+        this.numberOfSequences = 0;
+    }
+
+    /**
+     * A method to start a Sequence of the current Segment. A MarkerSequence must be the first Sequence of a Segment.
+     * @param uuid identifying the Sequence
+     * @param trackId identifying the VirtualTrack that the Sequence belongs to
+     * @param sequenceType the type of the Sequence, e.g. MainImageSequence
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void startSequence(@Nonnull UUID uuid, @Nonnull UUID trackId, @Nonnull String sequenceType) throws IOException {
+        requireState(State.SEGMENT, "Sequence");
+        String namespace;
+        switch (sequenceType) {
+            case CoreConstraints.MAIN_IMAGE_SEQUENCE:
+            case CoreConstraints.MAIN_AUDIO_SEQUENCE:
+                namespace = this.coreConstraintsSchema;
+                break;
+            case IAB_SEQUENCE:
+                namespace = IAB_NAMESPACE;
+                break;
+            case MGASADM_SIGNAL_SEQUENCE:
+                namespace = MGASADM_NAMESPACE;
+                break;
+            case Composition.MARKER_SEQUENCE:
+                if (this.numberOfSequences != 0) {
+                    throw new IMFAuthoringException(String.format("A %s has to be the first Sequence of a Segment", Composition.MARKER_SEQUENCE));
+                }
+                namespace = CPL_NAMESPACE;
+                break;
+            default:
+                throw new IMFAuthoringException(String.format("Currently we only support %s, %s, %s, %s, and %s sequence types in building a Composition Playlist document, the type of sequence being requested is %s",
+                        CoreConstraints.MAIN_IMAGE_SEQUENCE, CoreConstraints.MAIN_AUDIO_SEQUENCE, IAB_SEQUENCE, MGASADM_SIGNAL_SEQUENCE, Composition.MARKER_SEQUENCE, sequenceType));
+        }
+        startElement(namespace, sequenceType);
+        writeTextElement("Id", UUIDHelper.fromUUID(uuid));
+        writeTextElement("TrackId", UUIDHelper.fromUUID(trackId));
+        startElement("ResourceList");
+        this.state = State.SEQUENCE;
+        this.numberOfSequences++;
+        this.numberOfResources = 0;
+    }
+
+    /**
+     * A method to write a TrackFileResource of the current Sequence, with the SourceEncoding of the resource
+     * @param trackFileResource an object that roughly models a TrackFileResourceType
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void writeTrackFileResource(@Nonnull IMFTrackFileResourceType trackFileResource) throws IOException {
+        writeTrackFileResource(trackFileResource, null);
+    }
+
+    /**
+     * A method to write a TrackFileResource of the current Sequence
+     * @param trackFileResource an object that roughly models a TrackFileResourceType
+     * @param sourceEncoding the Id of the EssenceDescriptor of the track file, null to use the SourceEncoding of the resource
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void writeTrackFileResource(@Nonnull IMFTrackFileResourceType trackFileResource, @Nullable UUID sourceEncoding) throws IOException {
+        startResource("TrackFileResourceType", trackFileResource.getId(), trackFileResource.getEditRate(), trackFileResource.getIntrinsicDuration(),
+                trackFileResource.getEntryPoint(), trackFileResource.getSourceDuration(), trackFileResource.getRepeatCount());
+        writeTextElement("SourceEncoding", sourceEncoding != null ? UUIDHelper.fromUUID(sourceEncoding) : trackFileResource.getSourceEncoding());
+        writeTextElement("TrackFileId", trackFileResource.getTrackFileId());
+        byte[] hash = trackFileResource.getHash();
+        if (hash != null) {
+            writeTextElement("Hash", Base64.getEncoder().encodeToString(hash));
+            startElement("HashAlgorithm");
+            writeAttribute(null, "Algorithm", trackFileResource.getHashAlgorithm() != null ? trackFileResource.getHashAlgorithm() : CompositionPlaylistBuilder_2016.defaultHashAlgorithm);
+            endElement();
+        }
+        endElement();
+    }
+
+    /**
+     * A method to write a MarkerResource of the current Sequence
+     * @param markerResource an object that roughly models a MarkerResourceType
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void writeMarkerResource(@Nonnull IMFMarkerResourceType markerResource) throws IOException {
+        startResource("MarkerResourceType", markerResource.getId(), markerResource.getEditRate(), markerResource.getIntrinsicDuration(),
+                markerResource.getEntryPoint(), markerResource.getSourceDuration(), markerResource.getRepeatCount());
+        for (IMFMarkerType marker : markerResource.getMarkerList()) {
+            startElement("Marker");
+            if (marker.getAnnotation() != null) {
+                writeUserTextElement("Annotation", marker.getAnnotation(), null);
+            }
+            startElement("Label");
+            if (marker.getLabel().getScope() != null) {
+                writeAttribute(null, "scope", marker.getLabel().getScope());
+            }
+            writeCharacters(marker.getLabel().getValue());
+            endElement();
+            writeTextElement("Offset", marker.getOffset().toString());
+            endElement();
+        }
+        endElement();
+    }
+
+    /**
+     * A method to end the current Sequence
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void endSequence() throws IOException {
+        requireState(State.SEQUENCE, "end of a Sequence");
+        if (this.numberOfResources == 0) {
+            throw new IMFAuthoringException("A Sequence requires at least one Resource");
+        }
+        endElement(); //ResourceList
+        endElement(); //Sequence
+        this.state = State.SEGMENT;
+    }
+
+    /**
+     * A method to end the current Segment
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void endSegment() throws IOException {
+        requireState(State.SEGMENT, "end of a Segment");
+        endElement(); //SequenceList
+        endElement(); //Segment
+        this.state = State.SEGMENT_LIST;
+    }
+
+    /**
+     * A method that completes the CompositionPlaylist document
+     * @return the size and SHA-1 digest of the CompositionPlaylist document, as required by its PackingList entry
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public IMFXMLStreamWriter.WrittenDocument finish() throws IOException {
+        requireState(State.SEGMENT_LIST, "end of the CompositionPlaylist");
+        if (this.numberOfSegments == 0) {
+            throw new IMFAuthoringException("A CompositionPlaylist requires at least one Segment");
+        }
+        return endDocument();
+    }
+
+    /**
+     * A stateless method that validates a CompositionPlaylist document against the st2067-3:2016 schema and the
+     * st2067-2 core constraints schemas in a single streaming pass
+     * @param inputStream the CompositionPlaylist document
+     * @return a list of errors that were detected while validating the document
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static List<ErrorLogger.ErrorObject> validate(@Nonnull InputStream inputStream) throws IOException {
+        return validate(new StreamSource(inputStream), getSchema(SCHEMAS), IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR);
+    }
+
+    private void writeSegmentListPreamble() throws IOException {
+        if (this.state == State.ESSENCE_DESCRIPTOR_LIST) {
+            endElement();
+        }
+        writeTextElement("EditRate", this.compositionEditRate.getNumerator() + " " + this.compositionEditRate.getDenominator());
+        writeTextElement("TotalRunningTime", String.format("%02d:%02d:%02d", this.totalRunningTime / 3600, (this.totalRunningTime % 3600) / 60, (this.totalRunningTime % 60)));
+        if (!this.applicationIds.isEmpty()) {
+            startElement("ExtensionProperties");
+            writeTextElement(this.coreConstraintsSchema, "ApplicationIdentification", String.join(" ", this.applicationIds));
+            endElement();
+        }
+        startElement("SegmentList");
+        this.state = State.SEGMENT_LIST;
+    }
+
+    private void startResource(String resourceType, String id, Composition.EditRate editRate, BigInteger intrinsicDuration,
+                               @Nullable BigInteger entryPoint, @Nullable BigInteger sourceDuration, @Nullable BigInteger repeatCount) throws IOException {
+        requireState(State.SEQUENCE, "Resource");
+        startElement("Resource");
+        writeAttribute(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type", resourceType);
+        writeTextElement("Id", id);
+        writeTextElement("EditRate", editRate.getNumerator() + " " + editRate.getDenominator());
+        writeTextElement("IntrinsicDuration", intrinsicDuration.toString());
+        if (entryPoint != null) {
+            writeTextElement("EntryPoint", entryPoint.toString());
+        }
+        if (sourceDuration != null) {
+            writeTextElement("SourceDuration", sourceDuration.toString());
+        }
+        if (repeatCount != null) {
+            writeTextElement("RepeatCount", repeatCount.toString());
+        }
+        this.numberOfResources++;
+    }
+
+    private void requireState(State expected, String what) {
+        if (this.state != expected) {
+            throw new IMFAuthoringException(String.format("A %s cannot be written while the CompositionPlaylist writer is in state %s", what, this.state));
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.ConcurrentTasks;
+import com.netflix.imflibrary.IMFConstraints;
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.MXFOperationalPattern1A;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.utils.ByteArrayByteRangeProvider;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.ByteProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.RegXMLLibDictionary;
+import com.netflix.imflibrary.utils.RegXMLLibHelper;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import com.sandflow.smpte.klv.Triplet;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Node;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A class that converts the EssenceDescriptors of IMF track files to their RegXML representation, as required by the
+ * EssenceDescriptorList of a CompositionPlaylist.
+ *
+ * Every distinct track file is converted once: results are memoised by track file ID and the SHA-1 digest of its header
+ * partition, so that a track file that is referenced by several resources, or by several Compositions built with the
+ * same extractor, is not converted again, and a header partition that changed under the same ID is. Track files that
+ * have not been converted before are converted concurrently on the extractor's Executor, and all of them share a single
+ * {@link RegXMLLibDictionary}. The memoised results live as long as the extractor, so an extractor should be scoped to
+ * the work that benefits from it, e.g. the Compositions of one delivery.
+ *
+ * As DOM nodes are not thread safe, the memoised DOM nodes are never handed out: every caller receives its own deep
+ * copy, in a Document of its own, that it is free to modify.
+ */
+@ThreadSafe
+public final class EssenceDescriptorExtractor {
+
+    /**
+     * The default maximum number of track files whose EssenceDescriptors are memoised
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final Executor executor;
+    private final Map<CacheKey, Extraction> cache;
+
+    /**
+     * A constructor for an EssenceDescriptorExtractor
+     * @param executor the Executor that track files are converted on, null to convert them on the calling thread
+     * @param cacheSize the maximum number of track files whose EssenceDescriptors are memoised, the least recently used
+     *                  ones are evicted first
+     */
+    public EssenceDescriptorExtractor(@Nullable Executor executor, int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException(String.format("Invalid cache size %d", cacheSize));
+        }
+        this.executor = executor;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<CacheKey, Extraction>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Extraction> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * A constructor for an EssenceDescriptorExtractor that converts track files on the common ForkJoinPool and memoises
+     * up to {@link #DEFAULT_CACHE_SIZE} track files
+     */
+    public EssenceDescriptorExtractor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * A method that converts the EssenceDescriptors of a collection of track files. Errors detected while reading the
+     * header partitions are reported to the error logger in the order of the track file IDs, whether or not the track
+     * file was converted by this call.
+     * @param imfTrackFileMetadataMap a map of track file IDs to the metadata of the track file
+     * @param trackFileIds the IDs of the track files whose EssenceDescriptors are requested, duplicates are ignored
+     * @param imfErrorLogger an error logger for recording any errors
+     * @return a map of track file IDs to a copy of the RegXML representation of the EssenceDescriptor of the track file
+     * that is owned by the caller, track files that do not contain an EssenceDescriptor are absent
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws ParserConfigurationException if a DocumentBuilder cannot be created
+     */
+    public Map<UUID, List<Node>> extract(@Nonnull Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap,
+                                         @Nonnull Collection<UUID> trackFileIds,
+                                         @Nonnull IMFErrorLogger imfErrorLogger) throws IOException, ParserConfigurationException {
+        List<UUID> distinctTrackFileIds = new ArrayList<>(new LinkedHashSet<>(trackFileIds));
+        List<CacheKey> keys = new ArrayList<>(distinctTrackFileIds.size());
+        List<CacheKey> pendingKeys = new ArrayList<>();
+        for (UUID trackFileId : distinctTrackFileIds) {
+            IMPBuilder.IMFTrackFileMetadata imfTrackFileMetadata = imfTrackFileMetadataMap.get(trackFileId);
+            if (imfTrackFileMetadata == null) {
+                throw new IMFAuthoringException(String.format("TrackFileHeaderMetadata for Track Resource Id %s is absent", trackFileId.toString()));
+            }
+            CacheKey key = new CacheKey(trackFileId, imfTrackFileMetadata.getHeaderPartition());
+            keys.add(key);
+            if (this.cache.get(key) == null) {
+                pendingKeys.add(key);
+            }
+        }
+
+        //Conversions capture their failures, which are rethrown in the order of the track file IDs below
+        List<Extraction> extractions = ConcurrentTasks.invokeAll(this.executor, pendingKeys,
+                key -> convert(imfTrackFileMetadataMap.get(key.trackFileId).getHeaderPartition()));
+        Map<CacheKey, Extraction> converted = new HashMap<>();
+        for (int i = 0; i < pendingKeys.size(); i++) {
+            converted.put(pendingKeys.get(i), extractions.get(i));
+        }
+
+        Map<UUID, List<Node>> imfEssenceDescriptorMap = new LinkedHashMap<>();
+        for (CacheKey key : keys) {
+            Extraction extraction = converted.get(key);
+            boolean convertedByThisCall = (extraction != null);
+            if (extraction == null) {
+                extraction = this.cache.get(key);
+            }
+            if (extraction == null) {
+                //Evicted by a concurrent caller between the look up above and this one
+                extraction = convert(imfTrackFileMetadataMap.get(key.trackFileId).getHeaderPartition());
+            }
+            imfErrorLogger.addAllErrors(extraction.errors);
+            extraction.rethrowFailure();
+            if (convertedByThisCall) {
+                this.cache.put(key, extraction);
+            }
+            if (extraction.essenceDescriptor != null) {
+                imfEssenceDescriptorMap.put(key.trackFileId, extraction.copyEssenceDescriptor());
+            }
+        }
+        return imfEssenceDescriptorMap;
+    }
+
+    /**
+     * Getter for the number of track files whose EssenceDescriptors are memoised
+     * @return the number of memoised track files
+     */
+    int getCacheSize() {
+        return this.cache.size();
+    }
+
+    /**
+     * A method that discards all memoised EssenceDescriptors
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    private static Extraction convert(byte[] headerPartitionBytes) {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        try {
+            ByteProvider byteProvider = new ByteArrayDataProvider(headerPartitionBytes);
+            ResourceByteRangeProvider resourceByteRangeProvider = new ByteArrayByteRangeProvider(headerPartitionBytes);
+            HeaderPartition headerPartition = new HeaderPartition(byteProvider, 0L, (long) headerPartitionBytes.length, imfErrorLogger);
+
+            MXFOperationalPattern1A.HeaderPartitionOP1A headerPartitionOP1A = MXFOperationalPattern1A.checkOperationalPattern1ACompliance(headerPartition, imfErrorLogger);
+            IMFConstraints.checkMXFHeaderMetadata(headerPartitionOP1A, imfErrorLogger);
+
+            DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            RegXMLLibHelper regXMLLibHelper = null;
+            List<Node> essenceDescriptorNodes = null;
+            for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors()) {
+                List<KLVPacket.Header> subDescriptorHeaders = new ArrayList<>();
+                for (InterchangeObject.InterchangeObjectBO subDescriptorBO : headerPartition.getSubDescriptors(essenceDescriptor)) {
+                    if (subDescriptorBO != null) {
+                        subDescriptorHeaders.add(subDescriptorBO.getHeader());
+                    }
+                }
+                if (regXMLLibHelper == null) {
+                    KLVPacket.Header primerPackHeader = headerPartition.getPrimerPack().getHeader();
+                    regXMLLibHelper = new RegXMLLibHelper(RegXMLLibDictionary.getSharedInstance(), primerPackHeader, getByteProvider(resourceByteRangeProvider, primerPackHeader));
+                }
+                Document document = documentBuilder.newDocument();
+                DocumentFragment documentFragment = getEssenceDescriptorAsDocumentFragment(regXMLLibHelper, document, essenceDescriptor.getHeader(), subDescriptorHeaders, resourceByteRangeProvider, imfErrorLogger);
+                //As the CPL carries a single EssenceDescriptor per track file, the last one found represents the track file
+                essenceDescriptorNodes = Collections.singletonList(documentFragment.getFirstChild());
+            }
+            return new Extraction(essenceDescriptorNodes, imfErrorLogger.getErrors(), null);
+        }
+        catch (IOException | ParserConfigurationException | RuntimeException e) {
+            return new Extraction(null, imfErrorLogger.getErrors(), e);
+        }
+    }
+
+    private static DocumentFragment getEssenceDescriptorAsDocumentFragment(RegXMLLibHelper regXMLLibHelper,
+                                                                           Document document,
+                                                                           KLVPacket.Header essenceDescriptor,
+                                                                           List<KLVPacket.Header> subDescriptors,
+                                                                           ResourceByteRangeProvider resourceByteRangeProvider,
+                                                                           IMFErrorLogger imfErrorLogger) throws MXFException, IOException {
+        document.setXmlStandalone(true);
+
+        Triplet essenceDescriptorTriplet = regXMLLibHelper.getTripletFromKLVHeader(essenceDescriptor, getByteProvider(resourceByteRangeProvider, essenceDescriptor));
+        /*Get the Triplets corresponding to the SubDescriptors*/
+        List<Triplet> subDescriptorTriplets = new ArrayList<>();
+        for (KLVPacket.Header subDescriptorHeader : subDescriptors) {
+            subDescriptorTriplets.add(regXMLLibHelper.getTripletFromKLVHeader(subDescriptorHeader, getByteProvider(resourceByteRangeProvider, subDescriptorHeader)));
+        }
+        return regXMLLibHelper.getEssenceDescriptorDocumentFragment(essenceDescriptorTriplet, subDescriptorTriplets, document, imfErrorLogger);
+    }
+
+    private static ByteProvider getByteProvider(ResourceByteRangeProvider resourceByteRangeProvider, KLVPacket.Header header) throws IOException {
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(header.getByteOffset(), header.getByteOffset() + header.getKLSize() + header.getVSize());
+        return new ByteArrayDataProvider(bytes);
+    }
+
+    /**
+     * The result of converting the EssenceDescriptors of a track file, including the errors detected while doing so
+     */
+    private static final class Extraction {
+        private final List<Node> essenceDescriptor;
+        private final List<ErrorLogger.ErrorObject> errors;
+        private final Exception failure;
+
+        private Extraction(@Nullable List<Node> essenceDescriptor, List<ErrorLogger.ErrorObject> errors, @Nullable Exception failure) {
+            this.essenceDescriptor = essenceDescriptor;
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+            this.failure = failure;
+        }
+
+        /**
+         * Copies the EssenceDescriptor into a new Document, holding the lock of the Extraction so that concurrent callers
+         * never read the memoised DOM at the same time
+         */
+        private synchronized List<Node> copyEssenceDescriptor() {
+            List<Node> copies = new ArrayList<>(this.essenceDescriptor.size());
+            for (Node node : this.essenceDescriptor) {
+                Document document = node.getOwnerDocument().getImplementation().createDocument(null, null, null);
+                document.setXmlStandalone(true);
+                copies.add(document.importNode(node, true));
+            }
+            return Collections.unmodifiableList(copies);
+        }
+
+        private void rethrowFailure() throws IOException, ParserConfigurationException {
+            if (this.failure instanceof IOException) {
+                throw (IOException) this.failure;
+            }
+            else if (this.failure instanceof ParserConfigurationException) {
+                throw (ParserConfigurationException) this.failure;
+            }
+            else if (this.failure != null) {
+                throw (RuntimeException) this.failure;
+            }
+        }
+    }
+
+    /**
+     * Identifies the content of a track file's header partition
+     */
+    private static final class CacheKey {
+        private final UUID trackFileId;
+        private final byte[] headerPartitionDigest;
+        private final int hashCode;
+
+        private CacheKey(UUID trackFileId, byte[] headerPartition) {
+            this.trackFileId = trackFileId;
+            try {
+                this.headerPartitionDigest = MessageDigest.getInstance("SHA-1").digest(headerPartition);
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IMFAuthoringException(e);
+            }
+            this.hashCode = 31 * trackFileId.hashCode() + Arrays.hashCode(this.headerPartitionDigest);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey otherKey = (CacheKey) other;
+            return this.trackFileId.equals(otherKey.trackFileId) && Arrays.equals(this.headerPartitionDigest, otherKey.headerPartitionDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
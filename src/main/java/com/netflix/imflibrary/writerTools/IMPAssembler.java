@@ -1,14 +1,23 @@
 package com.netflix.imflibrary.writerTools;
 
+import com.netflix.imflibrary.ConcurrentTasks;
+import com.netflix.imflibrary.IMFConstraints;
 import com.netflix.imflibrary.IMFErrorLogger;
 import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.MXFOperationalPattern1A;
 import com.netflix.imflibrary.RESTfulInterfaces.PayloadRecord;
-import com.netflix.imflibrary.app.IMFTrackFileReader;
 import com.netflix.imflibrary.app.IMPFixer;
+import com.netflix.imflibrary.exceptions.IMFException;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.FileDescriptor;
+import com.netflix.imflibrary.st0377.header.SourcePackage;
 import com.netflix.imflibrary.st0429_8.PackingList;
 import com.netflix.imflibrary.st0429_9.AssetMap;
 import com.netflix.imflibrary.st0429_9.BasicMapProfileV2MappedFileSet;
 import com.netflix.imflibrary.st2067_2.*;
+import com.netflix.imflibrary.st2067_201.IABTrackFileConstraints;
+import com.netflix.imflibrary.st2067_203.MGASADMTrackFileConstraints;
 import com.netflix.imflibrary.utils.*;
 import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
 import com.netflix.imflibrary.writerTools.utils.IMFUtils;
@@ -27,6 +36,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 
@@ -36,25 +47,48 @@ public class IMPAssembler {
 
     private static final Logger logger = LoggerFactory.getLogger(IMPAssembler.class);
 
+    private final Executor executor;
+
+    /**
+     * Constructor for an IMPAssembler that introspects track files on the common ForkJoinPool
+     */
+    public IMPAssembler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for an IMPAssembler
+     * @param executor - the Executor that track files are introspected on, null to introspect them on the calling thread.
+     *                 Track file introspection is I/O bound, a dedicated pool sized to the I/O depth of the storage is
+     *                 recommended for track files on networked storage
+     */
+    public IMPAssembler(@Nullable Executor executor) {
+        this.executor = executor;
+    }
+
 
     /**
      * Generate the CPL, PKL, and AssetMap XML files given a simple timeline of track entries
      * Code adapted from IMPFixer
+     *
+     * Every distinct track file of the timeline is introspected (header partition, track file ID, edit rate, duration and
+     * hash) once, concurrently with the other track files, before the virtual tracks are built from the timeline in order.
      * @param simpleTimeline - a timeline tracks of track entries
      * @param outputDirectory - the destination directory for the generated files
-     * @param copyTrackFiles - whether to copy the track files to the output directory
+     * @param copyTrackFiles - whether to copy the track files to the output directory, in which case the track files
+     *                         must have distinct file names
      */
     public AssembledIMPResult assembleIMFFromFiles(SimpleTimeline simpleTimeline, Path outputDirectory, boolean copyTrackFiles) throws IOException, JAXBException, ParserConfigurationException, URISyntaxException, SAXException {
         Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap = new HashMap<>();
         IMFErrorLogger imfErrors = new IMFErrorLoggerImpl();
         List<Composition.VirtualTrack> virtualTracks = new ArrayList<>();
         Map<UUID, UUID> trackFileIdToResourceMap = new HashMap<>();
-        Map<UUID, List<Long>> sampleRateMap = new HashMap<>();
-        Map<UUID, BigInteger> sampleCountMap = new HashMap<>();
-        Map<UUID, byte[]> hashMap = new HashMap<>();
         long videoTotalSourceDuration = 0;
 
+        // phase one: introspect every distinct track file
+        Map<Path, TrackFileIntrospection> introspections = introspectTrackFiles(simpleTimeline, outputDirectory, copyTrackFiles, imfErrors);
 
+        // phase two: build the virtual tracks in timeline order
         for (Track track : simpleTimeline.getEssenceTracks()) {
             // build cpl track here
             List<IMFTrackFileResourceType> trackFileResources = new ArrayList<>();
@@ -63,90 +97,43 @@ public class IMPAssembler {
                 if (trackEntry instanceof EssenceTrackEntry) {
                     EssenceTrackEntry essenceTrackEntry = (EssenceTrackEntry) trackEntry;
                     logger.info("track: {}, file: {}: path: {}", simpleTimeline.getEssenceTracks().indexOf(track), track.getTrackEntries().indexOf(trackEntry), essenceTrackEntry.getPath().toString());
-                    ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(essenceTrackEntry.getPath());
-                    PayloadRecord headerPartitionPayloadRecord = IMPFixer.getHeaderPartitionPayloadRecord(resourceByteRangeProvider, imfErrors);
-                    if (headerPartitionPayloadRecord == null) {
-                        throw new IOException("Could not get header partition for file: " + essenceTrackEntry.getPath().toString());
-                    }
-                    byte[] headerPartitionBytes = headerPartitionPayloadRecord.getPayload();
-
-                    // get sha-1 hash or use cached value
-                    byte[] hash = null;
-                    if (essenceTrackEntry.getHash() != null) {
-                        logger.info("Using hash from user: {}", essenceTrackEntry.getHash());
-                        hash = essenceTrackEntry.getHash();
-                        hashMap.put(MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors), essenceTrackEntry.getHash());
-                    } else if (hashMap.containsKey(MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors))) {
-                        logger.info("Using cached hash: {}", hashMap.get(MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors)));
-                        hash = hashMap.get(MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors));
-                    } else {
-                        logger.info("Generating hash for file: {}", essenceTrackEntry.getPath().toString());
-                        hash = IMFUtils.generateSHA1Hash(resourceByteRangeProvider);
-                        hashMap.put(MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors), hash);
-                    }
-
+                    TrackFileIntrospection introspection = introspections.get(getIntrospectionKey(essenceTrackEntry));
+                    UUID trackFileId = introspection.trackFileId;
                     String essenceTrackFilename = Utilities.getFilenameFromPath(essenceTrackEntry.getPath());
 
-                    UUID trackFileId = MXFUtils.getTrackFileId(headerPartitionPayloadRecord, imfErrors);
-                    logger.info("UUID read from file: {}: {}", essenceTrackFilename, trackFileId.toString());
-                    logger.info("Adding file {} to imfTrackFileMetadataMap", essenceTrackFilename);
-                    imfTrackFileMetadataMap.put(
-                            trackFileId,
-                            new IMPBuilder.IMFTrackFileMetadata(headerPartitionBytes,
-                                    hash,   // a byte[] containing the SHA-1, Base64 encoded hash of the IMFTrack file
-                                    CompositionPlaylistBuilder_2016.defaultHashAlgorithm,
-                                    essenceTrackFilename,
-                                    resourceByteRangeProvider.getResourceSize())
-                    );
-
-                    if (copyTrackFiles) {
-                        Path outputTrackFile = outputDirectory.resolve(Utilities.getFilenameFromPath(essenceTrackEntry.getPath()));
-                        logger.info("Copying track file from\n{} to\n{}", essenceTrackEntry.getPath().toString(), outputTrackFile.toString());
-                        Files.copy(essenceTrackEntry.getPath(), outputTrackFile, REPLACE_EXISTING);
+                    byte[] hash = (essenceTrackEntry.getHash() != null) ? essenceTrackEntry.getHash() : introspection.hash;
+                    if (!imfTrackFileMetadataMap.containsKey(trackFileId)) {
+                        logger.info("Adding file {} to imfTrackFileMetadataMap", essenceTrackFilename);
+                        imfTrackFileMetadataMap.put(
+                                trackFileId,
+                                new IMPBuilder.IMFTrackFileMetadata(introspection.headerPartition,
+                                        introspection.hash,   // a byte[] containing the SHA-1, Base64 encoded hash of the IMFTrack file
+                                        CompositionPlaylistBuilder_2016.defaultHashAlgorithm,
+                                        essenceTrackFilename,
+                                        introspection.size)
+                        );
                     }
 
-                    IMFTrackFileReader imfTrackFileReader = new IMFTrackFileReader(outputDirectory, resourceByteRangeProvider);
-
-                    // get sample rate or use cached value
+                    // use the sample rate provided by the user or the introspected one
                     List<Long> sampleRate = null;
                     if (essenceTrackEntry.getSampleRate() != null) {
-                        // if user provided sample rate, use it
                         sampleRate = Arrays.asList(essenceTrackEntry.getSampleRate().getNumerator(), essenceTrackEntry.getSampleRate().getDenominator());
                         logger.info("Using sample rate from user: {}/{}", sampleRate.get(0), sampleRate.get(1));
-                    } else if (!sampleRateMap.containsKey(trackFileId)) {
-                        // sample rate has not already been found, find it
-                        sampleRate = imfTrackFileReader.getEssenceEditRateAsList(imfErrors);
-                        sampleRateMap.put(trackFileId, sampleRate);
-                        logger.info("Found sample rate of: {}/{}", sampleRate.get(0), sampleRate.get(1));
                     } else {
-                        sampleRate = sampleRateMap.get(trackFileId);
-                        logger.info("Using cached sample rate of: {}/{}", sampleRate.get(0), sampleRate.get(1));
+                        sampleRate = introspection.editRate;
+                        logger.info("Using sample rate of: {}/{}", sampleRate.get(0), sampleRate.get(1));
                     }
 
-
-                    // get sample count or use cached value
+                    // use the sample count provided by the user or the introspected one
                     BigInteger sampleCount = null;
                     if (essenceTrackEntry.getIntrinsicDuration() != null) {
-                        // use sample count provided by user
                         sampleCount = essenceTrackEntry.getIntrinsicDuration();
                         logger.info("Intrinsic duration from user: {}", sampleCount);
-                    } else if (!sampleCountMap.containsKey(trackFileId)) {
-                        // compute sample count
-                        sampleCount = imfTrackFileReader.getEssenceDuration(imfErrors);
-                        sampleCountMap.put(trackFileId, sampleCount);
-                        logger.info("Found essence duration of: {}", sampleCount);
                     } else {
-                        // use cached sample count
-                        sampleCount = sampleCountMap.get(trackFileId);
-                        logger.info("Using cached intrinsic duration of: {}", sampleCount);
+                        sampleCount = introspection.intrinsicDuration;
+                        logger.info("Using intrinsic duration of: {}", sampleCount);
                     }
 
-                    // delete temporary file left over from FileByteRangeProvider or ByteArrayByteRangeProvider
-                    Path tempFilePath = outputDirectory.resolve("range");
-                    logger.info("Deleting temporary file if it exists: {}", tempFilePath);
-                    Files.deleteIfExists(tempFilePath);
-
-
                     // add to resources
                     logger.info("Adding file to resources: {}..", essenceTrackFilename);
 
@@ -277,6 +264,198 @@ public class IMPAssembler {
     }
 
 
+    /**
+     * Introspects every distinct track file referenced by the essence tracks of a timeline, concurrently on the executor
+     * of this IMPAssembler. Errors are reported to the error logger in the order in which the track files first appear
+     * in the timeline.
+     * @param simpleTimeline - the timeline whose track files are introspected
+     * @param outputDirectory - the destination directory for the generated files
+     * @param copyTrackFiles - whether to copy the track files to the output directory
+     * @param imfErrors - an error logger for recording any errors
+     * @return a map of normalized track file paths to the result of their introspection
+     * @throws IllegalArgumentException if track files are copied and 2 distinct track files have the same file name
+     */
+    private Map<Path, TrackFileIntrospection> introspectTrackFiles(SimpleTimeline simpleTimeline, Path outputDirectory, boolean copyTrackFiles, IMFErrorLogger imfErrors) throws IOException {
+        Map<Path, IntrospectionRequest> requests = new LinkedHashMap<>();
+        for (Track track : simpleTimeline.getEssenceTracks()) {
+            for (TrackEntry trackEntry : track.getTrackEntries()) {
+                if (trackEntry instanceof EssenceTrackEntry) {
+                    EssenceTrackEntry essenceTrackEntry = (EssenceTrackEntry) trackEntry;
+                    requests.computeIfAbsent(getIntrospectionKey(essenceTrackEntry), IntrospectionRequest::new).add(essenceTrackEntry);
+                }
+            }
+        }
+
+        if (copyTrackFiles) {
+            // distinct track files are copied concurrently, so two of them with the same file name would overwrite one another
+            Map<String, Path> outputFileNames = new HashMap<>();
+            for (Path path : requests.keySet()) {
+                Path previousPath = outputFileNames.putIfAbsent(Utilities.getFilenameFromPath(path), path);
+                if (previousPath != null) {
+                    throw new IllegalArgumentException(String.format("Track files %s and %s have the same file name and cannot both be copied to %s",
+                            previousPath.toString(), path.toString(), outputDirectory.toString()));
+                }
+            }
+        }
+
+        // introspections capture their failures, which are rethrown in the order of the track files below
+        List<IntrospectionRequest> pendingRequests = new ArrayList<>(requests.values());
+        List<TrackFileIntrospection> pendingIntrospections = ConcurrentTasks.invokeAll(this.executor, pendingRequests,
+                request -> introspect(request, outputDirectory, copyTrackFiles));
+
+        Map<Path, TrackFileIntrospection> introspections = new HashMap<>();
+        for (int i = 0; i < pendingRequests.size(); i++) {
+            TrackFileIntrospection introspection = pendingIntrospections.get(i);
+            imfErrors.addAllErrors(introspection.errors);
+            introspection.rethrowFailure();
+            introspections.put(pendingRequests.get(i).path, introspection);
+        }
+        return introspections;
+    }
+
+    /**
+     * Reads the header partition of a track file once and derives from it the track file ID, and the edit rate and
+     * intrinsic duration when a track entry that references the track file does not provide them. The track file is
+     * only read in full to generate its hash when no track entry provides it, and to copy it when requested.
+     */
+    private static TrackFileIntrospection introspect(IntrospectionRequest request, Path outputDirectory, boolean copyTrackFiles) {
+        IMFErrorLogger imfErrors = new IMFErrorLoggerImpl();
+        try {
+            ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(request.path);
+            PayloadRecord headerPartitionPayloadRecord = IMPFixer.getHeaderPartitionPayloadRecord(resourceByteRangeProvider, imfErrors);
+            if (headerPartitionPayloadRecord == null) {
+                throw new IOException("Could not get header partition for file: " + request.path.toString());
+            }
+            byte[] headerPartitionBytes = headerPartitionPayloadRecord.getPayload();
+            HeaderPartition headerPartition = new HeaderPartition(new ByteArrayDataProvider(headerPartitionBytes), 0L, (long) headerPartitionBytes.length, imfErrors);
+            SourcePackage filePackage = (SourcePackage) headerPartition.getPreface().getContentStorage().getEssenceContainerDataList().get(0).getLinkedPackage();
+            UUID trackFileId = filePackage.getPackageMaterialNumberasUUID();
+            logger.info("UUID read from file: {}: {}", request.path.toString(), trackFileId.toString());
+
+            List<Long> editRate = null;
+            BigInteger intrinsicDuration = null;
+            if (request.needsEditRate || request.needsIntrinsicDuration) {
+                checkHeaderPartition(headerPartition, trackFileId, imfErrors);
+                if (request.needsEditRate) {
+                    if (headerPartition.getEssenceDescriptors().isEmpty()) {
+                        throw new MXFException(String.format("No EssenceDescriptors were found in the MXF essence"));
+                    }
+                    editRate = ((FileDescriptor.FileDescriptorBO) headerPartition.getEssenceDescriptors().get(0)).getSampleRate();
+                    logger.info("Found sample rate of: {}/{}", editRate.get(0), editRate.get(1));
+                }
+                if (request.needsIntrinsicDuration) {
+                    intrinsicDuration = headerPartition.getEssenceDuration();
+                    logger.info("Found essence duration of: {}", intrinsicDuration);
+                }
+            }
+
+            byte[] hash = request.hash;
+            if (hash == null) {
+                logger.info("Generating hash for file: {}", request.path.toString());
+                hash = IMFUtils.generateSHA1Hash(resourceByteRangeProvider);
+            }
+
+            if (copyTrackFiles) {
+                Path outputTrackFile = outputDirectory.resolve(Utilities.getFilenameFromPath(request.path));
+                logger.info("Copying track file from\n{} to\n{}", request.path.toString(), outputTrackFile.toString());
+                Files.copy(request.path, outputTrackFile, REPLACE_EXISTING);
+            }
+
+            return new TrackFileIntrospection(headerPartitionBytes, trackFileId, editRate, intrinsicDuration, hash,
+                    resourceByteRangeProvider.getResourceSize(), imfErrors.getErrors(), null);
+        }
+        catch (IOException | RuntimeException e) {
+            return new TrackFileIntrospection(null, null, null, null, null, 0L, imfErrors.getErrors(), e);
+        }
+    }
+
+    /**
+     * Applies the same checks to a header partition as the IMFTrackFileReader does before it reports the edit rate or
+     * duration of a track file
+     */
+    private static void checkHeaderPartition(HeaderPartition headerPartition, UUID trackFileId, IMFErrorLogger imfErrors) throws IOException {
+        try {
+            MXFOperationalPattern1A.HeaderPartitionOP1A headerPartitionOP1A = MXFOperationalPattern1A.checkOperationalPattern1ACompliance(headerPartition, imfErrors);
+            IMFConstraints.HeaderPartitionIMF headerPartitionIMF = IMFConstraints.checkMXFHeaderMetadata(headerPartitionOP1A, imfErrors);
+            if (headerPartitionIMF != null) {
+                IABTrackFileConstraints.checkCompliance(headerPartitionIMF, imfErrors);
+                MGASADMTrackFileConstraints.checkCompliance(headerPartitionIMF, imfErrors);
+            }
+        }
+        catch (MXFException | IMFException e) {
+            imfErrors.addError(new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, String.format("IMFTrackFile with ID %s has fatal errors", trackFileId.toString())));
+            if (e instanceof IMFException) {
+                imfErrors.addAllErrors(((IMFException) e).getErrors());
+            } else {
+                imfErrors.addAllErrors(((MXFException) e).getErrors());
+            }
+            throw new IMFException(String.format("Fatal errors in the IMFTrackFile's Header Partition"), imfErrors);
+        }
+    }
+
+    private static Path getIntrospectionKey(EssenceTrackEntry essenceTrackEntry) {
+        return essenceTrackEntry.getPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * What needs to be introspected from a track file, given all the track entries that reference it
+     */
+    private static final class IntrospectionRequest {
+        private final Path path;
+        private boolean needsEditRate;
+        private boolean needsIntrinsicDuration;
+        private byte[] hash;
+
+        private IntrospectionRequest(Path path) {
+            this.path = path;
+        }
+
+        private void add(EssenceTrackEntry essenceTrackEntry) {
+            this.needsEditRate |= essenceTrackEntry.getSampleRate() == null;
+            this.needsIntrinsicDuration |= essenceTrackEntry.getIntrinsicDuration() == null;
+            if (this.hash == null && essenceTrackEntry.getHash() != null) {
+                logger.info("Using hash from user: {}", essenceTrackEntry.getHash());
+                this.hash = essenceTrackEntry.getHash();
+            }
+        }
+    }
+
+    /**
+     * The result of the introspection of a track file, or the failure that prevented it
+     */
+    private static final class TrackFileIntrospection {
+        private final byte[] headerPartition;
+        private final UUID trackFileId;
+        private final List<Long> editRate;
+        private final BigInteger intrinsicDuration;
+        private final byte[] hash;
+        private final long size;
+        private final List<ErrorLogger.ErrorObject> errors;
+        private final Exception failure;
+
+        private TrackFileIntrospection(@Nullable byte[] headerPartition, @Nullable UUID trackFileId, @Nullable List<Long> editRate,
+                                       @Nullable BigInteger intrinsicDuration, @Nullable byte[] hash, long size,
+                                       List<ErrorLogger.ErrorObject> errors, @Nullable Exception failure) {
+            this.headerPartition = headerPartition;
+            this.trackFileId = trackFileId;
+            this.editRate = editRate;
+            this.intrinsicDuration = intrinsicDuration;
+            this.hash = hash;
+            this.size = size;
+            this.errors = errors;
+            this.failure = failure;
+        }
+
+        private void rethrowFailure() throws IOException {
+            if (this.failure instanceof IOException) {
+                throw (IOException) this.failure;
+            } else if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            }
+        }
+    }
+
+
     /**
      * Gets or generates the SourceEncoding UUID for a given trackFileId
      * @param trackFileIdToResourceMap - a map of trackFileId to SourceEncoding UUID
@@ -1,35 +1,19 @@
 package com.netflix.imflibrary.writerTools;
 
-import com.netflix.imflibrary.IMFConstraints;
 import com.netflix.imflibrary.IMFErrorLogger;
 import com.netflix.imflibrary.IMFErrorLoggerImpl;
-import com.netflix.imflibrary.KLVPacket;
-import com.netflix.imflibrary.MXFOperationalPattern1A;
 import com.netflix.imflibrary.exceptions.IMFAuthoringException;
-import com.netflix.imflibrary.exceptions.MXFException;
-import com.netflix.imflibrary.st0377.HeaderPartition;
-import com.netflix.imflibrary.st0377.header.InterchangeObject;
 import com.netflix.imflibrary.st2067_2.*;
-import com.netflix.imflibrary.utils.ByteArrayByteRangeProvider;
-import com.netflix.imflibrary.utils.ByteArrayDataProvider;
-import com.netflix.imflibrary.utils.ByteProvider;
 import com.netflix.imflibrary.utils.ErrorLogger;
-import com.netflix.imflibrary.utils.RegXMLLibHelper;
-import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
 import com.netflix.imflibrary.utils.UUIDHelper;
 import com.netflix.imflibrary.utils.Utilities;
 import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
 import com.netflix.imflibrary.writerTools.utils.IMFUtils;
-import com.sandflow.smpte.klv.Triplet;
-import org.w3c.dom.Document;
-import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 import jakarta.annotation.Nonnull;
 import jakarta.xml.bind.JAXBException;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -39,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -850,7 +835,25 @@ public class IMPBuilder {
     }
 
     public static Map<UUID, List<Node>> buildEDLForVirtualTracks (Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap, List<? extends Composition.VirtualTrack> virtualTrackList, IMFErrorLogger imfErrorLogger) throws IOException, ParserConfigurationException{
-        Map<UUID, List<Node>> imfEssenceDescriptorMap = new HashMap<>();
+        return buildEDLForVirtualTracks(imfTrackFileMetadataMap, virtualTrackList, imfErrorLogger, new EssenceDescriptorExtractor());
+    }
+
+    /**
+     * A method to create the RegXML representation of the EssenceDescriptor metadata for every Resource of every
+     * VirtualTrack of a Composition. Each distinct track file is converted once, by the extractor that is passed in.
+     * @param imfTrackFileMetadataMap a map of track file IDs to the metadata of the track file
+     * @param virtualTrackList the VirtualTracks of the Composition
+     * @param imfErrorLogger an error logger for recording any errors
+     * @param essenceDescriptorExtractor the extractor that converts and memoises EssenceDescriptors
+     * @return a map of track file IDs to the RegXML representation of the EssenceDescriptor of the track file
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws ParserConfigurationException if a DocumentBuilder cannot be created
+     */
+    public static Map<UUID, List<Node>> buildEDLForVirtualTracks (Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap,
+                                                                   List<? extends Composition.VirtualTrack> virtualTrackList,
+                                                                   IMFErrorLogger imfErrorLogger,
+                                                                   EssenceDescriptorExtractor essenceDescriptorExtractor) throws IOException, ParserConfigurationException{
+        Set<UUID> trackFileIds = new LinkedHashSet<>();
 
         for(Composition.VirtualTrack virtualTrack : virtualTrackList) {
             if (!(virtualTrack instanceof IMFEssenceComponentVirtualTrack)) {
@@ -858,71 +861,20 @@ public class IMPBuilder {
             }
 
             Set<UUID> trackResourceIds = IMFEssenceComponentVirtualTrack.class.cast(virtualTrack).getTrackResourceIds();
-            /**
-             * Create the RegXML representation of the EssenceDescriptor metadata for every Resource of every VirtualTrack
-             * of the Composition
-             */
             for (UUID uuid : trackResourceIds) {
-                IMPBuilder.IMFTrackFileMetadata imfTrackFileMetadata = imfTrackFileMetadataMap.get(uuid);
-                if (imfTrackFileMetadata == null) {
+                if (imfTrackFileMetadataMap.get(uuid) == null) {
                     throw new IMFAuthoringException(String.format("TrackFileHeaderMetadata for Track Resource Id %s within VirtualTrack Id %s is absent", uuid.toString(), virtualTrack.getTrackID()));
                 }
-                ByteProvider byteProvider = new ByteArrayDataProvider(imfTrackFileMetadata.getHeaderPartition());
-                ResourceByteRangeProvider resourceByteRangeProvider = new ByteArrayByteRangeProvider(imfTrackFileMetadata.getHeaderPartition());
-                //Create the HeaderPartition
-                HeaderPartition headerPartition = new HeaderPartition(byteProvider, 0L, (long) imfTrackFileMetadata.getHeaderPartition().length, imfErrorLogger);
-
-                MXFOperationalPattern1A.HeaderPartitionOP1A headerPartitionOP1A = MXFOperationalPattern1A.checkOperationalPattern1ACompliance(headerPartition, imfErrorLogger);
-                IMFConstraints.checkMXFHeaderMetadata(headerPartitionOP1A, imfErrorLogger);
-                List<InterchangeObject.InterchangeObjectBO> essenceDescriptors = headerPartition.getEssenceDescriptors();
-                for (InterchangeObject.InterchangeObjectBO essenceDescriptor : essenceDescriptors) {
-                    KLVPacket.Header essenceDescriptorHeader = essenceDescriptor.getHeader();
-                    List<KLVPacket.Header> subDescriptorHeaders = new ArrayList<>();
-                    List<InterchangeObject.InterchangeObjectBO> subDescriptors = headerPartition.getSubDescriptors(essenceDescriptor);
-                    for (InterchangeObject.InterchangeObjectBO subDescriptorBO : subDescriptors) {
-                        if (subDescriptorBO != null) {
-                            subDescriptorHeaders.add(subDescriptorBO.getHeader());
-                        }
-                    }
-                    /*Create a dom*/
-                    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-                    DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-                    Document document = docBuilder.newDocument();
-
-                    RegXMLLibHelper regXMLLibHelper = new RegXMLLibHelper(headerPartition.getPrimerPack().getHeader(), getByteProvider(resourceByteRangeProvider, headerPartition.getPrimerPack().getHeader()));
-
-                    DocumentFragment documentFragment = getEssenceDescriptorAsDocumentFragment(regXMLLibHelper, document, essenceDescriptorHeader, subDescriptorHeaders, resourceByteRangeProvider, imfErrorLogger);
-                    Node node = documentFragment.getFirstChild();
-                    imfEssenceDescriptorMap.put(uuid, Arrays.asList(node));
-                }
+                trackFileIds.add(uuid);
             }
         }
-        return imfEssenceDescriptorMap;
-    }
-
-    private static DocumentFragment getEssenceDescriptorAsDocumentFragment(RegXMLLibHelper regXMLLibHelper,
-                                                                           Document document,
-                                                                           KLVPacket.Header essenceDescriptor,
-                                                                           List<KLVPacket.Header>subDescriptors,
-                                                                           ResourceByteRangeProvider resourceByteRangeProvider,
-                                                                           IMFErrorLogger imfErrorLogger) throws MXFException, IOException {
-        document.setXmlStandalone(true);
-
-        Triplet essenceDescriptorTriplet = regXMLLibHelper.getTripletFromKLVHeader(essenceDescriptor, getByteProvider(resourceByteRangeProvider, essenceDescriptor));
-        /*Get the Triplets corresponding to the SubDescriptors*/
-        List<Triplet> subDescriptorTriplets = new ArrayList<>();
-        for(KLVPacket.Header subDescriptorHeader : subDescriptors){
-            subDescriptorTriplets.add(regXMLLibHelper.getTripletFromKLVHeader(subDescriptorHeader, getByteProvider(resourceByteRangeProvider, subDescriptorHeader)));
-        }
-        return regXMLLibHelper.getEssenceDescriptorDocumentFragment(essenceDescriptorTriplet, subDescriptorTriplets, document, imfErrorLogger);
-    }
-
-    private static ByteProvider getByteProvider(ResourceByteRangeProvider resourceByteRangeProvider, KLVPacket.Header header) throws IOException {
-        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(header.getByteOffset(), header.getByteOffset() + header.getKLSize() + header.getVSize());
-        return new ByteArrayDataProvider(bytes);
+        /**
+         * Create the RegXML representation of the EssenceDescriptor metadata for every distinct track file referenced by
+         * the Resources of the VirtualTracks of the Composition
+         */
+        return essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, trackFileIds, imfErrorLogger);
     }
 
-
     /**
      * A thin class representing the EssenceMetadata required to construct a CPL document
      */
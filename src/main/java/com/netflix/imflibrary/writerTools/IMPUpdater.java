@@ -0,0 +1,378 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.st0429_8.PackingList;
+import com.netflix.imflibrary.st0429_9.AssetMap;
+import com.netflix.imflibrary.st0429_9.BasicMapProfileV2MappedFileSet;
+import com.netflix.imflibrary.st2067_100.OutputProfileList;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.Utilities;
+import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
+import com.netflix.imflibrary.writerTools.utils.IMFUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A class that updates an existing Interoperable Master Package in place, for instance to deliver a supplemental
+ * CompositionPlaylist or OutputProfileList, without re-scanning the assets that are already part of the package.
+ * The Assets of the existing PackingList are carried over with the hash, size and type that were recorded in it,
+ * only the Assets that are added or replaced through this class are read, hashed and introspected. An
+ * {@link #update(String, String)} writes a new st2067-2:2016 PackingList next to the existing one and then swaps the
+ * AssetMap with a single atomic rename, so that a reader of the package either sees the previous AssetMap and
+ * PackingList or the updated ones, never a mix of both.
+ */
+@NotThreadSafe
+public final class IMPUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(IMPUpdater.class);
+    private static final String PKL_FILE_NAME_PREFIX = "PKL_";
+    private static final String XML_FILE_NAME_SUFFIX = ".xml";
+
+    private final Path packageDirectory;
+    private final IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+    private final Map<UUID, PackageAsset> assets = new LinkedHashMap<>();
+    private final Map<UUID, AssetMap.Asset> unlistedAssetMapAssets = new LinkedHashMap<>();
+    private UUID packingListId;
+    private Path packingListPath;
+
+    /**
+     * A constructor for the IMPUpdater object, that reads the AssetMap and the PackingList of a package
+     * @param packageDirectory the directory containing the AssetMap of the package
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public IMPUpdater(@Nonnull Path packageDirectory) throws IOException {
+        this.packageDirectory = packageDirectory.toAbsolutePath().normalize();
+        Path assetMapPath = this.packageDirectory.resolve(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME);
+        if (!Files.isRegularFile(assetMapPath)) {
+            throw new IMFAuthoringException(String.format("AssetMap %s does not exist", assetMapPath.toString()));
+        }
+        AssetMap assetMap = new AssetMap(assetMapPath);
+        this.imfErrorLogger.addAllErrors(assetMap.getErrors());
+
+        List<AssetMap.Asset> packingListAssets = assetMap.getPackingListAssets();
+        if (packingListAssets.size() != 1) {
+            throw new IMFAuthoringException(String.format("An incremental update requires exactly 1 PackingList in the AssetMap %s, found %d",
+                    assetMapPath.toString(), packingListAssets.size()));
+        }
+        this.packingListId = packingListAssets.get(0).getUUID();
+        this.packingListPath = this.packageDirectory.resolve(packingListAssets.get(0).getPath().getPath());
+        PackingList packingList = new PackingList(this.packingListPath);
+        this.imfErrorLogger.addAllErrors(packingList.getErrors());
+
+        Map<UUID, AssetMap.Asset> assetMapAssets = new LinkedHashMap<>();
+        for (AssetMap.Asset asset : assetMap.getAssetList()) {
+            assetMapAssets.put(asset.getUUID(), asset);
+        }
+        for (PackingList.Asset asset : packingList.getAssets()) {
+            AssetMap.Asset assetMapAsset = assetMapAssets.get(asset.getUUID());
+            if (assetMapAsset == null) {
+                logger.warn("PackingList asset {} is not listed in the AssetMap, it will be carried over to the PackingList only", asset.getUUID());
+            }
+            this.assets.put(asset.getUUID(), new PackageAsset(asset.getUUID(), asset.getHash(), asset.getSize(), asset.getType(),
+                    asset.getOriginalFilename(), asset.getHashAlgorithm(), assetMapAsset));
+        }
+        for (AssetMap.Asset asset : assetMap.getAssetList()) {
+            if (!asset.isPackingList() && !this.assets.containsKey(asset.getUUID())) {
+                this.unlistedAssetMapAssets.put(asset.getUUID(), asset);
+            }
+        }
+    }
+
+    /**
+     * Getter for the path of the PackingList that currently describes the package
+     * @return the path of the PackingList document
+     */
+    public Path getPackingListPath() {
+        return this.packingListPath;
+    }
+
+    /**
+     * Getter for the UUID of the PackingList that currently describes the package
+     * @return the UUID of the PackingList document
+     */
+    public UUID getPackingListId() {
+        return this.packingListId;
+    }
+
+    /**
+     * Getter for the UUIDs of the Assets of the package, in PackingList order
+     * @return the UUIDs of the Assets of the package
+     */
+    public List<UUID> getAssetIds() {
+        return Collections.unmodifiableList(new ArrayList<>(this.assets.keySet()));
+    }
+
+    /**
+     * Getter for the errors that were encountered while reading the package and introspecting the new Assets
+     * @return a list of errors
+     */
+    public List<ErrorLogger.ErrorObject> getErrors() {
+        return this.imfErrorLogger.getErrors();
+    }
+
+    /**
+     * A method that adds a CompositionPlaylist to the package, or replaces the Asset with the same Id
+     * @param cplFile the CompositionPlaylist document
+     * @return the UUID of the CompositionPlaylist
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public UUID addCompositionPlaylist(@Nonnull Path cplFile) throws IOException {
+        UUID cplUUID = IMFUtils.extractUUIDFromCPLFile(cplFile, this.imfErrorLogger);
+        addAsset(cplUUID, cplFile, PackingListBuilder.PKLAssetTypeEnum.TEXT_XML);
+        return cplUUID;
+    }
+
+    /**
+     * A method that adds an OutputProfileList to the package, or replaces the Asset with the same Id
+     * @param oplFile the OutputProfileList document
+     * @return the UUID of the OutputProfileList
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public UUID addOutputProfileList(@Nonnull Path oplFile) throws IOException {
+        OutputProfileList outputProfileList = OutputProfileList.getOutputProfileListType(new FileByteRangeProvider(oplFile), this.imfErrorLogger);
+        if (outputProfileList == null) {
+            throw new IMFAuthoringException(String.format("%s is not a valid OutputProfileList document", oplFile.toString()));
+        }
+        addAsset(outputProfileList.getId(), oplFile, PackingListBuilder.PKLAssetTypeEnum.TEXT_XML);
+        return outputProfileList.getId();
+    }
+
+    /**
+     * A method that adds an Asset, such as a sidecar file, to the package, or replaces the Asset with the same Id. A
+     * file outside of the package directory is copied into it. The file of a replaced Asset is left in place.
+     * @param uuid that uniquely identifies the Asset
+     * @param file containing the Asset
+     * @param assetType the PackingList type of the Asset
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public void addAsset(@Nonnull UUID uuid, @Nonnull Path file, @Nonnull PackingListBuilder.PKLAssetTypeEnum assetType) throws IOException {
+        if (uuid.equals(this.packingListId)) {
+            throw new IMFAuthoringException(String.format("Asset %s cannot replace the PackingList of the package", uuid.toString()));
+        }
+        Path packageFile = getPackageFile(file);
+        PackageAsset packageAsset = new PackageAsset(uuid, IMFUtils.generateSHA1Hash(packageFile), Files.size(packageFile),
+                assetType.toString(), Utilities.getFilenameFromPath(packageFile), PackingListBuilder.defaultHashAlgorithm,
+                getRelativePath(packageFile), null);
+        if (this.assets.put(uuid, packageAsset) != null) {
+            logger.info("Replaced asset {} with {}", uuid, packageAsset.path);
+        }
+        this.unlistedAssetMapAssets.remove(uuid);
+    }
+
+    /**
+     * A method that removes an Asset from the package. The file of the Asset is left in place.
+     * @param uuid that uniquely identifies the Asset
+     * @return true if the Asset was part of the package
+     */
+    public boolean removeAsset(@Nonnull UUID uuid) {
+        return this.assets.remove(uuid) != null;
+    }
+
+    /**
+     * A method that writes a new PackingList for the package and atomically replaces the AssetMap with one that
+     * references it. The previous PackingList document is deleted once the new AssetMap is in place.
+     * @param annotationText a free form human readable text
+     * @param issuer a free form human readable text describing the issuer of the documents
+     * @return a list of errors that occurred while writing the PackingList and the AssetMap
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws URISyntaxException - any error with the path of an Asset is exposed through a URISyntaxException
+     */
+    public List<ErrorLogger.ErrorObject> update(@Nonnull String annotationText, @Nonnull String issuer) throws IOException, URISyntaxException {
+        if (this.assets.isEmpty()) {
+            throw new IMFAuthoringException("A PackingList document requires at least one Asset");
+        }
+        IMFErrorLogger updateErrorLogger = new IMFErrorLoggerImpl();
+        UUID newPackingListId = IMFUUIDGenerator.getInstance().generateUUID();
+        Path newPackingListPath = this.packageDirectory.resolve(PKL_FILE_NAME_PREFIX + newPackingListId.toString() + XML_FILE_NAME_SUFFIX);
+        Path stagingDirectory = Files.createTempDirectory(this.packageDirectory, ".imp-update");
+        boolean committed = false;
+        try {
+            Path stagedPackingList = stagingDirectory.resolve(newPackingListPath.getFileName());
+            long packingListSize = writePackingList(stagedPackingList, newPackingListId, annotationText, issuer);
+            buildAssetMap(stagingDirectory, newPackingListId, newPackingListPath, packingListSize, annotationText, issuer, updateErrorLogger);
+
+            /* The new PackingList gets a name of its own, only the AssetMap replaces an existing file */
+            move(stagedPackingList, newPackingListPath);
+            move(stagingDirectory.resolve(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME),
+                    this.packageDirectory.resolve(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME));
+            committed = true;
+        }
+        finally {
+            if (!committed) {
+                Files.deleteIfExists(newPackingListPath);
+            }
+            Utilities.recursivelyDeleteFolder(stagingDirectory);
+        }
+
+        if (!Files.isSameFile(this.packingListPath, newPackingListPath)) {
+            Files.deleteIfExists(this.packingListPath);
+        }
+        logger.info("Replaced PackingList {} with {}", this.packingListId, newPackingListId);
+        this.packingListId = newPackingListId;
+        this.packingListPath = newPackingListPath;
+        return updateErrorLogger.getErrors();
+    }
+
+    private long writePackingList(Path output, UUID uuid, String annotationText, String issuer) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(output);
+             PackingListStreamWriter_2016 packingListWriter = new PackingListStreamWriter_2016(outputStream, uuid, annotationText, null,
+                     IMFUtils.createXMLGregorianCalendar(), issuer, "Photon PackingListBuilder", null)) {
+            for (PackageAsset asset : this.assets.values()) {
+                packingListWriter.writeAsset(asset.uuid, null, asset.hash, asset.size, asset.type, asset.originalFileName, asset.hashAlgorithm);
+            }
+            return packingListWriter.finish().getSize();
+        }
+    }
+
+    private void buildAssetMap(Path stagingDirectory, UUID newPackingListId, Path newPackingListPath, long packingListSize, String annotationText, String issuer,
+                               IMFErrorLogger updateErrorLogger) throws IOException, URISyntaxException {
+        List<AssetMapBuilder.Asset> assetMapAssets = new ArrayList<>();
+        for (PackageAsset asset : this.assets.values()) {
+            if (asset.path != null) {
+                assetMapAssets.add(new AssetMapBuilder.Asset(asset.uuid, getAnnotationText(asset.assetMapAsset), false,
+                        Collections.singletonList(new AssetMapBuilder.Chunk(asset.path, asset.size))));
+            }
+        }
+        for (AssetMap.Asset asset : this.unlistedAssetMapAssets.values()) {
+            String path = asset.getPath().getPath();
+            Path file = this.packageDirectory.resolve(path);
+            if (Files.isRegularFile(file)) {
+                assetMapAssets.add(new AssetMapBuilder.Asset(asset.getUUID(), getAnnotationText(asset), false,
+                        Collections.singletonList(new AssetMapBuilder.Chunk(path, Files.size(file)))));
+            }
+            else {
+                logger.warn("AssetMap asset {} does not exist at {} and is dropped from the AssetMap", asset.getUUID(), file);
+            }
+        }
+        /* Only the new PackingList is described by the annotation text of the update, the other Assets keep their own */
+        assetMapAssets.add(new AssetMapBuilder.Asset(newPackingListId, AssetMapBuilder.buildAssetMapUserTextType_2007(annotationText, null), true,
+                Collections.singletonList(new AssetMapBuilder.Chunk(getRelativePath(newPackingListPath), packingListSize))));
+
+        int numErrors = updateErrorLogger.getNumberOfErrors();
+        AssetMapBuilder assetMapBuilder = new AssetMapBuilder(IMFUUIDGenerator.getInstance().generateUUID(),
+                AssetMapBuilder.buildAssetMapUserTextType_2007(annotationText, null),
+                AssetMapBuilder.buildAssetMapUserTextType_2007("Photon AssetMapBuilder", "en"),
+                IMFUtils.createXMLGregorianCalendar(),
+                AssetMapBuilder.buildAssetMapUserTextType_2007(issuer, null),
+                assetMapAssets,
+                stagingDirectory,
+                updateErrorLogger);
+        assetMapBuilder.build();
+        if (updateErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, numErrors, updateErrorLogger.getNumberOfErrors()).size() > 0) {
+            throw new IMFAuthoringException(String.format("Fatal errors occurred while generating the AssetMap. Please see following error messages %s",
+                    Utilities.serializeObjectCollectionToString(updateErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, numErrors, updateErrorLogger.getNumberOfErrors()))));
+        }
+    }
+
+    private static org.smpte_ra.schemas._429_9._2007.am.UserText getAnnotationText(@Nullable AssetMap.Asset assetMapAsset) {
+        if (assetMapAsset == null || assetMapAsset.getAnnotationText() == null) {
+            return null;
+        }
+        return AssetMapBuilder.buildAssetMapUserTextType_2007(assetMapAsset.getAnnotationText(), assetMapAsset.getAnnotationTextLanguage());
+    }
+
+    private Path getPackageFile(Path file) throws IOException {
+        Path absoluteFile = file.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(absoluteFile)) {
+            throw new IMFAuthoringException(String.format("Asset file %s does not exist", file.toString()));
+        }
+        if (absoluteFile.startsWith(this.packageDirectory)) {
+            return absoluteFile;
+        }
+        Path packageFile = this.packageDirectory.resolve(absoluteFile.getFileName());
+        if (Files.exists(packageFile)) {
+            throw new IMFAuthoringException(String.format("Cannot copy %s into the package, %s already exists", file.toString(), packageFile.toString()));
+        }
+        return Files.copy(absoluteFile, packageFile);
+    }
+
+    private String getRelativePath(Path packageFile) {
+        StringBuilder relativePath = new StringBuilder();
+        for (Path segment : this.packageDirectory.relativize(packageFile)) {
+            if (relativePath.length() > 0) {
+                relativePath.append('/');
+            }
+            relativePath.append(segment.toString());
+        }
+        return relativePath.toString();
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Atomic move is not supported for {}, falling back to a non-atomic replace", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * An Asset of the package, either read back from the existing PackingList or introspected from a new file
+     */
+    private static final class PackageAsset {
+        private final UUID uuid;
+        private final byte[] hash;
+        private final long size;
+        private final String type;
+        private final String originalFileName;
+        private final String hashAlgorithm;
+        private final String path;
+        private final AssetMap.Asset assetMapAsset;
+
+        private PackageAsset(UUID uuid, byte[] hash, long size, String type, @Nullable String originalFileName, String hashAlgorithm,
+                             @Nullable AssetMap.Asset assetMapAsset) {
+            this(uuid, hash, size, type, originalFileName, hashAlgorithm, assetMapAsset == null ? null : assetMapAsset.getPath().getPath(), assetMapAsset);
+        }
+
+        private PackageAsset(UUID uuid, byte[] hash, long size, String type, @Nullable String originalFileName, String hashAlgorithm,
+                             @Nullable String path, @Nullable AssetMap.Asset assetMapAsset) {
+            this.uuid = uuid;
+            this.hash = hash;
+            this.size = size;
+            this.type = type;
+            this.originalFileName = originalFileName;
+            this.hashAlgorithm = hashAlgorithm;
+            this.path = path;
+            this.assetMapAsset = assetMapAsset;
+        }
+    }
+}
@@ -0,0 +1,701 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.MXFUID;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.PartitionPack;
+import com.netflix.imflibrary.st0377.PrimerPack;
+import com.netflix.imflibrary.st0377.RandomIndexPack;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class that corrects the header metadata of an MXF file in place.
+ *
+ * The local sets of the header metadata in the header partition are exposed through {@link #getLocalSets()}, and the
+ * values of their properties can be set or removed. {@link #patch()} then re-serializes the header metadata of every
+ * partition that carries a copy of an edited local set. Unknown KLV packets and unedited local sets are written back
+ * byte for byte, KLV fill items that are interspersed in the header metadata are coalesced into a single KLV fill item
+ * that pads the header metadata to its original HeaderByteCount. As a result the header metadata is rewritten within
+ * the bytes it already occupies, the position of every partition is unchanged and the RandomIndexPack stays valid, and
+ * correcting the header metadata of a track file of any size writes no more than a few header partitions worth of bytes.
+ *
+ * When the edited header metadata of the header partition does not fit within its HeaderByteCount the file is left
+ * untouched. When the edited copy of the header metadata of another partition does not fit, that copy is replaced by a
+ * KLV fill item of the same size, since a stale copy of the header metadata must not be left behind. The HeaderByteCount
+ * of its partition pack is left unchanged, as readers locate the IndexTable segments of the partition right after the
+ * HeaderByteCount bytes that follow the partition pack. Header metadata that consists of KLV fill only is not treated as
+ * a copy of the header metadata.
+ */
+@NotThreadSafe
+public final class MXFHeaderPatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MXFHeaderPatcher.class);
+
+    //smpte st 377-1:2011, Annex G
+    private static final MXFUID INSTANCE_UID_ITEM_UL = new MXFUID(new byte[]{0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x15, 0x02, 0x00, 0x00, 0x00, 0x00});
+    private static final int INSTANCE_UID_LOCAL_TAG = 0x3c0a;
+    //smpte st 377-1:2011, section 7.1
+    private static final byte[] KLV_FILL_ITEM_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x02, 0x03, 0x01, 0x02, 0x10, 0x01, 0x00, 0x00, 0x00};
+    //smpte st 377-1:2011, section 7.2, the byte that follows the item designator of a local set key
+    private static final byte LOCAL_SET_REGISTRY_DESIGNATOR = 0x53;
+    private static final int MIN_DYNAMIC_LOCAL_TAG = 0x8000;
+    private static final int MAX_LOCAL_TAG = 0xffff;
+    private static final int MAX_LOCAL_SET_ITEM_SIZE = 0xffff;
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+    private static final int RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE = 4;
+
+    private final Path path;
+    private List<HeaderMetadata> headerMetadataCopies;
+    private Map<MXFUID, LocalSet> localSets;
+
+    /**
+     * A constructor for an MXFHeaderPatcher, that reads the header metadata of every partition of an MXF file
+     * @param path the MXF file to be patched
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException if the partitions or the header metadata of the file cannot be read
+     */
+    public MXFHeaderPatcher(@Nonnull Path path) throws IOException {
+        this.path = path;
+        load();
+    }
+
+    /**
+     * Getter for the local sets of the header metadata in the header partition, that carry an InstanceUID
+     * @return the local sets in the order in which they appear in the header partition
+     */
+    public List<LocalSet> getLocalSets() {
+        return Collections.unmodifiableList(new ArrayList<>(this.localSets.values()));
+    }
+
+    /**
+     * Getter for a local set of the header metadata in the header partition
+     * @param instanceUID the InstanceUID of the local set
+     * @return the local set, or null if the header partition does not contain a local set with this InstanceUID
+     */
+    public @Nullable LocalSet getLocalSet(@Nonnull MXFUID instanceUID) {
+        return this.localSets.get(instanceUID);
+    }
+
+    /**
+     * Getter for the number of bytes by which the header metadata of the header partition, with the pending edits
+     * applied, can grow without changing its HeaderByteCount. The header metadata fits when it fills the HeaderByteCount
+     * exactly, or when the bytes it leaves unused can hold a KLV fill item, i.e. when the headroom is 0 or at least 17
+     * bytes.
+     * @return the headroom in bytes, negative if the pending edits exceed the HeaderByteCount
+     */
+    public long getHeadroom() {
+        HeaderMetadata headerPartitionMetadata = this.headerMetadataCopies.get(0);
+        return headerPartitionMetadata.size - headerPartitionMetadata.render(this.localSets).length;
+    }
+
+    /**
+     * A method that writes the pending edits of the local sets to the file. The header metadata of every partition is
+     * rendered before the first byte is written, so that a patch that does not fit the header partition leaves the file
+     * untouched. Once the file has been patched it is read again, and the local sets returned by this patcher reflect
+     * the patched file.
+     * @return a summary of the partitions that were patched
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws IMFAuthoringException if the edited header metadata does not fit within the HeaderByteCount of the header
+     * partition
+     */
+    public PatchResult patch() throws IOException {
+        List<Long> patchedPartitions = new ArrayList<>();
+        List<Long> droppedPartitions = new ArrayList<>();
+        Map<Long, byte[]> writes = new LinkedHashMap<>();
+
+        for (HeaderMetadata headerMetadata : this.headerMetadataCopies) {
+            if (!headerMetadata.isAffectedBy(this.localSets)) {
+                continue;
+            }
+            byte[] rendered = headerMetadata.render(this.localSets);
+            byte[] region = headerMetadata.pad(rendered);
+            if (region != null) {
+                writes.put(headerMetadata.offset, region);
+                patchedPartitions.add(headerMetadata.partitionOffset);
+            } else if (headerMetadata.partitionOffset == 0) {
+                throw new IMFAuthoringException(String.format("The patched header metadata of %s requires %d bytes, whereas the header partition provides %d bytes",
+                        this.path.toString(), rendered.length, headerMetadata.size));
+            } else {
+                logger.warn("The patched header metadata of the partition at offset {} of {} does not fit in {} bytes, it is replaced by KLV fill",
+                        headerMetadata.partitionOffset, this.path.toString(), headerMetadata.size);
+                //the HeaderByteCount is retained, so that the IndexTable segments that follow the header metadata are still found
+                writes.put(headerMetadata.offset, fill(KLV_FILL_ITEM_KEY, headerMetadata.size));
+                droppedPartitions.add(headerMetadata.partitionOffset);
+            }
+        }
+
+        long bytesWritten = 0;
+        if (!writes.isEmpty()) {
+            try (FileChannel fileChannel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (Map.Entry<Long, byte[]> write : writes.entrySet()) {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(write.getValue());
+                    long position = write.getKey();
+                    while (byteBuffer.hasRemaining()) {
+                        position += fileChannel.write(byteBuffer, position);
+                    }
+                    bytesWritten += write.getValue().length;
+                }
+                fileChannel.force(false);
+            }
+            logger.info("Patched the header metadata of {} in {} bytes", this.path.toString(), bytesWritten);
+            load();
+        }
+        return new PatchResult(patchedPartitions, droppedPartitions, bytesWritten);
+    }
+
+    private void load() throws IOException {
+        List<HeaderMetadata> headerMetadataCopies = new ArrayList<>();
+        try (FileChannel fileChannel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            for (long partitionOffset : getPartitionOffsets(fileChannel)) {
+                byte[] klvHeaderBytes = read(fileChannel, partitionOffset, (int) Math.min(MAX_KLV_HEADER_SIZE, fileChannel.size() - partitionOffset));
+                KLVPacket.Header klvHeader = new KLVPacket.Header(new ByteArrayDataProvider(klvHeaderBytes), partitionOffset);
+                byte[] partitionPackBytes = read(fileChannel, partitionOffset, toIntExact(klvHeader.getKLSize() + klvHeader.getVSize()));
+                PartitionPack partitionPack = new PartitionPack(new ByteArrayDataProvider(partitionPackBytes), partitionOffset, false);
+                if (!partitionPack.hasHeaderMetadata()) {
+                    continue;
+                }
+                long offset = partitionOffset + partitionPack.getKLVPacketSize();
+                byte[] headerMetadataBytes = read(fileChannel, offset, toIntExact(partitionPack.getHeaderByteCount()));
+                if (partitionOffset != 0 && isKLVFill(headerMetadataBytes)) {
+                    //a copy of the header metadata that was dropped by an earlier patch
+                    continue;
+                }
+                headerMetadataCopies.add(new HeaderMetadata(partitionOffset, offset, headerMetadataBytes));
+            }
+        }
+        if (headerMetadataCopies.isEmpty() || headerMetadataCopies.get(0).partitionOffset != 0) {
+            throw new MXFException(String.format("The header partition of %s does not contain header metadata", this.path.toString()));
+        }
+
+        Map<MXFUID, LocalSet> localSets = new LinkedHashMap<>();
+        HeaderMetadata headerPartitionMetadata = headerMetadataCopies.get(0);
+        for (Packet packet : headerPartitionMetadata.packets) {
+            MXFUID instanceUID = packet.getInstanceUID();
+            if (instanceUID != null) {
+                localSets.put(instanceUID, new LocalSet(packet, instanceUID, headerPartitionMetadata.primer));
+            }
+        }
+        this.headerMetadataCopies = headerMetadataCopies;
+        this.localSets = localSets;
+    }
+
+    private static List<Long> getPartitionOffsets(FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+        if (fileSize < RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE) {
+            throw new MXFException(String.format("File size %d is too small to contain a RandomIndexPack", fileSize));
+        }
+        long randomIndexPackSize = ByteBuffer.wrap(read(fileChannel, fileSize - RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE, RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE))
+                .order(KLVPacket.BYTE_ORDER).getInt() & 0xffffffffL;
+        if (randomIndexPackSize > fileSize) {
+            throw new MXFException(String.format("RandomIndexPack size %d is larger than the file size %d", randomIndexPackSize, fileSize));
+        }
+        byte[] randomIndexPackBytes = read(fileChannel, fileSize - randomIndexPackSize, (int) randomIndexPackSize);
+        RandomIndexPack randomIndexPack = new RandomIndexPack(new ByteArrayDataProvider(randomIndexPackBytes), fileSize - randomIndexPackSize, randomIndexPackSize);
+        return randomIndexPack.getAllPartitionByteOffsets();
+    }
+
+    private static boolean isKLVFill(byte[] bytes) throws IOException {
+        int position = 0;
+        while (position < bytes.length) {
+            Packet packet = new Packet(bytes, position);
+            if (!KLVPacket.isKLVFillItem(packet.key)) {
+                return false;
+            }
+            position += packet.size;
+        }
+        return true;
+    }
+
+    private static byte[] read(FileChannel fileChannel, long position, int size) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        while (byteBuffer.hasRemaining()) {
+            int numBytesRead = fileChannel.read(byteBuffer, position + byteBuffer.position());
+            if (numBytesRead < 0) {
+                throw new MXFException(String.format("Unexpected end of file while reading %d bytes at offset %d", size, position));
+            }
+        }
+        return byteBuffer.array();
+    }
+
+    private static int toIntExact(long size) {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new MXFException(String.format("KLV size %d is outside the supported range 0-0x%x", size, Integer.MAX_VALUE));
+        }
+        return (int) size;
+    }
+
+    private static byte[] fill(byte[] key, int size) {
+        //a KLV fill item of the given total size, with the smallest length field that allows it
+        int lengthFieldSize = 1;
+        while (lengthFieldSize <= KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE
+                && (long) size - KLVPacket.KEY_FIELD_SIZE - lengthFieldSize > maxLength(lengthFieldSize)) {
+            lengthFieldSize = (lengthFieldSize == 1) ? 4 : lengthFieldSize + 1;
+        }
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(size);
+        byteArrayOutputStream.write(key, 0, key.length);
+        byte[] length = encodeLength(size - KLVPacket.KEY_FIELD_SIZE - lengthFieldSize, lengthFieldSize);
+        byteArrayOutputStream.write(length, 0, length.length);
+        byteArrayOutputStream.write(new byte[size - KLVPacket.KEY_FIELD_SIZE - lengthFieldSize], 0, size - KLVPacket.KEY_FIELD_SIZE - lengthFieldSize);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static long maxLength(int lengthFieldSize) {
+        return (lengthFieldSize == 1) ? 0x7f : (1L << (8 * Math.min(lengthFieldSize - 1, 7))) - 1;
+    }
+
+    private static byte[] encodeLength(long length, int lengthFieldSize) {
+        //smpte st 336:2007, BER short form for a single byte, long form otherwise
+        byte[] bytes = new byte[lengthFieldSize];
+        if (lengthFieldSize == 1) {
+            bytes[0] = (byte) length;
+            return bytes;
+        }
+        bytes[0] = (byte) (0x80 | (lengthFieldSize - 1));
+        for (int i = lengthFieldSize - 1; i > 0; i--) {
+            bytes[i] = (byte) length;
+            length >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * A local set of the header metadata, and the edits of its properties that are pending
+     */
+    public static final class LocalSet {
+        private final Packet packet;
+        private final MXFUID instanceUID;
+        private final Primer primer;
+        private final Map<MXFUID, byte[]> edits = new LinkedHashMap<>();
+
+        private LocalSet(Packet packet, MXFUID instanceUID, Primer primer) {
+            this.packet = packet;
+            this.instanceUID = instanceUID;
+            this.primer = primer;
+        }
+
+        /**
+         * Getter for the key of the local set, that identifies its class
+         * @return a copy of the 16 byte key
+         */
+        public byte[] getKey() {
+            return Arrays.copyOf(this.packet.key, this.packet.key.length);
+        }
+
+        /**
+         * Getter for the InstanceUID of the local set
+         * @return the InstanceUID
+         */
+        public MXFUID getInstanceUID() {
+            return this.instanceUID;
+        }
+
+        /**
+         * Getter for the value of a property of the local set, including pending edits
+         * @param itemUL the UL of the property
+         * @return a copy of the value of the property, or null if the local set does not contain the property
+         */
+        public @Nullable byte[] getValue(@Nonnull MXFUID itemUL) {
+            if (this.edits.containsKey(itemUL)) {
+                byte[] value = this.edits.get(itemUL);
+                return (value != null) ? Arrays.copyOf(value, value.length) : null;
+            }
+            Integer localTag = this.primer.getLocalTag(itemUL);
+            byte[] value = (localTag != null) ? this.packet.getItems().get(localTag) : null;
+            return (value != null) ? Arrays.copyOf(value, value.length) : null;
+        }
+
+        /**
+         * A method to set the value of a property of the local set. A property that the local set does not contain yet is
+         * appended to it, and a local tag is allocated for it in the primer pack when none is assigned to its UL.
+         * @param itemUL the UL of the property
+         * @param value the value of the property, without its local tag and length
+         */
+        public void setValue(@Nonnull MXFUID itemUL, @Nonnull byte[] value) {
+            if (itemUL.equals(INSTANCE_UID_ITEM_UL)) {
+                throw new IMFAuthoringException(String.format("The InstanceUID of local set %s cannot be patched", this.instanceUID.toString()));
+            }
+            if (value.length > MAX_LOCAL_SET_ITEM_SIZE) {
+                throw new IMFAuthoringException(String.format("Value size %d of item %s exceeds the maximum local set item size %d",
+                        value.length, itemUL.toString(), MAX_LOCAL_SET_ITEM_SIZE));
+            }
+            this.edits.put(itemUL, Arrays.copyOf(value, value.length));
+        }
+
+        /**
+         * A method to remove a property from the local set
+         * @param itemUL the UL of the property
+         */
+        public void removeValue(@Nonnull MXFUID itemUL) {
+            if (itemUL.equals(INSTANCE_UID_ITEM_UL)) {
+                throw new IMFAuthoringException(String.format("The InstanceUID of local set %s cannot be removed", this.instanceUID.toString()));
+            }
+            this.edits.put(itemUL, null);
+        }
+
+        /**
+         * Checks if the local set has pending edits
+         * @return true if the local set has pending edits
+         */
+        public boolean isModified() {
+            return !this.edits.isEmpty();
+        }
+    }
+
+    /**
+     * A summary of a patch
+     */
+    public static final class PatchResult {
+        private final List<Long> patchedPartitions;
+        private final List<Long> droppedPartitions;
+        private final long bytesWritten;
+
+        private PatchResult(List<Long> patchedPartitions, List<Long> droppedPartitions, long bytesWritten) {
+            this.patchedPartitions = Collections.unmodifiableList(patchedPartitions);
+            this.droppedPartitions = Collections.unmodifiableList(droppedPartitions);
+            this.bytesWritten = bytesWritten;
+        }
+
+        /**
+         * Getter for the offsets of the partitions whose header metadata was patched
+         * @return the partition offsets
+         */
+        public List<Long> getPatchedPartitions() {
+            return this.patchedPartitions;
+        }
+
+        /**
+         * Getter for the offsets of the partitions whose copy of the header metadata did not fit and was replaced by KLV
+         * fill
+         * @return the partition offsets
+         */
+        public List<Long> getDroppedPartitions() {
+            return this.droppedPartitions;
+        }
+
+        /**
+         * Getter for the number of bytes written to the file
+         * @return the number of bytes written
+         */
+        public long getBytesWritten() {
+            return this.bytesWritten;
+        }
+    }
+
+    /**
+     * The header metadata of a partition, i.e. the HeaderByteCount bytes that follow its partition pack
+     */
+    private static final class HeaderMetadata {
+        private final long partitionOffset;
+        private final long offset;
+        private final int size;
+        private final List<Packet> packets = new ArrayList<>();
+        private final Primer primer;
+        private final byte[] fillKey;
+
+        private HeaderMetadata(long partitionOffset, long offset, byte[] bytes) throws IOException {
+            this.partitionOffset = partitionOffset;
+            this.offset = offset;
+            this.size = bytes.length;
+
+            Primer primer = null;
+            byte[] fillKey = null;
+            int position = 0;
+            while (position < bytes.length) {
+                Packet packet = new Packet(bytes, position);
+                if (KLVPacket.isKLVFillItem(packet.key)) {
+                    fillKey = (fillKey == null) ? packet.key : fillKey;
+                } else if (PrimerPack.isValidKey(packet.key)) {
+                    primer = new Primer(packet);
+                }
+                packet.leading = this.packets.isEmpty();
+                this.packets.add(packet);
+                position += packet.size;
+            }
+            if (primer == null) {
+                throw new MXFException(String.format("Could not find primer pack in the header metadata of the partition at offset %d", partitionOffset));
+            }
+            this.primer = primer;
+            this.fillKey = (fillKey != null) ? fillKey : KLV_FILL_ITEM_KEY;
+        }
+
+        private boolean isAffectedBy(Map<MXFUID, LocalSet> localSets) {
+            for (Packet packet : this.packets) {
+                MXFUID instanceUID = packet.getInstanceUID();
+                LocalSet localSet = (instanceUID != null) ? localSets.get(instanceUID) : null;
+                if (localSet != null && localSet.isModified()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Renders the header metadata with the edits of the local sets applied, without trailing KLV fill. A KLV fill item
+         * that immediately follows the partition pack is retained, since it aligns the primer pack to the KAG.
+         */
+        private byte[] render(Map<MXFUID, LocalSet> localSets) {
+            Primer primer = this.primer.copy();
+            List<byte[]> renderedPackets = new ArrayList<>();
+            int primerIndex = -1;
+            for (Packet packet : this.packets) {
+                if (packet == this.primer.packet) {
+                    primerIndex = renderedPackets.size();
+                    renderedPackets.add(null);
+                } else if (KLVPacket.isKLVFillItem(packet.key)) {
+                    if (packet.leading) {
+                        renderedPackets.add(packet.bytes());
+                    }
+                } else {
+                    MXFUID instanceUID = packet.getInstanceUID();
+                    LocalSet localSet = (instanceUID != null) ? localSets.get(instanceUID) : null;
+                    renderedPackets.add((localSet != null && localSet.isModified()) ? packet.render(localSet.edits, primer) : packet.bytes());
+                }
+            }
+            renderedPackets.set(primerIndex, primer.render());
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(this.size);
+            for (byte[] renderedPacket : renderedPackets) {
+                byteArrayOutputStream.write(renderedPacket, 0, renderedPacket.length);
+            }
+            return byteArrayOutputStream.toByteArray();
+        }
+
+        /**
+         * Pads rendered header metadata to the HeaderByteCount with a KLV fill item
+         * @return the padded header metadata, or null if it does not fit
+         */
+        private @Nullable byte[] pad(byte[] rendered) {
+            int remaining = this.size - rendered.length;
+            if (remaining == 0) {
+                return rendered;
+            }
+            if (remaining < KLVPacket.KEY_FIELD_SIZE + 1) {
+                return null;
+            }
+            byte[] region = Arrays.copyOf(rendered, this.size);
+            byte[] fill = fill(this.fillKey, remaining);
+            System.arraycopy(fill, 0, region, rendered.length, fill.length);
+            return region;
+        }
+    }
+
+    /**
+     * A KLV packet of the header metadata
+     */
+    private static final class Packet {
+        private final byte[] source;
+        private final int offset;
+        private final int size;
+        private final byte[] key;
+        private final int lengthFieldSize;
+        private final int valueOffset;
+        private final int valueSize;
+        private boolean leading;
+        private Map<Integer, byte[]> items;
+
+        private Packet(byte[] source, int offset) throws IOException {
+            if (source.length - offset < KLVPacket.KEY_FIELD_SIZE + 1) {
+                throw new MXFException(String.format("Truncated KLV packet at offset %d of the header metadata", offset));
+            }
+            ByteArrayDataProvider byteProvider = new ByteArrayDataProvider(source);
+            byteProvider.skipBytes(offset);
+            KLVPacket.Header header = new KLVPacket.Header(byteProvider, offset);
+            if (header.getKLSize() + header.getVSize() > source.length - offset) {
+                throw new MXFException(String.format("KLV packet at offset %d of the header metadata exceeds the HeaderByteCount", offset));
+            }
+            this.source = source;
+            this.offset = offset;
+            this.key = header.getKey();
+            this.lengthFieldSize = (int) header.getLSize();
+            this.valueOffset = offset + (int) header.getKLSize();
+            this.valueSize = (int) header.getVSize();
+            this.size = (int) header.getKLSize() + this.valueSize;
+        }
+
+        private byte[] bytes() {
+            return Arrays.copyOfRange(this.source, this.offset, this.offset + this.size);
+        }
+
+        private byte[] value() {
+            return Arrays.copyOfRange(this.source, this.valueOffset, this.valueOffset + this.valueSize);
+        }
+
+        private boolean isLocalSet() {
+            return this.key[5] == LOCAL_SET_REGISTRY_DESIGNATOR && !KLVPacket.isKLVFillItem(this.key);
+        }
+
+        /**
+         * Getter for the items of a local set, keyed by local tag in the order in which they appear
+         */
+        private Map<Integer, byte[]> getItems() {
+            if (this.items == null) {
+                Map<Integer, byte[]> items = new LinkedHashMap<>();
+                ByteBuffer byteBuffer = ByteBuffer.wrap(this.source, this.valueOffset, this.valueSize).order(KLVPacket.BYTE_ORDER);
+                while (byteBuffer.remaining() >= 4) {
+                    int localTag = byteBuffer.getShort() & 0xffff;
+                    int itemSize = byteBuffer.getShort() & 0xffff;
+                    if (itemSize > byteBuffer.remaining()) {
+                        throw new MXFException(String.format("Item with local tag 0x%04x exceeds the local set at offset %d of the header metadata", localTag, this.offset));
+                    }
+                    byte[] value = new byte[itemSize];
+                    byteBuffer.get(value);
+                    items.put(localTag, value);
+                }
+                this.items = items;
+            }
+            return this.items;
+        }
+
+        private @Nullable MXFUID getInstanceUID() {
+            if (!isLocalSet()) {
+                return null;
+            }
+            byte[] instanceUID = getItems().get(INSTANCE_UID_LOCAL_TAG);
+            return (instanceUID != null && instanceUID.length == 16) ? new MXFUID(instanceUID) : null;
+        }
+
+        private byte[] render(Map<MXFUID, byte[]> edits, Primer primer) {
+            Map<Integer, byte[]> items = new LinkedHashMap<>(getItems());
+            for (Map.Entry<MXFUID, byte[]> edit : edits.entrySet()) {
+                if (edit.getValue() == null) {
+                    Integer localTag = primer.getLocalTag(edit.getKey());
+                    if (localTag != null) {
+                        items.remove(localTag);
+                    }
+                } else {
+                    items.put(primer.getOrAllocateLocalTag(edit.getKey()), edit.getValue());
+                }
+            }
+            ByteArrayOutputStream value = new ByteArrayOutputStream(this.valueSize);
+            for (Map.Entry<Integer, byte[]> item : items.entrySet()) {
+                byte[] itemHeader = ByteBuffer.allocate(4).order(KLVPacket.BYTE_ORDER)
+                        .putShort((short) item.getKey().intValue()).putShort((short) item.getValue().length).array();
+                value.write(itemHeader, 0, itemHeader.length);
+                value.write(item.getValue(), 0, item.getValue().length);
+            }
+            return render(this.key, this.lengthFieldSize, value.toByteArray());
+        }
+
+        private static byte[] render(byte[] key, int lengthFieldSize, byte[] value) {
+            //the original length field size is retained when it can encode the new length
+            int renderedLengthFieldSize = (value.length <= maxLength(lengthFieldSize)) ? lengthFieldSize : 4;
+            byte[] length = encodeLength(value.length, renderedLengthFieldSize);
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(key.length + length.length + value.length);
+            byteArrayOutputStream.write(key, 0, key.length);
+            byteArrayOutputStream.write(length, 0, length.length);
+            byteArrayOutputStream.write(value, 0, value.length);
+            return byteArrayOutputStream.toByteArray();
+        }
+    }
+
+    /**
+     * The local tag to UL mapping of a primer pack, that local tags can be allocated in
+     */
+    private static final class Primer {
+        private final Packet packet;
+        private final Map<Integer, MXFUID> localTagToUL;
+        private final Map<MXFUID, Integer> ulToLocalTag;
+        private boolean modified;
+
+        private Primer(Packet packet) {
+            this.packet = packet;
+            this.localTagToUL = new LinkedHashMap<>();
+            this.ulToLocalTag = new LinkedHashMap<>();
+            //smpte st 377-1:2011, section 9.2, a batch of 18 byte local tag entries
+            ByteBuffer byteBuffer = ByteBuffer.wrap(packet.value()).order(KLVPacket.BYTE_ORDER);
+            long numberOfEntries = byteBuffer.getInt() & 0xffffffffL;
+            long entrySize = byteBuffer.getInt() & 0xffffffffL;
+            if (entrySize != 18 || numberOfEntries * entrySize > byteBuffer.remaining()) {
+                throw new MXFException(String.format("Invalid primer pack with %d entries of size %d", numberOfEntries, entrySize));
+            }
+            for (long i = 0; i < numberOfEntries; i++) {
+                int localTag = byteBuffer.getShort() & 0xffff;
+                byte[] ul = new byte[16];
+                byteBuffer.get(ul);
+                this.localTagToUL.put(localTag, new MXFUID(ul));
+                this.ulToLocalTag.put(new MXFUID(ul), localTag);
+            }
+        }
+
+        private Primer(Primer other) {
+            this.packet = other.packet;
+            this.localTagToUL = new LinkedHashMap<>(other.localTagToUL);
+            this.ulToLocalTag = new LinkedHashMap<>(other.ulToLocalTag);
+            this.modified = other.modified;
+        }
+
+        private Primer copy() {
+            return new Primer(this);
+        }
+
+        private @Nullable Integer getLocalTag(MXFUID ul) {
+            return this.ulToLocalTag.get(ul);
+        }
+
+        private int getOrAllocateLocalTag(MXFUID ul) {
+            Integer localTag = this.ulToLocalTag.get(ul);
+            if (localTag != null) {
+                return localTag;
+            }
+            //dynamic local tags are allocated downwards from the top of the range
+            for (int candidate = MAX_LOCAL_TAG; candidate >= MIN_DYNAMIC_LOCAL_TAG; candidate--) {
+                if (!this.localTagToUL.containsKey(candidate)) {
+                    this.localTagToUL.put(candidate, ul);
+                    this.ulToLocalTag.put(ul, candidate);
+                    this.modified = true;
+                    return candidate;
+                }
+            }
+            throw new IMFAuthoringException(String.format("No dynamic local tag is available for item %s", ul.toString()));
+        }
+
+        private byte[] render() {
+            if (!this.modified) {
+                return this.packet.bytes();
+            }
+            ByteBuffer value = ByteBuffer.allocate(8 + 18 * this.localTagToUL.size()).order(KLVPacket.BYTE_ORDER);
+            value.putInt(this.localTagToUL.size()).putInt(18);
+            for (Map.Entry<Integer, MXFUID> entry : this.localTagToUL.entrySet()) {
+                value.putShort((short) entry.getKey().intValue()).put(entry.getValue().getUID());
+            }
+            return Packet.render(this.packet.key, this.packet.lengthFieldSize, value.array());
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.KLVPacket;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.PartitionPack;
+import com.netflix.imflibrary.st0377.RandomIndexPack;
+import com.netflix.imflibrary.st0377.ReconstructedIndexTable;
+import com.netflix.imflibrary.st0377.header.EssenceContainerData;
+import com.netflix.imflibrary.st0377.header.FileDescriptor;
+import com.netflix.imflibrary.st0377.header.GenericDescriptor;
+import com.netflix.imflibrary.st0377.header.InterchangeObject;
+import com.netflix.imflibrary.st0377.header.SourcePackage;
+import com.netflix.imflibrary.st0377.header.TimelineTrack;
+import com.netflix.imflibrary.st0377.header.UL;
+import com.netflix.imflibrary.st0377.header.WaveAudioEssenceDescriptor;
+import com.netflix.imflibrary.st2067_201.IABEssenceDescriptor;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.FileChannelByteRangeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class that repairs the IndexTable of a track file in place, without rewrapping its essence.
+ *
+ * {@link #reconstruct()} rebuilds the IndexTable of the essence container of the track file from its essence element KLV
+ * packets, taking the BodySID, the IndexSID and the edit rate from the header metadata, and the wrapping from the
+ * essence container label of the essence descriptor. For clip-wrapped PCM audio the IndexTable is built at the audio
+ * sampling rate with the block align as the edit unit byte count, as written by most track file writers, and for
+ * clip-wrapped IAB the IA Bitstream frames are located in the essence element.
+ * {@link #writeIndexedFooter(ReconstructedIndexTable)} then replaces the footer partition and the RandomIndexPack of the
+ * file with a footer partition that holds the IndexTable segments and a RandomIndexPack that references every partition.
+ * The header metadata of an existing footer partition is carried over, and the essence and the partitions that precede
+ * the footer are not moved. Only their FooterPartition offsets are updated, and IndexTable segments with the IndexSID of
+ * the rebuilt IndexTable that they hold are turned into KLV fill, so that they are not merged with the footer IndexTable.
+ */
+@NotThreadSafe
+public final class MXFIndexRepairer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MXFIndexRepairer.class);
+
+    //smpte st 377-1:2011, section 6.1 and section 12
+    private static final byte FOOTER_PARTITION_KIND = 0x04;
+    private static final byte CLOSED_COMPLETE_PARTITION_STATUS = 0x04;
+    private static final byte[] RANDOM_INDEX_PACK_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x02, 0x05, 0x01, 0x01, 0x0d, 0x01, 0x02, 0x01, 0x01, 0x11, 0x01, 0x00};
+    private static final int KAG_SIZE_OFFSET = 4;
+    private static final int THIS_PARTITION_OFFSET = 8;
+    private static final int PREVIOUS_PARTITION_OFFSET = 16;
+    private static final int FOOTER_PARTITION_OFFSET = 24;
+    private static final int HEADER_BYTE_COUNT_OFFSET = 32;
+    private static final int INDEX_BYTE_COUNT_OFFSET = 40;
+    private static final int INDEX_SID_OFFSET = 48;
+    private static final int BODY_OFFSET_OFFSET = 52;
+    private static final int BODY_SID_OFFSET = 60;
+    private static final int BODY_SID_BYTE_OFFSET_PAIR_SIZE = 12;
+    private static final int MAX_KLV_HEADER_SIZE = KLVPacket.KEY_FIELD_SIZE + 1 + KLVPacket.LENGTH_FIELD_SUFFIX_MAX_SIZE;
+    private static final int RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE = 4;
+    private static final byte[] KLV_FILL_ITEM_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x02, 0x03, 0x01, 0x02, 0x10, 0x01, 0x00, 0x00, 0x00};
+    private static final int FILL_LENGTH_FIELD_SIZE = 4;
+    //smpte st 379-2:2010, the generic container labels, whose byte 15 signals frame or clip wrapping for most mappings
+    private static final byte[] GENERIC_CONTAINER_LABEL_PREFIX = {0x06, 0x0e, 0x2b, 0x34, 0x04, 0x01, 0x01, 0x00, 0x0d, 0x01, 0x03, 0x01, 0x02};
+    private static final int LABEL_VERSION_BYTE = 7;
+    private static final int WRAPPING_BYTE = 14;
+    private static final byte CLIP_WRAPPING = 0x02;
+
+    private final Path path;
+
+    /**
+     * A constructor for an MXFIndexRepairer
+     * @param path the track file to be repaired
+     */
+    public MXFIndexRepairer(@Nonnull Path path) {
+        this.path = path;
+    }
+
+    /**
+     * A method that rebuilds the IndexTable of the essence container of the track file from its essence element KLV
+     * packets
+     * @return the rebuilt IndexTable
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException if the header metadata does not describe an essence container with an IndexSID, or if the
+     * IndexTable cannot be rebuilt from the essence
+     */
+    public ReconstructedIndexTable reconstruct() throws IOException {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(this.path, imfErrorLogger);
+        List<InterchangeObject> essenceContainerDataList = headerPartition.getEssenceContainerDataList();
+        if (essenceContainerDataList.isEmpty()) {
+            throw new MXFException(String.format("The header metadata of %s does not contain EssenceContainerData", this.path.toString()));
+        }
+        EssenceContainerData essenceContainerData = (EssenceContainerData) essenceContainerDataList.get(0);
+        SourcePackage filePackage = (SourcePackage) essenceContainerData.getLinkedPackage();
+        long bodySID = essenceContainerData.getBodySID();
+        long indexSID = essenceContainerData.getIndexSID();
+        if (indexSID == 0) {
+            //readers only associate an IndexTable with the essence container through the IndexSID of its EssenceContainerData
+            throw new MXFException(String.format("The EssenceContainerData of %s does not declare an IndexSID, an IndexTable would not be associated with the essence container",
+                    this.path.toString()));
+        }
+        boolean clipWrapped = isClipWrapped(getEssenceContainerUL(headerPartition));
+
+        try (FileChannelByteRangeProvider resourceByteRangeProvider = new FileChannelByteRangeProvider(this.path)) {
+            GenericDescriptor genericDescriptor = filePackage.getGenericDescriptor();
+            if (clipWrapped && genericDescriptor instanceof WaveAudioEssenceDescriptor) {
+                WaveAudioEssenceDescriptor waveAudioEssenceDescriptor = (WaveAudioEssenceDescriptor) genericDescriptor;
+                return ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, bodySID, indexSID,
+                        waveAudioEssenceDescriptor.getAudioSamplingRateNumerator(), waveAudioEssenceDescriptor.getAudioSamplingRateDenominator(),
+                        true, waveAudioEssenceDescriptor.getBlockAlign());
+            }
+            List<TimelineTrack> timelineTracks = filePackage.getTimelineTracks();
+            if (timelineTracks.isEmpty()) {
+                throw new MXFException(String.format("The file package of %s does not contain a TimelineTrack", this.path.toString()));
+            }
+            TimelineTrack timelineTrack = timelineTracks.get(0);
+            return ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, bodySID, indexSID,
+                    timelineTrack.getEditRateNumerator(), timelineTrack.getEditRateDenominator(), clipWrapped, 0);
+        }
+    }
+
+    /**
+     * A method that replaces the footer partition and the RandomIndexPack of the track file with a footer partition that
+     * holds an IndexTable. The new footer partition takes the place of the existing footer partition, or of the
+     * RandomIndexPack when the file has no footer partition. IndexTable segments of the other partitions with the
+     * IndexSID of the IndexTable are turned into KLV fill, and the IndexByteCount and IndexSID of their partitions are
+     * set to 0.
+     *
+     * The file is modified in place and the writes are not atomic: the new footer partition and RandomIndexPack are
+     * written first, then the partition packs of the other partitions are updated, and the file is only truncated once
+     * every write succeeded. A write that fails, for instance because the disk is full, leaves a corrupt file without a
+     * valid footer partition or RandomIndexPack, so a copy of the file should be kept until the repair succeeds.
+     * @param reconstructedIndexTable the IndexTable to be written, typically the result of {@link #reconstruct()}
+     * @return a summary of the repair
+     * @throws IOException - any I/O related error is exposed through an IOException
+     * @throws MXFException if the partitions of the file cannot be read
+     */
+    public RepairResult writeIndexedFooter(@Nonnull ReconstructedIndexTable reconstructedIndexTable) throws IOException {
+        List<Partition> partitions = readPartitions();
+        Partition headerPartition = partitions.get(0);
+        if (headerPartition.offset != 0 || !headerPartition.partitionPack.isHeaderPartition()) {
+            throw new MXFException(String.format("%s does not start with a header partition", this.path.toString()));
+        }
+        Partition footerPartition = null;
+        Partition lastPartition = partitions.get(partitions.size() - 1);
+        if (lastPartition.partitionPack.isFooterPartition()) {
+            footerPartition = lastPartition;
+            partitions = partitions.subList(0, partitions.size() - 1);
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long footerPartitionOffset = (footerPartition != null) ? footerPartition.offset : getRandomIndexPackOffset(fileChannel);
+            byte[] headerMetadata = new byte[0];
+            if (footerPartition != null && footerPartition.partitionPack.hasHeaderMetadata()) {
+                headerMetadata = read(fileChannel, footerPartition.offset + footerPartition.partitionPack.getKLVPacketSize(),
+                        toIntExact(footerPartition.partitionPack.getHeaderByteCount()));
+            }
+            byte[] indexTableSegments = reconstructedIndexTable.getIndexTableSegmentBytes();
+
+            //the partition pack of the header partition is the template of the footer partition pack, which inherits
+            //its OperationalPattern and EssenceContainers
+            byte[] partitionPack = read(fileChannel, 0, toIntExact(headerPartition.partitionPack.getKLVPacketSize()));
+            partitionPack[13] = FOOTER_PARTITION_KIND;
+            partitionPack[14] = CLOSED_COMPLETE_PARTITION_STATUS;
+            ByteBuffer value = ByteBuffer.wrap(partitionPack, headerPartition.klSize, partitionPack.length - headerPartition.klSize)
+                    .slice().order(KLVPacket.BYTE_ORDER);
+            //the IndexTable segments directly follow the partition pack, so the KLV alignment grid of the footer is 1
+            value.putInt(KAG_SIZE_OFFSET, 1);
+            value.putLong(THIS_PARTITION_OFFSET, footerPartitionOffset);
+            value.putLong(PREVIOUS_PARTITION_OFFSET, partitions.get(partitions.size() - 1).offset);
+            value.putLong(FOOTER_PARTITION_OFFSET, footerPartitionOffset);
+            value.putLong(HEADER_BYTE_COUNT_OFFSET, headerMetadata.length);
+            value.putLong(INDEX_BYTE_COUNT_OFFSET, indexTableSegments.length);
+            value.putInt(INDEX_SID_OFFSET, (int) reconstructedIndexTable.getIndexSID());
+            value.putLong(BODY_OFFSET_OFFSET, 0);
+            value.putInt(BODY_SID_OFFSET, 0);
+
+            ByteBuffer footer = ByteBuffer.allocate(partitionPack.length + headerMetadata.length + indexTableSegments.length
+                    + getRandomIndexPackSize(partitions.size() + 1)).order(KLVPacket.BYTE_ORDER);
+            footer.put(partitionPack).put(headerMetadata).put(indexTableSegments);
+            putRandomIndexPack(footer, partitions, footerPartitionOffset);
+            footer.flip();
+            write(fileChannel, footer, footerPartitionOffset);
+
+            List<Long> patchedPartitions = new ArrayList<>();
+            List<Long> clearedIndexPartitions = new ArrayList<>();
+            for (Partition partition : partitions) {
+                if (partition.partitionPack.getFooterPartitionByteOffset() != footerPartitionOffset) {
+                    write(fileChannel, ByteBuffer.allocate(8).order(KLVPacket.BYTE_ORDER).putLong(0, footerPartitionOffset),
+                            partition.offset + partition.klSize + FOOTER_PARTITION_OFFSET);
+                    patchedPartitions.add(partition.offset);
+                }
+                if (partition.partitionPack.getIndexSID() == reconstructedIndexTable.getIndexSID() && partition.partitionPack.getIndexByteCount() > 0) {
+                    clearIndexTableSegments(fileChannel, partition);
+                    clearedIndexPartitions.add(partition.offset);
+                }
+            }
+            fileChannel.force(false);
+            fileChannel.truncate(footerPartitionOffset + footer.limit());
+            logger.info("Wrote a footer partition with {} bytes of IndexTable segments at offset {} of {}", indexTableSegments.length,
+                    footerPartitionOffset, this.path);
+            return new RepairResult(footerPartitionOffset, indexTableSegments.length, patchedPartitions, clearedIndexPartitions);
+        }
+    }
+
+    private List<Partition> readPartitions() throws IOException {
+        List<Partition> partitions = new ArrayList<>();
+        try (FileChannel fileChannel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            List<Long> partitionOffsets = new ArrayList<>(readRandomIndexPack(fileChannel).getAllPartitionByteOffsets());
+            Collections.sort(partitionOffsets);
+            for (long partitionOffset : partitionOffsets) {
+                byte[] klvHeaderBytes = read(fileChannel, partitionOffset, (int) Math.min(MAX_KLV_HEADER_SIZE, fileChannel.size() - partitionOffset));
+                KLVPacket.Header klvHeader = new KLVPacket.Header(new ByteArrayDataProvider(klvHeaderBytes), partitionOffset);
+                byte[] partitionPackBytes = read(fileChannel, partitionOffset, toIntExact(klvHeader.getKLSize() + klvHeader.getVSize()));
+                PartitionPack partitionPack = new PartitionPack(new ByteArrayDataProvider(partitionPackBytes), partitionOffset, false);
+                partitions.add(new Partition(partitionOffset, (int) klvHeader.getKLSize(), partitionPack));
+            }
+        }
+        if (partitions.isEmpty()) {
+            throw new MXFException(String.format("The RandomIndexPack of %s does not reference any partition", this.path.toString()));
+        }
+        return partitions;
+    }
+
+    /**
+     * Turns the IndexTable segments of a partition into a single KLV fill item, and sets the IndexByteCount and the
+     * IndexSID of the partition to 0, so that the fill is skipped as fill that precedes the essence of the partition
+     */
+    private static void clearIndexTableSegments(FileChannel fileChannel, Partition partition) throws IOException {
+        long indexByteCount = partition.partitionPack.getIndexByteCount();
+        long fillLength = indexByteCount - KLVPacket.KEY_FIELD_SIZE - FILL_LENGTH_FIELD_SIZE;
+        if (fillLength < 0 || fillLength > 0xffffff) {
+            throw new MXFException(String.format("The IndexTable segments of the partition at offset %d cannot be turned into KLV fill of %d bytes",
+                    partition.offset, indexByteCount));
+        }
+        ByteBuffer fill = ByteBuffer.allocate(KLVPacket.KEY_FIELD_SIZE + FILL_LENGTH_FIELD_SIZE);
+        fill.put(KLV_FILL_ITEM_KEY).put((byte) (0x80 | (FILL_LENGTH_FIELD_SIZE - 1)))
+                .put((byte) (fillLength >>> 16)).put((byte) (fillLength >>> 8)).put((byte) fillLength);
+        fill.flip();
+        write(fileChannel, fill, partition.offset + partition.partitionPack.getKLVPacketSize() + partition.partitionPack.getHeaderByteCount());
+
+        long valueOffset = partition.offset + partition.klSize;
+        write(fileChannel, ByteBuffer.allocate(8).order(KLVPacket.BYTE_ORDER).putLong(0, 0), valueOffset + INDEX_BYTE_COUNT_OFFSET);
+        write(fileChannel, ByteBuffer.allocate(4).order(KLVPacket.BYTE_ORDER).putInt(0, 0), valueOffset + INDEX_SID_OFFSET);
+    }
+
+    private static UL getEssenceContainerUL(HeaderPartition headerPartition) {
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors()) {
+            if (essenceDescriptor instanceof FileDescriptor.FileDescriptorBO
+                    && ((FileDescriptor.FileDescriptorBO) essenceDescriptor).getEssenceContainerUL() != null) {
+                return ((FileDescriptor.FileDescriptorBO) essenceDescriptor).getEssenceContainerUL();
+            }
+        }
+        throw new MXFException("The header metadata does not contain an essence descriptor with an essence container label");
+    }
+
+    /**
+     * Tells whether an essence container label signals clip wrapping. The IMF IAB label signals clip wrapping with a
+     * byte 15 of 0x01, and labels other than generic container labels, such as the ISXD label, signal frame wrapping.
+     */
+    private static boolean isClipWrapped(UL essenceContainerUL) {
+        if (essenceContainerUL.equalsIgnoreVersion(IABEssenceDescriptor.IMF_IAB_ESSENCE_CLIP_WRAPPED_CONTAINER_UL)) {
+            return true;
+        }
+        byte[] bytes = essenceContainerUL.getULAsBytes();
+        for (int i = 0; i < GENERIC_CONTAINER_LABEL_PREFIX.length; i++) {
+            if (i != LABEL_VERSION_BYTE && bytes[i] != GENERIC_CONTAINER_LABEL_PREFIX[i]) {
+                return false;
+            }
+        }
+        return bytes[WRAPPING_BYTE] == CLIP_WRAPPING;
+    }
+
+    private static RandomIndexPack readRandomIndexPack(FileChannel fileChannel) throws IOException {
+        long randomIndexPackOffset = getRandomIndexPackOffset(fileChannel);
+        long randomIndexPackSize = fileChannel.size() - randomIndexPackOffset;
+        byte[] randomIndexPackBytes = read(fileChannel, randomIndexPackOffset, (int) randomIndexPackSize);
+        return new RandomIndexPack(new ByteArrayDataProvider(randomIndexPackBytes), randomIndexPackOffset, randomIndexPackSize);
+    }
+
+    private static long getRandomIndexPackOffset(FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+        if (fileSize < RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE) {
+            throw new MXFException(String.format("File size %d is too small to contain a RandomIndexPack", fileSize));
+        }
+        long randomIndexPackSize = ByteBuffer.wrap(read(fileChannel, fileSize - RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE, RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE))
+                .order(KLVPacket.BYTE_ORDER).getInt() & 0xffffffffL;
+        if (randomIndexPackSize > fileSize || randomIndexPackSize < KLVPacket.KEY_FIELD_SIZE) {
+            throw new MXFException(String.format("RandomIndexPack size %d is inconsistent with the file size %d", randomIndexPackSize, fileSize));
+        }
+        return fileSize - randomIndexPackSize;
+    }
+
+    private static int getRandomIndexPackSize(int partitionCount) {
+        return KLVPacket.KEY_FIELD_SIZE + RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE + partitionCount * BODY_SID_BYTE_OFFSET_PAIR_SIZE
+                + RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE;
+    }
+
+    private static void putRandomIndexPack(ByteBuffer byteBuffer, List<Partition> partitions, long footerPartitionOffset) {
+        int size = getRandomIndexPackSize(partitions.size() + 1);
+        int valueSize = size - KLVPacket.KEY_FIELD_SIZE - RANDOM_INDEX_PACK_LENGTH_FIELD_SIZE;
+        byteBuffer.put(RANDOM_INDEX_PACK_KEY);
+        byteBuffer.put((byte) 0x83).put((byte) (valueSize >>> 16)).put((byte) (valueSize >>> 8)).put((byte) valueSize);
+        for (Partition partition : partitions) {
+            byteBuffer.putInt((int) partition.partitionPack.getBodySID()).putLong(partition.offset);
+        }
+        byteBuffer.putInt(0).putLong(footerPartitionOffset);
+        byteBuffer.putInt(size);
+    }
+
+    private static void write(FileChannel fileChannel, ByteBuffer byteBuffer, long position) throws IOException {
+        long start = position - byteBuffer.position();
+        while (byteBuffer.hasRemaining()) {
+            fileChannel.write(byteBuffer, start + byteBuffer.position());
+        }
+    }
+
+    private static byte[] read(FileChannel fileChannel, long position, int size) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        while (byteBuffer.hasRemaining()) {
+            int numBytesRead = fileChannel.read(byteBuffer, position + byteBuffer.position());
+            if (numBytesRead < 0) {
+                throw new MXFException(String.format("Unexpected end of file while reading %d bytes at offset %d", size, position));
+            }
+        }
+        return byteBuffer.array();
+    }
+
+    private static int toIntExact(long size) {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new MXFException(String.format("KLV size %d is outside the supported range 0-0x%x", size, Integer.MAX_VALUE));
+        }
+        return (int) size;
+    }
+
+    private static final class Partition {
+        private final long offset;
+        private final int klSize;
+        private final PartitionPack partitionPack;
+
+        private Partition(long offset, int klSize, PartitionPack partitionPack) {
+            this.offset = offset;
+            this.klSize = klSize;
+            this.partitionPack = partitionPack;
+        }
+    }
+
+    /**
+     * A summary of the repair of a track file
+     */
+    @Immutable
+    public static final class RepairResult {
+        private final long footerPartitionByteOffset;
+        private final long indexByteCount;
+        private final List<Long> patchedPartitions;
+        private final List<Long> clearedIndexPartitions;
+
+        private RepairResult(long footerPartitionByteOffset, long indexByteCount, List<Long> patchedPartitions, List<Long> clearedIndexPartitions) {
+            this.footerPartitionByteOffset = footerPartitionByteOffset;
+            this.indexByteCount = indexByteCount;
+            this.patchedPartitions = Collections.unmodifiableList(new ArrayList<>(patchedPartitions));
+            this.clearedIndexPartitions = Collections.unmodifiableList(new ArrayList<>(clearedIndexPartitions));
+        }
+
+        /**
+         * Getter for the offset of the footer partition that holds the IndexTable
+         * @return the byte offset of the footer partition
+         */
+        public long getFooterPartitionByteOffset() {
+            return this.footerPartitionByteOffset;
+        }
+
+        /**
+         * Getter for the size of the IndexTable segments in the footer partition
+         * @return the IndexByteCount of the footer partition
+         */
+        public long getIndexByteCount() {
+            return this.indexByteCount;
+        }
+
+        /**
+         * Getter for the partitions whose FooterPartition offset was updated
+         * @return the byte offsets of the updated partitions
+         */
+        public List<Long> getPatchedPartitions() {
+            return this.patchedPartitions;
+        }
+
+        /**
+         * Getter for the partitions whose IndexTable segments with the IndexSID of the footer IndexTable were turned
+         * into KLV fill
+         * @return the byte offsets of the partitions
+         */
+        public List<Long> getClearedIndexPartitions() {
+            return this.clearedIndexPartitions;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.UUIDHelper;
+import com.netflix.imflibrary.writerTools.utils.IMFXMLStreamWriter;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A class that writes a SMPTE st2067-2:2016 schema compliant PackingList document one Asset at a time, without
+ * building a JAXB object graph of the document. The header of the PackingList is written when the writer is
+ * constructed, Assets are written as they are added and the document is completed by {@link #finish()}.
+ */
+public class PackingListStreamWriter_2016 extends IMFXMLStreamWriter {
+
+    /**
+     * The namespace of a st2067-2:2016 PackingList document
+     */
+    public static final String PKL_NAMESPACE = "http://www.smpte-ra.org/schemas/2067-2/2016/PKL";
+    private static final String DSIG_NAMESPACE = "http://www.w3.org/2000/09/xmldsig#";
+    private static final String[] SCHEMAS = {"org/w3/_2000_09/xmldsig/xmldsig-core-schema.xsd",
+            "org/smpte_ra/schemas/st2067_2_2016/PKL/packingList_schema.xsd"};
+
+    private int numberOfAssets = 0;
+
+    /**
+     * A constructor for the PackingListStreamWriter_2016 object, that writes the header of the PackingList document
+     * @param outputStream the stream that the PackingList document is written to
+     * @param uuid that uniquely identifies the PackingList document
+     * @param annotationText a free form human readable text, null if it should be omitted
+     * @param iconId a urn:uuid: that identifies an external image resource, null if it should be omitted
+     * @param issueDate date at which the PackingList was issued
+     * @param issuer a free form human readable text describing the issuer of the PackingList document
+     * @param creator a free form human readable text describing the tool used to create the PackingList document
+     * @param groupId a urn:uuid: that is used to create associations between packages, null if it should be omitted
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public PackingListStreamWriter_2016(@Nonnull OutputStream outputStream,
+                                        @Nonnull UUID uuid,
+                                        @Nullable String annotationText,
+                                        @Nullable String iconId,
+                                        @Nonnull XMLGregorianCalendar issueDate,
+                                        @Nonnull String issuer,
+                                        @Nonnull String creator,
+                                        @Nullable String groupId) throws IOException {
+        super(outputStream, PKL_NAMESPACE);
+        startDocument("PackingList", Collections.singletonMap("ds", DSIG_NAMESPACE));
+        writeTextElement("Id", UUIDHelper.fromUUID(uuid));
+        if (annotationText != null) {
+            writeUserTextElement("AnnotationText", annotationText, null);
+        }
+        if (iconId != null) {
+            writeTextElement("IconId", iconId);
+        }
+        writeTextElement("IssueDate", issueDate.toXMLFormat());
+        writeUserTextElement("Issuer", issuer, null);
+        writeUserTextElement("Creator", creator, null);
+        if (groupId != null) {
+            writeTextElement("GroupId", groupId);
+        }
+        startElement("AssetList");
+    }
+
+    /**
+     * A method to write an Asset of the PackingList
+     * @param uuid that uniquely identifies this asset in the PackingList
+     * @param annotationText a free form human readable text, null if it should be omitted
+     * @param hash a byte[] containing the digest of the asset, that is Base64 encoded in the document
+     * @param size of the asset in bytes
+     * @param assetType could be either text/xml or application/mxf
+     * @param originalFileName the name of the file containing the asset, null if it should be omitted
+     * @param hashAlgorithm the URI of the algorithm used for generating the hash
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public void writeAsset(@Nonnull UUID uuid,
+                           @Nullable String annotationText,
+                           @Nonnull byte[] hash,
+                           long size,
+                           @Nonnull PackingListBuilder.PKLAssetTypeEnum assetType,
+                           @Nullable String originalFileName,
+                           @Nonnull String hashAlgorithm) throws IOException {
+        writeAsset(uuid, annotationText, hash, size, assetType.toString(), originalFileName, hashAlgorithm);
+    }
+
+    /**
+     * A method to write an Asset of the PackingList whose type is carried verbatim, such as an Asset read back
+     * from an existing PackingList document
+     * @param uuid that uniquely identifies this asset in the PackingList
+     * @param annotationText a free form human readable text, null if it should be omitted
+     * @param hash a byte[] containing the digest of the asset, that is Base64 encoded in the document
+     * @param size of the asset in bytes
+     * @param assetType the MIME type of the asset
+     * @param originalFileName the name of the file containing the asset, null if it should be omitted
+     * @param hashAlgorithm the URI of the algorithm used for generating the hash
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public void writeAsset(@Nonnull UUID uuid,
+                           @Nullable String annotationText,
+                           @Nonnull byte[] hash,
+                           long size,
+                           @Nonnull String assetType,
+                           @Nullable String originalFileName,
+                           @Nonnull String hashAlgorithm) throws IOException {
+        startElement("Asset");
+        writeTextElement("Id", UUIDHelper.fromUUID(uuid));
+        if (annotationText != null) {
+            writeUserTextElement("AnnotationText", annotationText, null);
+        }
+        writeTextElement("Hash", Base64.getEncoder().encodeToString(hash));
+        writeTextElement("Size", Long.toString(size));
+        writeTextElement("Type", assetType);
+        if (originalFileName != null) {
+            writeUserTextElement("OriginalFileName", originalFileName, null);
+        }
+        startElement("HashAlgorithm");
+        writeAttribute(null, "Algorithm", hashAlgorithm);
+        endElement();
+        endElement();
+        this.numberOfAssets++;
+    }
+
+    /**
+     * A method to write the PackingList Asset entry of an XML document that was written by an {@link IMFXMLStreamWriter},
+     * such as a CompositionPlaylist, using the size and SHA-1 digest that were computed while it was written
+     * @param uuid that uniquely identifies this asset in the PackingList
+     * @param writtenDocument the size and digest of the document
+     * @param originalFileName the name of the file containing the document, null if it should be omitted
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public void writeAsset(@Nonnull UUID uuid,
+                           @Nonnull IMFXMLStreamWriter.WrittenDocument writtenDocument,
+                           @Nullable String originalFileName) throws IOException {
+        writeAsset(uuid, null, writtenDocument.getHash(), writtenDocument.getSize(), PackingListBuilder.PKLAssetTypeEnum.TEXT_XML,
+                originalFileName, PackingListBuilder.defaultHashAlgorithm);
+    }
+
+    /**
+     * A method that completes the PackingList document
+     * @return the size and SHA-1 digest of the PackingList document
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public IMFXMLStreamWriter.WrittenDocument finish() throws IOException {
+        if (this.numberOfAssets == 0) {
+            throw new IMFAuthoringException("A PackingList document requires at least one Asset");
+        }
+        return endDocument();
+    }
+
+    /**
+     * A stateless method that validates a PackingList document against the st2067-2:2016 PackingList schema in a
+     * single streaming pass
+     * @param inputStream the PackingList document
+     * @return a list of errors that were detected while validating the document
+     * @throws IOException - any I/O related error will be exposed through an IOException
+     */
+    public static List<ErrorLogger.ErrorObject> validate(@Nonnull InputStream inputStream) throws IOException {
+        return validate(new StreamSource(inputStream), getSchema(SCHEMAS), IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR);
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.netflix.imflibrary.writerTools.utils;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A base class for writers that emit IMF documents element by element through an {@link XMLStreamWriter}, instead of
+ * building and marshalling a complete JAXB object graph. The document is never held in memory, and its size and SHA-1
+ * digest are computed from the bytes as they are written so that the PackingList entry of the document is available as
+ * soon as it has been written, without reading it back.
+ *
+ * Schema validation is not performed while writing, a written document can be validated in a separate streaming pass
+ * using {@link #validate(Source, Schema, IMFErrorLogger.IMFErrors.ErrorCodes)}.
+ */
+public abstract class IMFXMLStreamWriter implements Closeable {
+
+    private static final String INDENT = "    ";
+    private static final ConcurrentMap<String, Schema> schemaCache = new ConcurrentHashMap<>();
+
+    private final CountingOutputStream countingOutputStream;
+    private final DigestOutputStream digestOutputStream;
+    private final XMLStreamWriter xmlStreamWriter;
+    private final String defaultNamespace;
+    private int depth = 0;
+    private boolean lastEventWasStart = false;
+    private WrittenDocument writtenDocument = null;
+
+    /**
+     * Constructor for an IMFXMLStreamWriter
+     *
+     * @param outputStream the stream that the document is written to, it is closed when the writer is closed
+     * @param defaultNamespace the namespace of the root element of the document
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected IMFXMLStreamWriter(@Nonnull OutputStream outputStream, @Nonnull String defaultNamespace) throws IOException {
+        this.countingOutputStream = new CountingOutputStream(outputStream);
+        try {
+            this.digestOutputStream = new DigestOutputStream(this.countingOutputStream, MessageDigest.getInstance("SHA-1"));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IMFAuthoringException(e);
+        }
+        this.defaultNamespace = defaultNamespace;
+        try {
+            this.xmlStreamWriter = XMLOutputFactory.newFactory().createXMLStreamWriter(this.digestOutputStream, "UTF-8");
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Failed to create an XMLStreamWriter", e);
+        }
+    }
+
+    /**
+     * A method that writes the XML declaration and the root element of the document
+     *
+     * @param rootElement the local name of the root element, in the default namespace
+     * @param namespaces a map of prefixes to namespace URIs that are declared on the root element in addition to the
+     *                   default namespace
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void startDocument(@Nonnull String rootElement, @Nonnull Map<String, String> namespaces) throws IOException {
+        try {
+            this.xmlStreamWriter.writeStartDocument("UTF-8", "1.0");
+            this.xmlStreamWriter.setDefaultNamespace(this.defaultNamespace);
+            for (Map.Entry<String, String> entry : namespaces.entrySet()) {
+                this.xmlStreamWriter.setPrefix(entry.getKey(), entry.getValue());
+            }
+            startElement(this.defaultNamespace, rootElement);
+            this.xmlStreamWriter.writeDefaultNamespace(this.defaultNamespace);
+            for (Map.Entry<String, String> entry : namespaces.entrySet()) {
+                this.xmlStreamWriter.writeNamespace(entry.getKey(), entry.getValue());
+            }
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A method that starts an element in the default namespace of the document
+     *
+     * @param localName the local name of the element
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void startElement(@Nonnull String localName) throws IOException {
+        startElement(this.defaultNamespace, localName);
+    }
+
+    /**
+     * A method that starts an element
+     *
+     * @param namespace the namespace URI of the element, its prefix must have been declared on the root element
+     * @param localName the local name of the element
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void startElement(@Nonnull String namespace, @Nonnull String localName) throws IOException {
+        try {
+            indent();
+            this.xmlStreamWriter.writeStartElement(namespace, localName);
+            this.depth++;
+            this.lastEventWasStart = true;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A method that writes an attribute of the element that was last started
+     *
+     * @param namespace the namespace URI of the attribute, null for an unqualified attribute
+     * @param localName the local name of the attribute
+     * @param value the value of the attribute
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeAttribute(@Nullable String namespace, @Nonnull String localName, @Nonnull String value) throws IOException {
+        try {
+            if (namespace == null) {
+                this.xmlStreamWriter.writeAttribute(localName, value);
+            }
+            else {
+                this.xmlStreamWriter.writeAttribute(namespace, localName, value);
+            }
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A method that writes text content of the element that was last started
+     *
+     * @param text the text content
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeCharacters(@Nonnull String text) throws IOException {
+        try {
+            this.xmlStreamWriter.writeCharacters(text);
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A method that ends the element that was last started
+     *
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void endElement() throws IOException {
+        try {
+            this.depth--;
+            if (!this.lastEventWasStart) {
+                indent();
+            }
+            this.xmlStreamWriter.writeEndElement();
+            this.lastEventWasStart = false;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A method that writes an element in the default namespace of the document with text content
+     *
+     * @param localName the local name of the element
+     * @param text the text content of the element
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeTextElement(@Nonnull String localName, @Nonnull String text) throws IOException {
+        writeTextElement(this.defaultNamespace, localName, text);
+    }
+
+    /**
+     * A method that writes an element with text content
+     *
+     * @param namespace the namespace URI of the element
+     * @param localName the local name of the element
+     * @param text the text content of the element
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeTextElement(@Nonnull String namespace, @Nonnull String localName, @Nonnull String text) throws IOException {
+        startElement(namespace, localName);
+        writeCharacters(text);
+        endElement();
+    }
+
+    /**
+     * A method that writes an element of a UserText type, whose text content carries an optional language attribute
+     *
+     * @param localName the local name of the element, in the default namespace of the document
+     * @param text the text content of the element
+     * @param language the language of the text, null if the attribute should be omitted
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeUserTextElement(@Nonnull String localName, @Nonnull String text, @Nullable String language) throws IOException {
+        startElement(localName);
+        if (language != null) {
+            writeAttribute(null, "language", language);
+        }
+        writeCharacters(text);
+        endElement();
+    }
+
+    /**
+     * A method that copies a DOM node, such as a RegXML EssenceDescriptor, into the document. Namespace prefixes used by
+     * the node that are not bound in the document are declared on the copied element.
+     *
+     * @param node the node to be copied
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected void writeNode(@Nonnull Node node) throws IOException {
+        try {
+            indent();
+            writeDOMNode(node);
+            this.lastEventWasStart = false;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Failed to copy a DOM node into the document", e);
+        }
+    }
+
+    private void writeDOMNode(Node node) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.DOCUMENT_NODE:
+                writeDOMNode(((Document) node).getDocumentElement());
+                break;
+            case Node.ELEMENT_NODE:
+                writeDOMElement(node);
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                this.xmlStreamWriter.writeCharacters(node.getNodeValue());
+                break;
+            default:
+                //Comments and processing instructions are not a part of the RegXML data model and are not copied
+                break;
+        }
+    }
+
+    private void writeDOMElement(Node element) throws XMLStreamException {
+        String prefix = nullToEmpty(element.getPrefix());
+        String namespace = nullToEmpty(element.getNamespaceURI());
+        NamedNodeMap attributes = element.getAttributes();
+
+        //Bindings are resolved before the element is started, since starting it binds its prefix in the writer
+        Map<String, String> declarations = new LinkedHashMap<>();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                declarations.put(XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getNodeName()) ? "" : attribute.getLocalName(), attribute.getNodeValue());
+            }
+        }
+        declareIfUnbound(declarations, prefix, namespace);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (attribute.getNamespaceURI() != null && !XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                declareIfUnbound(declarations, nullToEmpty(attribute.getPrefix()), attribute.getNamespaceURI());
+            }
+        }
+        this.xmlStreamWriter.writeStartElement(prefix, localNameOf(element), namespace);
+        for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+            if (declaration.getKey().isEmpty()) {
+                this.xmlStreamWriter.writeDefaultNamespace(declaration.getValue());
+            }
+            else {
+                this.xmlStreamWriter.writeNamespace(declaration.getKey(), declaration.getValue());
+            }
+        }
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (attribute.getNamespaceURI() == null) {
+                this.xmlStreamWriter.writeAttribute(localNameOf(attribute), attribute.getNodeValue());
+            }
+            else if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                this.xmlStreamWriter.writeAttribute(nullToEmpty(attribute.getPrefix()), attribute.getNamespaceURI(), localNameOf(attribute), attribute.getNodeValue());
+            }
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeDOMNode(child);
+        }
+        this.xmlStreamWriter.writeEndElement();
+    }
+
+    private void declareIfUnbound(Map<String, String> declarations, String prefix, String namespace) {
+        if (!declarations.containsKey(prefix)
+                && !namespace.equals(nullToEmpty(this.xmlStreamWriter.getNamespaceContext().getNamespaceURI(prefix)))) {
+            declarations.put(prefix, namespace);
+        }
+    }
+
+    private static String localNameOf(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * A method that ends the root element and the document and flushes it to the underlying stream. The size and digest
+     * of the document are final once this method returns.
+     *
+     * @return the size and SHA-1 digest of the written document
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    protected WrittenDocument endDocument() throws IOException {
+        if (this.writtenDocument == null) {
+            try {
+                while (this.depth > 0) {
+                    endElement();
+                }
+                this.xmlStreamWriter.writeEndDocument();
+                this.xmlStreamWriter.writeCharacters("\n");
+                this.xmlStreamWriter.flush();
+                this.digestOutputStream.flush();
+            }
+            catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            this.writtenDocument = new WrittenDocument(this.countingOutputStream.getCount(), this.digestOutputStream.getMessageDigest().digest());
+        }
+        return this.writtenDocument;
+    }
+
+    /**
+     * Getter for the depth of the element that is currently open, 1 being the root element
+     *
+     * @return the number of elements that have been started and not ended
+     */
+    protected int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * A method that releases the XMLStreamWriter and closes the underlying stream. The document is not completed if
+     * {@link #endDocument()} has not been invoked.
+     *
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.xmlStreamWriter.close();
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        finally {
+            this.digestOutputStream.close();
+        }
+    }
+
+    private void indent() throws XMLStreamException {
+        StringBuilder sb = new StringBuilder(1 + this.depth * INDENT.length());
+        sb.append('\n');
+        for (int i = 0; i < this.depth; i++) {
+            sb.append(INDENT);
+        }
+        this.xmlStreamWriter.writeCharacters(sb.toString());
+    }
+
+    /**
+     * A stateless method that validates a document against a schema in a single streaming pass, without building a DOM
+     * or an object graph of the document.
+     *
+     * @param source the document to be validated
+     * @param schema the compiled schema that the document should conform to
+     * @param errorCode the error code that validation errors are reported with
+     * @return a list of errors that were detected while validating the document
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static List<ErrorLogger.ErrorObject> validate(@Nonnull Source source, @Nonnull Schema schema, @Nonnull IMFErrorLogger.IMFErrors.ErrorCodes errorCode) throws IOException {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Validator validator = schema.newValidator();
+        validator.setErrorHandler(new ErrorHandler() {
+            @Override
+            public void warning(SAXParseException exception) {
+                imfErrorLogger.addError(errorCode, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, describe(exception));
+            }
+
+            @Override
+            public void error(SAXParseException exception) {
+                imfErrorLogger.addError(errorCode, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, describe(exception));
+            }
+
+            @Override
+            public void fatalError(SAXParseException exception) {
+                imfErrorLogger.addError(errorCode, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, describe(exception));
+            }
+        });
+        try {
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            validator.validate(source);
+        }
+        catch (SAXException e) {
+            imfErrorLogger.addError(errorCode, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, e.getMessage());
+        }
+        return imfErrorLogger.getErrors();
+    }
+
+    /**
+     * A method that compiles the schemas found at the given class path locations into a single Schema. Compiled schemas
+     * are cached, since a Schema is thread safe and compiling it dominates the cost of validating a small document.
+     *
+     * @param schemaResources the class path locations of the schemas, in an order such that every schema follows the
+     *                        schemas that it depends upon
+     * @return the compiled Schema
+     * @throws IOException - any I/O related error is exposed through an IOException
+     */
+    public static Schema getSchema(@Nonnull String... schemaResources) throws IOException {
+        String key = String.join(";", schemaResources);
+        Schema schema = schemaCache.get(key);
+        if (schema == null) {
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            List<InputStream> inputStreams = new ArrayList<>();
+            try {
+                StreamSource[] schemaSources = new StreamSource[schemaResources.length];
+                for (int i = 0; i < schemaResources.length; i++) {
+                    InputStream inputStream = contextClassLoader.getResourceAsStream(schemaResources[i]);
+                    if (inputStream == null) {
+                        throw new IOException(String.format("Schema %s was not found on the class path", schemaResources[i]));
+                    }
+                    inputStreams.add(inputStream);
+                    schemaSources[i] = new StreamSource(inputStream);
+                }
+                schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(schemaSources);
+            }
+            catch (SAXException e) {
+                throw new IMFAuthoringException(String.format("Failed to compile schemas %s", key), e);
+            }
+            finally {
+                for (InputStream inputStream : inputStreams) {
+                    inputStream.close();
+                }
+            }
+            Schema existing = schemaCache.putIfAbsent(key, schema);
+            if (existing != null) {
+                schema = existing;
+            }
+        }
+        return schema;
+    }
+
+    private static String describe(SAXParseException exception) {
+        return String.format("Line %d, column %d: %s", exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage());
+    }
+
+    /**
+     * This class is an immutable representation of the size and digest of a document written by an IMFXMLStreamWriter,
+     * which is what a PackingList Asset entry for the document requires.
+     */
+    public static final class WrittenDocument {
+        private final long size;
+        private final byte[] hash;
+
+        private WrittenDocument(long size, byte[] hash) {
+            this.size = size;
+            this.hash = Arrays.copyOf(hash, hash.length);
+        }
+
+        /**
+         * Getter for the size of the document
+         *
+         * @return the number of bytes written
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Getter for the SHA-1 digest of the document
+         *
+         * @return a byte[] containing the SHA-1 digest of the bytes written
+         */
+        public byte[] getHash() {
+            return Arrays.copyOf(this.hash, this.hash.length);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0L;
+
+        private CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        private long getCount() {
+            return this.count;
+        }
+    }
+}
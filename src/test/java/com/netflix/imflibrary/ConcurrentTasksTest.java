@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+@Test(groups = "unit")
+public class ConcurrentTasksTest
+{
+    @Test
+    public void invokeAllTest() throws IOException
+    {
+        List<Integer> inputs = Arrays.asList(1, 2, 3, 4, 5);
+        Assert.assertEquals(ConcurrentTasks.invokeAll(null, inputs, input -> input * 10), Arrays.asList(10, 20, 30, 40, 50));
+        List<Integer> concurrent = TestHelper.runWithFixedThreadPool(3, executor -> ConcurrentTasks.invokeAll(executor, inputs, input -> input * 10));
+        Assert.assertEquals(concurrent, Arrays.asList(10, 20, 30, 40, 50));
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "range 3")
+    public void ioExceptionTest() throws IOException
+    {
+        TestHelper.runWithFixedThreadPool(3, executor -> ConcurrentTasks.invokeAll(executor, Arrays.asList(1, 2, 3, 4), input -> {
+            if (input == 3)
+            {
+                throw new IOException("range " + input);
+            }
+            return input;
+        }));
+    }
+}
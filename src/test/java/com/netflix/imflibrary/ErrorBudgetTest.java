@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class ErrorBudgetTest
+{
+    @Test
+    public void testFailFast()
+    {
+        ErrorBudget errorBudget = ErrorBudget.failFast();
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl(errorBudget);
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "warning");
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "non fatal");
+        assertFalse(errorBudget.isTerminated());
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "fatal");
+        assertTrue(errorBudget.isTerminated());
+        assertEquals(errorBudget.getNumberOfCountedErrors(), 1);
+    }
+
+    @Test
+    public void testMaxErrorsCountsDistinctErrors()
+    {
+        List<ErrorLogger.ErrorObject> forwardedErrors = new ArrayList<>();
+        ErrorBudget errorBudget = new ErrorBudget(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, 3, forwardedErrors::add);
+        IMFErrorLogger firstErrorLogger = new IMFErrorLoggerImpl(errorBudget);
+        IMFErrorLogger secondErrorLogger = new IMFErrorLoggerImpl(errorBudget);
+
+        firstErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "first");
+        firstErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "second");
+        secondErrorLogger.addAllErrors(firstErrorLogger.getErrors());
+        assertFalse(errorBudget.isTerminated());
+        assertEquals(forwardedErrors.size(), 2);
+
+        secondErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "third");
+        assertTrue(errorBudget.isTerminated());
+        assertEquals(forwardedErrors.size(), 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBudget()
+    {
+        ErrorBudget.maxErrors(0);
+    }
+}
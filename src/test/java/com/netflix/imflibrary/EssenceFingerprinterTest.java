@@ -0,0 +1,172 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Test(groups = "functional")
+public class EssenceFingerprinterTest
+{
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+    private static final String IAB_TRACK_FILE = "TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf";
+    private static final String IAB_WRONG_CODING_TRACK_FILE = "TestIMP/IAB/MXF/meridian_2398_IAB_5f_wrong_coding.mxf";
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+
+    @Test
+    public void concurrentFingerprintTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        EssenceFingerprintManifest sequential = new EssenceFingerprinter(null, 100).fingerprint(trackFile);
+        Assert.assertEquals(sequential.getEditUnitCount(), 1440L);
+
+        EssenceFingerprintManifest concurrent = TestHelper.runWithFixedThreadPool(4, executor -> new EssenceFingerprinter(executor, 7).fingerprint(trackFile));
+        Assert.assertTrue(sequential.diff(concurrent).isEmpty());
+        Assert.assertEquals(concurrent.getBodySID(), sequential.getBodySID());
+
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        for (long editUnit = 0; editUnit < sequential.getEditUnitCount(); editUnit++)
+        {
+            //every edit unit holds a single essence element with a 4 byte length field
+            Assert.assertEquals(sequential.getSize(editUnit), essenceIndex.getEditUnitSize(editUnit) - 20);
+        }
+    }
+
+    @Test
+    public void serializationTest() throws Exception
+    {
+        EssenceFingerprintManifest manifest = new EssenceFingerprinter().fingerprint(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        manifest.write(outputStream);
+        Assert.assertEquals(outputStream.size(), 20 + 12 * 1440);
+
+        EssenceFingerprintManifest copy = EssenceFingerprintManifest.fromInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        Assert.assertEquals(copy.getEditUnitCount(), manifest.getEditUnitCount());
+        Assert.assertEquals(copy.getBodySID(), manifest.getBodySID());
+        for (long editUnit = 0; editUnit < manifest.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(copy.getHash(editUnit), manifest.getHash(editUnit));
+            Assert.assertEquals(copy.getSize(editUnit), manifest.getSize(editUnit));
+        }
+    }
+
+    @Test
+    public void headerMetadataChangeTest() throws Exception
+    {
+        //the track files only differ in their header metadata
+        EssenceFingerprinter essenceFingerprinter = new EssenceFingerprinter();
+        EssenceFingerprintManifest manifest = essenceFingerprinter.fingerprint(TestHelper.findResourceByPath(IAB_TRACK_FILE));
+        Assert.assertEquals(manifest.getEditUnitCount(), 5L);
+        List<EssenceFingerprintManifest.ChangedRange> changedRanges = essenceFingerprinter.diff(manifest,
+                new FileByteRangeProvider(TestHelper.findResourceByPath(IAB_WRONG_CODING_TRACK_FILE)));
+        Assert.assertTrue(changedRanges.isEmpty());
+    }
+
+    @Test
+    public void essenceChangeTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        EssenceFingerprinter essenceFingerprinter = new EssenceFingerprinter();
+        EssenceFingerprintManifest manifest = essenceFingerprinter.fingerprint(trackFile);
+
+        Path redelivery = Files.createTempFile("redelivery", ".mxf");
+        try
+        {
+            Files.copy(trackFile, redelivery, StandardCopyOption.REPLACE_EXISTING);
+            EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(redelivery));
+            try (FileChannel fileChannel = FileChannel.open(redelivery, StandardOpenOption.WRITE))
+            {
+                for (long editUnit : new long[]{100, 101, 102, 1439})
+                {
+                    fileChannel.write(ByteBuffer.wrap(new byte[]{'#'}), essenceIndex.getFileOffset(editUnit) + 30);
+                }
+            }
+
+            List<EssenceFingerprintManifest.ChangedRange> changedRanges = essenceFingerprinter.diff(manifest, new FileByteRangeProvider(redelivery));
+            Assert.assertEquals(changedRanges.size(), 2);
+            Assert.assertEquals(changedRanges.get(0).toString(), "[100, 103)");
+            Assert.assertEquals(changedRanges.get(1).toString(), "[1439, 1440)");
+        }
+        finally
+        {
+            Files.deleteIfExists(redelivery);
+        }
+    }
+
+    @Test
+    public void clipWrappedEssenceTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO);
+        EssenceFingerprintManifest manifest = new EssenceFingerprinter().fingerprint(trackFile);
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(manifest.getEditUnitCount(), essenceIndex.getEditUnitCount());
+        Assert.assertEquals(manifest.getSize(manifest.getEditUnitCount() - 1), essenceIndex.getEditUnitByteCount());
+
+        //the first edit units hold the 24 byte key and length of the clip, which are not hashed
+        long hashedSize = 0;
+        for (long editUnit = 0; editUnit < manifest.getEditUnitCount(); editUnit++)
+        {
+            hashedSize += manifest.getSize(editUnit);
+        }
+        Assert.assertEquals(hashedSize, 384384L);
+        Assert.assertEquals(manifest.getSize(3), 0L);
+        Assert.assertEquals(manifest.getSize(4), 6L);
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void truncatedManifestTest() throws Exception
+    {
+        EssenceFingerprintManifest.fromInputStream(new ByteArrayInputStream(getManifestHeader(Integer.MAX_VALUE)));
+    }
+
+    @Test(expectedExceptions = MXFException.class)
+    public void truncatedManifestFileTest() throws Exception
+    {
+        Path path = Files.createTempFile("EssenceFingerprinterTest", ".imfp");
+        try
+        {
+            Files.write(path, getManifestHeader(1));
+            EssenceFingerprintManifest.fromPath(path);
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static byte[] getManifestHeader(long editUnitCount)
+    {
+        return ByteBuffer.allocate(20).put(new byte[]{'I', 'M', 'F', 'P'}).putInt(1).putInt(1).putLong(editUnitCount).array();
+    }
+}
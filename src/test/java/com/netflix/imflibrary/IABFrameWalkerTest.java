@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Test(groups = "functional")
+public class IABFrameWalkerTest
+{
+    @Test
+    public void compliantTrackFileTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf");
+        IABFrameWalker.WalkResult walkResult = new IABFrameWalker(null, IABFrameWalker.DEFAULT_EDIT_UNITS_PER_TASK).walk(inputFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 0, walkResult.getErrors().toString());
+        Assert.assertEquals(walkResult.getFrameCount(), 5L);
+        Assert.assertEquals(walkResult.getMaxObjectDefinitionCount(), 48);
+    }
+
+    @Test
+    public void concurrentWalkTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf");
+        IABFrameWalker.WalkResult walkResult = TestHelper.runWithFixedThreadPool(3, executor -> new IABFrameWalker(executor, 1).walk(inputFile));
+        Assert.assertEquals(walkResult.getErrors().size(), 0, walkResult.getErrors().toString());
+        Assert.assertEquals(walkResult.getFrameCount(), 5L);
+        Assert.assertEquals(walkResult.getMaxObjectDefinitionCount(), 48);
+    }
+
+    @Test
+    public void bitDepthMismatchTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/IAB/MXF/meridian_2398_IAB_5f_wrong_qb.mxf");
+        IABFrameWalker.WalkResult walkResult = new IABFrameWalker().walk(inputFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 1, walkResult.getErrors().toString());
+        ErrorLogger.ErrorObject error = walkResult.getErrors().get(0);
+        Assert.assertEquals(error.getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL);
+        Assert.assertTrue(error.getErrorDescription().contains("BitDepth 24"), error.getErrorDescription());
+        Assert.assertTrue(error.getErrorDescription().contains("5 edit unit(s), first at edit unit 0"), error.getErrorDescription());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class IMFErrorLoggerImplTest
+{
+    @Test
+    public void testOrderAndDeduplication()
+    {
+        IMFErrorLoggerImpl imfErrorLogger = new IMFErrorLoggerImpl();
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "first");
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "second");
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "first");
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_AM_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "third");
+
+        List<ErrorLogger.ErrorObject> errors = imfErrorLogger.getErrors();
+        assertEquals(imfErrorLogger.getNumberOfErrors(), 3);
+        assertEquals(errors.size(), 3);
+        assertTrue(errors.get(0).getErrorDescription().startsWith("first"));
+        assertTrue(errors.get(1).getErrorDescription().startsWith("second"));
+        assertTrue(errors.get(2).getErrorDescription().startsWith("third"));
+
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_AM_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "fourth");
+        assertEquals(errors.size(), 3);
+        assertEquals(imfErrorLogger.getErrors().size(), 4);
+    }
+
+    @Test
+    public void testHashCodeDistinguishesDescriptions()
+    {
+        Set<Integer> hashCodes = new HashSet<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            hashCodes.add(new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, String.format("error %d", i)).hashCode());
+        }
+        //errors that only differ in their description must not share a hash bucket
+        assertTrue(hashCodes.size() > 990);
+        ErrorLogger.ErrorObject errorObject = new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "error");
+        assertEquals(errorObject.hashCode(), new ErrorLogger.ErrorObject(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "error").hashCode());
+    }
+
+    @Test
+    public void testCountersAndRanges()
+    {
+        IMFErrorLoggerImpl imfErrorLogger = new IMFErrorLoggerImpl();
+        for (int i = 0; i < 1000; i++)
+        {
+            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "warning " + i);
+        }
+        assertFalse(imfErrorLogger.hasFatalErrors());
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_ESSENCE_COMPONENT_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.FATAL, "fatal");
+        for (int i = 0; i < 1000; i++)
+        {
+            imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL, "non fatal " + i);
+        }
+
+        assertTrue(imfErrorLogger.hasFatalErrors());
+        assertFalse(imfErrorLogger.hasFatalErrors(0, 1000));
+        assertTrue(imfErrorLogger.hasFatalErrors(1000, 1001));
+        assertTrue(imfErrorLogger.hasFatalErrors(500, 1500));
+        assertFalse(imfErrorLogger.hasFatalErrors(1001, 2001));
+        assertFalse(imfErrorLogger.hasFatalErrors(1000, 1000));
+
+        assertEquals(imfErrorLogger.getNumberOfErrors(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING), 1000);
+        assertEquals(imfErrorLogger.getNumberOfErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL), 1);
+        assertEquals(imfErrorLogger.getNumberOfErrors(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR), 1000);
+        assertEquals(imfErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL).size(), 1);
+        assertEquals(imfErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, 990, 1010).size(), 10);
+        assertEquals(imfErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_PKL_ERROR, 990, 1010).size(), 9);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRange()
+    {
+        IMFErrorLoggerImpl imfErrorLogger = new IMFErrorLoggerImpl();
+        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, "warning");
+        imfErrorLogger.hasFatalErrors(0, 2);
+    }
+
+    @Test
+    public void testConcurrentLogging() throws Exception
+    {
+        IMFErrorLoggerImpl imfErrorLogger = new IMFErrorLoggerImpl();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++)
+            {
+                final int thread = t;
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 2000; i++)
+                    {
+                        IMFErrorLogger.IMFErrors.ErrorLevels errorLevel = (i % 100 == 0) ? IMFErrorLogger.IMFErrors.ErrorLevels.FATAL : IMFErrorLogger.IMFErrors.ErrorLevels.WARNING;
+                        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, errorLevel, String.format("error %d", i % 1000));
+                        imfErrorLogger.addError(IMFErrorLogger.IMFErrors.ErrorCodes.IMF_CPL_ERROR, errorLevel, String.format("thread %d error %d", thread, i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+
+        List<ErrorLogger.ErrorObject> errors = imfErrorLogger.getErrors();
+        assertEquals(errors.size(), 1000 + 8 * 2000);
+        Set<ErrorLogger.ErrorObject> uniqueErrors = new HashSet<>(errors);
+        assertEquals(uniqueErrors.size(), errors.size());
+        assertEquals(imfErrorLogger.getNumberOfErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL), 10 + 8 * 20);
+        assertEquals(imfErrorLogger.getErrors(IMFErrorLogger.IMFErrors.ErrorLevels.FATAL).size(), 10 + 8 * 20);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+@Test(groups = "functional")
+public class IMSC1ResourceReaderTest
+{
+    private static final String IMAGE_TRACK_FILE = "TestIMP/TimedTextImageAndTextProfile/Image-IMP1_01_tt.mxf";
+    private static final String TEXT_TRACK_FILE = "TestIMP/TimedTextImageAndTextProfile/Plugfest_IMSC_text_IMP1_01_en_tt.mxf";
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+
+    private static byte[] readFully(IMSC1ResourceReader.TimedTextResource resource) throws Exception
+    {
+        ByteBuffer bytes = ByteBuffer.allocate((int) resource.getLength());
+        try (SeekableByteChannel channel = resource.open())
+        {
+            Assert.assertEquals(channel.size(), resource.getLength());
+            while (channel.read(bytes) >= 0)
+            {
+                Assert.assertTrue(bytes.hasRemaining() || channel.position() == channel.size());
+            }
+        }
+        return bytes.array();
+    }
+
+    @Test
+    public void imageProfileTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(IMAGE_TRACK_FILE);
+        IMSC1ResourceReader.ReadResult readResult = new IMSC1ResourceReader().read(trackFile);
+
+        for (ErrorLogger.ErrorObject error : readResult.getErrors())
+        {
+            Assert.assertFalse(error.getErrorDescription().startsWith("IMF IMSC1 check: "), error.toString());
+        }
+        Assert.assertNotNull(readResult.getDocument());
+        Assert.assertEquals(readResult.getDocument().getBodySID(), 1L);
+        String document = new String(readFully(readResult.getDocument()), StandardCharsets.UTF_8);
+        Assert.assertTrue(document.contains("<tt"));
+
+        Assert.assertEquals(readResult.getAncillaryResources().size(), 4);
+        long[] lengths = {20242L, 36786L, 34318L, 34740L};
+        for (int i = 0; i < lengths.length; i++)
+        {
+            IMSC1ResourceReader.TimedTextResource resource = readResult.getAncillaryResources().get(i);
+            Assert.assertEquals(resource.getBodySID(), 10L + i);
+            Assert.assertEquals(resource.getMimeMediaType(), IMFConstraints.IMSC1ImageResourceMimeMediaType);
+            Assert.assertEquals(resource.getLength(), lengths[i]);
+
+            byte[] expected = new FileByteRangeProvider(trackFile).getByteRangeAsBytes(resource.getFileOffset(),
+                    resource.getFileOffset() + resource.getLength() - 1);
+            Assert.assertTrue(Arrays.equals(readFully(resource), expected));
+        }
+    }
+
+    @Test
+    public void textProfileTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(TEXT_TRACK_FILE);
+        IMSC1ResourceReader.ReadResult readResult = new IMSC1ResourceReader().read(trackFile);
+
+        for (ErrorLogger.ErrorObject error : readResult.getErrors())
+        {
+            Assert.assertFalse(error.getErrorDescription().startsWith("IMF IMSC1 check: "), error.toString());
+        }
+        Assert.assertNotNull(readResult.getDocument());
+        Assert.assertTrue(readResult.getAncillaryResources().isEmpty());
+        String document = new String(readFully(readResult.getDocument()), StandardCharsets.UTF_8);
+        Assert.assertTrue(document.trim().endsWith("</tt>"));
+    }
+
+    @Test
+    public void notTimedTextTrackFileTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        IMSC1ResourceReader.ReadResult readResult = new IMSC1ResourceReader().read(trackFile);
+
+        Assert.assertNull(readResult.getDocument());
+        Assert.assertTrue(readResult.getErrors().stream().anyMatch(error -> error.getErrorLevel() == IMFErrorLogger.IMFErrors.ErrorLevels.FATAL
+                && error.getErrorDescription().startsWith("IMF IMSC1 check: The track file does not contain a TimedTextDescriptor")));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+import testUtils.TestHelper;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Test(groups = "functional")
+public class ISXDFrameExtractorTest
+{
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+    private static final String DOLBY_VISION_FRAME_NAMESPACE = "http://www.dolby.com/schemas/dvmd-fw/4_0_2";
+
+    private static Schema frameSchema(int maxFrameNumber) throws Exception
+    {
+        String xsd = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"" + DOLBY_VISION_FRAME_NAMESPACE + "\""
+                + " elementFormDefault=\"qualified\">"
+                + "<xs:element name=\"DolbyVisionFrameData\"><xs:complexType><xs:sequence>"
+                + "<xs:element name=\"Version\" type=\"xs:string\"/>"
+                + "<xs:element name=\"Shot\"><xs:complexType><xs:sequence>"
+                + "<xs:any namespace=\"##any\" processContents=\"skip\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>"
+                + "</xs:sequence></xs:complexType></xs:element>"
+                + "<xs:element name=\"FrameNumber\"><xs:simpleType><xs:restriction base=\"xs:nonNegativeInteger\">"
+                + "<xs:maxInclusive value=\"" + maxFrameNumber + "\"/></xs:restriction></xs:simpleType></xs:element>"
+                + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+        return ISXDFrameExtractor.newSchema(new StreamSource(new StringReader(xsd)));
+    }
+
+    @Test
+    public void iterateFramesTest() throws Exception
+    {
+        Path inputFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        Iterator<ISXDFrameExtractor.ISXDFrame> iterator = new ISXDFrameExtractor().iterateFrames(new FileByteRangeProvider(inputFile));
+        long editUnit = 0;
+        while (iterator.hasNext())
+        {
+            ISXDFrameExtractor.ISXDFrame isxdFrame = iterator.next();
+            Assert.assertEquals(isxdFrame.getEditUnit(), editUnit);
+            String document = isxdFrame.getDocumentAsString();
+            Assert.assertTrue(document.startsWith("<?xml"));
+            Assert.assertTrue(document.contains("<fw:FrameNumber>" + editUnit + "</fw:FrameNumber>"), document);
+            Assert.assertEquals(isxdFrame.getLength(), document.getBytes(StandardCharsets.UTF_8).length);
+            editUnit++;
+        }
+        Assert.assertEquals(editUnit, 1440L);
+    }
+
+    @Test
+    public void extractTest() throws Exception
+    {
+        Path inputFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        Path outputDirectory = Files.createTempDirectory("isxd");
+        try
+        {
+            Map<String, Schema> schemas = Collections.singletonMap(DOLBY_VISION_FRAME_NAMESPACE, frameSchema(1439));
+            ISXDFrameExtractor.ExtractionResult extractionResult = TestHelper.runWithFixedThreadPool(3,
+                    executor -> new ISXDFrameExtractor(executor, 100, schemas).extract(inputFile, outputDirectory));
+            Assert.assertEquals(extractionResult.getFrameCount(), 1440L);
+
+            ISXDFrameExtractor.ManifestEntry manifestEntry = extractionResult.getManifest().get(1000);
+            Assert.assertEquals(manifestEntry.getEditUnit(), 1000L);
+            Assert.assertEquals(manifestEntry.getNamespaceURI(), DOLBY_VISION_FRAME_NAMESPACE);
+            Assert.assertEquals(manifestEntry.getStatus(), "valid");
+            Path document = outputDirectory.resolve(manifestEntry.getFileName());
+            Assert.assertEquals(Files.size(document), (long) manifestEntry.getLength());
+            Assert.assertTrue(new String(Files.readAllBytes(document), StandardCharsets.UTF_8).contains("<fw:FrameNumber>1000</fw:FrameNumber>"));
+
+            List<String> manifest = Files.readAllLines(outputDirectory.resolve(ISXDFrameExtractor.MANIFEST_FILE_NAME), StandardCharsets.UTF_8);
+            Assert.assertEquals(manifest.size(), 1441);
+            Assert.assertTrue(manifest.get(1001).startsWith("1000\t00001000.xml\t"), manifest.get(1001));
+        }
+        finally
+        {
+            try (Stream<Path> paths = Files.walk(outputDirectory))
+            {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    public void invalidDocumentsTest() throws Exception
+    {
+        Path inputFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        ISXDFrameExtractor.ExtractionResult extractionResult = new ISXDFrameExtractor(null, ISXDFrameExtractor.DEFAULT_EDIT_UNITS_PER_TASK,
+                Collections.singletonMap(DOLBY_VISION_FRAME_NAMESPACE, frameSchema(999))).extract(inputFile, null);
+        Assert.assertEquals(extractionResult.getFrameCount(), 1440L);
+        Assert.assertNull(extractionResult.getManifest().get(0).getFileName());
+        Assert.assertEquals(extractionResult.getManifest().get(999).getStatus(), "valid");
+        Assert.assertTrue(extractionResult.getManifest().get(1000).getStatus().startsWith("invalid: "));
+
+        ErrorLogger.ErrorObject error = null;
+        for (ErrorLogger.ErrorObject errorObject : extractionResult.getErrors())
+        {
+            if (errorObject.getErrorDescription().contains("does not conform to the schema"))
+            {
+                Assert.assertNull(error);
+                error = errorObject;
+            }
+        }
+        Assert.assertNotNull(error);
+        Assert.assertTrue(error.getErrorDescription().contains("440 edit unit(s), first at edit unit 1000"), error.getErrorDescription());
+    }
+
+    @Test
+    public void malformedDocumentTest() throws Exception
+    {
+        Path trackFile = Files.createTempFile("ISXDFrameExtractorTest", ".mxf");
+        trackFile.toFile().deleteOnExit();
+        byte[] bytes = Files.readAllBytes(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        //a mismatched end tag, of the same length as the original one, makes the document of edit unit 5 malformed
+        byte[] frameNumber = "<fw:FrameNumber>5</fw:FrameNumber>".getBytes(StandardCharsets.UTF_8);
+        int offset = indexOf(bytes, frameNumber);
+        Assert.assertTrue(offset >= 0);
+        bytes[offset + frameNumber.length - 2] = 'X';
+        Files.write(trackFile, bytes);
+
+        ISXDFrameExtractor.ExtractionResult extractionResult = new ISXDFrameExtractor(null, ISXDFrameExtractor.DEFAULT_EDIT_UNITS_PER_TASK,
+                Collections.singletonMap(DOLBY_VISION_FRAME_NAMESPACE, frameSchema(1439))).extract(trackFile, null);
+        Assert.assertEquals(extractionResult.getManifest().get(4).getStatus(), "valid");
+        Assert.assertTrue(extractionResult.getManifest().get(5).getStatus().startsWith("malformed: "), extractionResult.getManifest().get(5).getStatus());
+        Assert.assertEquals(extractionResult.getErrors().size(), 1, extractionResult.getErrors().toString());
+        ErrorLogger.ErrorObject error = extractionResult.getErrors().get(0);
+        Assert.assertEquals(error.getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL);
+        Assert.assertTrue(error.getErrorDescription().contains("The edit unit does not hold a well-formed XML document (1 edit unit(s), first at edit unit 5)"),
+                error.getErrorDescription());
+    }
+
+    @Test(expectedExceptions = SAXException.class)
+    public void externalSchemaTest() throws Exception
+    {
+        Path included = Files.createTempFile("ISXDFrameExtractorTest", ".xsd");
+        included.toFile().deleteOnExit();
+        Files.write(included, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"/>".getBytes(StandardCharsets.UTF_8));
+        String xsd = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+                + "<xs:include schemaLocation=\"" + included.toUri() + "\"/></xs:schema>";
+        ISXDFrameExtractor.newSchema(new StreamSource(new StringReader(xsd)));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern)
+    {
+        for (int i = 0; i + pattern.length <= bytes.length; i++)
+        {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j])
+            {
+                j++;
+            }
+            if (j == pattern.length)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
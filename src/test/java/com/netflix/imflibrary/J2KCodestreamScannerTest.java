@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.header.UL;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+@Test(groups = "functional")
+public class J2KCodestreamScannerTest
+{
+    @Test
+    public void htScanTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/HT/IMP/VIDEO_6ed567b7-c030-46d6-9c1c-0f09bab4b962.mxf");
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(inputFile));
+        J2KCodestreamScanner.ScanResult scanResult = new J2KCodestreamScanner(null, 5).scan(inputFile);
+        Assert.assertEquals(scanResult.getEditUnitCount(), essenceIndex.getEditUnitCount());
+        /* the codestreams of the test file do not use the recommended RPCL progression order */
+        for (ErrorLogger.ErrorObject errorObject : scanResult.getErrors())
+        {
+            Assert.assertEquals(errorObject.getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.WARNING, errorObject.toString());
+        }
+    }
+
+    @Test
+    public void concurrentScanTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/PHDR/VIDEO_23e9a145-f2da-4183-86b2-1c399db41afb.mxf");
+        J2KCodestreamScanner.ScanResult sequential = new J2KCodestreamScanner(null, 4).scan(inputFile);
+        J2KCodestreamScanner.ScanResult concurrent = TestHelper.runWithFixedThreadPool(4, executor -> new J2KCodestreamScanner(executor, 4).scan(inputFile));
+        Assert.assertEquals(sequential.getEditUnitCount(), 24L);
+        Assert.assertEquals(concurrent.getEditUnitCount(), sequential.getEditUnitCount());
+        Assert.assertEquals(concurrent.getErrors(), sequential.getErrors());
+        Assert.assertEquals(sequential.getErrors().size(), 0, sequential.getErrors().toString());
+    }
+
+    @Test
+    public void descriptorMismatchTest() throws IOException
+    {
+        Path trackFile = Files.createTempFile("J2KCodestreamScannerTest", ".mxf");
+        try
+        {
+            Files.copy(TestHelper.findResourceByPath("TestIMP/PHDR/VIDEO_23e9a145-f2da-4183-86b2-1c399db41afb.mxf"), trackFile, StandardCopyOption.REPLACE_EXISTING);
+            EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+            byte[] bytes = Files.readAllBytes(trackFile);
+            /* shrink the Xsiz of the SIZ marker segment of a single codestream, which then disagrees with the JPEG2000SubDescriptor */
+            int sizOffset = indexOf(bytes, new byte[]{(byte) 0xff, 0x4f, (byte) 0xff, 0x51}, (int) essenceIndex.getFileOffset(5));
+            ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+            int xsiz = byteBuffer.getInt(sizOffset + 8);
+            byteBuffer.putInt(sizOffset + 8, xsiz - 1);
+            Files.write(trackFile, bytes);
+
+            List<ErrorLogger.ErrorObject> errors = new J2KCodestreamScanner(null, 4).scan(trackFile).getErrors();
+            Assert.assertEquals(errors.size(), 1, errors.toString());
+            Assert.assertEquals(errors.get(0).getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL);
+            TestHelper.assertHasError(errors, String.format("Codestream Xsiz %d does not match the JPEG2000SubDescriptor value %d (1 edit unit(s), first at edit unit 5)", xsiz - 1, xsiz));
+        }
+        finally
+        {
+            Files.delete(trackFile);
+        }
+    }
+
+    @Test
+    public void essenceIndexTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/PHDR/VIDEO_23e9a145-f2da-4183-86b2-1c399db41afb.mxf");
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(inputFile));
+        Assert.assertEquals(essenceIndex.getEditUnitCount(), 24L);
+        Assert.assertEquals(essenceIndex.getBodySID(), 1L);
+        Assert.assertEquals(essenceIndex.getFileOffset(0), 262268L);
+        long expectedOffset = essenceIndex.getFileOffset(0);
+        for (long editUnit = 0; editUnit < essenceIndex.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(essenceIndex.getFileOffset(editUnit), expectedOffset);
+            expectedOffset += essenceIndex.getEditUnitSize(editUnit);
+        }
+        List<EssenceIndex.EditUnitRange> editUnitRanges = essenceIndex.getEditUnitRanges(10);
+        Assert.assertEquals(editUnitRanges.size(), 3);
+        Assert.assertEquals(editUnitRanges.get(2).getFirstEditUnit(), 20L);
+        Assert.assertEquals(editUnitRanges.get(2).getEditUnitCount(), 4L);
+    }
+
+    @Test
+    public void expectedRsizTest()
+    {
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04010202.03010319")), 0x0557);
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04010202.03010310")), 0x0516);
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04010202.03010729")), 0x090a);
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04010202.03010114")), 0x0104);
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(UL.fromULAsURNStringToUL("urn:smpte:ul:060e2b34.0401010d.04010202.03010117")), 0x0307);
+        Assert.assertEquals(J2KCodestreamScanner.getExpectedRsiz(JPEG2000.HTJ2K_UL), -1);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern, int fromIndex)
+    {
+        for (int i = fromIndex; i <= bytes.length - pattern.length; i++)
+        {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j])
+            {
+                j++;
+            }
+            if (j == pattern.length)
+            {
+                return i;
+            }
+        }
+        throw new AssertionError("Pattern not found");
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+@Test(groups = "functional")
+public class MGASADMFrameWalkerTest
+{
+    private static final String COMPLIANT_TRACK_FILE = "TestIMP/SADM/ST2067-203_audio_track_file__compliant/ST2067-203_audio_track_file__compliant.mxf";
+    /* the S-ADM payloads of the compliant track file start with the payload tag, a 2 byte BER length, the XML format and no compression */
+    private static final byte[] SADM_PAYLOAD_PREFIX = {0x12, (byte) 0x82, 0x00, 0x00, 0x00, 0x00, '<', '?', 'x', 'm', 'l'};
+
+    @Test
+    public void compliantTrackFileTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE);
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker(null, MGASADMFrameWalker.DEFAULT_EDIT_UNITS_PER_TASK, 1).walk(inputFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 0, walkResult.getErrors().toString());
+        Assert.assertEquals(walkResult.getFrameCount(), 10L);
+        Assert.assertEquals(walkResult.getWalkedFrameCount(), 10L);
+    }
+
+    @Test
+    public void sampledConcurrentWalkTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE);
+        MGASADMFrameWalker.WalkResult walkResult = TestHelper.runWithFixedThreadPool(3, executor -> new MGASADMFrameWalker(executor, 1, 3).walk(inputFile));
+        Assert.assertEquals(walkResult.getErrors().size(), 0, walkResult.getErrors().toString());
+        Assert.assertEquals(walkResult.getFrameCount(), 10L);
+        Assert.assertEquals(walkResult.getWalkedFrameCount(), 4L);
+    }
+
+    @Test
+    public void sadmFramesTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE);
+        HeaderPartition headerPartition = HeaderPartition.fromPath(inputFile, new IMFErrorLoggerImpl());
+        Iterator<MGASADMFrameWalker.SADMFrame> iterator = new MGASADMFrameWalker().iterateSADMFrames(new FileByteRangeProvider(inputFile), headerPartition);
+        long editUnit = 0;
+        while (iterator.hasNext())
+        {
+            MGASADMFrameWalker.SADMFrame sadmFrame = iterator.next();
+            Assert.assertEquals(sadmFrame.getEditUnit(), editUnit++);
+            Assert.assertEquals(sadmFrame.getMetadataIndex(), 1);
+            Assert.assertTrue(sadmFrame.getXML().startsWith("<?xml"));
+            Assert.assertTrue(sadmFrame.getXML().trim().endsWith("</frame>"));
+            Assert.assertTrue(sadmFrame.getXML().contains("audioProgrammeID=\"APR_1001\""));
+        }
+        Assert.assertEquals(editUnit, 10L);
+    }
+
+    @Test
+    public void sectionOverrunTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/SADM/ST2067-203_audio_track_file__non_compliant_two_SADM_sections/ST2067-203_audio_track_file__non_compliant_two_SADM_sections.mxf");
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker().walk(inputFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 1, walkResult.getErrors().toString());
+        ErrorLogger.ErrorObject error = walkResult.getErrors().get(0);
+        Assert.assertEquals(error.getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.FATAL);
+        Assert.assertTrue(error.getErrorDescription().contains("Section 2 with index 2 extends beyond the MGA frame"), error.getErrorDescription());
+        Assert.assertTrue(error.getErrorDescription().contains("10 edit unit(s), first at edit unit 0"), error.getErrorDescription());
+    }
+
+    @Test
+    public void gzipCompressedSADMFrameTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE);
+        Path trackFile = copyTrackFile(inputFile);
+        byte[] bytes = Files.readAllBytes(trackFile);
+        List<String> xmls = new ArrayList<>();
+        for (int offset : findSADMPayloads(bytes))
+        {
+            int xmlSize = getSADMPayloadLength(bytes, offset) - 2;
+            byte[] xml = new byte[xmlSize];
+            System.arraycopy(bytes, offset + 6, xml, 0, xmlSize);
+            xmls.add(new String(xml, StandardCharsets.UTF_8));
+            bytes[offset + 5] = 0x01;
+            System.arraycopy(gzip(xml, xmlSize), 0, bytes, offset + 6, xmlSize);
+        }
+        Files.write(trackFile, bytes);
+
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker().walk(trackFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 0, walkResult.getErrors().toString());
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, new IMFErrorLoggerImpl());
+        Iterator<MGASADMFrameWalker.SADMFrame> iterator = new MGASADMFrameWalker().iterateSADMFrames(new FileByteRangeProvider(trackFile), headerPartition);
+        for (String xml : xmls)
+        {
+            Assert.assertEquals(iterator.next().getXML(), xml);
+        }
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void oversizedGzipCompressedSADMFrameTest() throws IOException
+    {
+        Path trackFile = copyTrackFile(TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE));
+        byte[] bytes = Files.readAllBytes(trackFile);
+        //whitespace compresses well enough that a frame larger than the cap fits in the original payload
+        byte[] oversizedXML = new byte[MGASADMFrameWalker.MAX_DECOMPRESSED_SADM_FRAME_SIZE + 1];
+        Arrays.fill(oversizedXML, (byte) ' ');
+        for (int offset : findSADMPayloads(bytes))
+        {
+            int xmlSize = getSADMPayloadLength(bytes, offset) - 2;
+            bytes[offset + 5] = 0x01;
+            System.arraycopy(gzip(oversizedXML, xmlSize), 0, bytes, offset + 6, xmlSize);
+        }
+        Files.write(trackFile, bytes);
+
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker().walk(trackFile);
+        Assert.assertTrue(walkResult.getErrors().stream().anyMatch(e -> e.getErrorLevel() == IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL
+                && e.getErrorDescription().contains(String.format("The S-ADM payload of metadata section 1 holds a gzip compressed S-ADM frame that exceeds %d bytes",
+                MGASADMFrameWalker.MAX_DECOMPRESSED_SADM_FRAME_SIZE))), walkResult.getErrors().toString());
+    }
+
+    @Test
+    public void unsupportedFormatTest() throws IOException
+    {
+        Path trackFile = copyTrackFile(TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE));
+        byte[] bytes = Files.readAllBytes(trackFile);
+        for (int offset : findSADMPayloads(bytes))
+        {
+            bytes[offset + 4] = 0x01;
+        }
+        Files.write(trackFile, bytes);
+
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker().walk(trackFile);
+        Assert.assertEquals(walkResult.getErrors().size(), 1, walkResult.getErrors().toString());
+        ErrorLogger.ErrorObject error = walkResult.getErrors().get(0);
+        Assert.assertEquals(error.getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.NON_FATAL);
+        Assert.assertTrue(error.getErrorDescription().contains("The S-ADM payload of metadata section 1 signals the unsupported format 1"), error.getErrorDescription());
+    }
+
+    @Test
+    public void missingADMIDTest() throws IOException
+    {
+        Path trackFile = copyTrackFile(TestHelper.findResourceByPath(COMPLIANT_TRACK_FILE));
+        byte[] bytes = Files.readAllBytes(trackFile);
+        for (int offset : findSADMPayloads(bytes))
+        {
+            String xml = new String(bytes, offset + 6, getSADMPayloadLength(bytes, offset) - 2, StandardCharsets.UTF_8);
+            byte[] patchedBytes = xml.replace("audioProgrammeID=\"APR_1001\"", "audioProgrammeID=\"APR_1002\"").getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(patchedBytes, 0, bytes, offset + 6, patchedBytes.length);
+        }
+        Files.write(trackFile, bytes);
+
+        MGASADMFrameWalker.WalkResult walkResult = new MGASADMFrameWalker().walk(trackFile);
+        Assert.assertTrue(walkResult.getErrors().stream().anyMatch(e -> e.getErrorDescription().contains(
+                "No S-ADM frame of the MGA frame defines the audioProgrammeID APR_1001")), walkResult.getErrors().toString());
+    }
+
+    /**
+     * Returns the offsets of the S-ADM payloads of a track file
+     */
+    private static List<Integer> findSADMPayloads(byte[] bytes)
+    {
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i + SADM_PAYLOAD_PREFIX.length <= bytes.length; i++)
+        {
+            int j = 0;
+            //the two bytes of the BER length differ between payloads
+            while (j < SADM_PAYLOAD_PREFIX.length && (j == 2 || j == 3 || bytes[i + j] == SADM_PAYLOAD_PREFIX[j]))
+            {
+                j++;
+            }
+            if (j == SADM_PAYLOAD_PREFIX.length)
+            {
+                offsets.add(i);
+            }
+        }
+        Assert.assertEquals(offsets.size(), 10);
+        return offsets;
+    }
+
+    private static int getSADMPayloadLength(byte[] bytes, int offset)
+    {
+        return ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Compresses an S-ADM frame with gzip, padding the comment of the gzip header so that the compressed frame has the
+     * size of the original one
+     */
+    private static byte[] gzip(byte[] xml, int size)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        deflater.setInput(xml);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished())
+        {
+            deflated.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        CRC32 crc32 = new CRC32();
+        crc32.update(xml);
+
+        ByteBuffer gzip = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        gzip.put(new byte[]{0x1f, (byte) 0x8b, 0x08, 0x10, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff});
+        while (gzip.position() < size - deflated.size() - 9)
+        {
+            gzip.put((byte) ' ');
+        }
+        gzip.put((byte) 0x00);
+        gzip.put(deflated.toByteArray());
+        gzip.putInt((int) crc32.getValue());
+        gzip.putInt(xml.length);
+        return gzip.array();
+    }
+
+    private static Path copyTrackFile(Path source) throws IOException
+    {
+        Path target = Files.createTempFile("MGASADMFrameWalkerTest", ".mxf");
+        target.toFile().deleteOnExit();
+        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary;
+
+import com.netflix.imflibrary.utils.ByteArrayByteRangeProvider;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Test(groups = "functional")
+public class MXFStructureAuditorTest
+{
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+    private static final String IAB_TRACK_FILE = "TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf";
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+    private static final String TIMED_TEXT_TRACK_FILE = "TestIMP/TimedTextImageAndTextProfile/Image-IMP1_01_tt.mxf";
+
+    //offsets of the ISXD track file, which holds its essence in 6 body partitions
+    private static final int THIRD_ESSENCE_PARTITION_BYTE_OFFSET = 412214;
+    private static final int RANDOM_INDEX_PACK_BYTE_OFFSET = 2396606;
+    private static final int PREVIOUS_PARTITION_FIELD_OFFSET = 20 + 16;
+
+    @Test
+    public void wellFormedTrackFilesTest() throws Exception
+    {
+        for (String trackFile : new String[]{ISXD_TRACK_FILE, IAB_TRACK_FILE, CLIP_WRAPPED_AUDIO, TIMED_TEXT_TRACK_FILE})
+        {
+            IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+            MXFStructureAuditor.AuditResult auditResult = new MXFStructureAuditor().audit(TestHelper.findResourceByPath(trackFile), imfErrorLogger);
+            Assert.assertEquals(imfErrorLogger.getErrors().size(), 0, trackFile + ": " + imfErrorLogger.getErrors());
+            Assert.assertEquals(auditResult.getEssenceElementCounts().get(1L), trackFile.equals(ISXD_TRACK_FILE) ? Long.valueOf(1440) : Long.valueOf(1));
+        }
+    }
+
+    @Test
+    public void sequentialReadTest() throws Exception
+    {
+        Path trackFile = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        MXFStructureAuditor.AuditResult auditResult = new MXFStructureAuditor(64 * 1024).audit(trackFile, new IMFErrorLoggerImpl());
+        Assert.assertEquals(auditResult.getPartitionCount(), 16);
+        Assert.assertEquals(auditResult.getKLVPacketCount(), 1484L);
+        Assert.assertTrue(auditResult.getBytesRead() <= Files.size(trackFile));
+    }
+
+    @Test
+    public void truncatedFileTest() throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        List<ErrorLogger.ErrorObject> errors = audit(Arrays.copyOf(bytes, 1000000));
+        Assert.assertTrue(errors.stream().anyMatch(e -> e.getErrorLevel() == IMFErrorLogger.IMFErrors.ErrorLevels.FATAL
+                && e.getErrorDescription().startsWith("MXF structure check: The KLV packet is truncated")), errors.toString());
+        Assert.assertTrue(hasError(errors, "MXF structure check: The file does not contain a footer partition"));
+        Assert.assertTrue(hasError(errors, "MXF structure check: The file does not end with a RandomIndexPack"));
+    }
+
+    @Test
+    public void brokenPartitionChainTest() throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        ByteBuffer.wrap(bytes).putLong(THIRD_ESSENCE_PARTITION_BYTE_OFFSET + PREVIOUS_PARTITION_FIELD_OFFSET, 16384);
+        List<ErrorLogger.ErrorObject> errors = audit(bytes);
+        Assert.assertEquals(errors.size(), 1, errors.toString());
+        Assert.assertTrue(hasError(errors, "MXF structure check: PreviousPartition = 16384 of the partition pack differs from the offset 409294 of the previous partition"));
+    }
+
+    @Test
+    public void randomIndexPackMismatchTest() throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        //the offset of the second BodySID and byte offset pair
+        ByteBuffer.wrap(bytes).putLong(RANDOM_INDEX_PACK_BYTE_OFFSET + 20 + 12 + 4, 16385);
+        List<ErrorLogger.ErrorObject> errors = audit(bytes);
+        Assert.assertEquals(errors.size(), 2, errors.toString());
+        Assert.assertTrue(hasError(errors, "MXF structure check: The RandomIndexPack references a partition at offset 16385 that does not exist"));
+        Assert.assertTrue(hasError(errors, "MXF structure check: The partition is not referenced by the RandomIndexPack (at offset 16384)"));
+    }
+
+    @Test
+    public void contentPackageAlignmentTest() throws Exception
+    {
+        byte[] firstElementKey = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x02, 0x01, 0x01, 0x0d, 0x01, 0x03, 0x01, 0x15, 0x01, 0x05, 0x00};
+        byte[] secondElementKey = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x02, 0x01, 0x01, 0x0d, 0x01, 0x03, 0x01, 0x16, 0x01, 0x01, 0x00};
+        byte[] fillItemKey = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x02, 0x03, 0x01, 0x02, 0x10, 0x01, 0x00, 0x00, 0x00};
+
+        //the header partition pack of the ISXD track file, with a KAG of 32 bytes, no header metadata, and essence of BodySID 1
+        byte[] partitionPack = Arrays.copyOf(Files.readAllBytes(TestHelper.findResourceByPath(ISXD_TRACK_FILE)), 140);
+        ByteBuffer.wrap(partitionPack).putInt(20 + 4, 32).putLong(20 + 24, 0).putLong(20 + 32, 0).putLong(20 + 40, 0).putInt(20 + 48, 0).putInt(20 + 60, 1);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(partitionPack);
+        file.write(klv(fillItemKey, 0));
+        //the second element of every content package is not aligned, nor is the third content package, at offset 314
+        file.write(klv(firstElementKey, 13));
+        file.write(klv(secondElementKey, 5));
+        file.write(klv(fillItemKey, 18));
+        file.write(klv(firstElementKey, 13));
+        file.write(klv(secondElementKey, 5));
+        file.write(klv(firstElementKey, 13));
+        file.write(klv(secondElementKey, 5));
+
+        List<ErrorLogger.ErrorObject> errors = audit(file.toByteArray());
+        List<ErrorLogger.ErrorObject> alignmentErrors = errors.stream().filter(e -> e.getErrorDescription().contains("KAG")).collect(Collectors.toList());
+        Assert.assertEquals(alignmentErrors.size(), 1, errors.toString());
+        Assert.assertTrue(hasError(alignmentErrors, "MXF structure check: The KLV packet is not aligned to the KAG of 32 bytes of its partition (at offset 314)"),
+                alignmentErrors.toString());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidReadSizeTest()
+    {
+        new MXFStructureAuditor(16);
+    }
+
+    private static List<ErrorLogger.ErrorObject> audit(byte[] bytes) throws Exception
+    {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        new MXFStructureAuditor().audit(new ByteArrayByteRangeProvider(bytes), imfErrorLogger);
+        return imfErrorLogger.getErrors();
+    }
+
+    /**
+     * Returns a KLV packet with a 4 byte length field and a value of zeros
+     */
+    private static byte[] klv(byte[] key, int valueSize)
+    {
+        return ByteBuffer.allocate(key.length + 4 + valueSize).put(key).put((byte) 0x83).put((byte) 0).putShort((short) valueSize).array();
+    }
+
+    private static boolean hasError(List<ErrorLogger.ErrorObject> errors, String description)
+    {
+        return errors.stream().anyMatch(e -> e.getErrorDescription().startsWith(description));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+@Test(groups = "functional")
+public class PCMAudioAnalyzerTest
+{
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+
+    @Test
+    public void clipWrappedAnalysisTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO);
+        PCMAudioAnalyzer.AnalysisResult analysisResult = new PCMAudioAnalyzer(null, PCMAudioAnalyzer.DEFAULT_BYTES_PER_TASK, Double.NEGATIVE_INFINITY, 0.1).analyze(inputFile);
+        Assert.assertEquals(analysisResult.getErrors().size(), 0, analysisResult.getErrors().toString());
+        Assert.assertEquals(analysisResult.getFormat().getChannelCount(), 2);
+        Assert.assertEquals(analysisResult.getFormat().getBlockAlign(), 6);
+        Assert.assertEquals(analysisResult.getSampleCount(), 64064L);
+
+        List<PCMAudioAnalyzer.ChannelStatistics> channelStatistics = analysisResult.getChannelStatistics();
+        Assert.assertEquals(channelStatistics.size(), 2);
+        Assert.assertEquals(channelStatistics.get(0).getPeak(), 0.14731872081756592, 1e-12);
+        Assert.assertEquals(channelStatistics.get(1).getPeak(), 0.17667138576507568, 1e-12);
+        for (PCMAudioAnalyzer.ChannelStatistics statistics : channelStatistics)
+        {
+            Assert.assertEquals(statistics.getSampleCount(), 64064L);
+            Assert.assertEquals(statistics.getClippedSampleCount(), 0L);
+            Assert.assertTrue(statistics.getRMS() > 0 && statistics.getRMS() < statistics.getPeak());
+            Assert.assertEquals(statistics.getSilenceRuns().size(), 1);
+            Assert.assertEquals(statistics.getSilenceRuns().get(0).getStartSample(), 0L);
+            Assert.assertEquals(statistics.getSilenceRuns().get(0).getSampleCount(), 32033L);
+        }
+    }
+
+    @Test
+    public void concurrentAnalysisTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO);
+        PCMAudioAnalyzer.AnalysisResult sequential = new PCMAudioAnalyzer(null, PCMAudioAnalyzer.DEFAULT_BYTES_PER_TASK, Double.NEGATIVE_INFINITY, 0.1).analyze(inputFile);
+        /* ranges much smaller than the leading silence, which must be merged back into a single run */
+        PCMAudioAnalyzer.AnalysisResult concurrent = TestHelper.runWithFixedThreadPool(4,
+                executor -> new PCMAudioAnalyzer(executor, 6000, Double.NEGATIVE_INFINITY, 0.1).analyze(inputFile));
+        Assert.assertEquals(concurrent.getSampleCount(), sequential.getSampleCount());
+        for (int channel = 0; channel < 2; channel++)
+        {
+            PCMAudioAnalyzer.ChannelStatistics expected = sequential.getChannelStatistics().get(channel);
+            PCMAudioAnalyzer.ChannelStatistics actual = concurrent.getChannelStatistics().get(channel);
+            Assert.assertEquals(actual.getPeak(), expected.getPeak());
+            Assert.assertEquals(actual.getRMS(), expected.getRMS(), 1e-12);
+            Assert.assertEquals(actual.getDCOffset(), expected.getDCOffset(), 1e-12);
+            Assert.assertEquals(actual.getSilenceRuns().toString(), expected.getSilenceRuns().toString());
+        }
+    }
+
+    @Test
+    public void silenceThresholdTest() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO);
+        /* a threshold above the peak level makes the whole track a single run of silence */
+        PCMAudioAnalyzer.AnalysisResult analysisResult = new PCMAudioAnalyzer(null, 6000, -6.0, 1.0).analyze(inputFile);
+        for (PCMAudioAnalyzer.ChannelStatistics statistics : analysisResult.getChannelStatistics())
+        {
+            Assert.assertEquals(statistics.getSilenceRuns().size(), 1);
+            Assert.assertEquals(statistics.getSilenceRuns().get(0).getSampleCount(), 64064L);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.netflix.imflibrary.app;
 
+import com.netflix.imflibrary.ErrorBudget;
 import com.netflix.imflibrary.utils.ErrorLogger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -86,6 +87,16 @@ public class IMPAnalyzerTest
 
     }
 
+    @Test
+    public void IMPAnalyzerTestFailFast() throws IOException
+    {
+        Path inputFile = TestHelper.findResourceByPath("TestIMP/MissingFilesAndAssetMapEntries/");
+        ErrorBudget errorBudget = ErrorBudget.failFast();
+        Map<String, List<ErrorLogger.ErrorObject>> errorMap = analyzeDelivery(inputFile, errorBudget);
+        Assert.assertTrue(errorBudget.isTerminated());
+        TestHelper.assertHasError(errorMap.get(inputFile.toString()), "terminated early");
+    }
+
     @Test
     public void IMPAnalyzerTestIDMismatches() throws IOException
     {
@@ -0,0 +1,147 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st0377;
+
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+
+@Test(groups = "functional")
+public class ReconstructedIndexTableTest
+{
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+    private static final String IAB_TRACK_FILE = "TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf";
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+
+    @Test
+    public void frameWrappedEssenceTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        ReconstructedIndexTable reconstructedIndexTable = ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 129, 24, 1, false, 0);
+
+        //the documents of the ISXD track file differ in size, so the IndexTable has variable bytes per element
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), 0L);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitCount(), essenceIndex.getEditUnitCount());
+        for (long editUnit = 0; editUnit < essenceIndex.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(reconstructedIndexTable.getStreamOffset(editUnit), essenceIndex.getStreamOffset(editUnit));
+        }
+
+        Assert.assertEquals(reconstructedIndexTable.getIndexTableSegments().size(), 1);
+        IndexTableSegment indexTableSegment = reconstructedIndexTable.getIndexTableSegments().get(0);
+        Assert.assertEquals(indexTableSegment.getBodySID(), 1L);
+        Assert.assertEquals(indexTableSegment.getIndexSID(), 129L);
+        Assert.assertEquals(indexTableSegment.getIndexDuration(), 1440L);
+        Assert.assertEquals(indexTableSegment.getIndexEntries().size(), 1440);
+        Assert.assertEquals(indexTableSegment.getIndexEditRate().getNumerator(), 24L);
+        Assert.assertEquals(indexTableSegment.getIndexEditRate().getDenominator(), 1L);
+    }
+
+    @Test
+    public void sidecarTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        ReconstructedIndexTable reconstructedIndexTable = ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 129, 24, 1, false, 0);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reconstructedIndexTable.write(outputStream);
+        Assert.assertEquals(outputStream.toByteArray(), reconstructedIndexTable.getIndexTableSegmentBytes());
+
+        ReconstructedIndexTable sidecar = ReconstructedIndexTable.fromInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        Assert.assertEquals(sidecar.getBodySID(), 1L);
+        Assert.assertEquals(sidecar.getIndexSID(), 129L);
+        Assert.assertEquals(sidecar.getEditUnitCount(), reconstructedIndexTable.getEditUnitCount());
+        Assert.assertEquals(sidecar.getIndexEditRate(), reconstructedIndexTable.getIndexEditRate());
+        for (long editUnit = 0; editUnit < sidecar.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(sidecar.getStreamOffset(editUnit), reconstructedIndexTable.getStreamOffset(editUnit));
+        }
+    }
+
+    @Test
+    public void existingSidecarTest() throws Exception
+    {
+        Path sidecar = TestHelper.findResourceByPath("Netflix_Ident_23976_3840x2160_177AR.mxf.idx");
+        ReconstructedIndexTable reconstructedIndexTable = ReconstructedIndexTable.fromPath(sidecar);
+        Assert.assertEquals(reconstructedIndexTable.getIndexTableSegments().size(), 1);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitCount(), reconstructedIndexTable.getIndexTableSegments().get(0).getIndexDuration());
+    }
+
+    @Test
+    public void clipWrappedAudioTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO));
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        ReconstructedIndexTable reconstructedIndexTable = ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 2, 48000, 1, true, 6);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), 6L);
+        //the edit units of the IndexTable of the track file start at the key of the essence element, whose 24 bytes of key and length count as 4 edit units
+        Assert.assertEquals(essenceIndex.getEditUnitCount(), 64068L);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitCount(), essenceIndex.getEditUnitCount());
+        for (long editUnit = 0; editUnit < essenceIndex.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(reconstructedIndexTable.getStreamOffset(editUnit), essenceIndex.getStreamOffset(editUnit));
+            Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), essenceIndex.getEditUnitSize(editUnit));
+        }
+        Assert.assertNull(reconstructedIndexTable.getIndexTableSegments().get(0).getIndexEntries());
+    }
+
+    @Test
+    public void clipWrappedIABTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(IAB_TRACK_FILE));
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(resourceByteRangeProvider);
+        ReconstructedIndexTable reconstructedIndexTable = ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 129, 24000, 1001, true, 0);
+
+        //the IA Bitstream frames differ in size, so the IndexTable has variable bytes per element
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), 0L);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitCount(), 5L);
+        for (long editUnit = 0; editUnit < essenceIndex.getEditUnitCount(); editUnit++)
+        {
+            Assert.assertEquals(reconstructedIndexTable.getStreamOffset(editUnit), essenceIndex.getStreamOffset(editUnit));
+        }
+    }
+
+    @Test(expectedExceptions = MXFException.class)
+    public void clipWrappedEssenceWithoutEditUnitByteCountTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO));
+        ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 2, 48000, 1, true, 0);
+    }
+
+    @Test(expectedExceptions = MXFException.class)
+    public void clipWrappedEssenceWithPartialEditUnitTest() throws Exception
+    {
+        //the 384408 bytes of the essence element, key and length included, are not a whole number of edit units of 5 bytes
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO));
+        ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 2, 48000, 1, true, 5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidStreamIDTest() throws Exception
+    {
+        FileByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(TestHelper.findResourceByPath(ISXD_TRACK_FILE));
+        ReconstructedIndexTable.fromEssence(resourceByteRangeProvider, 1, 1, 24, 1, false, 0);
+    }
+}
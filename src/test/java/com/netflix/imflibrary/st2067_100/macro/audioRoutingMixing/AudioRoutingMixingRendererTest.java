@@ -0,0 +1,244 @@
+/*
+ *
+ * Copyright 2016 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st2067_100.macro.audioRoutingMixing;
+
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.PCMEssenceReader;
+import com.netflix.imflibrary.exceptions.IMFException;
+import com.netflix.imflibrary.st2067_100.OutputProfileList;
+import com.netflix.imflibrary.st2067_2.IMFCompositionPlaylist;
+import com.netflix.imflibrary.st2067_2.IMFEssenceComponentVirtualTrack;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Test(groups = "functional")
+public class AudioRoutingMixingRendererTest {
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+    private static final String MERIDIAN_CPL = "TestIMP/MERIDIAN_Netflix_Photon_161006/CPL_0eb3d1b9-b77b-4d3f-bbe5-7c69b15dca85.xml";
+    private static final String MERIDIAN_OPL = "TestIMP/MERIDIAN_Netflix_Photon_161006/OPL_8cf83c32-4949-4f00-b081-01e12b18932f.xml";
+    private static final String MERIDIAN_AUDIO = "TestIMP/MERIDIAN_Netflix_Photon_161006/MERIDIAN_Netflix_Photon_161006_ENG-51_00.mxf";
+    private static final UUID MERIDIAN_AUDIO_TRACK_FILE_ID = UUID.fromString("9fcb24c4-5c57-4082-a694-7470d5168aa4");
+    private static final UUID MERIDIAN_AUDIO_VIRTUAL_TRACK_ID = UUID.fromString("54263c13-18ab-4456-8b66-2c48584da330");
+
+    @Test
+    public void channelSwapTest() throws Exception {
+        PCMEssenceReader reader = PCMEssenceReader.fromPath(TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO));
+        AudioRoutingMixingRenderer.AudioSource audioSource = AudioRoutingMixingRenderer.AudioSource.fromTrackFile(reader);
+        AudioRoutingMixingMacro macro = new AudioRoutingMixingMacro("swap", null, Arrays.asList(
+                new OutputAudioChannel(null, "L", Collections.singletonList(new InputEntity(null, "R", null))),
+                new OutputAudioChannel(null, "R", Collections.singletonList(new InputEntity(null, "L", null)))));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AudioRoutingMixingRenderer.RenderResult renderResult = TestHelper.runWithFixedThreadPool(2,
+                executor -> new AudioRoutingMixingRenderer(executor, 1000).render(macro,
+                        handle -> new AudioRoutingMixingRenderer.ChannelInput(audioSource, handle.equals("L") ? 0 : 1),
+                        24, AudioRoutingMixingRenderer.OutputFormat.PCM, outputStream));
+        Assert.assertEquals(renderResult.getSampleCount(), 64064L);
+        Assert.assertEquals(renderResult.getSampleRate(), 48000);
+        Assert.assertEquals(renderResult.getOutputHandles(), Arrays.asList("L", "R"));
+        Assert.assertEquals(renderResult.getClippedSampleCount(), 0L);
+
+        /* 24-bit samples are rendered at 24 bits without loss, so the output is the input with its channels swapped */
+        byte[] input = reader.readSamples(0, 64064);
+        byte[] output = outputStream.toByteArray();
+        Assert.assertEquals(output.length, input.length);
+        for (int offset = 0; offset < input.length; offset += 6) {
+            Assert.assertEquals(Arrays.copyOfRange(output, offset, offset + 3), Arrays.copyOfRange(input, offset + 3, offset + 6));
+            Assert.assertEquals(Arrays.copyOfRange(output, offset + 3, offset + 6), Arrays.copyOfRange(input, offset, offset + 3));
+        }
+    }
+
+    @Test
+    public void foldDownTest() throws Exception {
+        PCMEssenceReader reader = PCMEssenceReader.fromPath(TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO));
+        AudioRoutingMixingRenderer.AudioSource audioSource = AudioRoutingMixingRenderer.AudioSource.fromTrackFile(reader);
+        AudioRoutingMixingMacro macro = new AudioRoutingMixingMacro("mono", null, Collections.singletonList(
+                new OutputAudioChannel(null, "M", Arrays.asList(new InputEntity(null, "L", new BigDecimal("-6.0")),
+                        new InputEntity(null, "R", new BigDecimal("-6.0"))))));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AudioRoutingMixingRenderer.RenderResult renderResult = new AudioRoutingMixingRenderer(null, 4096).render(macro,
+                handle -> new AudioRoutingMixingRenderer.ChannelInput(audioSource, handle.equals("L") ? 0 : 1),
+                16, AudioRoutingMixingRenderer.OutputFormat.WAV, outputStream);
+        Assert.assertEquals(renderResult.getSampleCount(), 64064L);
+
+        ByteBuffer output = ByteBuffer.wrap(outputStream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(output.limit(), 44 + 64064 * 2);
+        Assert.assertEquals(output.getInt(0), 0x46464952);
+        Assert.assertEquals(output.getInt(4), 36 + 64064 * 2);
+        Assert.assertEquals(output.getShort(22), (short) 1);
+        Assert.assertEquals(output.getInt(24), 48000);
+        Assert.assertEquals(output.getShort(34), (short) 16);
+        Assert.assertEquals(output.getInt(40), 64064 * 2);
+
+        byte[] input = reader.readSamples(0, 64064);
+        int[] left = new int[64064];
+        int[] right = new int[64064];
+        reader.getFormat().deinterleave(input, 0, left);
+        reader.getFormat().deinterleave(input, 1, right);
+        double gain = Math.pow(10.0, -6.0 / 20.0);
+        for (int i = 0; i < 64064; i++) {
+            double expected = (left[i] + right[i]) * gain / (1 << 23) * (1 << 15);
+            Assert.assertEquals(output.getShort(44 + 2 * i), expected, 0.5 + 1e-9);
+        }
+    }
+
+    @Test
+    public void multichannelWavTest() throws Exception {
+        PCMEssenceReader reader = PCMEssenceReader.fromPath(TestHelper.findResourceByPath(MERIDIAN_AUDIO));
+        AudioRoutingMixingRenderer.AudioSource audioSource = AudioRoutingMixingRenderer.AudioSource.fromTrackFile(reader);
+        List<String> handles = Arrays.asList("L", "R", "C", "LFE", "Ls", "Rs");
+        List<OutputAudioChannel> outputAudioChannels = new ArrayList<>();
+        for (String handle : handles) {
+            outputAudioChannels.add(new OutputAudioChannel(null, handle, Collections.singletonList(new InputEntity(null, handle, null))));
+        }
+        AudioRoutingMixingMacro macro = new AudioRoutingMixingMacro("5.1", null, outputAudioChannels);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new AudioRoutingMixingRenderer(null, 4096).render(macro,
+                handle -> new AudioRoutingMixingRenderer.ChannelInput(audioSource, handles.indexOf(handle)),
+                16, AudioRoutingMixingRenderer.OutputFormat.WAV, outputStream);
+
+        /* more than 2 channels are described by a WAVE_FORMAT_EXTENSIBLE header with the 5.1 channel mask */
+        ByteBuffer output = ByteBuffer.wrap(outputStream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(output.limit(), 68 + 32032 * 12);
+        Assert.assertEquals(output.getShort(20), (short) 0xFFFE);
+        Assert.assertEquals(output.getShort(22), (short) 6);
+        Assert.assertEquals(output.getShort(32), (short) 12);
+        Assert.assertEquals(output.getShort(34), (short) 16);
+        Assert.assertEquals(output.getShort(38), (short) 16);
+        Assert.assertEquals(output.getInt(40), 0x60F);
+        Assert.assertEquals(Arrays.copyOfRange(output.array(), 44, 60),
+                new byte[]{0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71});
+        Assert.assertEquals(output.getInt(60), 0x61746164);
+        Assert.assertEquals(output.getInt(64), 32032 * 12);
+    }
+
+    @Test
+    public void outputProfileListTest() throws Exception {
+        IMFCompositionPlaylist imfCompositionPlaylist = new IMFCompositionPlaylist(TestHelper.findResourceByPath(MERIDIAN_CPL));
+        OutputProfileList outputProfileList = OutputProfileList.getOutputProfileListType(
+                new FileByteRangeProvider(TestHelper.findResourceByPath(MERIDIAN_OPL)), new IMFErrorLoggerImpl());
+        Path trackFile = TestHelper.findResourceByPath(MERIDIAN_AUDIO);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AudioRoutingMixingRenderer.RenderResult renderResult = new AudioRoutingMixingRenderer(null, 5000).render(outputProfileList, "arm-1",
+                imfCompositionPlaylist, Collections.singletonMap(MERIDIAN_AUDIO_TRACK_FILE_ID, trackFile),
+                24, AudioRoutingMixingRenderer.OutputFormat.WAV, outputStream);
+        Assert.assertEquals(renderResult.getOutputHandles(), Arrays.asList("left-channel", "right-channel"));
+        Assert.assertEquals(renderResult.getSampleCount(), 32032L);
+        Assert.assertEquals(renderResult.getSampleRate(), 48000);
+
+        /* 24-bit samples are described by a WAVE_FORMAT_EXTENSIBLE header */
+        ByteBuffer output = ByteBuffer.wrap(outputStream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(output.limit(), 68 + 32032 * 6);
+        Assert.assertEquals(output.getInt(4), 60 + 32032 * 6);
+        Assert.assertEquals(output.getInt(16), 40);
+        Assert.assertEquals(output.getShort(20), (short) 0xFFFE);
+        Assert.assertEquals(output.getShort(22), (short) 2);
+        Assert.assertEquals(output.getShort(34), (short) 24);
+        Assert.assertEquals(output.getShort(36), (short) 22);
+        Assert.assertEquals(output.getShort(38), (short) 24);
+        Assert.assertEquals(output.getInt(40), 0x3);
+        Assert.assertEquals(output.getShort(44), (short) 1);
+        Assert.assertEquals(output.getInt(64), 32032 * 6);
+
+        /* left-channel = L at -1.3 dB + C + LFE, right-channel = R at -1.3 dB + C + Ls */
+        PCMEssenceReader reader = PCMEssenceReader.fromPath(trackFile);
+        int[][] channels = new int[6][32032];
+        byte[] input = reader.readSamples(0, 32032);
+        for (int channel = 0; channel < 6; channel++) {
+            reader.getFormat().deinterleave(input, channel, channels[channel]);
+        }
+        double gain = Math.pow(10.0, -1.3 / 20.0);
+        for (int i = 0; i < 32032; i++) {
+            double left = Math.max(-(1 << 23), Math.min((1 << 23) - 1, channels[0][i] * gain + channels[2][i] + channels[3][i]));
+            double right = Math.max(-(1 << 23), Math.min((1 << 23) - 1, channels[1][i] * gain + channels[2][i] + channels[4][i]));
+            Assert.assertEquals(getInt24(output, 68 + 6 * i), left, 0.5 + 1e-9);
+            Assert.assertEquals(getInt24(output, 68 + 6 * i + 3), right, 0.5 + 1e-9);
+        }
+    }
+
+    @Test
+    public void virtualTrackEntryPointAndRepeatCountTest() throws Exception {
+        /* the resource of the audio virtual track is edited to play its second half twice */
+        String cpl = new String(Files.readAllBytes(TestHelper.findResourceByPath(MERIDIAN_CPL)), StandardCharsets.UTF_8);
+        String resource = "<IntrinsicDuration>32032</IntrinsicDuration>\n<SourceDuration>32032</SourceDuration>";
+        Assert.assertTrue(cpl.contains(resource));
+        cpl = cpl.replace(resource, "<IntrinsicDuration>32032</IntrinsicDuration>\n<EntryPoint>16016</EntryPoint>\n"
+                + "<SourceDuration>16016</SourceDuration>\n<RepeatCount>2</RepeatCount>");
+        Path cplFile = Files.createTempFile("AudioRoutingMixingRendererTest", ".xml");
+        cplFile.toFile().deleteOnExit();
+        Files.write(cplFile, cpl.getBytes(StandardCharsets.UTF_8));
+
+        IMFCompositionPlaylist imfCompositionPlaylist = new IMFCompositionPlaylist(cplFile);
+        IMFEssenceComponentVirtualTrack virtualTrack = (IMFEssenceComponentVirtualTrack) imfCompositionPlaylist.getVirtualTrackMap().get(MERIDIAN_AUDIO_VIRTUAL_TRACK_ID);
+        Path trackFile = TestHelper.findResourceByPath(MERIDIAN_AUDIO);
+        Map<UUID, Path> trackFilePaths = Collections.singletonMap(MERIDIAN_AUDIO_TRACK_FILE_ID, trackFile);
+        AudioRoutingMixingRenderer.AudioSource audioSource = AudioRoutingMixingRenderer.AudioSource.fromVirtualTrack(virtualTrack, trackFilePaths);
+        Assert.assertEquals(audioSource.getSampleCount(), 32032L);
+        Assert.assertEquals(audioSource.getAudioChannelLabels().length, 6);
+
+        byte[] secondHalf = PCMEssenceReader.fromPath(trackFile).readSamples(16016, 16016);
+        Assert.assertEquals(audioSource.readSamples(0, 16016), secondHalf);
+        Assert.assertEquals(audioSource.readSamples(16016, 16016), secondHalf);
+        /* a range across the two repetitions */
+        byte[] samples = audioSource.readSamples(16000, 32);
+        Assert.assertEquals(Arrays.copyOfRange(samples, 0, 16 * 18), Arrays.copyOfRange(secondHalf, (16016 - 16) * 18, 16016 * 18));
+        Assert.assertEquals(Arrays.copyOfRange(samples, 16 * 18, 32 * 18), Arrays.copyOfRange(secondHalf, 0, 16 * 18));
+    }
+
+    @Test(expectedExceptions = IMFException.class)
+    public void missingTrackFileTest() throws Exception {
+        IMFCompositionPlaylist imfCompositionPlaylist = new IMFCompositionPlaylist(TestHelper.findResourceByPath(MERIDIAN_CPL));
+        OutputProfileList outputProfileList = OutputProfileList.getOutputProfileListType(
+                new FileByteRangeProvider(TestHelper.findResourceByPath(MERIDIAN_OPL)), new IMFErrorLoggerImpl());
+        new AudioRoutingMixingRenderer().render(outputProfileList, "arm-1", imfCompositionPlaylist, Collections.emptyMap(),
+                24, AudioRoutingMixingRenderer.OutputFormat.PCM, new ByteArrayOutputStream());
+    }
+
+    @Test(expectedExceptions = IMFException.class)
+    public void unresolvedInputTest() throws Exception {
+        AudioRoutingMixingMacro macro = new AudioRoutingMixingMacro("unresolved", null, Collections.singletonList(
+                new OutputAudioChannel(null, "L", Collections.singletonList(new InputEntity(null, "alias/missing", null)))));
+        new AudioRoutingMixingRenderer().render(macro, handle -> {
+            throw new IMFException(String.format("Input handle %s cannot be resolved", handle));
+        }, 24, AudioRoutingMixingRenderer.OutputFormat.PCM, new ByteArrayOutputStream());
+    }
+
+    private static int getInt24(ByteBuffer byteBuffer, int offset) {
+        return (byteBuffer.get(offset) & 0xff) | ((byteBuffer.get(offset + 1) & 0xff) << 8) | (byteBuffer.get(offset + 2) << 16);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.st2067_2;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@Test(groups = "unit")
+public class CompositionTimelineTest
+{
+    private static final UUID TRACK_ID = UUID.fromString("a4f7b4f6-7e3b-4b2c-9a4f-2a0c8f0f6a01");
+    private static final UUID TRACK_FILE_1 = UUID.fromString("0b4c5e8e-2b7e-4f36-8d1d-3c9f5c2d9a11");
+    private static final UUID TRACK_FILE_2 = UUID.fromString("0b4c5e8e-2b7e-4f36-8d1d-3c9f5c2d9a12");
+
+    private static IMFTrackFileResourceType resource(UUID trackFileId, long editRateNumerator, long entryPoint, long sourceDuration, long repeatCount)
+    {
+        return new IMFTrackFileResourceType(UUID.randomUUID().toString(),
+                "urn:uuid:" + trackFileId.toString(),
+                Arrays.asList(editRateNumerator, 1L),
+                BigInteger.valueOf(entryPoint + sourceDuration),
+                BigInteger.valueOf(entryPoint),
+                BigInteger.valueOf(sourceDuration),
+                BigInteger.valueOf(repeatCount),
+                "urn:uuid:" + UUID.randomUUID().toString(),
+                null,
+                null);
+    }
+
+    private static CompositionTimeline timeline(Composition.EditRate editRate, List<IMFTrackFileResourceType> resources)
+    {
+        IMFEssenceComponentVirtualTrack virtualTrack = new IMFEssenceComponentVirtualTrack(TRACK_ID, "MainImageSequence", resources, editRate);
+        return new CompositionTimeline(editRate, Collections.singletonList(virtualTrack));
+    }
+
+    @Test
+    public void testEntriesAndRepeats()
+    {
+        CompositionTimeline timeline = timeline(new Composition.EditRate(24L, 1L),
+                Arrays.asList(resource(TRACK_FILE_1, 24L, 10L, 5L, 3L), resource(TRACK_FILE_2, 24L, 0L, 100L, 1L)));
+
+        Assert.assertEquals(timeline.getDuration(TRACK_ID), 115L);
+        Assert.assertNull(timeline.getEntry(TRACK_ID, -1L));
+        Assert.assertNull(timeline.getEntry(TRACK_ID, 115L));
+        Assert.assertNull(timeline.getEntry(UUID.randomUUID(), 0L));
+
+        CompositionTimeline.TimelineEntry entry = timeline.getEntry(TRACK_ID, 12L);
+        Assert.assertEquals(entry.getTrackFileID(), TRACK_FILE_1);
+        Assert.assertEquals(entry.getResourceIndex(), 0);
+        Assert.assertEquals(entry.getRepeatIndex(), 2L);
+        Assert.assertEquals(entry.getSourceOffset(), 2L);
+        Assert.assertEquals(entry.getSourceEditUnit(), 12L);
+        Assert.assertEquals(entry.getResourceEndEditUnit(), 15L);
+
+        entry = timeline.getEntry(TRACK_ID, 15L);
+        Assert.assertEquals(entry.getTrackFileID(), TRACK_FILE_2);
+        Assert.assertEquals(entry.getRepeatIndex(), 0L);
+        Assert.assertEquals(entry.getSourceEditUnit(), 0L);
+
+        List<CompositionTimeline.TimelineEntry> entries = timeline.getEntries(TRACK_ID, 7L, 1000L);
+        Assert.assertEquals(entries.size(), 2);
+        Assert.assertEquals(entries.get(0).getCompositionEditUnit(), 7L);
+        Assert.assertEquals(entries.get(1).getCompositionEditUnit(), 15L);
+        Assert.assertEquals(timeline.getEntries(TRACK_ID, 0L, 15L).size(), 1);
+        Assert.assertTrue(timeline.getEntries(TRACK_ID, 200L, 300L).isEmpty());
+    }
+
+    @Test
+    public void testEditRateConversion()
+    {
+        /* 48 resource edit units per 24 Composition edit units */
+        CompositionTimeline timeline = timeline(new Composition.EditRate(24L, 1L),
+                Arrays.asList(resource(TRACK_FILE_1, 48L, 0L, 9L, 1L), resource(TRACK_FILE_2, 48L, 0L, 10L, 1L)));
+
+        /* The first resource ends half way through Composition edit unit 4 */
+        Assert.assertEquals(timeline.getDuration(TRACK_ID), 10L);
+        Assert.assertEquals(timeline.getEntry(TRACK_ID, 4L).getTrackFileID(), TRACK_FILE_1);
+        Assert.assertEquals(timeline.getEntry(TRACK_ID, 4L).getSourceOffset(), 8L);
+        CompositionTimeline.TimelineEntry entry = timeline.getEntry(TRACK_ID, 5L);
+        Assert.assertEquals(entry.getTrackFileID(), TRACK_FILE_2);
+        Assert.assertEquals(entry.getResourceStartEditUnit(), 5L);
+        Assert.assertEquals(entry.getSourceOffset(), 1L);
+    }
+}
@@ -3,14 +3,18 @@ package com.netflix.imflibrary.st2067_2;
 import com.netflix.imflibrary.IMFErrorLogger;
 import com.netflix.imflibrary.IMFErrorLoggerImpl;
 import com.netflix.imflibrary.RESTfulInterfaces.IMPValidator;
+import com.netflix.imflibrary.exceptions.IMFException;
 import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.UUIDHelper;
 import com.netflix.imflibrary.validation.ConstraintsValidatorUtils;
 import org.testng.Assert;
 import org.testng.annotations.Ignore;
 import org.testng.annotations.Test;
 import testUtils.TestHelper;
 
+import java.math.BigInteger;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -203,4 +207,70 @@ public class IMFEssenceComponentVirtualTrackTest
         Assert.assertEquals(virtualTrack.getTrackFileResourceList().size(), 2);
     }
 
+    private static IMFTrackFileResourceType trackFileResource(String trackFileId, long entryPoint, long sourceDuration, long repeatCount)
+    {
+        return new IMFTrackFileResourceType(UUIDHelper.fromUUID(UUID.randomUUID()),
+                trackFileId,
+                Arrays.asList(24L, 1L),
+                BigInteger.valueOf(1000L),
+                BigInteger.valueOf(entryPoint),
+                BigInteger.valueOf(sourceDuration),
+                BigInteger.valueOf(repeatCount),
+                UUIDHelper.fromUUID(UUID.randomUUID()),
+                null,
+                null);
+    }
+
+    @Test
+    public void testEssenceComponentVirtualTrackTimelineFingerprint()
+    {
+        String trackFileId = UUIDHelper.fromUUID(UUID.randomUUID());
+        Composition.EditRate editRate = new Composition.EditRate(24L, 1L);
+        UUID trackId = UUID.randomUUID();
+
+        /* 2 contiguous resources of the same track file normalize to the single resource spanning both */
+        IMFEssenceComponentVirtualTrack splitTrack = new IMFEssenceComponentVirtualTrack(trackId, "MainImageSequence",
+                Arrays.asList(trackFileResource(trackFileId, 0L, 40L, 1L), trackFileResource(trackFileId, 40L, 60L, 1L)), editRate);
+        IMFEssenceComponentVirtualTrack wholeTrack = new IMFEssenceComponentVirtualTrack(trackId, "MainImageSequence",
+                Arrays.asList(trackFileResource(trackFileId, 0L, 100L, 1L)), editRate);
+        IMFEssenceComponentVirtualTrack shiftedTrack = new IMFEssenceComponentVirtualTrack(trackId, "MainImageSequence",
+                Arrays.asList(trackFileResource(trackFileId, 1L, 100L, 1L)), editRate);
+
+        Assert.assertEquals(splitTrack.getTimelineFingerprint(), wholeTrack.getTimelineFingerprint());
+        Assert.assertTrue(splitTrack.equivalent(wholeTrack));
+        Assert.assertTrue(wholeTrack.equivalent(splitTrack));
+
+        Assert.assertNotEquals(wholeTrack.getTimelineFingerprint(), shiftedTrack.getTimelineFingerprint());
+        Assert.assertFalse(wholeTrack.equivalent(shiftedTrack));
+    }
+
+    @Test
+    public void testEssenceComponentVirtualTrackDurationOverflow()
+    {
+        String trackFileId = UUIDHelper.fromUUID(UUID.randomUUID());
+        Composition.EditRate editRate = new Composition.EditRate(24L, 1L);
+        IMFEssenceComponentVirtualTrack virtualTrack = new IMFEssenceComponentVirtualTrack(UUID.randomUUID(), "MainImageSequence",
+                Arrays.asList(trackFileResource(trackFileId, 0L, 1000L, Long.MAX_VALUE / 1000L), trackFileResource(trackFileId, 0L, 1000L, 1L)), editRate);
+        try
+        {
+            virtualTrack.getDuration();
+            Assert.fail("The duration of the virtual track does not fit in a long integer");
+        }
+        catch (IMFException e)
+        {
+            Assert.assertEquals(e.getErrors().size(), 1);
+            Assert.assertEquals(e.getErrors().get(0).getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.FATAL);
+        }
+
+        try
+        {
+            trackFileResource(trackFileId, 0L, Long.MAX_VALUE, 2L).getDuration();
+            Assert.fail("The duration of the resource does not fit in a long integer");
+        }
+        catch (IMFException e)
+        {
+            Assert.assertEquals(e.getErrors().get(0).getErrorLevel(), IMFErrorLogger.IMFErrors.ErrorLevels.FATAL);
+        }
+    }
+
 }
@@ -47,4 +47,47 @@ public class J2KHeaderParametersTest {
         Assert.assertTrue(fromCPL.equals(fromMXF));
     }
 
+    @Test
+    public void testQuantizationDefaultWith16BitStepSizes() throws IOException {
+        // Sqcd = 0x22 signals scalar expounded quantization, whose SPqcd values are 16 bits each
+        J2KHeaderParameters p = J2KHeaderParameters.fromJPEG2000PictureSubDescriptorBO(getJPEG2000PictureSubDescriptorBO("TestIMP/PHDR/VIDEO_23e9a145-f2da-4183-86b2-1c399db41afb.mxf"));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.qcd.sqcd, (short) 0x22);
+        Assert.assertEquals(p.qcd.spqcd.length, 19);
+        Assert.assertEquals(p.qcd.spqcd[0], 0x9f1e);
+        Assert.assertEquals(p.qcd.spqcd[1], 0x9eea);
+        Assert.assertEquals(p.qcd.spqcd[18], 0x7761);
+    }
+
+    @Test
+    public void testMissingExtendedCapabilities() throws IOException {
+        // the JPEG2000PictureSubDescriptor of this track file has no J2KExtendedCapabilities
+        JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO jpeg2000PictureSubDescriptorBO = getJPEG2000PictureSubDescriptorBO("TestIMP/PHDR/VIDEO_23e9a145-f2da-4183-86b2-1c399db41afb.mxf");
+        Assert.assertNull(jpeg2000PictureSubDescriptorBO.getJ2kExtendedCapabilities());
+        J2KHeaderParameters p = J2KHeaderParameters.fromJPEG2000PictureSubDescriptorBO(jpeg2000PictureSubDescriptorBO);
+        Assert.assertNotNull(p);
+        Assert.assertNull(p.cap);
+    }
+
+    @Test
+    public void testExtendedCapabilities() throws IOException {
+        JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO jpeg2000PictureSubDescriptorBO = getJPEG2000PictureSubDescriptorBO("TestIMP/HT/IMP/VIDEO_6ed567b7-c030-46d6-9c1c-0f09bab4b962.mxf");
+        J2KHeaderParameters p = J2KHeaderParameters.fromJPEG2000PictureSubDescriptorBO(jpeg2000PictureSubDescriptorBO);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.cap.pcap, (long) jpeg2000PictureSubDescriptorBO.getJ2kExtendedCapabilities().getpCap());
+        Assert.assertEquals(p.cap.ccap.length, Long.bitCount(p.cap.pcap));
+        Assert.assertEquals(p.qcd.spqcd[0], 0x971e);
+    }
+
+    private static JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO getJPEG2000PictureSubDescriptorBO(String trackFile) throws IOException {
+        HeaderPartition headerPartition = HeaderPartition.fromPath(TestHelper.findResourceByPath(trackFile), new IMFErrorLoggerImpl());
+        for (InterchangeObject.InterchangeObjectBO essenceDescriptor : headerPartition.getEssenceDescriptors()) {
+            for (InterchangeObject.InterchangeObjectBO subDescriptor : headerPartition.getSubDescriptors(essenceDescriptor)) {
+                if (subDescriptor instanceof JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO) {
+                    return (JPEG2000PictureSubDescriptor.JPEG2000PictureSubDescriptorBO) subDescriptor;
+                }
+            }
+        }
+        throw new AssertionError("No JPEG2000PictureSubDescriptor found in " + trackFile);
+    }
 }
@@ -17,12 +17,15 @@ import testUtils.TestHelper;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import org.xml.sax.SAXException;
 
 /**
  * A set of tests for DOMNodeObjectModel
@@ -119,4 +122,40 @@ public class DOMNodeObjectModelTest {
         }
         Assert.assertTrue(result == true);
     }
+
+    private DOMNodeObjectModel parse(String xml) throws IOException, ParserConfigurationException, SAXException {
+        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
+        docFactory.setNamespaceAware(true);
+        Document document = docFactory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        return new DOMNodeObjectModel(document.getDocumentElement());
+    }
+
+    @Test
+    public void domNodeObjectModelFingerprintTest() throws IOException, ParserConfigurationException, SAXException {
+        DOMNodeObjectModel model1 = parse("<Descriptor xmlns=\"urn:test\"><InstanceUID>1</InstanceUID><SampleRate>48000/1</SampleRate>" +
+                "<SubDescriptors><Sub><InstanceUID>2</InstanceUID><Channel>L</Channel></Sub><Sub><InstanceUID>3</InstanceUID><Channel>R</Channel></Sub></SubDescriptors></Descriptor>");
+        DOMNodeObjectModel model2 = parse("<Descriptor xmlns=\"urn:test\"><SampleRate>48000/1</SampleRate><InstanceUID>1</InstanceUID>" +
+                "<SubDescriptors><Sub><Channel>R</Channel><InstanceUID>3</InstanceUID></Sub><Sub><Channel>L</Channel><InstanceUID>2</InstanceUID></Sub></SubDescriptors></Descriptor>");
+        DOMNodeObjectModel model3 = parse("<Descriptor xmlns=\"urn:test\"><InstanceUID>4</InstanceUID><SampleRate>48000/1</SampleRate>" +
+                "<SubDescriptors><Sub><InstanceUID>5</InstanceUID><Channel>L</Channel></Sub><Sub><InstanceUID>6</InstanceUID><Channel>R</Channel></Sub></SubDescriptors></Descriptor>");
+
+        Assert.assertEquals(model1, model2);
+        Assert.assertEquals(model1.hashCode(), model2.hashCode());
+        Assert.assertEquals(model1.getFingerprint(), model2.getFingerprint());
+        Assert.assertEquals(model1.getFieldCount().intValue(), 6);
+        Assert.assertTrue(model1.getErrors().isEmpty());
+
+        Assert.assertNotEquals(model1, model3);
+        Assert.assertNotEquals(model1.getFingerprint(), model3.getFingerprint());
+
+        Set<String> ignoreSet = new HashSet<>();
+        ignoreSet.add("InstanceUID");
+        DOMNodeObjectModel projection1 = DOMNodeObjectModel.createDOMNodeObjectModelIgnoreSet(model1, ignoreSet);
+        DOMNodeObjectModel projection3 = DOMNodeObjectModel.createDOMNodeObjectModelIgnoreSet(model3, ignoreSet);
+        Assert.assertEquals(projection1, projection3);
+        Assert.assertEquals(projection1.getFingerprint(), projection3.getFingerprint());
+        Assert.assertEquals(projection1.getFieldCount().intValue(), 3);
+        Assert.assertSame(DOMNodeObjectModel.createDOMNodeObjectModelIgnoreSet(model1, new HashSet<>(ignoreSet)), projection1);
+        Assert.assertNotSame(DOMNodeObjectModel.createDOMNodeObjectModelIgnoreSet(model1, new HashSet<>()), projection1);
+    }
 }
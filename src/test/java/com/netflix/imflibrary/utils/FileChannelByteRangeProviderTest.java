@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Test(groups = "unit")
+public class FileChannelByteRangeProviderTest
+{
+    private static final String KEYBOARD = "qwertyuiopasdfghjklzxcvbnm";
+
+    private Path file;
+    private FileChannelByteRangeProvider fileChannelByteRangeProvider;
+
+    @BeforeClass
+    public void setUp() throws Exception
+    {
+        this.file = Files.createTempFile("test_file", ".tmp");
+        Files.write(this.file, KEYBOARD.getBytes(StandardCharsets.US_ASCII));
+        this.fileChannelByteRangeProvider = new FileChannelByteRangeProvider(this.file);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception
+    {
+        this.fileChannelByteRangeProvider.close();
+        Assert.assertTrue(Files.deleteIfExists(this.file));
+    }
+
+    @Test
+    public void testGetResourceSize()
+    {
+        Assert.assertEquals(this.fileChannelByteRangeProvider.getResourceSize(), 26L);
+    }
+
+    @Test
+    public void testGetByteRange() throws IOException
+    {
+        Path workingDirectory = Files.createTempDirectory(null);
+        Path path = this.fileChannelByteRangeProvider.getByteRange(4, 8, workingDirectory);
+        Assert.assertEquals(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII), "tyuio");
+    }
+
+    @Test
+    public void testGetByteRangeAsBytes() throws IOException
+    {
+        Assert.assertEquals(new String(this.fileChannelByteRangeProvider.getByteRangeAsBytes(0, 25), StandardCharsets.US_ASCII), KEYBOARD);
+        Assert.assertEquals(new String(this.fileChannelByteRangeProvider.getByteRangeAsBytes(24, 25), StandardCharsets.US_ASCII), "nm");
+    }
+
+    @Test
+    public void testGetByteRangeAsStream() throws IOException
+    {
+        try (SeekableByteChannel channel = this.fileChannelByteRangeProvider.getByteRangeAsStream(10, 18))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            Assert.assertEquals(channel.read(buffer), 9);
+            Assert.assertEquals(new String(buffer.array(), 0, 9, StandardCharsets.US_ASCII), "asdfghjkl");
+            Assert.assertEquals(channel.read(buffer), -1);
+        }
+    }
+
+    @Test
+    public void testConcurrentByteRangeRequests() throws Exception
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+            {
+                int start = i % 26;
+                futures.add(executorService.submit(() -> this.fileChannelByteRangeProvider.getByteRangeAsBytes(start, 25)));
+            }
+            for (int i = 0; i < futures.size(); i++)
+            {
+                Assert.assertEquals(new String(futures.get(i).get(), StandardCharsets.US_ASCII), KEYBOARD.substring(i % 26));
+            }
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidRange() throws IOException
+    {
+        this.fileChannelByteRangeProvider.getByteRangeAsBytes(20, 26);
+    }
+}
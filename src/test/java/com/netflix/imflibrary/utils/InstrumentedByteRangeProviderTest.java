@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class InstrumentedByteRangeProviderTest
+{
+    private static byte[] getBytes()
+    {
+        byte[] bytes = new byte[1024];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testStatistics() throws Exception
+    {
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(false);
+        ResourceByteRangeProvider resourceByteRangeProvider = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(getBytes()), byteRangeStatistics, "test");
+
+        assertEquals(resourceByteRangeProvider.getResourceSize(), 1024L);
+        byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(16, 31);
+        assertEquals(bytes.length, 16);
+        assertEquals(bytes[0], (byte) 16);
+        resourceByteRangeProvider.getByteRangeAsBytes(0, 1023);
+
+        assertEquals(byteRangeStatistics.getNumberOfRequests(), 2L);
+        assertEquals(byteRangeStatistics.getNumberOfBytes(), 1040L);
+        long histogramTotal = 0;
+        for (long count : byteRangeStatistics.getLatencyHistogram())
+        {
+            histogramTotal += count;
+        }
+        assertEquals(histogramTotal, 2L);
+        assertTrue(byteRangeStatistics.getTrace().isEmpty());
+        assertTrue(byteRangeStatistics.getSummary().startsWith("2 byte range requests"));
+    }
+
+    @Test
+    public void testTraceRoundTripAndReplay() throws Exception
+    {
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(true);
+        ResourceByteRangeProvider resourceByteRangeProvider = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(getBytes()), byteRangeStatistics, "test.mxf");
+        resourceByteRangeProvider.getByteRangeAsBytes(1020, 1023);
+        resourceByteRangeProvider.getByteRangeAsBytes(0, 99);
+
+        List<ByteRangeMetrics.Request> trace = byteRangeStatistics.getTrace();
+        assertEquals(trace.size(), 2);
+        assertEquals(trace.get(0).getRangeStart(), 1020L);
+        assertEquals(trace.get(0).getLength(), 4L);
+        assertEquals(trace.get(0).getResource(), "test.mxf");
+        assertTrue(trace.get(0).getCallerTag().startsWith("InstrumentedByteRangeProviderTest"));
+
+        StringWriter stringWriter = new StringWriter();
+        byteRangeStatistics.writeTrace(stringWriter);
+        List<ByteRangeMetrics.Request> readTrace = ByteRangeStatistics.readTrace(new StringReader(stringWriter.toString()));
+        assertEquals(readTrace.size(), 2);
+        assertEquals(readTrace.get(1).getRangeStart(), 0L);
+        assertEquals(readTrace.get(1).getLength(), 100L);
+        assertEquals(readTrace.get(1).getResource(), "test.mxf");
+        assertEquals(readTrace.get(1).getCallerTag(), trace.get(1).getCallerTag());
+
+        ByteRangeStatistics replayStatistics = new ByteRangeStatistics(false);
+        ByteRangeStatistics.replayTrace(readTrace, Collections.singletonMap("test.mxf", new ByteArrayByteRangeProvider(getBytes())), replayStatistics);
+        assertEquals(replayStatistics.getNumberOfRequests(), 2L);
+        assertEquals(replayStatistics.getNumberOfBytes(), 104L);
+    }
+
+    @Test
+    public void testReplayAgainstSeveralResources() throws Exception
+    {
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(true);
+        ResourceByteRangeProvider largeResource = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(getBytes()), byteRangeStatistics, "IMP/large,1.mxf");
+        ResourceByteRangeProvider smallResource = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(new byte[16]), byteRangeStatistics, "IMP/small.xml");
+        largeResource.getByteRangeAsBytes(512, 1023);
+        smallResource.getByteRangeAsBytes(0, 15);
+        largeResource.getByteRangeAsBytes(0, 0);
+
+        StringWriter stringWriter = new StringWriter();
+        byteRangeStatistics.writeTrace(stringWriter);
+        List<ByteRangeMetrics.Request> readTrace = ByteRangeStatistics.readTrace(new StringReader(stringWriter.toString()));
+        assertEquals(ByteRangeStatistics.getResources(readTrace).size(), 2);
+        assertEquals(readTrace.get(0).getResource(), "IMP/large,1.mxf");
+
+        Map<String, ResourceByteRangeProvider> resourceByteRangeProviders = new HashMap<>();
+        resourceByteRangeProviders.put("IMP/large,1.mxf", new ByteArrayByteRangeProvider(getBytes()));
+        resourceByteRangeProviders.put("IMP/small.xml", new ByteArrayByteRangeProvider(new byte[16]));
+        ByteRangeStatistics replayStatistics = new ByteRangeStatistics(true);
+        ByteRangeStatistics.replayTrace(readTrace, resourceByteRangeProviders, replayStatistics);
+        List<ByteRangeMetrics.Request> replayTrace = replayStatistics.getTrace();
+        assertEquals(replayTrace.size(), 3);
+        assertEquals(replayTrace.get(1).getResource(), "IMP/small.xml");
+        assertEquals(replayStatistics.getNumberOfBytes(), 529L);
+    }
+
+    @Test(expectedExceptions = java.io.IOException.class)
+    public void testReplayWithoutProvider() throws Exception
+    {
+        List<ByteRangeMetrics.Request> trace = Collections.singletonList(new ByteRangeMetrics.Request(ByteRangeMetrics.RequestType.BYTES, "missing.mxf", 0, 16, 0, ""));
+        ByteRangeStatistics.replayTrace(trace, Collections.singletonMap("test.mxf", new ByteArrayByteRangeProvider(getBytes())), ByteRangeMetrics.NONE);
+    }
+
+    @Test
+    public void testStreamCountsBytesRead() throws Exception
+    {
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(false);
+        ResourceByteRangeProvider resourceByteRangeProvider = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(getBytes()), byteRangeStatistics, "test.xml");
+        try (SeekableByteChannel seekableByteChannel = resourceByteRangeProvider.getByteRangeAsStream(0, 1023))
+        {
+            assertEquals(seekableByteChannel.read(ByteBuffer.allocate(100)), 100);
+            assertEquals(byteRangeStatistics.getNumberOfRequests(), 0L);
+        }
+        assertEquals(byteRangeStatistics.getNumberOfRequests(), 1L);
+        assertEquals(byteRangeStatistics.getNumberOfBytes(), 100L);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+
+@Test(groups = "unit")
+public class RationalTimeTest
+{
+    @Test
+    public void testNormalisation()
+    {
+        Assert.assertEquals(RationalTime.valueOf(2L, 4L), RationalTime.valueOf(-1L, -2L));
+        Assert.assertEquals(RationalTime.valueOf(2L, 4L).hashCode(), RationalTime.valueOf(1L, 2L).hashCode());
+        Assert.assertEquals(RationalTime.valueOf(3L, -6L).toString(), "-1/2");
+        Assert.assertEquals(RationalTime.valueOf(0L, 7L), RationalTime.ZERO);
+        Assert.assertEquals(RationalTime.valueOf(BigInteger.valueOf(6L), BigInteger.valueOf(4L)), RationalTime.valueOf(3L, 2L));
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testZeroDenominator()
+    {
+        RationalTime.valueOf(1L, 0L);
+    }
+
+    @Test
+    public void testArithmeticAndRounding()
+    {
+        RationalTime oneThird = RationalTime.valueOf(1L, 3L);
+        RationalTime oneSixth = RationalTime.valueOf(1L, 6L);
+        Assert.assertEquals(oneThird.add(oneSixth), RationalTime.valueOf(1L, 2L));
+        Assert.assertEquals(oneThird.subtract(oneSixth), oneSixth);
+        Assert.assertEquals(oneThird.multiply(oneSixth), RationalTime.valueOf(1L, 18L));
+        Assert.assertEquals(oneThird.divide(oneSixth), RationalTime.valueOf(2L));
+        Assert.assertTrue(oneThird.compareTo(oneSixth) > 0);
+
+        Assert.assertEquals(RationalTime.valueOf(7L, 2L).floor(), 3L);
+        Assert.assertEquals(RationalTime.valueOf(7L, 2L).ceil(), 4L);
+        Assert.assertEquals(RationalTime.valueOf(7L, 2L).round(), 4L);
+        Assert.assertEquals(RationalTime.valueOf(-7L, 2L).floor(), -4L);
+        Assert.assertEquals(RationalTime.valueOf(-7L, 2L).ceil(), -3L);
+        Assert.assertEquals(RationalTime.valueOf(-7L, 2L).round(), Math.round(-3.5d));
+        Assert.assertTrue(RationalTime.valueOf(6L, 3L).isInteger());
+        Assert.assertFalse(RationalTime.valueOf(7L, 2L).isInteger());
+    }
+
+    @Test
+    public void testOverflowFallsBackToBigInteger()
+    {
+        RationalTime large = RationalTime.valueOf(Long.MAX_VALUE, 3L);
+        RationalTime sum = large.add(large).add(large);
+        Assert.assertEquals(sum, RationalTime.valueOf(Long.MAX_VALUE));
+        Assert.assertEquals(sum.getNumerator(), BigInteger.valueOf(Long.MAX_VALUE));
+
+        RationalTime product = RationalTime.valueOf(Long.MAX_VALUE).multiply(4L);
+        Assert.assertEquals(product.getNumerator(), BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(4L)));
+        Assert.assertEquals(product.divide(RationalTime.valueOf(8L)).floor(), Long.MAX_VALUE / 2L);
+        Assert.assertTrue(product.compareTo(RationalTime.valueOf(Long.MAX_VALUE)) > 0);
+        Assert.assertTrue(product.isInteger());
+        Assert.assertFalse(product.divide(RationalTime.valueOf(3L)).isInteger());
+    }
+
+    @Test
+    public void testConvertEditUnits()
+    {
+        Assert.assertEquals(RationalTime.convertEditUnits(48000L, 48000L, 1L, 24L, 1L), 24L);
+        Assert.assertEquals(RationalTime.convertEditUnits(1000L, 24000L, 1001L, 24L, 1L), 1001L);
+        /* 9 edit units at 48 Hz are 4.5 edit units at 24 Hz, ties round up as Math.round does */
+        Assert.assertEquals(RationalTime.convertEditUnits(9L, 48L, 1L, 24L, 1L), 5L);
+        Assert.assertEquals(RationalTime.convertEditUnits(Long.MAX_VALUE / 2L, 1L, 1L, 4L, 2L), Long.MAX_VALUE - 1L);
+    }
+}
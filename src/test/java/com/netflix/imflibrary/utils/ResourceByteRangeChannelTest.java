@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class ResourceByteRangeChannelTest
+{
+    private static byte[] getBytes()
+    {
+        byte[] bytes = new byte[1024];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testBoundedRequests() throws Exception
+    {
+        ByteRangeStatistics byteRangeStatistics = new ByteRangeStatistics(false);
+        ResourceByteRangeProvider resourceByteRangeProvider = new InstrumentedByteRangeProvider(new ByteArrayByteRangeProvider(getBytes()), byteRangeStatistics, "test");
+
+        ResourceByteRangeChannel channel = new ResourceByteRangeChannel(resourceByteRangeProvider, 100, 399, 64);
+        assertEquals(channel.size(), 300L);
+        ByteBuffer buffer = ByteBuffer.allocate(1000);
+        assertEquals(channel.read(buffer), 300);
+        assertEquals(channel.read(buffer), -1);
+        assertEquals(channel.position(), 300L);
+        for (int i = 0; i < 300; i++)
+        {
+            assertEquals(buffer.get(i), (byte) (100 + i));
+        }
+        assertEquals(byteRangeStatistics.getNumberOfRequests(), 5L);
+        assertEquals(byteRangeStatistics.getNumberOfBytes(), 300L);
+
+        channel.position(250);
+        ByteBuffer small = ByteBuffer.allocate(4);
+        assertEquals(channel.read(small), 4);
+        assertEquals(small.get(0), (byte) 350);
+        assertEquals(channel.position(), 254L);
+
+        channel.position(500);
+        assertEquals(channel.read(small.clear()), -1);
+    }
+
+    @Test(expectedExceptions = NonWritableChannelException.class)
+    public void testWrite() throws Exception
+    {
+        new ResourceByteRangeChannel(new ByteArrayByteRangeProvider(getBytes()), 0, 15).write(ByteBuffer.allocate(1));
+    }
+
+    @Test(expectedExceptions = ClosedChannelException.class)
+    public void testClosed() throws Exception
+    {
+        ResourceByteRangeChannel channel = new ResourceByteRangeChannel(new ByteArrayByteRangeProvider(getBytes()), 0, 15);
+        channel.close();
+        assertFalse(channel.isOpen());
+        channel.read(ByteBuffer.allocate(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRange()
+    {
+        new ResourceByteRangeChannel(new ByteArrayByteRangeProvider(getBytes()), 0, 1024);
+    }
+}
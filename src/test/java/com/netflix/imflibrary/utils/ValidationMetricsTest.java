@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class ValidationMetricsTest
+{
+    @Test
+    public void testPhaseStatistics()
+    {
+        List<String> completedPhases = new ArrayList<>();
+        ValidationMetrics validationMetrics = new ValidationMetrics((phase, durationNanos, allocatedBytes) -> completedPhases.add(phase));
+
+        try (ValidationMetrics.Timer outer = validationMetrics.start("outer"))
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                try (ValidationMetrics.Timer inner = validationMetrics.start("inner"))
+                {
+                    byte[] bytes = new byte[1024 * 1024];
+                    assertEquals(bytes.length, 1024 * 1024);
+                }
+            }
+        }
+        validationMetrics.record("recorded", 5_000_000_000L, 10L);
+        validationMetrics.record("recorded", 1_000_000_000L, -1L);
+
+        Map<String, ValidationMetrics.PhaseStatistics> phaseStatistics = validationMetrics.getPhaseStatistics();
+        assertEquals(new ArrayList<>(phaseStatistics.keySet()), Arrays.asList("inner", "outer", "recorded"));
+        assertEquals(phaseStatistics.get("inner").getCount(), 3L);
+        assertEquals(phaseStatistics.get("outer").getCount(), 1L);
+        assertTrue(phaseStatistics.get("outer").getTotalDurationNanos() >= phaseStatistics.get("inner").getTotalDurationNanos());
+        if (phaseStatistics.get("inner").getAllocatedBytes() >= 0)
+        {
+            assertTrue(phaseStatistics.get("inner").getAllocatedBytes() >= 3 * 1024 * 1024);
+        }
+
+        ValidationMetrics.PhaseStatistics recorded = phaseStatistics.get("recorded");
+        assertEquals(recorded.getCount(), 2L);
+        assertEquals(recorded.getTotalDurationNanos(), 6_000_000_000L);
+        assertEquals(recorded.getMaximumDurationNanos(), 5_000_000_000L);
+        assertEquals(recorded.getAllocatedBytes(), -1L);
+
+        assertEquals(completedPhases, Arrays.asList("inner", "inner", "inner", "outer", "recorded", "recorded"));
+        assertEquals(validationMetrics.getSummary().size(), 3);
+        assertTrue(validationMetrics.getSummary().get(0).startsWith("recorded: count 2, total 6000.000 ms"));
+    }
+
+    @Test
+    public void testNone()
+    {
+        try (ValidationMetrics.Timer timer = ValidationMetrics.NONE.start("phase"))
+        {
+            ValidationMetrics.NONE.record("recorded", 1L, 1L);
+        }
+        assertTrue(ValidationMetrics.NONE.getPhaseStatistics().isEmpty());
+        assertTrue(ValidationMetrics.NONE.getSummary().isEmpty());
+    }
+}
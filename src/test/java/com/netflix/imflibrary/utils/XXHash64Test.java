@@ -0,0 +1,73 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+@Test(groups = "unit")
+public class XXHash64Test
+{
+    private static long hash(String string)
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+        return XXHash64.hash(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void testReferenceValues()
+    {
+        assertEquals(hash(""), 0xEF46DB3751D8E999L);
+        assertEquals(hash("a"), 0xD24EC4F1A98C6E5BL);
+        assertEquals(hash("abc"), 0x44BC2CF5AD770999L);
+        assertEquals(hash("Nobody inspects the spammish repetition"), 0xFBCEA83C8A378BF1L);
+    }
+
+    @Test
+    public void testStreaming()
+    {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) (i * 31);
+        }
+        XXHash64 xxHash64 = new XXHash64();
+        int position = 0;
+        for (int length : new int[]{1, 3, 30, 31, 33, 64, 100})
+        {
+            xxHash64.update(bytes, position, length);
+            position += length;
+        }
+        xxHash64.update(bytes, position, bytes.length - position);
+        assertEquals(xxHash64.getValue(), XXHash64.hash(bytes, 0, bytes.length));
+
+        xxHash64.reset();
+        xxHash64.update(bytes, 0, 0);
+        assertEquals(xxHash64.getValue(), 0xEF46DB3751D8E999L);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testOutOfBounds()
+    {
+        new XXHash64().update(new byte[8], 4, 5);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.st2067_2.Composition;
+import com.netflix.imflibrary.st2067_2.CoreConstraints;
+import com.netflix.imflibrary.st2067_2.IMFEssenceDescriptorBaseType;
+import com.netflix.imflibrary.st2067_2.IMFMarkerResourceType;
+import com.netflix.imflibrary.st2067_2.IMFMarkerType;
+import com.netflix.imflibrary.st2067_2.IMFTrackFileResourceType;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.UUIDHelper;
+import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
+import com.netflix.imflibrary.writerTools.utils.IMFXMLStreamWriter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tests that verify the streaming CompositionPlaylist and PackingList writers
+ */
+@Test(groups = "unit")
+public class CompositionPlaylistStreamWriter_2016Test
+{
+    private static final String REGXML_NAMESPACE = "http://www.smpte-ra.org/reg/395/2014/13/1/aaf";
+    private static final String IAB_NAMESPACE = "http://www.smpte-ra.org/ns/2067-201/2019";
+    private static final String MGASADM_NAMESPACE = "http://www.smpte-ra.org/ns/2067-203/2022";
+
+    @Test
+    public void testStreamedCompositionPlaylistIsSchemaValid() throws Exception
+    {
+        ByteArrayOutputStream cplOutputStream = new ByteArrayOutputStream();
+        IMFXMLStreamWriter.WrittenDocument cpl = writeCompositionPlaylist(cplOutputStream, CoreConstraints.NAMESPACE_IMF_2016, CoreConstraints.MAIN_IMAGE_SEQUENCE);
+        byte[] cplBytes = cplOutputStream.toByteArray();
+
+        Assert.assertEquals(cpl.getSize(), (long) cplBytes.length);
+        Assert.assertEquals(cpl.getHash(), MessageDigest.getInstance("SHA-1").digest(cplBytes));
+        List<ErrorLogger.ErrorObject> errors = CompositionPlaylistStreamWriter_2016.validate(new ByteArrayInputStream(cplBytes));
+        Assert.assertEquals(errors.size(), 0, errors.toString());
+
+        ByteArrayOutputStream pklOutputStream = new ByteArrayOutputStream();
+        try (PackingListStreamWriter_2016 pklWriter = new PackingListStreamWriter_2016(pklOutputStream, IMFUUIDGenerator.getInstance().generateUUID(),
+                "PKL", null, issueDate(), "Netflix", "Photon", null))
+        {
+            pklWriter.writeAsset(IMFUUIDGenerator.getInstance().generateUUID(), cpl, "CPL.xml");
+            IMFXMLStreamWriter.WrittenDocument pkl = pklWriter.finish();
+            Assert.assertEquals(pkl.getSize(), (long) pklOutputStream.size());
+        }
+        errors = PackingListStreamWriter_2016.validate(new ByteArrayInputStream(pklOutputStream.toByteArray()));
+        Assert.assertEquals(errors.size(), 0, errors.toString());
+    }
+
+    @Test
+    public void testStreamedCompositionPlaylist2020IsSchemaValid() throws Exception
+    {
+        ByteArrayOutputStream cplOutputStream = new ByteArrayOutputStream();
+        writeCompositionPlaylist(cplOutputStream, CoreConstraints.NAMESPACE_IMF_2020, CoreConstraints.MAIN_IMAGE_SEQUENCE);
+        List<ErrorLogger.ErrorObject> errors = CompositionPlaylistStreamWriter_2016.validate(new ByteArrayInputStream(cplOutputStream.toByteArray()));
+        Assert.assertEquals(errors.size(), 0, errors.toString());
+    }
+
+    @Test
+    public void testStreamedIABSequenceIsSchemaValid() throws Exception
+    {
+        ByteArrayOutputStream cplOutputStream = new ByteArrayOutputStream();
+        writeCompositionPlaylist(cplOutputStream, CoreConstraints.NAMESPACE_IMF_2020, CoreConstraints.MAIN_IMAGE_SEQUENCE, "IABSequence");
+        byte[] cplBytes = cplOutputStream.toByteArray();
+        List<ErrorLogger.ErrorObject> errors = CompositionPlaylistStreamWriter_2016.validate(new ByteArrayInputStream(cplBytes));
+        Assert.assertEquals(errors.size(), 0, errors.toString());
+        Assert.assertEquals(parse(cplBytes).getElementsByTagNameNS(IAB_NAMESPACE, "IABSequence").getLength(), 1);
+    }
+
+    @Test
+    public void testStreamedMGASADMSignalSequenceIsSchemaValid() throws Exception
+    {
+        ByteArrayOutputStream cplOutputStream = new ByteArrayOutputStream();
+        writeCompositionPlaylist(cplOutputStream, CoreConstraints.NAMESPACE_IMF_2020, CoreConstraints.MAIN_IMAGE_SEQUENCE, "MGASADMSignalSequence");
+        byte[] cplBytes = cplOutputStream.toByteArray();
+        List<ErrorLogger.ErrorObject> errors = CompositionPlaylistStreamWriter_2016.validate(new ByteArrayInputStream(cplBytes));
+        Assert.assertEquals(errors.size(), 0, errors.toString());
+        Assert.assertEquals(parse(cplBytes).getElementsByTagNameNS(MGASADM_NAMESPACE, "MGASADMSignalSequence").getLength(), 1);
+    }
+
+    @Test(expectedExceptions = IMFAuthoringException.class)
+    public void testMarkerSequenceMustBeFirst() throws Exception
+    {
+        try (CompositionPlaylistStreamWriter_2016 cplWriter = newWriter(new ByteArrayOutputStream(), CoreConstraints.NAMESPACE_IMF_2016))
+        {
+            cplWriter.startSegment(IMFUUIDGenerator.getInstance().generateUUID(), null);
+            cplWriter.startSequence(IMFUUIDGenerator.getInstance().generateUUID(), IMFUUIDGenerator.getInstance().generateUUID(), CoreConstraints.MAIN_IMAGE_SEQUENCE);
+            cplWriter.writeTrackFileResource(trackFileResource(UUIDHelper.fromUUID(IMFUUIDGenerator.getInstance().generateUUID())));
+            cplWriter.endSequence();
+            cplWriter.startSequence(IMFUUIDGenerator.getInstance().generateUUID(), IMFUUIDGenerator.getInstance().generateUUID(), Composition.MARKER_SEQUENCE);
+        }
+    }
+
+    private static IMFXMLStreamWriter.WrittenDocument writeCompositionPlaylist(ByteArrayOutputStream outputStream, String coreConstraintsSchema, String... sequenceTypes) throws Exception
+    {
+        UUID essenceDescriptorId = IMFUUIDGenerator.getInstance().generateUUID();
+        try (CompositionPlaylistStreamWriter_2016 cplWriter = newWriter(outputStream, coreConstraintsSchema))
+        {
+            cplWriter.writeEssenceDescriptor(new IMFEssenceDescriptorBaseType(UUIDHelper.fromUUID(essenceDescriptorId),
+                    Collections.singletonList(essenceDescriptor())));
+            cplWriter.startSegment(IMFUUIDGenerator.getInstance().generateUUID(), "Segment-1");
+
+            cplWriter.startSequence(IMFUUIDGenerator.getInstance().generateUUID(), IMFUUIDGenerator.getInstance().generateUUID(), Composition.MARKER_SEQUENCE);
+            List<IMFMarkerType> markers = new ArrayList<>();
+            markers.add(new IMFMarkerType(null, new IMFMarkerType.Label("FFOC", "http://www.smpte-ra.org/schemas/2067-3/2013#standard-markers"), BigInteger.ZERO));
+            cplWriter.writeMarkerResource(new IMFMarkerResourceType(UUIDHelper.fromUUID(IMFUUIDGenerator.getInstance().generateUUID()),
+                    Arrays.asList(24L, 1L), BigInteger.valueOf(48), BigInteger.ZERO, BigInteger.valueOf(48), BigInteger.ONE, markers));
+            cplWriter.endSequence();
+
+            for (String sequenceType : sequenceTypes)
+            {
+                cplWriter.startSequence(IMFUUIDGenerator.getInstance().generateUUID(), IMFUUIDGenerator.getInstance().generateUUID(), sequenceType);
+                cplWriter.writeTrackFileResource(trackFileResource(UUIDHelper.fromUUID(essenceDescriptorId)));
+                cplWriter.writeTrackFileResource(trackFileResource(UUIDHelper.fromUUID(essenceDescriptorId)));
+                cplWriter.endSequence();
+            }
+            cplWriter.endSegment();
+            return cplWriter.finish();
+        }
+    }
+
+    private static CompositionPlaylistStreamWriter_2016 newWriter(ByteArrayOutputStream outputStream, String coreConstraintsSchema) throws Exception
+    {
+        return new CompositionPlaylistStreamWriter_2016(outputStream, IMFUUIDGenerator.getInstance().generateUUID(), "CPL", issueDate(),
+                "Netflix", "Photon", "Test", new Composition.EditRate(24L, 1L), 2L,
+                Collections.singleton("http://www.smpte-ra.org/ns/2067-20/2016"), coreConstraintsSchema);
+    }
+
+    private static IMFTrackFileResourceType trackFileResource(String sourceEncoding)
+    {
+        return new IMFTrackFileResourceType(UUIDHelper.fromUUID(IMFUUIDGenerator.getInstance().generateUUID()),
+                UUIDHelper.fromUUID(IMFUUIDGenerator.getInstance().generateUUID()), Arrays.asList(24L, 1L),
+                BigInteger.valueOf(24), BigInteger.ZERO, BigInteger.valueOf(24), BigInteger.ONE, sourceEncoding,
+                new byte[]{1, 2, 3, 4}, CompositionPlaylistBuilder_2016.defaultHashAlgorithm);
+    }
+
+    private static Element essenceDescriptor() throws Exception
+    {
+        Document document = newDocumentBuilderFactory().newDocumentBuilder().newDocument();
+        Element descriptor = document.createElementNS(REGXML_NAMESPACE, "r1:CDCIDescriptor");
+        Element sampleRate = document.createElementNS(REGXML_NAMESPACE, "r1:SampleRate");
+        sampleRate.setTextContent("24/1");
+        descriptor.appendChild(sampleRate);
+        document.appendChild(descriptor);
+        return descriptor;
+    }
+
+    private static Document parse(byte[] bytes) throws Exception
+    {
+        return newDocumentBuilderFactory().newDocumentBuilder().parse(new ByteArrayInputStream(bytes));
+    }
+
+    private static DocumentBuilderFactory newDocumentBuilderFactory()
+    {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        return documentBuilderFactory;
+    }
+
+    private static XMLGregorianCalendar issueDate() throws Exception
+    {
+        return DatatypeFactory.newInstance().newXMLGregorianCalendar("2016-01-01T00:00:00Z");
+    }
+}
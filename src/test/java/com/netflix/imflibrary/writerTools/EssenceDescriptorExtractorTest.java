@@ -0,0 +1,141 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFConstraints;
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.MXFOperationalPattern1A;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.header.SourcePackage;
+import com.netflix.imflibrary.utils.ByteArrayByteRangeProvider;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import com.netflix.imflibrary.utils.ResourceByteRangeProvider;
+import com.netflix.imflibrary.writerTools.utils.IMFUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Node;
+import testUtils.TestHelper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tests that verify the conversion and memoisation of EssenceDescriptors by the EssenceDescriptorExtractor
+ */
+@Test(groups = "functional")
+public class EssenceDescriptorExtractorTest {
+
+    @Test
+    public void concurrentExtractionMatchesSequentialExtractionTest() throws Exception {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap = buildTrackFileMetadataMap(imfErrorLogger);
+        List<UUID> trackFileIds = new ArrayList<>(imfTrackFileMetadataMap.keySet());
+
+        IMFErrorLogger concurrentErrorLogger = new IMFErrorLoggerImpl();
+        Map<UUID, List<Node>> concurrent = TestHelper.runWithFixedThreadPool(3,
+                executor -> new EssenceDescriptorExtractor(executor, 16).extract(imfTrackFileMetadataMap, trackFileIds, concurrentErrorLogger));
+        IMFErrorLogger sequentialErrorLogger = new IMFErrorLoggerImpl();
+        Map<UUID, List<Node>> sequential = new EssenceDescriptorExtractor(null, 16).extract(imfTrackFileMetadataMap, trackFileIds, sequentialErrorLogger);
+
+        Assert.assertEquals(concurrent.size(), 3);
+        Assert.assertEquals(concurrent.keySet(), sequential.keySet());
+        for (UUID trackFileId : trackFileIds) {
+            Assert.assertTrue(concurrent.get(trackFileId).get(0).isEqualNode(sequential.get(trackFileId).get(0)));
+        }
+        Assert.assertEquals(concurrentErrorLogger.getErrors().toString(), sequentialErrorLogger.getErrors().toString());
+    }
+
+    @Test
+    public void extractionIsMemoisedTest() throws Exception {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap = buildTrackFileMetadataMap(imfErrorLogger);
+        List<UUID> trackFileIds = new ArrayList<>(imfTrackFileMetadataMap.keySet());
+        EssenceDescriptorExtractor essenceDescriptorExtractor = new EssenceDescriptorExtractor(null, 16);
+
+        Map<UUID, List<Node>> first = essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, trackFileIds, new IMFErrorLoggerImpl());
+        Assert.assertEquals(essenceDescriptorExtractor.getCacheSize(), 3);
+        List<UUID> duplicatedTrackFileIds = new ArrayList<>(trackFileIds);
+        duplicatedTrackFileIds.addAll(trackFileIds);
+        Map<UUID, List<Node>> second = essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, duplicatedTrackFileIds, new IMFErrorLoggerImpl());
+        Assert.assertEquals(essenceDescriptorExtractor.getCacheSize(), 3);
+
+        Assert.assertEquals(second.size(), first.size());
+        for (UUID trackFileId : trackFileIds) {
+            Assert.assertNotSame(second.get(trackFileId).get(0), first.get(trackFileId).get(0));
+            Assert.assertNotSame(second.get(trackFileId).get(0).getOwnerDocument(), first.get(trackFileId).get(0).getOwnerDocument());
+            Assert.assertTrue(second.get(trackFileId).get(0).isEqualNode(first.get(trackFileId).get(0)));
+        }
+
+        essenceDescriptorExtractor.clear();
+        Assert.assertEquals(essenceDescriptorExtractor.getCacheSize(), 0);
+        Map<UUID, List<Node>> third = essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, trackFileIds, new IMFErrorLoggerImpl());
+        for (UUID trackFileId : trackFileIds) {
+            Assert.assertTrue(third.get(trackFileId).get(0).isEqualNode(first.get(trackFileId).get(0)));
+        }
+    }
+
+    @Test
+    public void callersReceiveIndependentCopiesTest() throws Exception {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap = buildTrackFileMetadataMap(imfErrorLogger);
+        List<UUID> trackFileIds = new ArrayList<>(imfTrackFileMetadataMap.keySet());
+        EssenceDescriptorExtractor essenceDescriptorExtractor = new EssenceDescriptorExtractor(null, 16);
+
+        Map<UUID, List<Node>> first = essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, trackFileIds, new IMFErrorLoggerImpl());
+        Node modified = first.get(trackFileIds.get(0)).get(0);
+        Node original = modified.cloneNode(true);
+        while (modified.getFirstChild() != null) {
+            modified.removeChild(modified.getFirstChild());
+        }
+
+        Map<UUID, List<Node>> second = essenceDescriptorExtractor.extract(imfTrackFileMetadataMap, trackFileIds, new IMFErrorLoggerImpl());
+        Assert.assertTrue(second.get(trackFileIds.get(0)).get(0).isEqualNode(original));
+        Assert.assertFalse(second.get(trackFileIds.get(0)).get(0).isEqualNode(modified));
+    }
+
+    private static Map<UUID, IMPBuilder.IMFTrackFileMetadata> buildTrackFileMetadataMap(IMFErrorLogger imfErrorLogger) throws Exception {
+        Map<UUID, IMPBuilder.IMFTrackFileMetadata> imfTrackFileMetadataMap = new HashMap<>();
+        List<String> fileNames = Arrays.asList("TestIMP/Netflix_Sony_Plugfest_2015/Netflix_Plugfest_Oct2015.mxf.hdr",
+                "TestIMP/Netflix_Sony_Plugfest_2015/Netflix_Plugfest_Oct2015_ENG20.mxf.hdr",
+                "TestIMP/Netflix_Sony_Plugfest_2015/Netflix_Plugfest_Oct2015_ENG51.mxf.hdr");
+        for (String fileName : fileNames) {
+            Path headerPartitionPath = TestHelper.findResourceByPath(fileName);
+            ResourceByteRangeProvider resourceByteRangeProvider = new FileByteRangeProvider(headerPartitionPath);
+            byte[] bytes = resourceByteRangeProvider.getByteRangeAsBytes(0, resourceByteRangeProvider.getResourceSize() - 1);
+            HeaderPartition headerPartition = new HeaderPartition(new ByteArrayDataProvider(bytes), 0L, bytes.length, imfErrorLogger);
+            MXFOperationalPattern1A.HeaderPartitionOP1A headerPartitionOP1A = MXFOperationalPattern1A.checkOperationalPattern1ACompliance(headerPartition, imfErrorLogger);
+            IMFConstraints.HeaderPartitionIMF headerPartitionIMF = IMFConstraints.checkMXFHeaderMetadata(headerPartitionOP1A, imfErrorLogger);
+            SourcePackage filePackage = (SourcePackage) headerPartitionIMF.getHeaderPartitionOP1A().getHeaderPartition().getPreface()
+                    .getContentStorage().getEssenceContainerDataList().get(0).getLinkedPackage();
+
+            imfTrackFileMetadataMap.put(filePackage.getPackageMaterialNumberasUUID(), new IMPBuilder.IMFTrackFileMetadata(bytes,
+                    IMFUtils.generateSHA1Hash(new ByteArrayByteRangeProvider(bytes)),
+                    CompositionPlaylistBuilder_2016.defaultHashAlgorithm,
+                    fileName,
+                    bytes.length));
+        }
+        return imfTrackFileMetadataMap;
+    }
+}
@@ -7,6 +7,7 @@ import com.netflix.imflibrary.st2067_2.CoreConstraints;
 import com.netflix.imflibrary.st2067_2.IMFMarkerType;
 import com.netflix.imflibrary.utils.ErrorLogger;
 import org.slf4j.Logger;
+import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.xml.sax.SAXException;
@@ -205,4 +206,51 @@ public class IMPAssemblerTest {
             assert Files.isRegularFile(outputTrackFile);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAssembleIMFFromFilesOnExecutor() throws Exception {
+        // the same track files are referenced by several entries, and are introspected by the assembler
+        Path videoFile = TestHelper.findResourceByPath("TestIMP/MERIDIAN_Netflix_Photon_161006/MERIDIAN_Netflix_Photon_161006_00.mxf");
+        Path audioFile = TestHelper.findResourceByPath("TestIMP/MERIDIAN_Netflix_Photon_161006/MERIDIAN_Netflix_Photon_161006_ENG-51_00.mxf");
+
+        IMPAssembler.Track videoTrack = new IMPAssembler.Track();
+        videoTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(videoFile, null, null, null, null, null));
+        videoTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(videoFile, null, null, BigInteger.valueOf(2), BigInteger.valueOf(4), null));
+        videoTrack.setSequenceType(CoreConstraints.MAIN_IMAGE_SEQUENCE);
+
+        IMPAssembler.Track audioTrack = new IMPAssembler.Track();
+        audioTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(audioFile, null, null, null, null, null));
+        audioTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(audioFile, null, null, BigInteger.valueOf(3203), BigInteger.valueOf(3203), null));
+        audioTrack.setSequenceType(CoreConstraints.MAIN_AUDIO_SEQUENCE);
+
+        IMPAssembler.SimpleTimeline simpleTimeline = new IMPAssembler.SimpleTimeline(Arrays.asList(videoTrack, audioTrack), new ArrayList<>(), new Composition.EditRate(Arrays.asList(60000L, 1001L)));
+
+        Path outputDirPath = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "IMPAssemblerTest");
+        IMPAssembler.AssembledIMPResult result = TestHelper.runWithFixedThreadPool(2,
+                executor -> new IMPAssembler(executor).assembleIMFFromFiles(simpleTimeline, outputDirPath, true));
+
+        Assert.assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        Assert.assertEquals(result.getTrackFiles().size(), 2);
+        for (Path outputTrackFile : result.getTrackFiles()) {
+            Assert.assertTrue(Files.isRegularFile(outputTrackFile));
+        }
+        Assert.assertTrue(Files.isRegularFile(result.getCpl()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAssembleIMFFromFilesWithDuplicateFileNames() throws IOException, JAXBException, ParserConfigurationException, URISyntaxException, SAXException {
+        // 2 distinct track files with the same file name cannot both be copied to the output directory
+        Path videoFile = TestHelper.findResourceByPath("TestIMP/MERIDIAN_Netflix_Photon_161006/MERIDIAN_Netflix_Photon_161006_00.mxf");
+        Path copyDirPath = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "IMPAssemblerTest");
+        Path videoFileCopy = Files.copy(videoFile, copyDirPath.resolve(videoFile.getFileName().toString()));
+
+        IMPAssembler.Track videoTrack = new IMPAssembler.Track();
+        videoTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(videoFile, null, null, null, null, null));
+        videoTrack.getTrackEntries().add(new IMPAssembler.EssenceTrackEntry(videoFileCopy, null, null, null, null, null));
+        videoTrack.setSequenceType(CoreConstraints.MAIN_IMAGE_SEQUENCE);
+
+        IMPAssembler.SimpleTimeline simpleTimeline = new IMPAssembler.SimpleTimeline(Arrays.asList(videoTrack), new ArrayList<>(), new Composition.EditRate(Arrays.asList(60000L, 1001L)));
+        Path outputDirPath = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "IMPAssemblerTest");
+        new IMPAssembler().assembleIMFFromFiles(simpleTimeline, outputDirPath, true);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.st0429_8.PackingList;
+import com.netflix.imflibrary.st0429_9.AssetMap;
+import com.netflix.imflibrary.st0429_9.BasicMapProfileV2MappedFileSet;
+import com.netflix.imflibrary.utils.ErrorLogger;
+import com.netflix.imflibrary.utils.Utilities;
+import com.netflix.imflibrary.writerTools.utils.IMFUUIDGenerator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tests that verify the incremental update of the PackingList and AssetMap of an IMP
+ */
+@Test(groups = "functional")
+public class IMPUpdaterTest {
+
+    private static final String PACKAGE = "TestIMP/MERIDIAN_Netflix_Photon_161006/";
+    private static final String CPL_UUID = "0eb3d1b9-b77b-4d3f-bbe5-7c69b15dca85";
+
+    @Test
+    public void addSupplementalAssetsTest() throws Exception {
+        Path packageDirectory = copyPackage();
+        try {
+            Path assetMapPath = packageDirectory.resolve(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME);
+            String assetMapXML = new String(Files.readAllBytes(assetMapPath), StandardCharsets.UTF_8);
+            Files.write(assetMapPath, assetMapXML.replace("<Id>urn:uuid:" + CPL_UUID + "</Id>",
+                    "<Id>urn:uuid:" + CPL_UUID + "</Id><AnnotationText language=\"fr\">Composition</AnnotationText>").getBytes(StandardCharsets.UTF_8));
+            PackingList originalPackingList = new PackingList(packageDirectory.resolve("PKL_f5e93462-aed2-44ad-a4ba-2adb65823e7c.xml"));
+            Map<UUID, PackingList.Asset> originalAssets = new HashMap<>();
+            for (PackingList.Asset asset : originalPackingList.getAssets()) {
+                originalAssets.put(asset.getUUID(), asset);
+            }
+
+            IMPUpdater impUpdater = new IMPUpdater(packageDirectory);
+            Path supplementalCPL = TestHelper.findResourceByPath("TestIMP/Netflix_Sony_Plugfest_2015/CPL_BLACKL_202_HD_REC709_178_ENG_fe8cf2f4-1bcd-4145-8f72-6775af4038c4_supplemental.xml");
+            UUID cplUUID = impUpdater.addCompositionPlaylist(supplementalCPL);
+            Path sidecar = packageDirectory.resolve("sidecar.txt");
+            Files.write(sidecar, "sidecar".getBytes(StandardCharsets.UTF_8));
+            UUID sidecarUUID = IMFUUIDGenerator.getInstance().generateUUID();
+            impUpdater.addAsset(sidecarUUID, sidecar, PackingListBuilder.PKLAssetTypeEnum.UNDEFINED);
+            List<ErrorLogger.ErrorObject> errors = impUpdater.update("Supplemental", "Netflix");
+            Assert.assertEquals(errors.size(), 0, errors.toString());
+
+            /* The track files are not part of the copy, so they cannot have been read while updating the package */
+            Assert.assertFalse(Files.exists(packageDirectory.resolve("PKL_f5e93462-aed2-44ad-a4ba-2adb65823e7c.xml")));
+            Assert.assertTrue(Files.isRegularFile(packageDirectory.resolve("CPL_BLACKL_202_HD_REC709_178_ENG_fe8cf2f4-1bcd-4145-8f72-6775af4038c4_supplemental.xml")));
+
+            AssetMap assetMap = new AssetMap(packageDirectory.resolve(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME));
+            Assert.assertEquals(assetMap.getPackingListAssets().size(), 1);
+            Assert.assertEquals(assetMap.getPackingListAssets().get(0).getUUID(), impUpdater.getPackingListId());
+            Assert.assertEquals(assetMap.getPath(sidecarUUID).toString(), "sidecar.txt");
+            /* The annotation text of the update only describes the new PackingList, the other Assets keep their own */
+            for (AssetMap.Asset asset : assetMap.getAssetList()) {
+                if (asset.isPackingList()) {
+                    Assert.assertEquals(asset.getAnnotationText(), "Supplemental");
+                    Assert.assertNull(asset.getAnnotationTextLanguage());
+                }
+                else if (asset.getUUID().equals(UUID.fromString(CPL_UUID))) {
+                    Assert.assertEquals(asset.getAnnotationText(), "Composition");
+                    Assert.assertEquals(asset.getAnnotationTextLanguage(), "fr");
+                }
+                else {
+                    Assert.assertNull(asset.getAnnotationText());
+                }
+            }
+
+            PackingList packingList = new PackingList(impUpdater.getPackingListPath());
+            Assert.assertEquals(packingList.getUUID(), impUpdater.getPackingListId());
+            Assert.assertEquals(packingList.getAssets().size(), originalAssets.size() + 2);
+            for (PackingList.Asset asset : packingList.getAssets()) {
+                PackingList.Asset originalAsset = originalAssets.get(asset.getUUID());
+                if (originalAsset != null) {
+                    Assert.assertEquals(asset.getHash(), originalAsset.getHash());
+                    Assert.assertEquals(asset.getSize(), originalAsset.getSize());
+                    Assert.assertNotNull(assetMap.getPath(asset.getUUID()));
+                }
+                else {
+                    Assert.assertTrue(asset.getUUID().equals(cplUUID) || asset.getUUID().equals(sidecarUUID));
+                }
+            }
+        }
+        finally {
+            Utilities.recursivelyDeleteFolder(packageDirectory);
+        }
+    }
+
+    @Test
+    public void replaceAssetTest() throws Exception {
+        Path packageDirectory = copyPackage();
+        try {
+            IMPUpdater impUpdater = new IMPUpdater(packageDirectory);
+            UUID oplUUID = impUpdater.addOutputProfileList(packageDirectory.resolve("OPL_8cf83c32-4949-4f00-b081-01e12b18932f.xml"));
+            int numberOfAssets = impUpdater.getAssetIds().size();
+            UUID firstPackingListId = impUpdater.getPackingListId();
+            impUpdater.update("Replaced", "Netflix");
+            Assert.assertNotEquals(impUpdater.getPackingListId(), firstPackingListId);
+
+            /* An updater can be updated again, the previous update becomes the existing package */
+            Assert.assertTrue(impUpdater.removeAsset(oplUUID));
+            impUpdater.update("Removed", "Netflix");
+            IMPUpdater reloaded = new IMPUpdater(packageDirectory);
+            Assert.assertEquals(reloaded.getAssetIds().size(), numberOfAssets - 1);
+            Assert.assertFalse(reloaded.getAssetIds().contains(oplUUID));
+            Assert.assertEquals(reloaded.getPackingListId(), impUpdater.getPackingListId());
+        }
+        finally {
+            Utilities.recursivelyDeleteFolder(packageDirectory);
+        }
+    }
+
+    private static Path copyPackage() throws Exception {
+        Path packageDirectory = Files.createTempDirectory("IMPUpdaterTest");
+        for (String fileName : Arrays.asList(BasicMapProfileV2MappedFileSet.ASSETMAP_FILE_NAME,
+                "PKL_f5e93462-aed2-44ad-a4ba-2adb65823e7c.xml",
+                "CPL_0eb3d1b9-b77b-4d3f-bbe5-7c69b15dca85.xml",
+                "OPL_8cf83c32-4949-4f00-b081-01e12b18932f.xml",
+                "VOLINDEX.xml")) {
+            Files.copy(TestHelper.findResourceByPath(PACKAGE + fileName), packageDirectory.resolve(fileName));
+        }
+        return packageDirectory;
+    }
+}
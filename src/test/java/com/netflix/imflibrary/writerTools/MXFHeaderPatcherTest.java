@@ -0,0 +1,178 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.MXFUID;
+import com.netflix.imflibrary.exceptions.IMFAuthoringException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Tests that verify the in place patching of MXF header metadata
+ */
+@Test(groups = "functional")
+public class MXFHeaderPatcherTest {
+
+    private static final MXFUID RFC_5646_SPOKEN_LANGUAGE_UL = new MXFUID(new byte[]{0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x0d, 0x03, 0x01, 0x01, 0x02, 0x03, 0x15, 0x00, 0x00});
+    private static final MXFUID UNREGISTERED_ITEM_UL = new MXFUID(new byte[]{0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x0e, 0x0e, 0x7f, 0x7f, 0x7f, 0x00, 0x00, 0x00, 0x00});
+    private static final int SOUNDFIELD_GROUP_LABEL_SUB_DESCRIPTOR_SET_KIND = 0x6c;
+    private static final byte[] KLV_FILL_ITEM_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x02, 0x03, 0x01, 0x02, 0x10, 0x01, 0x00, 0x00, 0x00};
+
+    //offsets of the track file, whose IndexTable is held by a body partition that precedes the footer partition
+    private static final int INDEX_PARTITION_BYTE_OFFSET = 589971;
+    private static final int FOOTER_PARTITION_BYTE_OFFSET = 590212;
+    private static final int HEADER_BYTE_COUNT_OFFSET = 32;
+    private static final int INDEX_BYTE_COUNT_OFFSET = 40;
+    private static final int INDEX_SID_OFFSET = 48;
+
+    @Test
+    public void patchSpokenLanguageTest() throws Exception {
+        Path trackFile = copyTrackFile();
+        long fileSize = Files.size(trackFile);
+
+        MXFHeaderPatcher mxfHeaderPatcher = new MXFHeaderPatcher(trackFile);
+        MXFHeaderPatcher.LocalSet soundfieldGroup = getSoundfieldGroupLabelSubDescriptor(mxfHeaderPatcher);
+        soundfieldGroup.setValue(RFC_5646_SPOKEN_LANGUAGE_UL, "fr".getBytes(StandardCharsets.ISO_8859_1));
+        //a property that is absent from the primer pack requires a dynamic local tag
+        soundfieldGroup.setValue(UNREGISTERED_ITEM_UL, new byte[]{1, 2, 3});
+        MXFHeaderPatcher.PatchResult patchResult = mxfHeaderPatcher.patch();
+
+        Assert.assertEquals(Files.size(trackFile), fileSize);
+        Assert.assertTrue(patchResult.getPatchedPartitions().contains(0L));
+        Assert.assertTrue(patchResult.getBytesWritten() < fileSize);
+
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        HeaderPartition headerPartition = HeaderPartition.fromPath(trackFile, imfErrorLogger);
+        Assert.assertEquals(headerPartition.getAudioEssenceSpokenLanguage(), "fr");
+
+        MXFHeaderPatcher reloaded = new MXFHeaderPatcher(trackFile);
+        MXFHeaderPatcher.LocalSet patched = reloaded.getLocalSet(soundfieldGroup.getInstanceUID());
+        Assert.assertEquals(new String(patched.getValue(RFC_5646_SPOKEN_LANGUAGE_UL), StandardCharsets.ISO_8859_1), "fr");
+        Assert.assertEquals(patched.getValue(UNREGISTERED_ITEM_UL), new byte[]{1, 2, 3});
+        Assert.assertFalse(patched.isModified());
+        Assert.assertEquals(reloaded.getLocalSets().size(), mxfHeaderPatcher.getLocalSets().size());
+    }
+
+    @Test
+    public void patchThatDoesNotFitLeavesFileUntouchedTest() throws Exception {
+        Path trackFile = copyTrackFile();
+        byte[] original = Files.readAllBytes(trackFile);
+
+        MXFHeaderPatcher mxfHeaderPatcher = new MXFHeaderPatcher(trackFile);
+        MXFHeaderPatcher.LocalSet soundfieldGroup = getSoundfieldGroupLabelSubDescriptor(mxfHeaderPatcher);
+        soundfieldGroup.setValue(RFC_5646_SPOKEN_LANGUAGE_UL, new byte[(int) mxfHeaderPatcher.getHeadroom() + 1024]);
+        Assert.assertTrue(mxfHeaderPatcher.getHeadroom() < 0);
+        try {
+            mxfHeaderPatcher.patch();
+            Assert.fail("Expected an IMFAuthoringException");
+        }
+        catch (IMFAuthoringException e) {
+            Assert.assertEquals(Files.readAllBytes(trackFile), original);
+        }
+    }
+
+    @Test
+    public void patchThatDropsFooterHeaderMetadataKeepsIndexTest() throws Exception {
+        Path trackFile = moveIndexTableToFooter(copyTrackFile());
+        EssenceIndex original = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        long headerByteCount = ByteBuffer.wrap(Files.readAllBytes(trackFile)).getLong(FOOTER_PARTITION_BYTE_OFFSET + 20 + HEADER_BYTE_COUNT_OFFSET);
+
+        //the header metadata of the footer partition has no fill, so it cannot grow and is dropped
+        MXFHeaderPatcher mxfHeaderPatcher = new MXFHeaderPatcher(trackFile);
+        MXFHeaderPatcher.LocalSet soundfieldGroup = getSoundfieldGroupLabelSubDescriptor(mxfHeaderPatcher);
+        soundfieldGroup.setValue(RFC_5646_SPOKEN_LANGUAGE_UL, "fr".getBytes(StandardCharsets.ISO_8859_1));
+        soundfieldGroup.setValue(UNREGISTERED_ITEM_UL, new byte[]{1, 2, 3});
+        MXFHeaderPatcher.PatchResult patchResult = mxfHeaderPatcher.patch();
+        Assert.assertTrue(patchResult.getPatchedPartitions().contains(0L));
+        Assert.assertTrue(patchResult.getDroppedPartitions().contains((long) FOOTER_PARTITION_BYTE_OFFSET));
+
+        byte[] patched = Files.readAllBytes(trackFile);
+        Assert.assertEquals(ByteBuffer.wrap(patched).getLong(FOOTER_PARTITION_BYTE_OFFSET + 20 + HEADER_BYTE_COUNT_OFFSET), headerByteCount);
+        EssenceIndex essenceIndex = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(essenceIndex.getEditUnitCount(), original.getEditUnitCount());
+        Assert.assertEquals(essenceIndex.getEditUnitByteCount(), original.getEditUnitByteCount());
+
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        Assert.assertEquals(HeaderPartition.fromPath(trackFile, imfErrorLogger).getAudioEssenceSpokenLanguage(), "fr");
+        //the dropped header metadata is not a copy of the header metadata any more
+        MXFHeaderPatcher reloaded = new MXFHeaderPatcher(trackFile);
+        getSoundfieldGroupLabelSubDescriptor(reloaded).setValue(RFC_5646_SPOKEN_LANGUAGE_UL, "de".getBytes(StandardCharsets.ISO_8859_1));
+        MXFHeaderPatcher.PatchResult repatchResult = reloaded.patch();
+        Assert.assertEquals(repatchResult.getPatchedPartitions().size(), 1);
+        Assert.assertTrue(repatchResult.getDroppedPartitions().isEmpty());
+        Assert.assertEquals(EssenceIndex.fromResource(new FileByteRangeProvider(trackFile)).getEditUnitCount(), original.getEditUnitCount());
+    }
+
+    /**
+     * Moves the IndexTable segment of the track file behind the header metadata of the footer partition, so that the
+     * IndexTable is only found through the HeaderByteCount of the footer partition
+     */
+    private static Path moveIndexTableToFooter(Path trackFile) throws Exception {
+        byte[] bytes = Files.readAllBytes(trackFile);
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        int partitionPackSize = 20 + (byteBuffer.getInt(INDEX_PARTITION_BYTE_OFFSET + 16) & 0x00ffffff);
+        int indexStart = INDEX_PARTITION_BYTE_OFFSET + partitionPackSize;
+        int indexByteCount = (int) byteBuffer.getLong(INDEX_PARTITION_BYTE_OFFSET + 20 + INDEX_BYTE_COUNT_OFFSET);
+        long indexSID = byteBuffer.getInt(INDEX_PARTITION_BYTE_OFFSET + 20 + INDEX_SID_OFFSET);
+        byte[] indexTableSegment = Arrays.copyOfRange(bytes, indexStart, indexStart + indexByteCount);
+        System.arraycopy(KLV_FILL_ITEM_KEY, 0, bytes, indexStart, KLV_FILL_ITEM_KEY.length);
+
+        int footerPartitionPackSize = 20 + (byteBuffer.getInt(FOOTER_PARTITION_BYTE_OFFSET + 16) & 0x00ffffff);
+        int footerHeaderMetadataEnd = FOOTER_PARTITION_BYTE_OFFSET + footerPartitionPackSize
+                + (int) byteBuffer.getLong(FOOTER_PARTITION_BYTE_OFFSET + 20 + HEADER_BYTE_COUNT_OFFSET);
+        byteBuffer.putLong(FOOTER_PARTITION_BYTE_OFFSET + 20 + INDEX_BYTE_COUNT_OFFSET, indexByteCount);
+        byteBuffer.putInt(FOOTER_PARTITION_BYTE_OFFSET + 20 + INDEX_SID_OFFSET, (int) indexSID);
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        byteArrayOutputStream.write(bytes, 0, footerHeaderMetadataEnd);
+        byteArrayOutputStream.write(indexTableSegment);
+        byteArrayOutputStream.write(bytes, footerHeaderMetadataEnd, bytes.length - footerHeaderMetadataEnd);
+        return Files.write(trackFile, byteArrayOutputStream.toByteArray());
+    }
+
+    private static MXFHeaderPatcher.LocalSet getSoundfieldGroupLabelSubDescriptor(MXFHeaderPatcher mxfHeaderPatcher) {
+        for (MXFHeaderPatcher.LocalSet localSet : mxfHeaderPatcher.getLocalSets()) {
+            if (localSet.getKey()[14] == SOUNDFIELD_GROUP_LABEL_SUB_DESCRIPTOR_SET_KIND) {
+                return localSet;
+            }
+        }
+        throw new AssertionError("No SoundfieldGroupLabelSubDescriptor found");
+    }
+
+    private static Path copyTrackFile() throws Exception {
+        Path source = TestHelper.findResourceByPath("TestIMP/MERIDIAN_Netflix_Photon_161006/MERIDIAN_Netflix_Photon_161006_ENG-51_00.mxf");
+        Path target = Files.createTempFile("MXFHeaderPatcherTest", ".mxf");
+        target.toFile().deleteOnExit();
+        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
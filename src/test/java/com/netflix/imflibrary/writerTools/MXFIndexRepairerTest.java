@@ -0,0 +1,203 @@
+/*
+ *
+ * Copyright 2015 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.netflix.imflibrary.writerTools;
+
+import com.netflix.imflibrary.IMFErrorLogger;
+import com.netflix.imflibrary.IMFErrorLoggerImpl;
+import com.netflix.imflibrary.MXFStructureAuditor;
+import com.netflix.imflibrary.exceptions.MXFException;
+import com.netflix.imflibrary.st0377.EssenceIndex;
+import com.netflix.imflibrary.st0377.HeaderPartition;
+import com.netflix.imflibrary.st0377.PartitionPack;
+import com.netflix.imflibrary.st0377.ReconstructedIndexTable;
+import com.netflix.imflibrary.utils.ByteArrayDataProvider;
+import com.netflix.imflibrary.utils.FileByteRangeProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import testUtils.TestHelper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Tests that verify the in place repair of the IndexTable of a track file
+ */
+@Test(groups = "functional")
+public class MXFIndexRepairerTest {
+
+    private static final String ISXD_TRACK_FILE = "TestIMP/ISXD/CompleteIMP/ISXD_TEST_1_01_dovi_isxd.mxf";
+    private static final String CLIP_WRAPPED_AUDIO = "TestIMP/HT/IMP/AUDIO_b285d8f3-0294-4207-8ea8-4f0b72314213.mxf";
+    private static final String IAB_TRACK_FILE = "TestIMP/IAB/MXF/meridian_2398_IAB_5f.mxf";
+    private static final byte[] INDEX_TABLE_SEGMENT_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x02, 0x53, 0x01, 0x01, 0x0d, 0x01, 0x02, 0x01, 0x01, 0x10, 0x01, 0x00};
+    private static final byte[] KLV_FILL_ITEM_KEY = {0x06, 0x0e, 0x2b, 0x34, 0x01, 0x01, 0x01, 0x02, 0x03, 0x01, 0x02, 0x10, 0x01, 0x00, 0x00, 0x00};
+
+    @Test
+    public void repairMissingIndexTableTest() throws Exception {
+        Path source = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        EssenceIndex original = EssenceIndex.fromResource(new FileByteRangeProvider(source));
+        Path trackFile = copyTrackFile(source);
+        Assert.assertEquals(removeIndexTableSegments(trackFile, Integer.MAX_VALUE), 6);
+        try {
+            EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+            Assert.fail("The track file still contains an IndexTable");
+        } catch (MXFException e) {
+            //expected
+        }
+
+        MXFIndexRepairer mxfIndexRepairer = new MXFIndexRepairer(trackFile);
+        ReconstructedIndexTable reconstructedIndexTable = mxfIndexRepairer.reconstruct();
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitCount(), original.getEditUnitCount());
+        MXFIndexRepairer.RepairResult repairResult = mxfIndexRepairer.writeIndexedFooter(reconstructedIndexTable);
+        Assert.assertEquals(repairResult.getIndexByteCount(), (long) reconstructedIndexTable.getIndexTableSegmentBytes().length);
+        Assert.assertTrue(repairResult.getPatchedPartitions().isEmpty());
+
+        EssenceIndex repaired = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(repaired.getEditUnitCount(), original.getEditUnitCount());
+        for (long editUnit = 0; editUnit < original.getEditUnitCount(); editUnit++) {
+            Assert.assertEquals(repaired.getFileOffset(editUnit), original.getFileOffset(editUnit));
+            Assert.assertEquals(repaired.getEditUnitSize(editUnit), original.getEditUnitSize(editUnit));
+        }
+        assertWellFormed(trackFile);
+    }
+
+    @Test
+    public void repairClipWrappedAudioTest() throws Exception {
+        Path source = TestHelper.findResourceByPath(CLIP_WRAPPED_AUDIO);
+        EssenceIndex original = EssenceIndex.fromResource(new FileByteRangeProvider(source));
+        Path trackFile = copyTrackFile(source);
+        MXFIndexRepairer mxfIndexRepairer = new MXFIndexRepairer(trackFile);
+        ReconstructedIndexTable reconstructedIndexTable = mxfIndexRepairer.reconstruct();
+        Assert.assertEquals(reconstructedIndexTable.getIndexEditRate().getNumerator(), 48000L);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), 6L);
+
+        MXFIndexRepairer.RepairResult repairResult = mxfIndexRepairer.writeIndexedFooter(reconstructedIndexTable);
+        EssenceIndex repaired = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(repaired.getEditUnitCount(), reconstructedIndexTable.getEditUnitCount());
+        Assert.assertEquals(repaired.getEditUnitByteCount(), 6L);
+        //the repaired IndexTable locates the edit units where the original one does
+        Assert.assertEquals(repaired.getEditUnitCount(), 64068L);
+        Assert.assertEquals(repaired.getEditUnitCount(), original.getEditUnitCount());
+        for (long editUnit = 0; editUnit < original.getEditUnitCount(); editUnit++) {
+            Assert.assertEquals(repaired.getFileOffset(editUnit), original.getFileOffset(editUnit));
+            Assert.assertEquals(repaired.getEditUnitSize(editUnit), original.getEditUnitSize(editUnit));
+        }
+        Assert.assertTrue(repairResult.getFooterPartitionByteOffset() < Files.size(trackFile));
+        //the IndexTable of the body partition has the IndexSID of the footer IndexTable
+        Assert.assertEquals(repairResult.getClearedIndexPartitions().size(), 1);
+        assertWellFormed(trackFile);
+    }
+
+    @Test
+    public void repairSparseIndexTableTest() throws Exception {
+        Path source = TestHelper.findResourceByPath(ISXD_TRACK_FILE);
+        EssenceIndex original = EssenceIndex.fromResource(new FileByteRangeProvider(source));
+        Path trackFile = copyTrackFile(source);
+        //the IndexTable segments of the last partitions remain, with the IndexSID of the rebuilt IndexTable
+        Assert.assertEquals(removeIndexTableSegments(trackFile, 3), 3);
+
+        MXFIndexRepairer mxfIndexRepairer = new MXFIndexRepairer(trackFile);
+        ReconstructedIndexTable reconstructedIndexTable = mxfIndexRepairer.reconstruct();
+        Assert.assertEquals(reconstructedIndexTable.getIndexSID(), 129L);
+        MXFIndexRepairer.RepairResult repairResult = mxfIndexRepairer.writeIndexedFooter(reconstructedIndexTable);
+        Assert.assertEquals(repairResult.getClearedIndexPartitions().size(), 6);
+        //the footer partition holds the only IndexTable segments, and no partition pack refers to the cleared ones
+        byte[] bytes = Files.readAllBytes(trackFile);
+        Assert.assertEquals(indexOf(bytes, INDEX_TABLE_SEGMENT_KEY, 0), indexOf(bytes, INDEX_TABLE_SEGMENT_KEY, (int) repairResult.getFooterPartitionByteOffset()));
+        for (long partitionOffset : repairResult.getClearedIndexPartitions()) {
+            PartitionPack partitionPack = new PartitionPack(new ByteArrayDataProvider(Arrays.copyOfRange(bytes, (int) partitionOffset, (int) partitionOffset + 140)),
+                    partitionOffset, false);
+            Assert.assertEquals(partitionPack.getIndexByteCount(), 0L);
+            Assert.assertEquals(partitionPack.getIndexSID(), 0L);
+        }
+
+        EssenceIndex repaired = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(repaired.getEditUnitCount(), original.getEditUnitCount());
+        for (long editUnit = 0; editUnit < original.getEditUnitCount(); editUnit++) {
+            Assert.assertEquals(repaired.getFileOffset(editUnit), original.getFileOffset(editUnit));
+        }
+        assertWellFormed(trackFile);
+    }
+
+    @Test
+    public void repairClipWrappedIABTest() throws Exception {
+        Path source = TestHelper.findResourceByPath(IAB_TRACK_FILE);
+        EssenceIndex original = EssenceIndex.fromResource(new FileByteRangeProvider(source));
+        Path trackFile = copyTrackFile(source);
+        Assert.assertEquals(removeIndexTableSegments(trackFile, Integer.MAX_VALUE), 1);
+
+        MXFIndexRepairer mxfIndexRepairer = new MXFIndexRepairer(trackFile);
+        ReconstructedIndexTable reconstructedIndexTable = mxfIndexRepairer.reconstruct();
+        Assert.assertEquals(reconstructedIndexTable.getIndexEditRate().getNumerator(), 24000L);
+        Assert.assertEquals(reconstructedIndexTable.getEditUnitByteCount(), 0L);
+        mxfIndexRepairer.writeIndexedFooter(reconstructedIndexTable);
+
+        EssenceIndex repaired = EssenceIndex.fromResource(new FileByteRangeProvider(trackFile));
+        Assert.assertEquals(repaired.getEditUnitCount(), original.getEditUnitCount());
+        for (long editUnit = 0; editUnit < original.getEditUnitCount(); editUnit++) {
+            Assert.assertEquals(repaired.getFileOffset(editUnit), original.getFileOffset(editUnit));
+            Assert.assertEquals(repaired.getEditUnitSize(editUnit), original.getEditUnitSize(editUnit));
+        }
+        assertWellFormed(trackFile);
+    }
+
+    private static void assertWellFormed(Path trackFile) throws Exception {
+        IMFErrorLogger imfErrorLogger = new IMFErrorLoggerImpl();
+        new MXFStructureAuditor().audit(trackFile, imfErrorLogger);
+        Assert.assertEquals(imfErrorLogger.getErrors().size(), 0, imfErrorLogger.getErrors().toString());
+        Assert.assertNotNull(HeaderPartition.fromPath(trackFile, new IMFErrorLoggerImpl()));
+    }
+
+    /**
+     * Turns the first IndexTable segments of a track file into KLV fill, as if the track file had been written without
+     * an IndexTable or with a sparse IndexTable
+     */
+    private static int removeIndexTableSegments(Path trackFile, int maxCount) throws Exception {
+        byte[] bytes = Files.readAllBytes(trackFile);
+        int count = 0;
+        for (int i = 0; i + INDEX_TABLE_SEGMENT_KEY.length <= bytes.length && count < maxCount; i++) {
+            int j = 0;
+            while (j < INDEX_TABLE_SEGMENT_KEY.length && bytes[i + j] == INDEX_TABLE_SEGMENT_KEY[j]) {
+                j++;
+            }
+            if (j == INDEX_TABLE_SEGMENT_KEY.length) {
+                System.arraycopy(KLV_FILL_ITEM_KEY, 0, bytes, i, KLV_FILL_ITEM_KEY.length);
+                count++;
+            }
+        }
+        Files.write(trackFile, bytes);
+        return count;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] key, int start) {
+        for (int i = start; i + key.length <= bytes.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + key.length), key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Path copyTrackFile(Path source) throws Exception {
+        Path target = Files.createTempFile("MXFIndexRepairerTest", ".mxf");
+        target.toFile().deleteOnExit();
+        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -29,6 +29,9 @@ import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
@@ -94,6 +97,37 @@ public final class TestHelper
                 String.format("Expected no error at or above %s, but the reported errors were: %s", level, errors));
     }
 
+    /**
+     * A task that runs on an Executor, such as the concurrent counterpart of a sequential scan
+     * @param <T> the type of the result of the task
+     * @param <E> the type of the exception thrown by the task
+     */
+    @FunctionalInterface
+    public interface ExecutorTask<T, E extends Exception>
+    {
+        T run(Executor executor) throws E;
+    }
+
+    /**
+     * Runs a task on a fixed thread pool, that is shut down once the task completes
+     * @param threadCount the number of threads of the pool
+     * @param task the task
+     * @return the result of the task
+     * @throws E the exception thrown by the task
+     */
+    public static <T, E extends Exception> T runWithFixedThreadPool(int threadCount, ExecutorTask<T, E> task) throws E
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            return task.run(executorService);
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+    }
+
     public static Object getValue(Object obj, String fieldName)
     {
         try